@@ -0,0 +1,174 @@
+/*
+ * Contributions to FindBugs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package de.tobject.findbugs.reporter.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.tobject.findbugs.FindbugsPlugin;
+import de.tobject.findbugs.marker.FindBugsMarker;
+import de.tobject.findbugs.preferences.FindBugsConstants;
+import de.tobject.findbugs.reporter.MarkerParameter;
+import de.tobject.findbugs.reporter.MarkerReporter;
+import de.tobject.findbugs.reporter.MarkerUtil;
+import de.tobject.findbugs.test.AbstractFindBugsTest;
+import de.tobject.findbugs.test.TestScenario;
+import edu.umd.cs.findbugs.SortedBugCollection;
+import edu.umd.cs.findbugs.config.ProjectFilterSettings;
+
+/**
+ * This class tests the reconciliation of existing markers with new warnings
+ * done by the MarkerReporter.
+ */
+public class MarkerReporterTest extends AbstractFindBugsTest {
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        setUpTestProject(TestScenario.DEFAULT);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws CoreException {
+        tearDownTestProject();
+    }
+
+    @After
+    public void resetIncrementalMarkers() {
+        getPreferenceStore().setToDefault(FindBugsConstants.KEY_INCREMENTAL_MARKERS);
+    }
+
+    @Test
+    public void testReconcileKeepsMatchingMarkers() throws CoreException {
+        loadXml(createFindBugsWorker(), getBugsFileLocation());
+        Set<IMarker> before = getAllMarkers();
+        assertEquals(getVisibleBugsCount(), before.size());
+
+        reconcile(getVisibleMarkerParameters(), new HashSet<IMarker>(before), new NullProgressMonitor());
+
+        assertEquals(before, getAllMarkers());
+    }
+
+    @Test
+    public void testReconcileAddsAndRemovesMarkers() throws CoreException {
+        loadXml(createFindBugsWorker(), getBugsFileLocation());
+        Set<IMarker> before = getAllMarkers();
+        List<MarkerParameter> parameters = getVisibleMarkerParameters();
+        assertTrue(parameters.size() >= 2);
+
+        // the first warning is gone, the second one got a twin two lines below
+        MarkerParameter removed = parameters.remove(0);
+        MarkerParameter moved = parameters.get(0);
+        int addedLine = moved.primaryLine.intValue() + 2;
+        parameters.add(new MarkerParameter(moved.bug, moved.resource, moved.startLine.intValue() + 2, addedLine));
+
+        reconcile(parameters, new HashSet<IMarker>(before), new NullProgressMonitor());
+
+        Set<IMarker> after = getAllMarkers();
+        assertEquals(before.size(), after.size());
+        Set<IMarker> kept = new HashSet<IMarker>(before);
+        kept.retainAll(after);
+        assertEquals(before.size() - 1, kept.size());
+
+        Set<IMarker> gone = new HashSet<IMarker>(before);
+        gone.removeAll(after);
+        assertEquals(1, gone.size());
+        IMarker removedMarker = gone.iterator().next();
+        assertFalse(removedMarker.exists());
+        assertEquals(removed.resource.getMarkerTarget(), removedMarker.getResource());
+
+        Set<IMarker> added = new HashSet<IMarker>(after);
+        added.removeAll(before);
+        assertEquals(1, added.size());
+        IMarker addedMarker = added.iterator().next();
+        assertEquals(moved.resource.getMarkerTarget(), addedMarker.getResource());
+        assertEquals(Integer.valueOf(addedLine), addedMarker.getAttribute(FindBugsMarker.PRIMARY_LINE));
+        assertEquals(moved.bug.getInstanceHash(), addedMarker.getAttribute(FindBugsMarker.UNIQUE_ID));
+    }
+
+    @Test
+    public void testReconcileCutShortRemovesStaleMarkers() throws CoreException {
+        loadXml(createFindBugsWorker(), getBugsFileLocation());
+        Set<IMarker> before = getAllMarkers();
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+
+        reconcile(getVisibleMarkerParameters(), new HashSet<IMarker>(before), monitor);
+
+        // nothing was reused, so none of the old markers may survive
+        for (IMarker marker : before) {
+            assertFalse(marker.exists());
+        }
+        assertNoMarkers(MarkerUtil.getAllMarkers(getProject()));
+    }
+
+    @Test
+    public void testIncrementalMarkersSurviveReanalysis() throws CoreException {
+        getPreferenceStore().setValue(FindBugsConstants.KEY_INCREMENTAL_MARKERS, true);
+        work(createFindBugsWorker());
+        Set<IMarker> before = getAllMarkers();
+        assertExpectedMarkers(before);
+
+        work(createFindBugsWorker());
+
+        assertEquals(before, getAllMarkers());
+        assertExpectedBugs();
+    }
+
+    private Set<IMarker> getAllMarkers() {
+        return new HashSet<IMarker>(Arrays.asList(MarkerUtil.getAllMarkers(getProject())));
+    }
+
+    /**
+     * @return parameters of the warnings loaded into the bug collection of the
+     *         test project which are shown as markers
+     */
+    private List<MarkerParameter> getVisibleMarkerParameters() throws CoreException {
+        SortedBugCollection bugs = FindbugsPlugin.getBugCollection(getProject(), null, false);
+        ProjectFilterSettings filterSettings = FindbugsPlugin.getUserPreferences(getProject()).getFilterSettings();
+        List<MarkerParameter> result = new ArrayList<MarkerParameter>();
+        for (MarkerParameter mp : MarkerUtil.createBugParameters(getJavaProject(), bugs, new NullProgressMonitor())) {
+            if (mp.markerType != null && MarkerUtil.shouldDisplayWarning(mp.bug, filterSettings)) {
+                result.add(mp);
+            }
+        }
+        assertEquals(getVisibleBugsCount(), result.size());
+        return result;
+    }
+
+    private void reconcile(List<MarkerParameter> parameters, Set<IMarker> staleMarkers, NullProgressMonitor monitor)
+            throws CoreException {
+        SortedBugCollection bugs = FindbugsPlugin.getBugCollection(getProject(), null, false);
+        // as run by the marker job of MarkerUtil.createMarkers()
+        new MarkerReporter(parameters, bugs, getProject(), staleMarkers).run(monitor);
+    }
+}
@@ -168,7 +168,9 @@ public class FindBugsBuilder extends IncrementalProjectBuilder {
 
     /**
      * Run a FindBugs analysis on the given resource as build job BUT not
-     * delaying the current Java build
+     * delaying the current Java build. If the analysis should run as extra
+     * job, it is handed over to the {@link IncrementalAnalysisScheduler} of
+     * the project.
      *
      * @param part
      *
@@ -179,13 +181,13 @@ public class FindBugsBuilder extends IncrementalProjectBuilder {
     protected void work(final IResource resource, final List<WorkItem> resources, IProgressMonitor monitor) {
         IPreferenceStore store = FindbugsPlugin.getPluginPreferences(getProject());
         boolean runAsJob = store.getBoolean(FindBugsConstants.KEY_RUN_ANALYSIS_AS_EXTRA_JOB);
-        FindBugsJob fbJob = new StartedFromBuilderJob("Finding bugs in " + resource.getName() + "...", resource, resources);
         if(runAsJob) {
-            // run asynchronously, so there might be more similar jobs waiting to run
-            FindBugsJob.cancelSimilarJobs(fbJob);
-            fbJob.scheduleAsSystem();
+            // run asynchronously, together with the changes of the following
+            // builds, if they come soon enough
+            IncrementalAnalysisScheduler.getScheduler(getProject()).schedule(resources);
         } else {
             // run synchronously (in same thread)
+            FindBugsJob fbJob = new StartedFromBuilderJob("Finding bugs in " + resource.getName() + "...", resource, resources);
             fbJob.run(monitor);
         }
     }
@@ -24,13 +24,17 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 
+import javax.annotation.CheckForNull;
+
 import org.dom4j.DocumentException;
+import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
@@ -147,84 +151,97 @@ public class FindBugsWorker {
 
         st.newPoint("clearMarkers");
 
-        // clear markers
-        clearMarkers(resources);
+        // clear markers, or keep them to be updated with the new results
+        Set<IMarker> staleMarkers = null;
+        if (FindbugsPlugin.getPluginPreferences(project).getBoolean(FindBugsConstants.KEY_INCREMENTAL_MARKERS)) {
+            staleMarkers = detachMarkers(resources);
+        } else {
+            clearMarkers(resources);
+        }
 
-        st.newPoint("configureOutputFiles");
+        // Markers kept to be reconciled are removed if the analysis is
+        // cancelled or fails before they are handed to the marker reporter
+        try {
+            st.newPoint("configureOutputFiles");
 
-        final Project findBugsProject = new Project();
-        findBugsProject.setProjectName(javaProject.getElementName());
-        final Reporter bugReporter = new Reporter(javaProject, findBugsProject, monitor);
-        if (FindBugsConsole.getConsole() != null) {
-            bugReporter.setReportingStream(FindBugsConsole.getConsole().newOutputStream());
-        }
-        bugReporter.setPriorityThreshold(userPrefs.getUserDetectorThreshold());
+            final Project findBugsProject = new Project();
+            findBugsProject.setProjectName(javaProject.getElementName());
+            final Reporter bugReporter = new Reporter(javaProject, findBugsProject, monitor);
+            if (FindBugsConsole.getConsole() != null) {
+                bugReporter.setReportingStream(FindBugsConsole.getConsole().newOutputStream());
+            }
+            bugReporter.setPriorityThreshold(userPrefs.getUserDetectorThreshold());
 
-        FindBugs.setHome(FindbugsPlugin.getFindBugsEnginePluginLocation());
+            FindBugs.setHome(FindbugsPlugin.getFindBugsEnginePluginLocation());
 
-        Map<IPath, IPath> outLocations = createOutputLocations();
+            Map<IPath, IPath> outLocations = createOutputLocations();
 
-        // collect all related class/jar/war etc files for analysis
-        collectClassFiles(resources, outLocations, findBugsProject);
+            // collect all related class/jar/war etc files for analysis
+            collectClassFiles(resources, outLocations, findBugsProject);
 
-        // attach source directories (can be used by some detectors, see
-        // SwitchFallthrough)
-        configureSourceDirectories(findBugsProject, outLocations);
+            // attach source directories (can be used by some detectors, see
+            // SwitchFallthrough)
+            configureSourceDirectories(findBugsProject, outLocations);
 
-        if (findBugsProject.getFileCount() == 0) {
-            if (DEBUG) {
-                FindbugsPlugin.getDefault().logInfo("No resources to analyse for project " + project);
+            if (findBugsProject.getFileCount() == 0) {
+                if (DEBUG) {
+                    FindbugsPlugin.getDefault().logInfo("No resources to analyse for project " + project);
+                }
+                return;
             }
-            return;
-        }
 
-        st.newPoint("createAuxClasspath");
+            st.newPoint("createAuxClasspath");
 
-        String[] classPathEntries = createAuxClasspath();
-        // add to findbugs classpath
-        for (String entry : classPathEntries) {
-            findBugsProject.addAuxClasspathEntry(entry);
-        }
-        String cloudId = userPrefs.getCloudId();
-        if (cloudId != null) {
-            findBugsProject.setCloudId(cloudId);
-        }
+            String[] classPathEntries = createAuxClasspath();
+            // add to findbugs classpath
+            for (String entry : classPathEntries) {
+                findBugsProject.addAuxClasspathEntry(entry);
+            }
+            String cloudId = userPrefs.getCloudId();
+            if (cloudId != null) {
+                findBugsProject.setCloudId(cloudId);
+            }
 
 
-        st.newPoint("configureProps");
-        IPreferenceStore store = FindbugsPlugin.getPluginPreferences(project);
-        boolean cacheClassData = store.getBoolean(FindBugsConstants.KEY_CACHE_CLASS_DATA);
+            st.newPoint("configureProps");
+            IPreferenceStore store = FindbugsPlugin.getPluginPreferences(project);
+            boolean cacheClassData = store.getBoolean(FindBugsConstants.KEY_CACHE_CLASS_DATA);
 
-        final FindBugs2 findBugs = new FindBugs2Eclipse(project, cacheClassData, bugReporter);
-        findBugs.setNoClassOk(true);
-        findBugs.setProject(findBugsProject);
-        findBugs.setBugReporter(bugReporter);
-        findBugs.setProgressCallback(bugReporter);
+            final FindBugs2 findBugs = new FindBugs2Eclipse(project, cacheClassData, bugReporter);
+            findBugs.setNoClassOk(true);
+            findBugs.setProject(findBugsProject);
+            findBugs.setBugReporter(bugReporter);
+            findBugs.setProgressCallback(bugReporter);
 
-        findBugs.setDetectorFactoryCollection(DetectorFactoryCollection.instance());
+            findBugs.setDetectorFactoryCollection(DetectorFactoryCollection.instance());
 
-        // configure detectors.
-        userPrefs.setIncludeFilterFiles(relativeToAbsolute(userPrefs.getIncludeFilterFiles()));
-        userPrefs.setExcludeFilterFiles(relativeToAbsolute(userPrefs.getExcludeFilterFiles()));
-        userPrefs.setExcludeBugsFiles(relativeToAbsolute(userPrefs.getExcludeBugsFiles()));
-        findBugs.setUserPreferences(userPrefs);
+            // configure detectors.
+            userPrefs.setIncludeFilterFiles(relativeToAbsolute(userPrefs.getIncludeFilterFiles()));
+            userPrefs.setExcludeFilterFiles(relativeToAbsolute(userPrefs.getExcludeFilterFiles()));
+            userPrefs.setExcludeBugsFiles(relativeToAbsolute(userPrefs.getExcludeBugsFiles()));
+            findBugs.setUserPreferences(userPrefs);
 
-        // configure extended preferences
-        findBugs.setAnalysisFeatureSettings(userPrefs.getAnalysisFeatureSettings());
-        findBugs.setMergeSimilarWarnings(false);
+            // configure extended preferences
+            findBugs.setAnalysisFeatureSettings(userPrefs.getAnalysisFeatureSettings());
+            findBugs.setMergeSimilarWarnings(false);
 
-        if(cacheClassData) {
-            FindBugs2Eclipse.checkClassPathChanges(findBugs.getProject().getAuxClasspathEntryList(), project);
-        }
+            if(cacheClassData) {
+                FindBugs2Eclipse.checkClassPathChanges(findBugs.getProject().getAuxClasspathEntryList(), project);
+            }
 
-        st.newPoint("runFindBugs");
+            st.newPoint("runFindBugs");
 
-        runFindBugs(findBugs);
+            runFindBugs(findBugs);
 
-        // Merge new results into existing results
-        // if the argument is project, then it's not incremental
-        boolean incremental = !(resources.get(0) instanceof IProject);
-        updateBugCollection(findBugsProject, bugReporter, incremental);
+            // Merge new results into existing results
+            // if the argument is project, then it's not incremental
+            boolean incremental = !(resources.get(0) instanceof IProject);
+            updateBugCollection(findBugsProject, bugReporter, incremental, staleMarkers);
+            // from now on, MarkerUtil.createMarkers() takes care of them
+            staleMarkers = null;
+        } finally {
+            MarkerUtil.deleteMarkers(staleMarkers);
+        }
         st.newPoint("done");
         st = null;
         monitor.done();
@@ -261,7 +278,7 @@ public class FindBugsWorker {
 
         reportFromXml(fileName, findBugsProject, bugReporter);
         // Merge new results into existing results.
-        updateBugCollection(findBugsProject, bugReporter, false);
+        updateBugCollection(findBugsProject, bugReporter, false, null);
         monitor.done();
     }
 
@@ -343,6 +360,22 @@ public class FindBugsWorker {
             new RuntimeException("Found " + count + " dirty designations").printStackTrace(System.out);
         }
     }
+    /**
+     * Collect markers assotiated with given files, without removing them
+     *
+     * @param files
+     * @return markers which should be either updated or removed after analysis
+     */
+    private Set<IMarker> detachMarkers(List<WorkItem> files) throws CoreException {
+        Set<IMarker> markers = new HashSet<IMarker>();
+        for (WorkItem item : files) {
+            if (item != null) {
+                markers.addAll(item.detachMarkers());
+            }
+        }
+        return markers;
+    }
+
     /**
      * Update the BugCollection for the project.
      *
@@ -350,8 +383,12 @@ public class FindBugsWorker {
      *            FindBugs project representing analyzed classes
      * @param bugReporter
      *            Reporter used to collect the new warnings
+     * @param staleMarkers
+     *            markers of analyzed resources which are not removed yet, may
+     *            be null
      */
-    private void updateBugCollection(Project findBugsProject, Reporter bugReporter, boolean incremental) {
+    private void updateBugCollection(Project findBugsProject, Reporter bugReporter, boolean incremental,
+            @CheckForNull Set<IMarker> staleMarkers) {
         SortedBugCollection newBugCollection = bugReporter.getBugCollection();
         logDirty(newBugCollection);
         try {
@@ -380,7 +417,7 @@ public class FindBugsWorker {
 
         // will store bugs as markers in Eclipse workspace
         st.newPoint("createMarkers");
-        MarkerUtil.createMarkers(javaProject, newBugCollection, resource, monitor);
+        MarkerUtil.createMarkers(javaProject, newBugCollection, resource, staleMarkers, monitor);
     }
 
     private SortedBugCollection mergeBugCollections(SortedBugCollection firstCollection, SortedBugCollection secondCollection,
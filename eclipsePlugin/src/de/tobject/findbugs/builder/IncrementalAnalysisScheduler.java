@@ -0,0 +1,195 @@
+/*
+ * FindBugs Eclipse Plug-in.
+ * Copyright (C) 2003 - 2004, Peter Friese
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package de.tobject.findbugs.builder;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import de.tobject.findbugs.FindBugsJob;
+import edu.umd.cs.findbugs.plugin.eclipse.util.MutexSchedulingRule;
+
+/**
+ * Runs the analysis requested by the builder in the background. Work items of
+ * builds following each other quickly (like several saves in a row) are
+ * collected and analyzed together once the builds calmed down. A newer build
+ * cancels the analysis which is currently running for the same project; the
+ * items of the canceled analysis are analyzed again together with the new
+ * ones.
+ */
+final class IncrementalAnalysisScheduler {
+
+    /** Time (ms) to wait for further builds before the analysis is started */
+    private static final long DELAY = 500;
+
+    /**
+     * The schedulers only refer to their project weakly, and drop their last
+     * job once it is done, so that the entry of a project can be collected.
+     * Entries of closed or deleted projects are removed right away.
+     */
+    private static final Map<IProject, IncrementalAnalysisScheduler> schedulers = new WeakHashMap<IProject, IncrementalAnalysisScheduler>();
+
+    private static final IResourceChangeListener projectListener = new IResourceChangeListener() {
+        public void resourceChanged(IResourceChangeEvent event) {
+            if (event.getResource() instanceof IProject) {
+                IncrementalAnalysisScheduler scheduler = removeScheduler((IProject) event.getResource());
+                if (scheduler != null) {
+                    scheduler.cancel();
+                }
+            }
+        }
+    };
+
+    private final WeakReference<IProject> project;
+
+    /** items to analyze by the next job, guarded by this */
+    private final Set<WorkItem> pending = new LinkedHashSet<WorkItem>();
+
+    /** last scheduled job, guarded by this */
+    private AnalysisJob job;
+
+    private IncrementalAnalysisScheduler(IProject project) {
+        this.project = new WeakReference<IProject>(project);
+    }
+
+    static synchronized IncrementalAnalysisScheduler getScheduler(IProject project) {
+        IncrementalAnalysisScheduler scheduler = schedulers.get(project);
+        if (scheduler == null) {
+            if (schedulers.isEmpty()) {
+                int eventMask = IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE;
+                ResourcesPlugin.getWorkspace().addResourceChangeListener(projectListener, eventMask);
+            }
+            scheduler = new IncrementalAnalysisScheduler(project);
+            schedulers.put(project, scheduler);
+        }
+        return scheduler;
+    }
+
+    private static synchronized IncrementalAnalysisScheduler removeScheduler(IProject project) {
+        return schedulers.remove(project);
+    }
+
+    /**
+     * Schedule analysis of given items, together with all items which are
+     * still waiting for the analysis
+     */
+    synchronized void schedule(List<WorkItem> resources) {
+        IProject p = project.get();
+        if (p == null) {
+            // project was closed or deleted
+            return;
+        }
+        add(resources);
+        if (job != null) {
+            // if it is running, the job will hand its items back to us
+            job.cancel();
+        }
+        job = new AnalysisJob(p);
+        job.scheduleAsSystem(DELAY);
+    }
+
+    private void add(Collection<WorkItem> resources) {
+        for (WorkItem item : resources) {
+            if (item.getCorespondingResource() instanceof IProject) {
+                // project analysis includes everything else
+                pending.clear();
+                pending.add(item);
+                return;
+            }
+        }
+        if (pending.size() == 1 && pending.iterator().next().getCorespondingResource() instanceof IProject) {
+            return;
+        }
+        pending.addAll(resources);
+    }
+
+    private synchronized List<WorkItem> takePending() {
+        List<WorkItem> items = new ArrayList<WorkItem>(pending);
+        pending.clear();
+        return items;
+    }
+
+    private synchronized void requeue(List<WorkItem> resources) {
+        add(resources);
+    }
+
+    /**
+     * Forget the waiting items and stop the analysis of them
+     */
+    private synchronized void cancel() {
+        pending.clear();
+        if (job != null) {
+            job.cancel();
+            job = null;
+        }
+    }
+
+    private synchronized void finished(AnalysisJob finishedJob) {
+        if (job == finishedJob) {
+            job = null;
+        }
+    }
+
+    private final class AnalysisJob extends FindBugsJob {
+
+        AnalysisJob(IProject project) {
+            super("Finding bugs in " + project.getName() + "...", project);
+        }
+
+        void scheduleAsSystem(long delay) {
+            setUser(false);
+            setPriority(Job.BUILD);
+            schedule(delay);
+        }
+
+        @Override
+        protected boolean supportsMulticore() {
+            return MutexSchedulingRule.MULTICORE;
+        }
+
+        @Override
+        protected void runWithProgress(IProgressMonitor monitor) throws CoreException {
+            List<WorkItem> resources = takePending();
+            try {
+                if (!resources.isEmpty()) {
+                    FindBugsWorker worker = new FindBugsWorker((IProject) getResource(), monitor);
+                    worker.work(resources);
+                }
+            } finally {
+                if (monitor.isCanceled()) {
+                    requeue(resources);
+                }
+                finished(this);
+            }
+        }
+    }
+}
@@ -141,6 +141,24 @@ public class WorkItem {
         }
     }
 
+    /**
+     * Like {@link #clearMarkers()}, but instead of deleting the markers returns
+     * them, so that they can be reconciled with the new analysis results.
+     *
+     * @return markers which would be removed by {@link #clearMarkers()}
+     */
+    public Set<IMarker> detachMarkers() throws CoreException {
+        IResource res = getMarkerTarget();
+        IMarker[] allMarkers = MarkerUtil.getAllMarkers(res);
+        if (javaElt == null || !(res instanceof IProject)) {
+            if (res instanceof IProject) {
+                FindbugsPlugin.clearBugCollection((IProject) res);
+            }
+            return new HashSet<IMarker>(Arrays.asList(allMarkers));
+        }
+        return MarkerUtil.findMarkerForJavaElement(javaElt, allMarkers, true);
+    }
+
     public IProject getProject() {
         return project;
     }
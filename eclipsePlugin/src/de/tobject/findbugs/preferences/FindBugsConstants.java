@@ -42,6 +42,12 @@ public final class FindBugsConstants {
      */
     public final static String KEY_RUN_ANALYSIS_AS_EXTRA_JOB = "runAnalysisAsExtraJob";
 
+    /**
+     * Update existing markers after analysis instead of recreating all of them
+     * (experimental)
+     */
+    public final static String KEY_INCREMENTAL_MARKERS = "incrementalMarkers";
+
     /** marker severity to use for bugs with of concern tank */
     public final static String RANK_OFCONCERN_MARKER_SEVERITY = FindBugsMarker.TYPE_OF_CONCERN;
 
@@ -23,6 +23,7 @@ import static de.tobject.findbugs.preferences.FindBugsConstants.DISABLED_CATEGOR
 import static de.tobject.findbugs.preferences.FindBugsConstants.DONT_REMIND_ABOUT_FULL_BUILD;
 import static de.tobject.findbugs.preferences.FindBugsConstants.EXPORT_SORT_ORDER;
 import static de.tobject.findbugs.preferences.FindBugsConstants.KEY_CACHE_CLASS_DATA;
+import static de.tobject.findbugs.preferences.FindBugsConstants.KEY_INCREMENTAL_MARKERS;
 import static de.tobject.findbugs.preferences.FindBugsConstants.KEY_RUN_ANALYSIS_AS_EXTRA_JOB;
 import static de.tobject.findbugs.preferences.FindBugsConstants.ORDER_BY_NAME;
 import static de.tobject.findbugs.preferences.FindBugsConstants.RANK_OFCONCERN_MARKER_SEVERITY;
@@ -57,6 +58,7 @@ public class FindBugsPreferenceInitializer extends AbstractPreferenceInitializer
 
         store.setDefault(KEY_CACHE_CLASS_DATA, false);
         store.setDefault(KEY_RUN_ANALYSIS_AS_EXTRA_JOB, false);
+        store.setDefault(KEY_INCREMENTAL_MARKERS, false);
 
         store.setDefault(DISABLED_CATEGORIES, "EXPERIMENTAL,I18N,MALICIOUS_CODE,SECURITY");
         store.setDefault(RUN_ANALYSIS_AUTOMATICALLY, false);
@@ -109,6 +111,7 @@ public class FindBugsPreferenceInitializer extends AbstractPreferenceInitializer
 
         store.setToDefault(KEY_CACHE_CLASS_DATA);
         store.setToDefault(KEY_RUN_ANALYSIS_AS_EXTRA_JOB);
+        store.setToDefault(KEY_INCREMENTAL_MARKERS);
     }
 
 }
@@ -57,6 +57,8 @@ public class WorkspaceSettingsTab extends Composite {
 
     private Button runAsExtraJob;
 
+    private Button incrementalMarkers;
+
     public WorkspaceSettingsTab(TabFolder tabFolder, final FindbugsPropertyPage page, int style) {
         super(tabFolder, style);
         this.page = page;
@@ -81,6 +83,12 @@ public class WorkspaceSettingsTab extends Composite {
         cacheClassData.setToolTipText("Reuse .class data for the next FindBugs analysis. " +
                 "The cache will survive until the next project build.");
 
+        incrementalMarkers = new Button(this, SWT.CHECK);
+        incrementalMarkers.setSelection(store.getBoolean(FindBugsConstants.KEY_INCREMENTAL_MARKERS));
+        incrementalMarkers.setText("Update only changed markers after analysis (experimental)");
+        incrementalMarkers.setToolTipText("Keeps markers of unchanged warnings instead of recreating all markers " +
+                "of the analyzed resources. Reduces the workload of views and editors after incremental builds.");
+
         if(!isWorkspaceSettings()) {
             Label lbl = new Label(this,SWT.WRAP );
             lbl.setText("Currently, plugins can only be updated from the workspace settings");
@@ -140,6 +148,7 @@ public class WorkspaceSettingsTab extends Composite {
     public void refreshUI(UserPreferences prefs) {
         cacheClassData.setSelection(store.getBoolean(FindBugsConstants.KEY_CACHE_CLASS_DATA));
         runAsExtraJob.setSelection(store.getBoolean(FindBugsConstants.KEY_RUN_ANALYSIS_AS_EXTRA_JOB));
+        incrementalMarkers.setSelection(store.getBoolean(FindBugsConstants.KEY_INCREMENTAL_MARKERS));
         if(!isWorkspaceSettings()) {
             return;
         }
@@ -160,6 +169,7 @@ public class WorkspaceSettingsTab extends Composite {
     public void performOK() {
         store.setValue(FindBugsConstants.KEY_CACHE_CLASS_DATA, cacheClassData.getSelection());
         store.setValue(FindBugsConstants.KEY_RUN_ANALYSIS_AS_EXTRA_JOB, runAsExtraJob.getSelection());
+        store.setValue(FindBugsConstants.KEY_INCREMENTAL_MARKERS, incrementalMarkers.getSelection());
         if(!isWorkspaceSettings()) {
             return;
         }
@@ -21,9 +21,15 @@
 package de.tobject.findbugs.reporter;
 import static de.tobject.findbugs.marker.FindBugsMarker.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -31,13 +37,16 @@ import javax.annotation.Nonnull;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 import de.tobject.findbugs.FindbugsPlugin;
+import de.tobject.findbugs.marker.FindBugsMarker;
 import de.tobject.findbugs.marker.FindBugsMarker.MarkerConfidence;
 import edu.umd.cs.findbugs.AppVersion;
 import edu.umd.cs.findbugs.DetectorFactory;
@@ -47,6 +56,12 @@ import edu.umd.cs.findbugs.config.UserPreferences;
 
 /**
  * Creates a FindBugs marker in a runnable window.
+ * <p>
+ * If the markers which existed before the analysis are given, they are
+ * reconciled with the new warnings instead: markers of unchanged warnings are
+ * kept as they are, changed ones are updated in place and only the remaining
+ * ones are deleted. All changes to the markers of one resource are done in a
+ * single workspace operation.
  */
 public class MarkerReporter implements IWorkspaceRunnable {
     private final SortedBugCollection collection;
@@ -55,17 +70,40 @@ public class MarkerReporter implements IWorkspaceRunnable {
 
     private final IProject project;
 
+    private final Collection<IMarker> staleMarkers;
+
     public MarkerReporter(List<MarkerParameter> mpList, SortedBugCollection theCollection, IProject project) {
+        this(mpList, theCollection, project, null);
+    }
+
+    /**
+     * @param staleMarkers
+     *            markers which existed before the analysis on the analyzed
+     *            resources, or null if they were already removed
+     */
+    public MarkerReporter(List<MarkerParameter> mpList, SortedBugCollection theCollection, IProject project,
+            @CheckForNull Collection<IMarker> staleMarkers) {
 
         this.mpList = mpList;
         this.collection = theCollection;
         this.project = project;
+        this.staleMarkers = staleMarkers;
     }
 
     public void run(IProgressMonitor monitor) throws CoreException {
         UserPreferences userPrefs = FindbugsPlugin.getUserPreferences(project);
         ProjectFilterSettings filterSettings = userPrefs.getFilterSettings();
         IPreferenceStore store = FindbugsPlugin.getPluginPreferences(project);
+        if (staleMarkers != null) {
+            try {
+                reconcileMarkers(filterSettings, store, monitor);
+            } finally {
+                // markers not reused, if cancelled or failed before all
+                // resources were reconciled
+                MarkerUtil.deleteMarkers(staleMarkers);
+            }
+            return;
+        }
         for (MarkerParameter mp : mpList) {
             if (mp.markerType == null) {
                 continue;
@@ -79,6 +117,111 @@ public class MarkerReporter implements IWorkspaceRunnable {
         }
     }
 
+    private void reconcileMarkers(ProjectFilterSettings filterSettings, IPreferenceStore store, IProgressMonitor monitor)
+            throws CoreException {
+        final Map<IResource, List<MarkerParameter>> newByResource = new LinkedHashMap<IResource, List<MarkerParameter>>();
+        for (MarkerParameter mp : mpList) {
+            if (mp.markerType == null) {
+                continue;
+            }
+            if (!MarkerUtil.shouldDisplayWarning(mp.bug, filterSettings)) {
+                continue;
+            }
+            updateMarkerSeverity(store, mp);
+            IResource markerTarget = mp.resource.getMarkerTarget();
+            List<MarkerParameter> list = newByResource.get(markerTarget);
+            if (list == null) {
+                list = new ArrayList<MarkerParameter>();
+                newByResource.put(markerTarget, list);
+            }
+            list.add(mp);
+        }
+        final Map<IResource, Set<IMarker>> staleByResource = new HashMap<IResource, Set<IMarker>>();
+        for (IMarker marker : staleMarkers) {
+            if (!marker.exists()) {
+                continue;
+            }
+            Set<IMarker> set = staleByResource.get(marker.getResource());
+            if (set == null) {
+                set = new HashSet<IMarker>();
+                staleByResource.put(marker.getResource(), set);
+            }
+            set.add(marker);
+        }
+        Set<IResource> resources = new HashSet<IResource>(newByResource.keySet());
+        resources.addAll(staleByResource.keySet());
+
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        for (final IResource resource : resources) {
+            if (monitor.isCanceled()) {
+                return;
+            }
+            workspace.run(new IWorkspaceRunnable() {
+                public void run(IProgressMonitor monitor1) throws CoreException {
+                    reconcileMarkers(resource, newByResource.get(resource), staleByResource.get(resource));
+                }
+            }, null, IWorkspace.AVOID_UPDATE, monitor);
+        }
+    }
+
+    /**
+     * Brings FindBugs markers of given resource in sync with the new warnings
+     *
+     * @param resource
+     *            marker target
+     * @param newBugs
+     *            warnings to report on this resource, may be null
+     * @param stale
+     *            markers on this resource which should be removed unless they
+     *            match one of the new warnings, may be null
+     */
+    private void reconcileMarkers(IResource resource, @CheckForNull List<MarkerParameter> newBugs,
+            @CheckForNull Set<IMarker> stale) throws CoreException {
+        if (newBugs != null) {
+            // all FindBugs markers can be reused, not only the stale ones: see
+            // workaround for bug 2785257 in addMarker()
+            Map<String, List<IMarker>> existing = new HashMap<String, List<IMarker>>();
+            for (IMarker marker : resource.findMarkers(FindBugsMarker.NAME, true, IResource.DEPTH_ZERO)) {
+                String key = getMarkerKey(marker.getType(), marker.getAttribute(UNIQUE_ID), marker.getAttribute(PRIMARY_LINE));
+                List<IMarker> list = existing.get(key);
+                if (list == null) {
+                    list = new LinkedList<IMarker>();
+                    existing.put(key, list);
+                }
+                list.add(marker);
+            }
+            for (MarkerParameter mp : newBugs) {
+                Map<String, Object> attributes = createMarkerAttributes(mp);
+                if (attributes.isEmpty()) {
+                    collection.remove(mp.bug);
+                    continue;
+                }
+                List<IMarker> candidates = existing.get(getMarkerKey(mp.markerType, attributes.get(UNIQUE_ID),
+                        attributes.get(PRIMARY_LINE)));
+                if (candidates != null && !candidates.isEmpty()) {
+                    IMarker oldMarker = candidates.remove(0);
+                    if (stale != null) {
+                        stale.remove(oldMarker);
+                    }
+                    staleMarkers.remove(oldMarker);
+                    if (!attributes.equals(oldMarker.getAttributes())) {
+                        oldMarker.setAttributes(attributes);
+                    }
+                    continue;
+                }
+                IMarker newMarker = resource.createMarker(mp.markerType);
+                newMarker.setAttributes(attributes);
+            }
+        }
+        if (stale != null && !stale.isEmpty()) {
+            ResourcesPlugin.getWorkspace().deleteMarkers(stale.toArray(new IMarker[stale.size()]));
+        }
+    }
+
+    private static String getMarkerKey(String markerType, @CheckForNull Object bugId, @CheckForNull Object line) {
+        return markerType + "#" + bugId + "#" + line;
+    }
+
     private static void updateMarkerSeverity(IPreferenceStore store, MarkerParameter mp) {
         String markerSeverityStr = store.getString(mp.markerType);
         mp.markerSeverity = MarkerSeverity.get(markerSeverityStr).value;
@@ -22,6 +22,7 @@ package de.tobject.findbugs.reporter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -36,6 +37,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
@@ -117,11 +119,37 @@ public final class MarkerUtil {
      * @param monitor
      */
     public static void createMarkers(final IJavaProject javaProject, final SortedBugCollection theCollection, final ISchedulingRule rule, IProgressMonitor monitor) {
+        createMarkers(javaProject, theCollection, rule, null, monitor);
+    }
+
+    /**
+     * Create Eclipse markers for given bugs, reusing markers which were
+     * reported on the same resources before.
+     *
+     * @param javaProject
+     *            the project
+     * @param staleMarkers
+     *            markers existing before the analysis, which should be either
+     *            updated or removed. If null, all old markers are expected to
+     *            be already removed. This method takes care of removing them,
+     *            also if it is cancelled.
+     * @param monitor
+     */
+    public static void createMarkers(final IJavaProject javaProject, final SortedBugCollection theCollection,
+            final ISchedulingRule rule, @CheckForNull final Collection<IMarker> staleMarkers, IProgressMonitor monitor) {
         if (monitor.isCanceled()) {
+            deleteMarkers(staleMarkers);
             return;
         }
-        final List<MarkerParameter> bugParameters = createBugParameters(javaProject, theCollection, monitor);
+        final List<MarkerParameter> bugParameters;
+        try {
+            bugParameters = createBugParameters(javaProject, theCollection, monitor);
+        } catch (RuntimeException e) {
+            deleteMarkers(staleMarkers);
+            throw e;
+        }
         if (monitor.isCanceled()) {
+            deleteMarkers(staleMarkers);
             return;
         }
         WorkspaceJob wsJob = new WorkspaceJob("Creating FindBugs markers") {
@@ -130,7 +158,7 @@ public final class MarkerUtil {
             public IStatus runInWorkspace(IProgressMonitor monitor1) throws CoreException {
                 IProject project = javaProject.getProject();
                 try {
-                    new MarkerReporter(bugParameters, theCollection, project).run(monitor1);
+                    new MarkerReporter(bugParameters, theCollection, project, staleMarkers).run(monitor1);
                 } catch (CoreException e) {
                     FindbugsPlugin.getDefault().logException(e, "Core exception on add marker");
                     return e.getStatus();
@@ -531,6 +559,34 @@ public final class MarkerUtil {
         }        
     }
 
+    /**
+     * Delete the given markers, if they still exist. Used for markers which
+     * were kept during analysis to be reconciled with the new results, when
+     * there are no new results.
+     *
+     * @param markers
+     *            the markers, may be null
+     */
+    public static void deleteMarkers(@CheckForNull Collection<IMarker> markers) {
+        if (markers == null || markers.isEmpty()) {
+            return;
+        }
+        List<IMarker> existing = new ArrayList<IMarker>(markers.size());
+        for (IMarker marker : markers) {
+            if (marker.exists()) {
+                existing.add(marker);
+            }
+        }
+        if (existing.isEmpty()) {
+            return;
+        }
+        try {
+            ResourcesPlugin.getWorkspace().deleteMarkers(existing.toArray(new IMarker[existing.size()]));
+        } catch (CoreException e) {
+            FindbugsPlugin.getDefault().logException(e, "Could not remove stale FindBugs markers");
+        }
+    }
+
     /**
      * Given current active bug category set, minimum warning priority, and
      * previous user classification, return whether or not a warning (bug
@@ -20,8 +20,11 @@
 package edu.umd.cs.findbugs.anttask;
 
 import java.io.File;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.apache.tools.ant.BuildException;
@@ -81,6 +84,10 @@ public abstract class AbstractFindBugsTask extends Task {
 
     private long timeout = DEFAULT_TIMEOUT;
 
+    private boolean fork = true;
+
+    private int maxMemory = 0;
+
     private boolean failOnError = false;
 
     private String errorProperty = null;
@@ -93,6 +100,9 @@ public abstract class AbstractFindBugsTask extends Task {
 
     private Java findbugsEngine = null;
 
+    /** the system properties passed to the FindBugs JVM */
+    private final Map<String, String> engineProperties = new HashMap<String, String>();
+
     public String execResultProperty = "edu.umd.cs.findbugs.anttask.AbstractFindBugsTask" + "." + RESULT_PROPERTY_SUFFIX;
 
     /**
@@ -148,6 +158,34 @@ public abstract class AbstractFindBugsTask extends Task {
         this.timeout = timeout;
     }
 
+    /**
+     * Set whether to run FindBugs in a new JVM (the default). If false,
+     * FindBugs runs inside the Ant JVM, and the FindBugs classes and plugins
+     * loaded by the first invocation are reused by the following ones, which
+     * saves the JVM startup and warmup of each. The jvm and jvmargs attributes
+     * are then ignored. Programs without in-process support are forked anyway.
+     */
+    public void setFork(boolean fork) {
+        this.fork = fork;
+    }
+
+    /**
+     * Get the fork flag.
+     */
+    protected boolean getFork() {
+        return fork;
+    }
+
+    /**
+     * Set the memory cap in megabytes for FindBugs running inside the Ant JVM
+     * (fork="false"): the task fails if the live heap data grows by more than
+     * this during the analysis, instead of exhausting the heap of the build.
+     * The default, 0, means no cap. Use jvmargs="-Xmx..." when forking.
+     */
+    public void setMaxMemory(int maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
     /**
      * Set the failOnError flag
      */
@@ -286,16 +324,20 @@ public abstract class AbstractFindBugsTask extends Task {
             findbugsEngine.setJvm(jvm);
         findbugsEngine.setTimeout(timeout);
 
+        engineProperties.clear();
         if (debug) {
             jvmargs = jvmargs + " -Dfindbugs.debug=true";
+            engineProperties.put("findbugs.debug", "true");
         }
         jvmargs = jvmargs + " -Dfindbugs.hostApp=FBAntTask";
+        engineProperties.put("findbugs.hostApp", "FBAntTask");
         findbugsEngine.createJvmarg().setLine(jvmargs);
 
         // Add JVM arguments for system properties
         for (SystemProperty systemProperty : systemPropertyList) {
             String jvmArg = "-D" + systemProperty.getName() + "=" + systemProperty.getValue();
             findbugsEngine.createJvmarg().setValue(jvmArg);
+            engineProperties.put(systemProperty.getName(), systemProperty.getValue());
         }
 
         if (homeDir != null) {
@@ -313,6 +355,7 @@ public abstract class AbstractFindBugsTask extends Task {
             else
                 throw new IllegalArgumentException("Can't find findbugs.jar in " + findbugsLib);
             findbugsEngine.createJvmarg().setValue("-Dfindbugs.home=" + homeDir.getPath());
+            engineProperties.put("findbugs.home", homeDir.getPath());
         } else {
             // Use an explicitly specified classpath and list of plugin Jars
             // to initialize. This is useful for other tools which may have
@@ -348,25 +391,46 @@ public abstract class AbstractFindBugsTask extends Task {
 
     /**
      * Sets the given string to be piped to standard input of the FindBugs JVM
-     * upon launching.
+     * upon launching. Only possible when forking.
      */
     protected void setInputString(String input) {
         findbugsEngine.setInputString(input);
     }
 
     /**
-     * Create a new JVM to do the work.
+     * Create a new JVM to do the work, or do it in this one if fork is false.
      * 
      * @since Ant 1.5
      */
     private void execFindbugs() throws BuildException {
 
         System.out.println("Executing findbugs from ant task");
+        boolean jvmOptions = jvm.length() > 0 || jvmargs.trim().length() > 0;
         createFindbugsEngine();
         configureFindbugsEngine();
 
         beforeExecuteJavaProcess();
 
+        if (!fork) {
+            // later tasks reuse the classes read from the aux classpath
+            if (!engineProperties.containsKey("findbugs.shareAuxClassData"))
+                engineProperties.put("findbugs.shareAuxClassData", "true");
+            InProcessEngine engine = new InProcessEngine(this, mainClass, getFindbugsEngine().getCommandLine().getClasspath()
+                    .list(), engineProperties, getFindbugsEngine().getCommandLine().getJavaCommand().getArguments());
+            Method run = engine.getRunMethod();
+            if (run != null) {
+                if (jvmOptions)
+                    log("Ignoring jvm and jvmargs, since FindBugs is not forked");
+                if (getDebug()) {
+                    log("Running " + mainClass + " in the Ant JVM: "
+                            + getFindbugsEngine().getCommandLine().getJavaCommand().describeArguments());
+                }
+                afterExecuteJavaProcess(engine.execute(run, timeout, maxMemory));
+                return;
+            }
+            log(mainClass + " can't run in the Ant JVM; forking");
+        }
+
         if (getDebug()) {
             log(getFindbugsEngine().getCommandLine().describeCommand());
         }
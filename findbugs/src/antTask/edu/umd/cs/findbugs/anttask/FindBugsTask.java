@@ -87,11 +87,13 @@ import edu.umd.cs.findbugs.ExitCodes;
  * <li>effort (enum min|default|max)</li>
  * <li>excludeFilter (filter filename)
  * <li>failOnError (boolean - default false)
+ * <li>fork (boolean - default true; if false, run in the Ant JVM)
  * <li>home (findbugs install dir)
  * <li>includeFilter (filter filename)
  * <li>maxRank (maximum rank issue to be reported)
  * <li>jvm (Set the command used to start the VM)
  * <li>jvmargs (any additional jvm arguments)
+ * <li>maxMemory (heap cap in MB when not forking - default none)
  * <li>omitVisitors (collection - comma seperated)
  * <li>onlyAnalyze (restrict analysis to find bugs to given comma-separated list
  * of classes and packages - See the textui argument description for details)
@@ -751,7 +753,7 @@ public class FindBugsTask extends AbstractFindBugsTask {
                 @SuppressWarnings("unused")
                 String unreadReference = auxClasspath.toString();
                 String auxClasspathString = auxClasspath.toString();
-                if (auxClasspathString.length() > 100) {
+                if (getFork() && auxClasspathString.length() > 100) {
                     addArg("-auxclasspathFromInput");
                     setInputString(auxClasspathString);
                 } else {
@@ -0,0 +1,298 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.anttask;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.tools.ant.BuildException;
+
+/**
+ * Runs a FindBugs program inside the Ant JVM instead of a forked one.
+ * <p>
+ * The class loaders are kept for the life of the Ant JVM, keyed by the
+ * classpath, the system properties and the plugin list, so every invocation
+ * after the first reuses the loaded and compiled FindBugs classes, the plugins
+ * read by DetectorFactoryCollection, the class data of the jar files on the
+ * aux classpath, and the other databases FindBugs keeps in static fields.
+ * The parent of each loader is the parent of the system class loader, so the
+ * classes of Ant and of the build are not visible to FindBugs. Settings which
+ * a program changes in those static fields, such as the priority adjustments
+ * of -adjustPriority, must be undone by the program before it returns.
+ * <p>
+ * FindBugs keeps global state in system properties and static fields, so only
+ * one program runs at a time; concurrent tasks wait for each other, and the
+ * timeout includes the wait. If a program which was stopped does not finish,
+ * the following tasks fork instead of waiting for it.
+ */
+class InProcessEngine {
+
+    /** how long to wait for an interrupted analysis to stop */
+    private static final long STOP_WAIT_MILLIS = 10000;
+
+    private static final long POLL_MILLIS = 500;
+
+    private static final Map<String, ClassLoader> loaders = new HashMap<String, ClassLoader>();
+
+    private static final ReentrantLock runLock = new ReentrantLock();
+
+    /** a program which was stopped, but may still hold the runLock */
+    private static volatile Thread abandoned;
+
+    private final AbstractFindBugsTask task;
+
+    private final String mainClass;
+
+    private final String[] classpath;
+
+    private final Map<String, String> properties;
+
+    private final String[] args;
+
+    /**
+     * @param task
+     *            the task to log to
+     * @param mainClass
+     *            the program to run; it must have a method
+     *            <code>public static int run(String[] args)</code> which
+     *            returns the exit code instead of calling System.exit()
+     * @param classpath
+     *            the classpath of the program
+     * @param properties
+     *            the system properties to set while the program runs
+     * @param args
+     *            the arguments of the program
+     */
+    InProcessEngine(AbstractFindBugsTask task, String mainClass, String[] classpath, Map<String, String> properties,
+            String[] args) {
+        this.task = task;
+        this.mainClass = mainClass;
+        this.classpath = classpath;
+        this.properties = new TreeMap<String, String>(properties);
+        this.args = args;
+    }
+
+    /**
+     * @return the run() method of the main class, or null if it has none, or
+     *         an earlier program is still running after being stopped, and
+     *         the program must be forked
+     */
+    Method getRunMethod() {
+        Thread previous = abandoned;
+        if (previous != null) {
+            if (previous.isAlive()) {
+                task.log("An earlier analysis in the Ant JVM did not stop when asked to");
+                return null;
+            }
+            abandoned = null;
+        }
+        try {
+            Method run = getClassLoader().loadClass(mainClass).getMethod("run", String[].class);
+            if (run.getReturnType() != Integer.TYPE)
+                return null;
+            return run;
+        } catch (ClassNotFoundException e) {
+            throw new BuildException("Can't find " + mainClass + " in " + describeClasspath(), e);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Run the program, stopping it if it takes longer than the timeout or if
+     * the live heap data grows by more than maxMemoryMB.
+     *
+     * @param timeout
+     *            the timeout in milliseconds, or 0 for none
+     * @param maxMemoryMB
+     *            the memory cap, or 0 for none
+     * @return the exit code of the program
+     */
+    int execute(Method run, long timeout, int maxMemoryMB) throws BuildException {
+        Runner runner = new Runner(run);
+        Thread thread = new Thread(runner, "FindBugs " + task.getTaskName());
+        thread.setDaemon(true);
+        thread.setContextClassLoader(run.getDeclaringClass().getClassLoader());
+
+        long maxBytes = maxMemoryMB * 1024L * 1024L;
+        long baseline = 0;
+        boolean measuring = false;
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+        String stopReason = null;
+        thread.start();
+        try {
+            while (thread.isAlive()) {
+                if (!measuring && runner.started) {
+                    // measure memory from when the program starts, not from
+                    // when we started waiting for another task to finish
+                    baseline = getLiveHeap();
+                    measuring = true;
+                }
+                thread.join(POLL_MILLIS);
+                if (measuring && maxBytes > 0 && getLiveHeap() - baseline > maxBytes)
+                    stopReason = "used more than " + maxMemoryMB + " MB of heap (maxMemory)";
+                else if (System.currentTimeMillis() > deadline)
+                    stopReason = "did not finish within " + timeout + " ms (timeout)";
+                if (stopReason != null) {
+                    thread.interrupt();
+                    thread.join(STOP_WAIT_MILLIS);
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            throw new BuildException(task.getTaskName() + " was interrupted", e);
+        }
+
+        if (stopReason != null) {
+            if (thread.isAlive()) {
+                task.log("Analysis did not stop when interrupted; it will run on in the background,"
+                        + " and later tasks will fork");
+                abandoned = thread;
+            }
+            throw new BuildException(task.getTaskName() + " " + stopReason);
+        }
+        if (runner.failure != null)
+            throw new BuildException("execution of " + task.getTaskName() + " failed: " + runner.failure, runner.failure);
+        return runner.exitCode;
+    }
+
+    private class Runner implements Runnable {
+        private final Method run;
+
+        volatile boolean started;
+
+        volatile int exitCode;
+
+        volatile Throwable failure;
+
+        Runner(Method run) {
+            this.run = run;
+        }
+
+        public void run() {
+            try {
+                runLock.lockInterruptibly();
+            } catch (InterruptedException e) {
+                // stopped while waiting for another task
+                return;
+            }
+            try {
+                started = true;
+                Map<String, String> saved = new HashMap<String, String>();
+                try {
+                    for (Map.Entry<String, String> e : properties.entrySet())
+                        saved.put(e.getKey(), System.setProperty(e.getKey(), e.getValue()));
+                    exitCode = ((Integer) run.invoke(null, new Object[] { args })).intValue();
+                } catch (InvocationTargetException e) {
+                    failure = e.getCause();
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    for (Map.Entry<String, String> e : saved.entrySet()) {
+                        if (e.getValue() == null)
+                            System.clearProperty(e.getKey());
+                        else
+                            System.setProperty(e.getKey(), e.getValue());
+                    }
+                }
+            } finally {
+                runLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the heap occupied after the last garbage collection, which
+     *         unlike the current usage does not include garbage
+     */
+    private static long getLiveHeap() {
+        long result = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP)
+                continue;
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null)
+                result += usage.getUsed();
+        }
+        return result;
+    }
+
+    private ClassLoader getClassLoader() {
+        StringBuilder key = new StringBuilder();
+        for (String entry : classpath)
+            key.append(entry).append(File.pathSeparatorChar);
+        key.append(properties);
+        // plugins register themselves in static fields, so programs
+        // loading different plugins can't share classes
+        key.append(File.pathSeparatorChar).append(getPluginList());
+        synchronized (loaders) {
+            ClassLoader loader = loaders.get(key.toString());
+            if (loader == null) {
+                URL[] urls = new URL[classpath.length];
+                for (int i = 0; i < classpath.length; i++) {
+                    try {
+                        urls[i] = new File(classpath[i]).toURI().toURL();
+                    } catch (MalformedURLException e) {
+                        throw new BuildException("Bad classpath entry " + classpath[i], e);
+                    }
+                }
+                loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+                loaders.put(key.toString(), loader);
+            } else if (task.getDebug()) {
+                task.log("Reusing FindBugs classes loaded from " + describeClasspath());
+            }
+            return loader;
+        }
+    }
+
+    /**
+     * @return the argument of the -pluginList option, or the empty string if
+     *         there is none
+     */
+    String getPluginList() {
+        for (int i = 0; i + 1 < args.length; i++)
+            if (args[i].equals("-pluginList"))
+                return args[i + 1];
+        return "";
+    }
+
+    private String describeClasspath() {
+        StringBuilder buf = new StringBuilder();
+        for (String entry : classpath) {
+            if (buf.length() > 0)
+                buf.append(File.pathSeparatorChar);
+            buf.append(entry);
+        }
+        return buf.toString();
+    }
+}
@@ -26,8 +26,10 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import edu.umd.cs.findbugs.BugCollection;
 import edu.umd.cs.findbugs.BugInstance;
@@ -66,6 +68,12 @@ public class BugSet implements Iterable<BugLeafNode> {
 
     private HashMap<Sortables, String[]> sortablesToStrings;
 
+    /** Sortables for which doneMap already holds every possible query */
+    private HashSet<Sortables> indexedSortables;
+
+    /** Position of each bug in mainList; only used by filtered sets */
+    private HashMap<BugLeafNode, Integer> positions;
+
     private static BugSet mainBugSet = null;
 
     /**
@@ -103,6 +111,7 @@ public class BugSet implements Iterable<BugLeafNode> {
         this.mainList = new ArrayList<BugLeafNode>(filteredSet);
         doneMap = new HashMap<SortableValue, BugSet>();
         doneContainsMap = new HashMap<SortableValue, Boolean>();
+        indexedSortables = new HashSet<Sortables>();
         cacheSortables();
     }
 
@@ -157,14 +166,18 @@ public class BugSet implements Iterable<BugLeafNode> {
 
         Collection<String> list = new HashSet<String>();
 
-        for (BugLeafNode p : mainList) {
-            if (suppress(p))
+        // The index has every value of the key, each with its bugs: a value
+        // is shown if any of its bugs is
+        index(key);
+        for (Map.Entry<SortableValue, BugSet> e : doneMap.entrySet()) {
+            if (e.getKey().key != key)
                 continue;
-            BugInstance bug = p.getBug();
-
-            String value = key.getFrom(bug);
-            list.add(value);
-
+            for (BugLeafNode p : e.getValue().mainList) {
+                if (!suppress(p)) {
+                    list.add(e.getKey().value);
+                    break;
+                }
+            }
         }
         String result[] = list.toArray(new String[list.size()]);
         Collections.sort(Arrays.asList(result), new SortableStringComparator(key));
@@ -195,6 +208,7 @@ public class BugSet implements Iterable<BugLeafNode> {
         this.mainList = copySet.mainList;
         doneMap = new HashMap<SortableValue, BugSet>();
         doneContainsMap = new HashMap<SortableValue, Boolean>();
+        indexedSortables = new HashSet<Sortables>();
         cacheSortables();
     }
 
@@ -216,16 +230,40 @@ public class BugSet implements Iterable<BugLeafNode> {
     BugSet query(SortableValue keyValuePair) {
         if (doneMap.containsKey(keyValuePair))
             return doneMap.get(keyValuePair);
-        ArrayList<BugLeafNode> bugs = new ArrayList<BugLeafNode>();
+        index(keyValuePair.key);
+        BugSet temp = doneMap.get(keyValuePair);
+        if (temp == null) {
+            temp = new BugSet(Collections.<BugLeafNode> emptyList());
+            doneMap.put(keyValuePair, temp);
+        }
+        return temp;
+    }
 
+    /**
+     * Partition the bugs by their value of the given Sortables in a single
+     * pass, storing the result of the query for every value at once. Opening
+     * a branch then costs one pass over its bugs, rather than one per child.
+     * Bugs keep their relative order, so the results are the same as
+     * querying one value at a time.
+     */
+    private void index(Sortables key) {
+        if (!indexedSortables.add(key))
+            return;
+        HashMap<String, ArrayList<BugLeafNode>> partition = new HashMap<String, ArrayList<BugLeafNode>>();
         for (BugLeafNode b : mainList) {
-            if (b.matches(keyValuePair))
-                bugs.add(b);
+            String value = key.getFrom(b.getBug());
+            ArrayList<BugLeafNode> bugs = partition.get(value);
+            if (bugs == null) {
+                bugs = new ArrayList<BugLeafNode>();
+                partition.put(value, bugs);
+            }
+            bugs.add(b);
+        }
+        for (Map.Entry<String, ArrayList<BugLeafNode>> e : partition.entrySet()) {
+            SortableValue keyValuePair = new SortableValue(key, e.getKey());
+            if (!doneMap.containsKey(keyValuePair))
+                doneMap.put(keyValuePair, new BugSet(e.getValue()));
         }
-
-        BugSet temp = new BugSet(bugs);
-        doneMap.put(keyValuePair, temp);
-        return temp;
     }
 
     /*
@@ -236,6 +274,16 @@ public class BugSet implements Iterable<BugLeafNode> {
 
         final List<Sortables> order = MainFrame.getInstance().getSorter().getOrderAfterDivider();
 
+        // Compute the sort keys of each bug once, rather than on every
+        // comparison
+        final IdentityHashMap<BugLeafNode, String[]> sortKeys = new IdentityHashMap<BugLeafNode, String[]>();
+        for (BugLeafNode node : mainList) {
+            String[] keys = new String[order.size()];
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = order.get(i).getFrom(node.getBug());
+            sortKeys.put(node, keys);
+        }
+
         Comparator<BugLeafNode> comparator = new Comparator<BugLeafNode>() {
             int compare(int one, int two) {
                 if (one > two)
@@ -249,8 +297,10 @@ public class BugSet implements Iterable<BugLeafNode> {
                 if (one == two)
                     return 0;
                 int result;
-                for (Sortables i : order) {
-                    result = i.getBugLeafNodeComparator().compare(one, two);
+                String[] oneKeys = sortKeys.get(one);
+                String[] twoKeys = sortKeys.get(two);
+                for (int i = 0; i < oneKeys.length; i++) {
+                    result = order.get(i).compare(oneKeys[i], twoKeys[i]);
                     if (result != 0)
                         return result;
                 }
@@ -351,6 +401,7 @@ public class BugSet implements Iterable<BugLeafNode> {
         this.mainList = new ArrayList<BugLeafNode>(filteredSet);
         doneMap = new HashMap<SortableValue, BugSet>();
         doneContainsMap = new HashMap<SortableValue, Boolean>();
+        indexedSortables = new HashSet<Sortables>();
         if (cacheSortables)
             cacheSortables();
     }
@@ -391,7 +442,21 @@ public class BugSet implements Iterable<BugLeafNode> {
     }
 
     public int indexOf(BugLeafNode p) {
-        return filteredBugsCached().indexOfUnfiltered(p);
+        return filteredBugsCached().positionOf(p);
+    }
+
+    /**
+     * Like indexOfUnfiltered, but using a map built on first use. Only for
+     * sets whose list never changes, such as the filtered cache.
+     */
+    private int positionOf(BugLeafNode p) {
+        if (positions == null) {
+            positions = new HashMap<BugLeafNode, Integer>();
+            for (int i = mainList.size() - 1; i >= 0; i--)
+                positions.put(mainList.get(i), i);
+        }
+        Integer position = positions.get(p);
+        return position == null ? -1 : position;
     }
 
     public BugLeafNode get(int index) {
@@ -614,6 +614,7 @@ public abstract class CloudCommentsPane extends JPanel {
         if (designationKey.equals(oldValue))
             return;
         bug.setUserDesignationKey(designationKey, _bugCollection);
+        MainFrame.getInstance().clearSuppressionCache();
     }
 
     public void refresh() {
@@ -43,6 +43,7 @@ public class FilterActivity {
     }
 
     public static void notifyListeners(FilterListener.Action whatsGoingOnCode, @CheckForNull TreePath optionalPath) {
+        MainFrame.getInstance().clearSuppressionCache();
         Collection<FilterListener> currentListeners = new ArrayList<FilterListener>(FilterActivity.listeners);
         switch (whatsGoingOnCode) {
         case FILTERING:
@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.TreeSet;
@@ -68,6 +69,7 @@ import edu.umd.cs.findbugs.cloud.Cloud;
 import edu.umd.cs.findbugs.cloud.Cloud.CloudListener;
 import edu.umd.cs.findbugs.cloud.Cloud.SigninState;
 import edu.umd.cs.findbugs.cloud.DoNothingCloud;
+import edu.umd.cs.findbugs.filter.BugIndex;
 import edu.umd.cs.findbugs.filter.Filter;
 import edu.umd.cs.findbugs.log.ConsoleLogger;
 import edu.umd.cs.findbugs.log.LogSync;
@@ -165,6 +167,16 @@ public class MainFrame extends FBFrame implements LogSync {
 
     private final ViewFilter viewFilter = new ViewFilter(this);
 
+    private BugCollection indexedBugCollection;
+
+    private BugIndex suppressionIndex;
+
+    private Filter indexedSuppressionFilter;
+
+    private int indexedSuppressionFilterModificationCount;
+
+    private BitSet suppressedBugs;
+
     private SaveType saveType = SaveType.NOT_KNOWN;
 
     private final MainFrameLoadSaveHelper mainFrameLoadSaveHelper = new MainFrameLoadSaveHelper(this);
@@ -489,6 +501,7 @@ public class MainFrame extends FBFrame implements LogSync {
             setProject(project);
             this.bugCollection = bugCollection;
             BugLoader.addDeadBugMatcher(bugCollection);
+            clearSuppressionCache();
 
             comments.updateBugCollection();
             displayer.clearCache();
@@ -549,11 +562,45 @@ public class MainFrame extends FBFrame implements LogSync {
     boolean shouldDisplayIssue(BugInstance b) {
         Project project = getProject();
         Filter suppressionFilter = project.getSuppressionFilter();
-        if (null == getBugCollection() || suppressionFilter.match(b))
+        if (null == getBugCollection() || isSuppressed(suppressionFilter, b))
             return false;
         return viewFilter.show(b);
     }
 
+    /**
+     * Check the bug against the suppression filter. The filter is applied to
+     * the whole bug collection at once through a {@link BugIndex}, and the
+     * result kept until the filter or the bugs change.
+     */
+    private synchronized boolean isSuppressed(Filter suppressionFilter, BugInstance b) {
+        BugCollection bugCollection = getBugCollection();
+        if (suppressionIndex == null || indexedBugCollection != bugCollection) {
+            indexedBugCollection = bugCollection;
+            suppressionIndex = new BugIndex(bugCollection.getCollection());
+            suppressedBugs = null;
+        }
+        if (suppressedBugs == null || indexedSuppressionFilter != suppressionFilter
+                || indexedSuppressionFilterModificationCount != suppressionFilter.getModificationCount()) {
+            indexedSuppressionFilter = suppressionFilter;
+            indexedSuppressionFilterModificationCount = suppressionFilter.getModificationCount();
+            suppressedBugs = suppressionIndex.select(suppressionFilter);
+        }
+        int position = suppressionIndex.indexOf(b);
+        if (position < 0)
+            return suppressionFilter.match(b);
+        return suppressedBugs.get(position);
+    }
+
+    /**
+     * Forget which bugs the suppression filter matches; called when the
+     * filter or the designation of a bug changes.
+     */
+    synchronized void clearSuppressionCache() {
+        suppressedBugs = null;
+        if (suppressionIndex != null)
+            suppressionIndex.invalidate(BugIndex.Attribute.DESIGNATION);
+    }
+
     // ============================= menu actions
     // ===============================
 
@@ -742,7 +789,7 @@ public class MainFrame extends FBFrame implements LogSync {
     private boolean shouldDisplayIssueIgnoringPackagePrefixes(BugInstance b) {
         Project project = getProject();
         Filter suppressionFilter = project.getSuppressionFilter();
-        if (null == getBugCollection() || suppressionFilter.match(b))
+        if (null == getBugCollection() || isSuppressed(suppressionFilter, b))
             return false;
         return viewFilter.showIgnoringPackagePrefixes(b);
     }
@@ -1130,6 +1177,7 @@ public class MainFrame extends FBFrame implements LogSync {
 
     private class MyCloudListener implements CloudListener {
         public void issueUpdated(BugInstance bug) {
+            clearSuppressionCache();
             if (mainFrameTree.getCurrentSelectedBugLeaf() != null && mainFrameTree.getCurrentSelectedBugLeaf().getBug() == bug)
                 comments.updateCommentsFromLeafInformation(mainFrameTree.getCurrentSelectedBugLeaf());
         }
@@ -50,6 +50,7 @@ import javax.swing.tree.TreeSelectionModel;
 
 import edu.umd.cs.findbugs.I18N;
 import edu.umd.cs.findbugs.Project;
+import edu.umd.cs.findbugs.SourceLineAnnotation;
 import edu.umd.cs.findbugs.filter.Filter;
 import edu.umd.cs.findbugs.filter.Matcher;
 import edu.umd.cs.findbugs.gui2.FilterActivity.FilterActivityNotifier;
@@ -670,6 +671,24 @@ public class MainFrameTree implements Serializable {
         }
     }
 
+    /**
+     * Start reading the source files of the bugs just made visible, so that
+     * selecting one of them shows its source without waiting for the disk.
+     */
+    private void prefetchSources(Object parent, int children) {
+        Project project = mainFrame.getProject();
+        if (project == null)
+            return;
+        ArrayList<SourceLineAnnotation> sources = new ArrayList<SourceLineAnnotation>();
+        for (int i = 0; i < children; i++) {
+            Object child = tree.getModel().getChild(parent, i);
+            if (child instanceof BugLeafNode)
+                sources.add(((BugLeafNode) child).getBug().getPrimarySourceLineAnnotation());
+        }
+        if (!sources.isEmpty())
+            project.getSourceFinder().prefetch(sources);
+    }
+
     private class MyTreeExpansionListener implements TreeExpansionListener {
 
         public void treeExpanded(TreeExpansionEvent event) {
@@ -677,6 +696,7 @@ public class MainFrameTree implements Serializable {
             TreePath path = event.getPath();
             Object lastPathComponent = path.getLastPathComponent();
             int children = tree.getModel().getChildCount(lastPathComponent);
+            prefetchSources(lastPathComponent, children);
             if (children == 1) {
                 Object o = tree.getModel().getChild(lastPathComponent, 0);
                 if (o instanceof BugAspects) {
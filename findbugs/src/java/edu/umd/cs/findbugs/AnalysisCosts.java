@@ -0,0 +1,258 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.umd.cs.findbugs.internalAnnotations.DottedClassName;
+import edu.umd.cs.findbugs.xml.XMLOutput;
+import edu.umd.cs.findbugs.xml.XMLWriteable;
+
+/**
+ * Wall clock time, CPU time and allocation spent on each analyzed class and
+ * by each detector, summed over all passes. Recording is enabled with the
+ * system property <code>findbugs.recordCosts</code>; the costs are then
+ * written to the FindBugsSummary of the results, and can be compared between
+ * two results files with {@link edu.umd.cs.findbugs.workflow.CompareCosts}.
+ * <p>
+ * Only classes which took at least
+ * <code>findbugs.recordCosts.minClassMicros</code> microseconds (default
+ * 1000) are written.
+ */
+public class AnalysisCosts implements XMLWriteable {
+    public static final String ELEMENT_NAME = "AnalysisCosts";
+
+    public static final String DETECTOR_ELEMENT_NAME = "DetectorCost";
+
+    public static final String CLASS_ELEMENT_NAME = "ClassCost";
+
+    public static final boolean RECORD = SystemProperties.getBoolean("findbugs.recordCosts");
+
+    private static final int MIN_CLASS_MICROS = SystemProperties.getInt("findbugs.recordCosts.minClassMicros", 1000);
+
+    public static class Cost {
+        private final String name;
+
+        private int calls;
+
+        private long wallNanos;
+
+        private long cpuNanos;
+
+        private long allocatedBytes;
+
+        Cost(String name) {
+            this.name = name;
+        }
+
+        void add(int calls, long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.calls += calls;
+            this.wallNanos += wallNanos;
+            this.cpuNanos += cpuNanos;
+            this.allocatedBytes += allocatedBytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        void writeXML(XMLOutput xmlOutput, String elementName) throws IOException {
+            xmlOutput.startTag(elementName);
+            xmlOutput.addAttribute("name", name);
+            xmlOutput.addAttribute("calls", String.valueOf(calls));
+            xmlOutput.addAttribute("wallMicros", String.valueOf(wallNanos / 1000));
+            xmlOutput.addAttribute("cpuMicros", String.valueOf(cpuNanos / 1000));
+            xmlOutput.addAttribute("allocatedKBytes", String.valueOf(allocatedBytes / 1024));
+            xmlOutput.stopTag(true);
+        }
+    }
+
+    /**
+     * Measures the work done by the current thread between calls to
+     * {@link AnalysisCosts#addClassCost} or
+     * {@link AnalysisCosts#addDetectorCost}, so that consecutive pieces of
+     * work need only one reading of the clocks each.
+     */
+    public static class Meter {
+        private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        private static final boolean CPU_TIME = enableCpuTime();
+
+        private static final AllocationBeanWrapper allocationBean = AllocationBeanWrapper.create();
+
+        private long wallNanos;
+
+        private long cpuNanos;
+
+        private long allocatedBytes;
+
+        private static boolean enableCpuTime() {
+            try {
+                if (!threadBean.isCurrentThreadCpuTimeSupported())
+                    return false;
+                if (!threadBean.isThreadCpuTimeEnabled())
+                    threadBean.setThreadCpuTimeEnabled(true);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        public Meter() {
+            start();
+        }
+
+        /** Start measuring from now. */
+        public void start() {
+            wallNanos = System.nanoTime();
+            cpuNanos = CPU_TIME ? threadBean.getCurrentThreadCpuTime() : 0;
+            allocatedBytes = allocationBean != null ? allocationBean.getAllocatedBytes() : 0;
+        }
+
+        /** Add the work done since the last reading to the cost, and restart. */
+        void lap(Cost cost) {
+            long wall = System.nanoTime();
+            long cpu = CPU_TIME ? threadBean.getCurrentThreadCpuTime() : 0;
+            long allocated = allocationBean != null ? allocationBean.getAllocatedBytes() : 0;
+            cost.add(1, wall - wallNanos, cpu - cpuNanos, allocated - allocatedBytes);
+            wallNanos = wall;
+            cpuNanos = cpu;
+            allocatedBytes = allocated;
+        }
+    }
+
+    /**
+     * Wrapper so that the allocation counters of the HotSpot
+     * ThreadMXBean are used only where they are available.
+     */
+    static class AllocationBeanWrapper {
+        final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+
+        static AllocationBeanWrapper create() {
+            try {
+                AllocationBeanWrapper wrapper = new AllocationBeanWrapper();
+                if (!wrapper.sunBean.isThreadAllocatedMemorySupported())
+                    return null;
+                if (!wrapper.sunBean.isThreadAllocatedMemoryEnabled())
+                    wrapper.sunBean.setThreadAllocatedMemoryEnabled(true);
+                wrapper.getAllocatedBytes();
+                return wrapper;
+            } catch (LinkageError e) {
+                return null;
+            } catch (ClassCastException e) {
+                return null;
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        long getAllocatedBytes() {
+            return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+
+    private final Map<String, Cost> detectorCosts = new HashMap<String, Cost>();
+
+    private final Map<String, Cost> classCosts = new HashMap<String, Cost>();
+
+    private static Cost getCost(Map<String, Cost> costs, String name) {
+        Cost cost = costs.get(name);
+        if (cost == null) {
+            cost = new Cost(name);
+            costs.put(name, cost);
+        }
+        return cost;
+    }
+
+    /** Add the work measured by the meter to the cost of a detector. */
+    public void addDetectorCost(String detectorName, Meter meter) {
+        meter.lap(getCost(detectorCosts, detectorName));
+    }
+
+    /** Add the work measured by the meter to the cost of a class. */
+    public void addClassCost(@DottedClassName String className, Meter meter) {
+        meter.lap(getCost(classCosts, className));
+    }
+
+    public void addDetectorCost(String detectorName, int calls, long wallNanos, long cpuNanos, long allocatedBytes) {
+        getCost(detectorCosts, detectorName).add(calls, wallNanos, cpuNanos, allocatedBytes);
+    }
+
+    public void addClassCost(@DottedClassName String className, int calls, long wallNanos, long cpuNanos, long allocatedBytes) {
+        getCost(classCosts, className).add(calls, wallNanos, cpuNanos, allocatedBytes);
+    }
+
+    public void addAll(AnalysisCosts other) {
+        for (Cost c : other.detectorCosts.values())
+            addDetectorCost(c.name, c.calls, c.wallNanos, c.cpuNanos, c.allocatedBytes);
+        for (Cost c : other.classCosts.values())
+            addClassCost(c.name, c.calls, c.wallNanos, c.cpuNanos, c.allocatedBytes);
+    }
+
+    public void clear() {
+        detectorCosts.clear();
+        classCosts.clear();
+    }
+
+    public boolean isEmpty() {
+        return detectorCosts.isEmpty() && classCosts.isEmpty();
+    }
+
+    public Collection<Cost> getDetectorCosts() {
+        return detectorCosts.values();
+    }
+
+    public Collection<Cost> getClassCosts() {
+        return classCosts.values();
+    }
+
+    public void writeXML(XMLOutput xmlOutput) throws IOException {
+        xmlOutput.openTag(ELEMENT_NAME);
+        for (Cost c : new TreeMap<String, Cost>(detectorCosts).values())
+            c.writeXML(xmlOutput, DETECTOR_ELEMENT_NAME);
+        for (Cost c : new TreeMap<String, Cost>(classCosts).values())
+            if (c.wallNanos >= MIN_CLASS_MICROS * 1000L)
+                c.writeXML(xmlOutput, CLASS_ELEMENT_NAME);
+        xmlOutput.closeTag(ELEMENT_NAME);
+    }
+}
@@ -0,0 +1,461 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.CheckForNull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.umd.cs.findbugs.charsets.UTF8;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.classfile.IAnalysisCache;
+import edu.umd.cs.findbugs.classfile.IClassObserver;
+import edu.umd.cs.findbugs.classfile.impl.AnalysisCache;
+import edu.umd.cs.findbugs.log.Profiler;
+import edu.umd.cs.findbugs.log.Profiler.Profile;
+
+/**
+ * Live metrics of a running analysis: the current pass and class, throughput,
+ * heap usage, analysis cache hit rates and the detectors which took the most
+ * time so far. This lets a stalled detector be spotted while a long analysis
+ * is still running.
+ * <p>
+ * The metrics are collected by wrapping the progress callback of the engine,
+ * and are published in the ways selected by system properties:
+ * <ul>
+ * <li><code>findbugs.metrics.jmx</code> registers an MBean named
+ * {@value #OBJECT_NAME}</li>
+ * <li><code>findbugs.metrics.port</code> serves them as JSON over HTTP on the
+ * given port of the loopback interface</li>
+ * <li><code>findbugs.metrics.log</code> appends them as one line of JSON to
+ * the given file (or standard error, for "-") every
+ * <code>findbugs.metrics.interval</code> seconds (default 60)</li>
+ * </ul>
+ */
+public class AnalysisMetrics implements AnalysisMetricsMBean, FindBugsProgress, IClassObserver {
+
+    public static final String OBJECT_NAME = "edu.umd.cs.findbugs:type=AnalysisMetrics";
+
+    private static final boolean JMX = SystemProperties.getBoolean("findbugs.metrics.jmx");
+
+    private static final int PORT = SystemProperties.getInt("findbugs.metrics.port", 0);
+
+    private static final String LOG = SystemProperties.getProperty("findbugs.metrics.log");
+
+    private static final int INTERVAL = SystemProperties.getInt("findbugs.metrics.interval", 60);
+
+    /** true if any of the system properties enabling metrics is set */
+    private static final boolean ENABLED = JMX || PORT > 0 || LOG != null;
+
+    private static final int TOP_PROFILES = 10;
+
+    private final FindBugsProgress delegate;
+
+    private final Profiler profiler;
+
+    private final IAnalysisCache analysisCache;
+
+    private final long startTime = System.currentTimeMillis();
+
+    private volatile int pass;
+
+    private volatile int numberOfPasses;
+
+    private volatile int classesInPass;
+
+    private volatile int classesAnalyzed;
+
+    private volatile long passStartTime;
+
+    private volatile String currentClass = "";
+
+    private volatile long currentClassStartTime;
+
+    private ObjectName objectName;
+
+    private ServerSocket serverSocket;
+
+    private Timer timer;
+
+    private PrintStream log;
+
+    AnalysisMetrics(FindBugsProgress delegate, Profiler profiler, IAnalysisCache analysisCache) {
+        this.delegate = delegate;
+        this.profiler = profiler;
+        this.analysisCache = analysisCache;
+    }
+
+    /**
+     * Start publishing metrics, if any of the system properties enabling them
+     * is set.
+     *
+     * @param delegate
+     *            the progress callback of the engine, which is still notified
+     * @return the metrics, which must be installed as progress callback and
+     *         class observer of the engine, or null if metrics are disabled
+     */
+    public static @CheckForNull
+    AnalysisMetrics start(FindBugsProgress delegate, Profiler profiler, IAnalysisCache analysisCache) {
+        if (!ENABLED)
+            return null;
+        AnalysisMetrics metrics = new AnalysisMetrics(delegate, profiler, analysisCache);
+        if (analysisCache instanceof AnalysisCache)
+            ((AnalysisCache) analysisCache).setCountHits(true);
+        if (JMX)
+            metrics.registerMBean();
+        if (PORT > 0)
+            metrics.startServer(PORT);
+        if (LOG != null)
+            metrics.startLog(LOG, INTERVAL);
+        return metrics;
+    }
+
+    /**
+     * Stop publishing metrics. The last values are written to the log.
+     */
+    public void stop() {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                // already gone
+            }
+            objectName = null;
+        }
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            serverSocket = null;
+        }
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+            log.println(toJSON());
+            if (log != System.err)
+                log.close();
+            log = null;
+        }
+    }
+
+    public FindBugsProgress getDelegate() {
+        return delegate;
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            System.err.println("Could not register " + OBJECT_NAME + ": " + e.getMessage());
+        }
+    }
+
+    private void startServer(int port) {
+        try {
+            serverSocket = new ServerSocket(port, 10, InetAddress.getByName(null));
+        } catch (IOException e) {
+            System.err.println("Could not serve metrics on port " + port + ": " + e.getMessage());
+            return;
+        }
+        final ServerSocket socket = serverSocket;
+        Thread thread = new Thread("FindBugs metrics server") {
+            @Override
+            public void run() {
+                while (true) {
+                    Socket connection;
+                    try {
+                        connection = socket.accept();
+                    } catch (IOException e) {
+                        // closed by stop(), or the server socket broke
+                        if (!socket.isClosed())
+                            System.err.println("Stopped serving metrics: " + e.getMessage());
+                        return;
+                    }
+                    try {
+                        respond(connection);
+                    } catch (IOException e) {
+                        // a broken connection; serve the next one
+                    } finally {
+                        try {
+                            connection.close();
+                        } catch (IOException e) {
+                            // ignore
+                        }
+                    }
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void respond(Socket connection) throws IOException {
+        connection.setSoTimeout(5000);
+        // skip the request line and headers; every request gets the metrics
+        InputStream in = connection.getInputStream();
+        int c, newlines = 0;
+        while (newlines < 2 && (c = in.read()) >= 0) {
+            if (c == '\n')
+                newlines++;
+            else if (c != '\r')
+                newlines = 0;
+        }
+        byte[] body = (toJSON() + "\n").getBytes("UTF-8");
+        OutputStream out = connection.getOutputStream();
+        out.write(("HTTP/1.0 200 OK\r\nContent-Type: application/json; charset=UTF-8\r\nContent-Length: " + body.length
+                + "\r\nConnection: close\r\n\r\n").getBytes("UTF-8"));
+        out.write(body);
+        out.flush();
+    }
+
+    private void startLog(String file, int seconds) {
+        if ("-".equals(file)) {
+            log = System.err;
+        } else {
+            try {
+                log = UTF8.printStream(new FileOutputStream(file, true), true);
+            } catch (IOException e) {
+                System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+                return;
+            }
+        }
+        timer = new Timer("FindBugs metrics log", true);
+        long period = TimeUnit.MILLISECONDS.convert(Math.max(seconds, 1), TimeUnit.SECONDS);
+        final PrintStream out = log;
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                out.println(toJSON());
+            }
+        }, period, period);
+    }
+
+    // FindBugsProgress
+
+    public void reportNumberOfArchives(int numArchives) {
+        delegate.reportNumberOfArchives(numArchives);
+    }
+
+    public void startArchive(String name) {
+        delegate.startArchive(name);
+    }
+
+    public void finishArchive() {
+        delegate.finishArchive();
+    }
+
+    public void predictPassCount(int[] classesPerPass) {
+        numberOfPasses = classesPerPass.length;
+        delegate.predictPassCount(classesPerPass);
+    }
+
+    public void startAnalysis(int numClasses) {
+        pass++;
+        classesInPass = numClasses;
+        classesAnalyzed = 0;
+        passStartTime = System.currentTimeMillis();
+        delegate.startAnalysis(numClasses);
+    }
+
+    public void finishClass() {
+        classesAnalyzed++;
+        currentClass = "";
+        delegate.finishClass();
+    }
+
+    public void finishPerClassAnalysis() {
+        delegate.finishPerClassAnalysis();
+    }
+
+    // IClassObserver
+
+    public void observeClass(ClassDescriptor classDescriptor) {
+        currentClassStartTime = System.currentTimeMillis();
+        currentClass = classDescriptor.getDottedClassName();
+    }
+
+    // AnalysisMetricsMBean
+
+    public long getElapsedSeconds() {
+        return (System.currentTimeMillis() - startTime) / 1000;
+    }
+
+    public int getPass() {
+        return pass;
+    }
+
+    public int getNumberOfPasses() {
+        return numberOfPasses;
+    }
+
+    public int getClassesAnalyzed() {
+        return classesAnalyzed;
+    }
+
+    public int getClassesInPass() {
+        return classesInPass;
+    }
+
+    public double getClassesPerSecond() {
+        if (pass == 0)
+            return 0;
+        long millis = System.currentTimeMillis() - passStartTime;
+        return millis > 0 ? classesAnalyzed * 1000.0 / millis : 0;
+    }
+
+    public String getCurrentClass() {
+        return currentClass;
+    }
+
+    public long getCurrentClassMilliseconds() {
+        if (currentClass.length() == 0)
+            return 0;
+        return System.currentTimeMillis() - currentClassStartTime;
+    }
+
+    public long getHeapUsed() {
+        return heapUsage().getUsed();
+    }
+
+    public long getHeapMax() {
+        return heapUsage().getMax();
+    }
+
+    private static MemoryUsage heapUsage() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    }
+
+    public double getClassAnalysisHitRate() {
+        if (!(analysisCache instanceof AnalysisCache))
+            return 0;
+        AnalysisCache cache = (AnalysisCache) analysisCache;
+        return hitRate(cache.getClassAnalysisHits(), cache.getClassAnalysisMisses());
+    }
+
+    public double getMethodAnalysisHitRate() {
+        if (!(analysisCache instanceof AnalysisCache))
+            return 0;
+        AnalysisCache cache = (AnalysisCache) analysisCache;
+        return hitRate(cache.getMethodAnalysisHits(), cache.getMethodAnalysisMisses());
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private List<Profile> getTopProfileList() {
+        List<Profile> profiles = new ArrayList<Profile>();
+        for (Map.Entry<Class<?>, Profile> e : profiler.getProfiles().entrySet())
+            profiles.add(e.getValue());
+        Collections.sort(profiles, new Comparator<Profile>() {
+            public int compare(Profile p1, Profile p2) {
+                long t1 = p1.getTotalTime();
+                long t2 = p2.getTotalTime();
+                return t1 < t2 ? 1 : t1 > t2 ? -1 : 0;
+            }
+        });
+        return profiles.size() > TOP_PROFILES ? profiles.subList(0, TOP_PROFILES) : profiles;
+    }
+
+    public String[] getTopProfiles() {
+        List<Profile> profiles = getTopProfileList();
+        String[] result = new String[profiles.size()];
+        for (int i = 0; i < result.length; i++) {
+            Profile p = profiles.get(i);
+            result[i] = p.getClassName() + ": " + TimeUnit.MILLISECONDS.convert(p.getTotalTime(), TimeUnit.NANOSECONDS)
+                    + " ms, " + p.getTotalCalls() + " calls";
+        }
+        return result;
+    }
+
+    public String toJSON() {
+        StringBuilder buf = new StringBuilder();
+        buf.append("{\"elapsedSeconds\":").append(getElapsedSeconds());
+        buf.append(",\"pass\":").append(getPass());
+        buf.append(",\"passes\":").append(getNumberOfPasses());
+        buf.append(",\"classesAnalyzed\":").append(getClassesAnalyzed());
+        buf.append(",\"classesInPass\":").append(getClassesInPass());
+        buf.append(",\"classesPerSecond\":").append(String.format(Locale.ENGLISH, "%.2f", getClassesPerSecond()));
+        buf.append(",\"currentClass\":");
+        appendString(buf, getCurrentClass());
+        buf.append(",\"currentClassMilliseconds\":").append(getCurrentClassMilliseconds());
+        MemoryUsage heap = heapUsage();
+        buf.append(",\"heapUsed\":").append(heap.getUsed());
+        buf.append(",\"heapMax\":").append(heap.getMax());
+        buf.append(",\"classAnalysisHitRate\":").append(String.format(Locale.ENGLISH, "%.3f", getClassAnalysisHitRate()));
+        buf.append(",\"methodAnalysisHitRate\":").append(String.format(Locale.ENGLISH, "%.3f", getMethodAnalysisHitRate()));
+        buf.append(",\"profile\":[");
+        boolean first = true;
+        for (Profile p : getTopProfileList()) {
+            if (!first)
+                buf.append(',');
+            first = false;
+            buf.append("{\"name\":");
+            appendString(buf, p.getClassName());
+            buf.append(",\"milliseconds\":").append(TimeUnit.MILLISECONDS.convert(p.getTotalTime(), TimeUnit.NANOSECONDS));
+            buf.append(",\"calls\":").append(p.getTotalCalls()).append('}');
+        }
+        buf.append("]}");
+        return buf.toString();
+    }
+
+    private static void appendString(StringBuilder buf, String s) {
+        buf.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                buf.append('\\').append(c);
+            else if (c < 0x20)
+                buf.append(String.format("\\u%04x", Integer.valueOf(c)));
+            else
+                buf.append(c);
+        }
+        buf.append('"');
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs;
+
+/**
+ * JMX view of a running analysis.
+ *
+ * @see AnalysisMetrics
+ */
+public interface AnalysisMetricsMBean {
+
+    public long getElapsedSeconds();
+
+    /** @return the current pass, counting from 1, or 0 while scanning archives */
+    public int getPass();
+
+    public int getNumberOfPasses();
+
+    public int getClassesAnalyzed();
+
+    public int getClassesInPass();
+
+    /** @return the average number of classes analyzed per second in this pass */
+    public double getClassesPerSecond();
+
+    public String getCurrentClass();
+
+    /** @return how long the current class has been analyzed */
+    public long getCurrentClassMilliseconds();
+
+    public long getHeapUsed();
+
+    public long getHeapMax();
+
+    public double getClassAnalysisHitRate();
+
+    public double getMethodAnalysisHitRate();
+
+    /**
+     * @return the detectors and analysis engines which took the most time so
+     *         far, formatted as "name: msecs ms, calls calls"
+     */
+    public String[] getTopProfiles();
+
+    /** @return all of the above as a JSON object */
+    public String toJSON();
+}
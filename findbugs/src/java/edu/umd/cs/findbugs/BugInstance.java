@@ -21,9 +21,6 @@ package edu.umd.cs.findbugs;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
-import java.security.MessageDigest;
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -537,8 +534,7 @@ public class BugInstance implements Comparable<BugInstance>, XMLWriteable, Seria
     private String getInstanceKeyNew() {
         StringBuilder buf = new StringBuilder(type);
         for (BugAnnotation annotation : annotationList)
-            if (annotation.isSignificant() || annotation instanceof IntAnnotation
-                    || annotation instanceof LocalVariableAnnotation) {
+            if (isPartOfInstanceKey(annotation)) {
                 buf.append(":");
                 buf.append(annotation.format("hash", null));
             }
@@ -546,6 +542,11 @@ public class BugInstance implements Comparable<BugInstance>, XMLWriteable, Seria
         return buf.toString();
     }
 
+    private static boolean isPartOfInstanceKey(BugAnnotation annotation) {
+        return annotation.isSignificant() || annotation instanceof IntAnnotation
+                || annotation instanceof LocalVariableAnnotation;
+    }
+
     /**
      * If given PackageMemberAnnotation is non-null, return its
      * SourceLineAnnotation.
@@ -2692,15 +2693,12 @@ public class BugInstance implements Comparable<BugInstance>, XMLWriteable, Seria
         if (hash != null)
             return hash;
 
-        MessageDigest digest = Util.getMD5Digest();
-        String key = getInstanceKey();
-        byte[] data;
-        try {
-            data = digest.digest(key.getBytes("UTF-8"));
-        } catch (UnsupportedEncodingException e) {
-            throw new IllegalStateException(e);
-        }
-        hash = new BigInteger(1, data).toString(16);
+        // same as hashing getInstanceKey(), without building the key
+        InstanceHasher hasher = InstanceHasher.get().update(type);
+        for (BugAnnotation annotation : annotationList)
+            if (isPartOfInstanceKey(annotation))
+                hasher.update(":").update(annotation.format("hash", null));
+        hash = hasher.finish();
         instanceHash = hash;
         return hash;
     }
@@ -32,6 +32,8 @@ import edu.umd.cs.findbugs.ba.bcp.ByteCodePattern;
 import edu.umd.cs.findbugs.ba.bcp.ByteCodePatternMatch;
 import edu.umd.cs.findbugs.ba.bcp.PatternElementMatch;
 import edu.umd.cs.findbugs.ba.bcp.PatternMatcher;
+import edu.umd.cs.findbugs.bcel.BCELUtil;
+import edu.umd.cs.findbugs.classfile.Global;
 
 /**
  * A base class for bug detectors that are based on a ByteCodePattern.
@@ -45,6 +47,21 @@ public abstract class ByteCodePatternDetector implements Detector {
 
     private static final String METHOD = SystemProperties.getProperty("bcpd.method");
 
+    /**
+     * Compare the compiled pattern matcher against the interpreted one on
+     * every analyzed method, and print the timings when the pass is finished.
+     */
+    private static final boolean BENCHMARK = SystemProperties.getBoolean("bcpd.benchmark");
+
+    private static class BenchmarkStats {
+        int methods, rejected, matches;
+
+        long interpretedNanos, compiledNanos;
+    }
+
+    // Shared with clones made of stateless detectors
+    private final BenchmarkStats benchmarkStats = new BenchmarkStats();
+
     protected abstract BugReporter getBugReporter();
 
     public void visitClassContext(ClassContext classContext) {
@@ -66,9 +83,15 @@ public abstract class ByteCodePatternDetector implements Detector {
                             + "=====================================================================\n");
                 }
 
+                if (BENCHMARK)
+                    benchmark(pattern, classContext, method);
+
                 if (!prescreen(method, classContext))
                     continue;
 
+                if (!pattern.compile().mayMatch(classContext.getBytecodeSet(method)))
+                    continue;
+
                 MethodGen methodGen = classContext.getMethodGen(method);
                 if (methodGen == null)
                     continue;
@@ -109,6 +132,59 @@ public abstract class ByteCodePatternDetector implements Detector {
     }
 
     public void report() {
+        BenchmarkStats stats = benchmarkStats;
+        if (BENCHMARK && stats.methods > 0) {
+            System.out.printf("%s: %d methods, %d rejected by opcode index, %d matches; interpreted %d ms, compiled %d ms%n",
+                    getDetectorName(), stats.methods, stats.rejected, stats.matches, stats.interpretedNanos / 1000000,
+                    stats.compiledNanos / 1000000);
+        }
+    }
+
+    /**
+     * Match the pattern against a method with both the compiled and the
+     * interpreted matcher, recording the time taken by each. The detector's
+     * own prescreening is bypassed, so that the matchers are compared on
+     * every method. The method
+     * analyses are purged in between so that each matcher pays for building
+     * the CFG and dataflow analyses it needs.
+     */
+    private void benchmark(ByteCodePattern pattern, ClassContext classContext, Method method) throws CFGBuilderException,
+            DataflowAnalysisException {
+        BenchmarkStats stats = benchmarkStats;
+        stats.methods++;
+
+        long start = System.nanoTime();
+        int compiledMatches = 0;
+        if (pattern.compile().mayMatch(classContext.getBytecodeSet(method))) {
+            if (classContext.getMethodGen(method) != null)
+                compiledMatches = countMatches(new PatternMatcher(pattern, classContext, method).execute());
+        } else {
+            stats.rejected++;
+        }
+        stats.compiledNanos += System.nanoTime() - start;
+
+        Global.getAnalysisCache().purgeMethodAnalyses(BCELUtil.getMethodDescriptor(classContext.getJavaClass(), method));
+
+        start = System.nanoTime();
+        int interpretedMatches = 0;
+        if (classContext.getMethodGen(method) != null)
+            interpretedMatches = countMatches(new PatternMatcher(pattern, classContext, method).setUseOpcodeIndex(false).execute());
+        stats.interpretedNanos += System.nanoTime() - start;
+
+        stats.matches += interpretedMatches;
+        if (compiledMatches != interpretedMatches) {
+            getBugReporter().logError(
+                    getDetectorName() + ": compiled pattern found " + compiledMatches + " matches in "
+                            + classContext.getJavaClass().getClassName() + "." + method.getName() + ", interpreted pattern found "
+                            + interpretedMatches);
+        }
+    }
+
+    private static int countMatches(PatternMatcher matcher) {
+        int count = 0;
+        for (Iterator<ByteCodePatternMatch> i = matcher.byteCodePatternMatchIterator(); i.hasNext(); i.next())
+            count++;
+        return count;
     }
 
     /**
@@ -130,6 +206,12 @@ public abstract class ByteCodePatternDetector implements Detector {
      * As a datapoint, prescreening speeds up the BCPDoubleCheck detector <b>by
      * a factor of 5</b> with no loss of generality and only a dozen or so extra
      * lines of code.
+     * <p/>
+     * <p>
+     * Methods which don't use the opcodes required by the pattern are
+     * rejected automatically after this method returns true (see
+     * ByteCodePattern.compile()), so only other criteria need be checked
+     * here.
      * 
      * @param method
      *            the method
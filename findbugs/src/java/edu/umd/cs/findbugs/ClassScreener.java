@@ -19,6 +19,7 @@
 
 package edu.umd.cs.findbugs;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -60,6 +61,9 @@ public class ClassScreener implements IClassScreener {
 
     private LinkedList<Matcher> patternList;
 
+    /** Earlier results of matches(), by file name */
+    private final HashMap<String, Boolean> decisions = new HashMap<String, Boolean>();
+
     /**
      * Constructor. By default, the ClassScreener will match <em>all</em> class
      * files. Once addAllowedClass() and addAllowedPackage() are called, the
@@ -104,7 +108,7 @@ public class ClassScreener implements IClassScreener {
         String classRegex = START + dotsToRegex(className) + ".class$";
         if (DEBUG)
             System.out.println("Class regex: " + classRegex);
-        patternList.add(Pattern.compile(classRegex).matcher(""));
+        addPattern(classRegex);
     }
 
     /**
@@ -122,7 +126,7 @@ public class ClassScreener implements IClassScreener {
         String packageRegex = START + dotsToRegex(packageName) + SEP + JAVA_IDENTIFIER_PART + "+.class$";
         if (DEBUG)
             System.out.println("Package regex: " + packageRegex);
-        patternList.add(Pattern.compile(packageRegex).matcher(""));
+        addPattern(packageRegex);
     }
 
     /**
@@ -142,7 +146,12 @@ public class ClassScreener implements IClassScreener {
         String packageRegex = START + dotsToRegex(prefix) + SEP;
         if (DEBUG)
             System.out.println("Prefix regex: " + packageRegex);
-        patternList.add(Pattern.compile(packageRegex).matcher(""));
+        addPattern(packageRegex);
+    }
+
+    private void addPattern(String regex) {
+        patternList.add(Pattern.compile(regex).matcher(""));
+        decisions.clear();
     }
 
     /*
@@ -156,6 +165,18 @@ public class ClassScreener implements IClassScreener {
         if (patternList.isEmpty())
             return true;
 
+        // The same class is screened once per pass and again for each bug
+        // reported in it
+        Boolean result = decisions.get(fileName);
+        if (result == null) {
+            result = scan(fileName);
+            decisions.put(fileName, result);
+        }
+        return result;
+    }
+
+    private boolean scan(String fileName) {
+
         if (DEBUG)
             System.out.println("Matching: " + fileName);
 
@@ -21,18 +21,25 @@ package edu.umd.cs.findbugs;
 
 import javax.annotation.Nonnull;
 
+import edu.umd.cs.findbugs.filter.CompiledFilter;
 import edu.umd.cs.findbugs.filter.Matcher;
 
 public class FilterBugReporter extends DelegatingBugReporter {
     private static final boolean DEBUG = SystemProperties.getBoolean("filter.debug");
 
+    /**
+     * Match bugs against the filter as given, rather than against a
+     * {@link CompiledFilter}
+     */
+    private static final boolean INTERPRET = SystemProperties.getBoolean("filter.interpret");
+
     private Matcher filter;
 
     private boolean include;
 
     public FilterBugReporter(BugReporter realBugReporter, Matcher filter, boolean include) {
         super(realBugReporter);
-        this.filter = filter;
+        this.filter = INTERPRET || DEBUG ? filter : CompiledFilter.compile(filter);
         this.include = include;
     }
 
@@ -369,7 +369,7 @@ public abstract class FindBugs {
         showSynopsis();
         ShowHelp.showGeneralOptions();
         FindBugs.showCommandLineOptions(commandLine);
-        System.exit(1);
+        commandLine.exit(1);
     }
 
     /**
@@ -383,14 +383,9 @@ public abstract class FindBugs {
      */
     @SuppressWarnings("DM_EXIT")
     public static void runMain(IFindBugsEngine findBugs, TextUICommandLine commandLine) throws IOException {
-        boolean verbose = !commandLine.quiet() || commandLine.setExitCode();
-
-          FutureValue<Collection<UpdateChecker.PluginUpdate>>
-        updateHolder = null;
-        if (verbose)
-            updateHolder  = DetectorFactoryCollection.instance().getUpdates();
-      try {
-            findBugs.execute();
+        int exitCode;
+        try {
+            exitCode = runAnalysis(findBugs, commandLine);
         } catch (InterruptedException e) {
             assert false; // should not occur
             checkExitCodeFail(commandLine, e);
@@ -403,6 +398,27 @@ public abstract class FindBugs {
             throw e;
         }
 
+        if (commandLine.setExitCode())
+            System.exit(exitCode);
+    }
+
+    /**
+     * Like {@link #runMain(IFindBugsEngine, TextUICommandLine)}, but return
+     * the exit code instead of exiting, and let exceptions propagate. Used to
+     * run FindBugs inside another JVM, e.g., by the Ant task.
+     *
+     * @return the exit code, computed as for -exitcode
+     */
+    public static int runAnalysis(IFindBugsEngine findBugs, TextUICommandLine commandLine) throws IOException,
+            InterruptedException {
+        boolean verbose = !commandLine.quiet() || commandLine.setExitCode();
+
+          FutureValue<Collection<UpdateChecker.PluginUpdate>>
+        updateHolder = null;
+        if (verbose)
+            updateHolder  = DetectorFactoryCollection.instance().getUpdates();
+        findBugs.execute();
+
         int bugCount = findBugs.getBugCount();
         int missingClassCount = findBugs.getMissingClassCount();
         int errorCount = findBugs.getErrorCount();
@@ -445,8 +461,9 @@ public abstract class FindBugs {
             }
             System.err.println("Exit code set to: " + exitCode);
 
-            System.exit(exitCode);
+            return exitCode;
         }
+        return 0;
     }
 
     /**
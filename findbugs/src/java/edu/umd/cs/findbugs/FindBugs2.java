@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -47,6 +48,9 @@ import edu.umd.cs.findbugs.ba.SourceInfoMap;
 import edu.umd.cs.findbugs.ba.XClass;
 import edu.umd.cs.findbugs.ba.XFactory;
 import edu.umd.cs.findbugs.ba.XField;
+import edu.umd.cs.findbugs.ba.XMethod;
+import edu.umd.cs.findbugs.ba.ch.ClassCallGraph;
+import edu.umd.cs.findbugs.ba.interproc.PropertyDatabase;
 import edu.umd.cs.findbugs.ba.jsr305.TypeQualifierAnnotation;
 import edu.umd.cs.findbugs.ba.jsr305.TypeQualifierApplications;
 import edu.umd.cs.findbugs.ba.jsr305.TypeQualifierValue;
@@ -64,6 +68,8 @@ import edu.umd.cs.findbugs.classfile.IClassPathBuilder;
 import edu.umd.cs.findbugs.classfile.ICodeBase;
 import edu.umd.cs.findbugs.classfile.ICodeBaseEntry;
 import edu.umd.cs.findbugs.classfile.MissingClassException;
+import edu.umd.cs.findbugs.classfile.engine.ParallelClassInfoLoader;
+import edu.umd.cs.findbugs.classfile.impl.AnalysisCache;
 import edu.umd.cs.findbugs.classfile.impl.ClassFactory;
 import edu.umd.cs.findbugs.config.AnalysisFeatureSetting;
 import edu.umd.cs.findbugs.config.UserPreferences;
@@ -94,6 +100,44 @@ public class FindBugs2 implements IFindBugsEngine {
 
     private static final boolean SCREEN_FIRST_PASS_CLASSES = SystemProperties.getBoolean("findbugs.screenFirstPass");
 
+    /**
+     * Compute interprocedural summaries bottom-up over the strongly connected
+     * components of the class call graph in the pass which runs the
+     * {@link InterproceduralFirstPassDetector}s, iterating recursive
+     * components to a fixed point.
+     */
+    private static final boolean SCC_SUMMARIES = SystemProperties.getBoolean("findbugs.sccSummaries");
+
+    /**
+     * Maximum number of times the interprocedural detectors are applied to
+     * a recursive component.
+     */
+    private static final int MAX_SUMMARY_ITERATIONS = SystemProperties.getInt("findbugs.sccSummaries.maxIterations", 4);
+
+    /**
+     * Restrict the classes analyzed in the first pass to the application
+     * classes, their supertypes and enclosing classes, and the classes whose
+     * methods they call (transitively, up to {@link #MAX_AUX_CALL_DEPTH}
+     * calls away from the application), rather than every class that has
+     * been mentioned anywhere.
+     */
+    private static final boolean DEMAND_DRIVEN_REFERENCED_CLASSES = SystemProperties
+            .getBoolean("findbugs.referencedClasses.demandDriven");
+
+    /**
+     * How many calls away from the application classes the demand-driven
+     * referenced class set follows into the auxiliary classpath.
+     */
+    private static final int MAX_AUX_CALL_DEPTH = SystemProperties.getInt("findbugs.referencedClasses.maxAuxDepth", 1);
+
+    /**
+     * Number of threads used to load the classes found while building the
+     * referenced class set. With more than one thread, each frontier of the
+     * work list is read and parsed in parallel before it is processed.
+     */
+    private static final int REFERENCED_CLASS_LOADER_THREADS = SystemProperties.getInt(
+            "findbugs.referencedClasses.threads", 1);
+
     public static final String PROP_FINDBUGS_HOST_APP = "findbugs.hostApp";
     public static final String PROP_FINDBUGS_HOST_APP_VERSION = "findbugs.hostAppVersion";
 
@@ -115,6 +159,17 @@ public class FindBugs2 implements IFindBugsEngine {
 
     private Collection<ClassDescriptor> referencedClassSet;
 
+    private int referencedClassLoaderThreads = REFERENCED_CLASS_LOADER_THREADS;
+
+    private boolean demandDrivenReferencedClasses = DEMAND_DRIVEN_REFERENCED_CLASSES;
+
+    private boolean sccSummaries = SCC_SUMMARIES;
+
+    /** true while computeComponentSummaries applies detectors */
+    private boolean computingSummaries;
+
+    private int maxAuxCallDepth = MAX_AUX_CALL_DEPTH;
+
     private DetectorFactoryCollection detectorFactoryCollection;
 
     private ExecutionPlan executionPlan;
@@ -195,6 +250,7 @@ public class FindBugs2 implements IFindBugsEngine {
             throw new UnsupportedOperationException("This FindBugs invocation was started without analysis capabilities");
 
         Profiler profiler = bugReporter.getProjectStats().getProfiler();
+        AnalysisMetrics metrics = null;
 
         try {
         try {
@@ -210,6 +266,13 @@ public class FindBugs2 implements IFindBugsEngine {
             // The analysis cache object
             createAnalysisCache();
 
+            // Publish live metrics of the analysis, if enabled
+            metrics = AnalysisMetrics.start(progress, profiler, Global.getAnalysisCache());
+            if (metrics != null) {
+                progress = metrics;
+                addClassObserver(metrics);
+            }
+
             // Create BCEL compatibility layer
             createAnalysisContext(project, appClassList, analysisOptions.sourceInfoFileName);
 
@@ -262,6 +325,20 @@ public class FindBugs2 implements IFindBugsEngine {
                 };
             }
 
+            if (sccSummaries) {
+                // computeComponentSummaries applies detectors repeatedly, so
+                // their warnings are reported only when the class is analyzed
+                bugReporter = new DelegatingBugReporter(bugReporter) {
+
+                    @Override
+                    public void reportBug(@Nonnull BugInstance bugInstance) {
+                        if (!computingSummaries) {
+                            this.getDelegate().reportBug(bugInstance);
+                        }
+                    }
+                };
+            }
+
             if (executionPlan.isActive(NoteSuppressedWarnings.class)) {
                 SuppressionMatcher m = AnalysisContext.currentAnalysisContext().getSuppressionMatcher();
                 bugReporter = new FilterBugReporter(bugReporter, m, false);
@@ -297,6 +374,11 @@ public class FindBugs2 implements IFindBugsEngine {
             }
             throw e;
         } finally {
+            if (metrics != null) {
+                metrics.stop();
+                progress = metrics.getDelegate();
+                classObserverList.remove(metrics);
+            }
             clearCaches();
             profiler.end(this.getClass());
             profiler.report();
@@ -689,6 +771,41 @@ public class FindBugs2 implements IFindBugsEngine {
         this.analysisOptions.noClassOk = noClassOk;
     }
 
+    /**
+     * Set the number of threads used to load the classes of the referenced
+     * class set; the default is findbugs.referencedClasses.threads.
+     */
+    void setReferencedClassLoaderThreads(int threads) {
+        this.referencedClassLoaderThreads = threads;
+    }
+
+    /**
+     * Use the demand-driven referenced class set, following calls at most
+     * maxAuxCallDepth calls away from the application; the defaults are
+     * findbugs.referencedClasses.demandDriven and
+     * findbugs.referencedClasses.maxAuxDepth.
+     */
+    void setDemandDrivenReferencedClasses(boolean demandDriven, int maxAuxCallDepth) {
+        this.demandDrivenReferencedClasses = demandDriven;
+        this.maxAuxCallDepth = maxAuxCallDepth;
+    }
+
+    /**
+     * Compute interprocedural summaries bottom-up over the class call graph;
+     * the default is findbugs.sccSummaries.
+     */
+    void setSccSummaries(boolean sccSummaries) {
+        this.sccSummaries = sccSummaries;
+    }
+
+    /**
+     * @return the classes referenced by the application, in the order the
+     *         first pass analyzes them
+     */
+    Collection<ClassDescriptor> getReferencedClassSet() {
+        return referencedClassSet;
+    }
+
     /**
      * Create the analysis cache object and register it for current execution thread.
      * <p>
@@ -830,6 +947,14 @@ public class FindBugs2 implements IFindBugsEngine {
         int count = 0;
         Set<ClassDescriptor> addedToWorkList = new HashSet<ClassDescriptor>(appClassList);
 
+        // For the demand-driven set: the number of calls separating each
+        // class from the application, and the classes reached in order
+        Map<ClassDescriptor, Integer> callDepth = new HashMap<ClassDescriptor, Integer>();
+        List<ClassDescriptor> demandedClassList = new ArrayList<ClassDescriptor>();
+        for (ClassDescriptor classDesc : appClassList) {
+            callDepth.put(classDesc, 0);
+        }
+
         // add fields
         //noinspection ConstantIfStatement
         if (false)
@@ -856,73 +981,121 @@ public class FindBugs2 implements IFindBugsEngine {
                 }
             }
 
-        while (!workList.isEmpty()) {
-            if (Thread.interrupted()) {
-                throw new InterruptedException();
-            }
-            ClassDescriptor classDesc = workList.removeFirst();
+        ParallelClassInfoLoader loader = null;
+        if (referencedClassLoaderThreads > 1 && Global.getAnalysisCache() instanceof AnalysisCache) {
+            loader = new ParallelClassInfoLoader((AnalysisCache) Global.getAnalysisCache(), referencedClassLoaderThreads);
+        }
+        // number of classes at the head of the work list already loaded
+        int loaded = 0;
+        try {
+            while (!workList.isEmpty()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (loader != null && loaded == 0) {
+                    // Load the current frontier in parallel. Its successors are
+                    // added behind it, so the processing order is unchanged.
+                    loader.load(workList);
+                    loaded = workList.size();
+                }
+                ClassDescriptor classDesc = workList.removeFirst();
+                loaded--;
 
-            if (seen.contains(classDesc)) {
-                continue;
-            }
-            seen.add(classDesc);
+                if (seen.contains(classDesc)) {
+                    continue;
+                }
+                seen.add(classDesc);
 
-            if (!knownDescriptors.contains(classDesc)) {
-                count++;
-                if (PROGRESS && count % 5000 == 0) {
-                    System.out.println("Adding referenced class " + classDesc);
+                if (!knownDescriptors.contains(classDesc)) {
+                    count++;
+                    if (PROGRESS && count % 5000 == 0) {
+                        System.out.println("Adding referenced class " + classDesc);
+                    }
                 }
-            }
 
-            referencedPackageSet.add(classDesc.getPackageName());
+                referencedPackageSet.add(classDesc.getPackageName());
+                Integer depth = callDepth.get(classDesc);
 
-            // Get list of referenced classes and add them to set.
-            // Add superclasses and superinterfaces to worklist.
-            try {
-                XClass classNameAndInfo = Global.getAnalysisCache().getClassAnalysis(XClass.class, classDesc);
+                // Get list of referenced classes and add them to set.
+                // Add superclasses and superinterfaces to worklist.
+                try {
+                    XClass classNameAndInfo = Global.getAnalysisCache().getClassAnalysis(XClass.class, classDesc);
+                    demandedClassList.add(classDesc);
 
-                ClassDescriptor superclassDescriptor = classNameAndInfo.getSuperclassDescriptor();
-                if (superclassDescriptor != null && addedToWorkList.add(superclassDescriptor)) {
-                    workList.addLast(superclassDescriptor);
-                }
+                    ClassDescriptor superclassDescriptor = classNameAndInfo.getSuperclassDescriptor();
+                    if (superclassDescriptor != null && addedToWorkList.add(superclassDescriptor)) {
+                        workList.addLast(superclassDescriptor);
+                        callDepth.put(superclassDescriptor, depth);
+                    }
 
-                for (ClassDescriptor ifaceDesc : classNameAndInfo.getInterfaceDescriptorList()) {
-                    if (addedToWorkList.add(ifaceDesc))
-                        workList.addLast(ifaceDesc);
-                }
+                    for (ClassDescriptor ifaceDesc : classNameAndInfo.getInterfaceDescriptorList()) {
+                        if (addedToWorkList.add(ifaceDesc)) {
+                            workList.addLast(ifaceDesc);
+                            callDepth.put(ifaceDesc, depth);
+                        }
+                    }
 
-                ClassDescriptor enclosingClass = classNameAndInfo.getImmediateEnclosingClass();
-                if (enclosingClass != null && addedToWorkList.add(enclosingClass))
-                    workList.addLast(enclosingClass);
+                    ClassDescriptor enclosingClass = classNameAndInfo.getImmediateEnclosingClass();
+                    if (enclosingClass != null && addedToWorkList.add(enclosingClass)) {
+                        workList.addLast(enclosingClass);
+                        callDepth.put(enclosingClass, depth);
+                    }
 
-            } catch (RuntimeException e) {
-                bugReporter.logError("Error scanning " + classDesc + " for referenced classes", e);
-                if (appClassSet.contains(classDesc)) {
-                    badAppClassSet.add(classDesc);
-                }
-            } catch (MissingClassException e) {
-                // Just log it as a missing class
-                bugReporter.reportMissingClass(e.getClassDescriptor());
-                if (appClassSet.contains(classDesc)) {
-                    badAppClassSet.add(classDesc);
-                }
-            } catch (CheckedAnalysisException e) {
-                // Failed to scan a referenced class --- just log the error and
-                // continue
-                bugReporter.logError("Error scanning " + classDesc + " for referenced classes", e);
-                if (appClassSet.contains(classDesc)) {
-                    badAppClassSet.add(classDesc);
+                    if (demandDrivenReferencedClasses && depth < maxAuxCallDepth) {
+                        for (ClassDescriptor calledClass : classNameAndInfo.getCalledClassDescriptors()) {
+                            if (!calledClass.isArray() && addedToWorkList.add(calledClass)) {
+                                workList.addLast(calledClass);
+                                callDepth.put(calledClass, depth + 1);
+                            }
+                        }
+                    }
+
+                } catch (RuntimeException e) {
+                    bugReporter.logError("Error scanning " + classDesc + " for referenced classes", e);
+                    if (appClassSet.contains(classDesc)) {
+                        badAppClassSet.add(classDesc);
+                    }
+                } catch (MissingClassException e) {
+                    // Just log it as a missing class
+                    bugReporter.reportMissingClass(e.getClassDescriptor());
+                    if (appClassSet.contains(classDesc)) {
+                        badAppClassSet.add(classDesc);
+                    }
+                } catch (CheckedAnalysisException e) {
+                    // Failed to scan a referenced class --- just log the error and
+                    // continue
+                    bugReporter.logError("Error scanning " + classDesc + " for referenced classes", e);
+                    if (appClassSet.contains(classDesc)) {
+                        badAppClassSet.add(classDesc);
+                    }
                 }
             }
+        } finally {
+            if (loader != null) {
+                loader.shutdown();
+            }
         }
         // Delete any application classes that could not be read
         appClassList.removeAll(badAppClassSet);
         DescriptorFactory.instance().purge(badAppClassSet);
 
-        for (ClassDescriptor d : DescriptorFactory.instance().getAllClassDescriptors()) {
-            referencedPackageSet.add(d.getPackageName());
+        if (demandDrivenReferencedClasses) {
+            demandedClassList.removeAll(badAppClassSet);
+            referencedClassSet = demandedClassList;
+            if (PROGRESS) {
+                System.out.println("Demand-driven referenced class set: " + referencedClassSet.size() + " of "
+                        + DescriptorFactory.instance().getAllClassDescriptors().size() + " known classes");
+            }
+        } else {
+            for (ClassDescriptor d : DescriptorFactory.instance().getAllClassDescriptors()) {
+                referencedPackageSet.add(d.getPackageName());
+            }
+            // Sorted, since the order in which descriptors were created
+            // depends on the number of loader threads
+            List<ClassDescriptor> allClasses = new ArrayList<ClassDescriptor>(DescriptorFactory.instance().getAllClassDescriptors());
+            Collections.sort(allClasses);
+            referencedClassSet = allClasses;
         }
-        referencedClassSet = new ArrayList<ClassDescriptor>(DescriptorFactory.instance().getAllClassDescriptors());
 
         // Based on referenced packages, add any resolvable package-info classes
         // to the set of referenced classes.
@@ -1096,6 +1269,15 @@ public class FindBugs2 implements IFindBugsEngine {
 
             long startTime = System.currentTimeMillis();
             bugReporter.getProjectStats().setReferencedClasses(referencedClassSet.size());
+            AnalysisCosts costs = AnalysisCosts.RECORD ? bugReporter.getProjectStats().getAnalysisCosts() : null;
+            AnalysisCosts.Meter classMeter = null, detectorMeter = null;
+            if (costs != null) {
+                classMeter = new AnalysisCosts.Meter();
+                detectorMeter = new AnalysisCosts.Meter();
+            }
+            // Every reporting pass analyzes the application classes in the
+            // same order, so it is only computed once
+            List<ClassDescriptor> appClassOrder = null;
             for (Iterator<AnalysisPass> passIterator = executionPlan.passIterator(); passIterator.hasNext();) {
                 AnalysisPass pass = passIterator.next();
                 yourkitController.advanceGeneration("Pass " + passCount);
@@ -1118,22 +1300,51 @@ public class FindBugs2 implements IFindBugsEngine {
                     if (DEBUG)
                         XFactory.profile();
                 }
-                if (!isNonReportingFirstPass) {
-                    OutEdges<ClassDescriptor> outEdges = new OutEdges<ClassDescriptor>() {
+                OutEdges<ClassDescriptor> outEdges = new OutEdges<ClassDescriptor>() {
 
-                        public Collection<ClassDescriptor> getOutEdges(ClassDescriptor e) {
-                            try {
-                                XClass classNameAndInfo = Global.getAnalysisCache().getClassAnalysis(XClass.class, e);
-                                return classNameAndInfo.getCalledClassDescriptors();
-                            } catch (CheckedAnalysisException e2) {
-                                AnalysisContext.logError("error while analyzing " + e.getClassName(), e2);
-                                return Collections.emptyList();
+                    public Collection<ClassDescriptor> getOutEdges(ClassDescriptor e) {
+                        try {
+                            XClass classNameAndInfo = Global.getAnalysisCache().getClassAnalysis(XClass.class, e);
+                            return classNameAndInfo.getCalledClassDescriptors();
+                        } catch (CheckedAnalysisException e2) {
+                            AnalysisContext.logError("error while analyzing " + e.getClassName(), e2);
+                            return Collections.emptyList();
 
-                            }
                         }
-                    };
-
-                    classCollection = sortByCallGraph(classCollection, outEdges);
+                    }
+                };
+                // Classes are screened in reporting passes only, unless
+                // requested otherwise
+                boolean screenClasses = SCREEN_FIRST_PASS_CLASSES || !isNonReportingFirstPass;
+                // The detectors computing interprocedural summaries, if
+                // they are to be computed bottom-up
+                List<Detector2> summaryDetectors = sccSummaries ? getInterproceduralDetectors(pass, detectorList)
+                        : Collections.<Detector2> emptyList();
+                // Recursive call graph components, keyed by the first class
+                // of the component in the analysis order
+                Map<ClassDescriptor, ClassCallGraph.Component> recursiveComponents = Collections.emptyMap();
+                if (!summaryDetectors.isEmpty()) {
+                    List<ClassCallGraph.Component> components = ClassCallGraph.build(classCollection, outEdges)
+                            .getComponentsBottomUp();
+                    List<ClassDescriptor> evaluationOrder = new ArrayList<ClassDescriptor>(classCollection.size());
+                    recursiveComponents = new HashMap<ClassDescriptor, ClassCallGraph.Component>();
+                    for (ClassCallGraph.Component component : components) {
+                        evaluationOrder.addAll(component.getClasses());
+                        if (component.isRecursive())
+                            recursiveComponents.put(component.getClasses().get(0), component);
+                    }
+                    classCollection = evaluationOrder;
+                    if (PROGRESS)
+                        System.out.printf("  %d call graph components, %d recursive%n", components.size(),
+                                recursiveComponents.size());
+                } else if (!isNonReportingFirstPass) {
+                    if (appClassOrder == null) {
+                        appClassOrder = sortByCallGraph(appClassList, outEdges);
+                        if (PROGRESS)
+                            System.out.printf("  %d levels in analysis order%n",
+                                    edu.umd.cs.findbugs.util.TopologicalSort.partitionIntoLevels(appClassOrder, outEdges).size());
+                    }
+                    classCollection = appClassOrder;
                 }
                 if (LIST_ORDER) {
                     System.out.println("Analysis order:");
@@ -1157,12 +1368,14 @@ public class FindBugs2 implements IFindBugsEngine {
                                 classCollection.size(), classDescriptor);
                     }
                    count++;
+                    ClassCallGraph.Component component = recursiveComponents.get(classDescriptor);
+                    if (component != null)
+                        computeComponentSummaries(component, summaryDetectors, screenClasses);
 
                     // Check to see if class is excluded by the class screener.
                     // In general, we do not want to screen classes from the
                     // first pass, even if they would otherwise be excluded.
-                    if ((SCREEN_FIRST_PASS_CLASSES || !isNonReportingFirstPass)
-                            && !classScreener.matches(classDescriptor.toResourceName())) {
+                    if (screenClasses && !classScreener.matches(classDescriptor.toResourceName())) {
                         if (DEBUG) {
                             System.out.println("*** Excluded by class screener");
                         }
@@ -1177,6 +1390,10 @@ public class FindBugs2 implements IFindBugsEngine {
                     notifyClassObservers(classDescriptor);
                     profiler.startContext(currentClassName);
                     currentAnalysisContext.setClassBeingAnalyzed(classDescriptor);
+                    if (costs != null) {
+                        classMeter.start();
+                        detectorMeter.start();
+                    }
 
                     try {
                     for (Detector2 detector : detectorList) {
@@ -1192,22 +1409,13 @@ public class FindBugs2 implements IFindBugsEngine {
                             // NonReportingDetector.class.isAssignableFrom(detector.getClass())
                             // + ", bar: " + detector.getClass().getName());
                         }
-                        try {
-                            profiler.start(detector.getClass());
-                            detector.visitClass(classDescriptor);
-                        } catch (ClassFormatException e) {
-                            logRecoverableException(classDescriptor, detector, e);
-                        } catch (MissingClassException e) {
-                            Global.getAnalysisCache().getErrorLogger().reportMissingClass(e.getClassDescriptor());
-                        } catch (CheckedAnalysisException e) {
-                            logRecoverableException(classDescriptor, detector, e);
-                        } catch (RuntimeException e) {
-                            logRecoverableException(classDescriptor, detector, e);
-                        } finally {
-                            profiler.end(detector.getClass());
-                        }
+                        applyDetector(detector, classDescriptor);
+                        if (costs != null)
+                            costs.addDetectorCost(detector.getDetectorClassName(), detectorMeter);
                     }
                     } finally {
+                        if (costs != null)
+                            costs.addClassCost(currentClassName, classMeter);
 
                         progress.finishClass();
                         profiler.endContext(currentClassName);
@@ -1262,6 +1470,127 @@ public class FindBugs2 implements IFindBugsEngine {
         }
     }
 
+    /**
+     * Apply a detector to a class, logging any recoverable exception.
+     */
+    private void applyDetector(Detector2 detector, ClassDescriptor classDescriptor) {
+        Profiler profiler = bugReporter.getProjectStats().getProfiler();
+        try {
+            profiler.start(detector.getClass());
+            detector.visitClass(classDescriptor);
+        } catch (ClassFormatException e) {
+            logRecoverableException(classDescriptor, detector, e);
+        } catch (MissingClassException e) {
+            Global.getAnalysisCache().getErrorLogger().reportMissingClass(e.getClassDescriptor());
+        } catch (CheckedAnalysisException e) {
+            logRecoverableException(classDescriptor, detector, e);
+        } catch (RuntimeException e) {
+            logRecoverableException(classDescriptor, detector, e);
+        } finally {
+            profiler.end(detector.getClass());
+        }
+    }
+
+    /**
+     * Get the detectors in a pass which compute interprocedural summaries.
+     *
+     * @param pass
+     *            the analysis pass
+     * @param detectorList
+     *            the detectors instantiated for the pass, in the order of
+     *            the pass's detector factories
+     */
+    private static List<Detector2> getInterproceduralDetectors(AnalysisPass pass, Detector2[] detectorList) {
+        List<Detector2> result = new ArrayList<Detector2>();
+        int i = 0;
+        for (Iterator<DetectorFactory> j = pass.iterator(); j.hasNext(); i++) {
+            if (j.next().isDetectorClassSubtypeOf(InterproceduralFirstPassDetector.class))
+                result.add(detectorList[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Apply the interprocedural detectors to the classes of a recursive call
+     * graph component until the summaries they compute stop changing. Since
+     * the classes call each other, a single application may use summaries of
+     * methods which have not been computed yet. This is done before any
+     * other detector is applied to the classes, so that those see the final
+     * summaries. Warnings reported meanwhile are dropped; the detectors
+     * report them when they are applied to the classes with all others.
+     *
+     * @param component
+     *            a recursive component of the class call graph
+     * @param summaryDetectors
+     *            the interprocedural detectors
+     * @param screenClasses
+     *            true if classes excluded by the class screener are skipped
+     */
+    private void computeComponentSummaries(ClassCallGraph.Component component, List<Detector2> summaryDetectors,
+            boolean screenClasses) throws InterruptedException {
+        AnalysisContext analysisContext = AnalysisContext.currentAnalysisContext();
+        int modificationCount = getSummaryModificationCount(analysisContext);
+        boolean converged = false;
+        computingSummaries = true;
+        try {
+            for (int iteration = 1; iteration <= MAX_SUMMARY_ITERATIONS && !converged; iteration++) {
+                for (ClassDescriptor classDescriptor : component.getClasses()) {
+                    if (screenClasses && !classScreener.matches(classDescriptor.toResourceName()))
+                        continue;
+                    if (analysisContext.isTooBig(classDescriptor))
+                        continue;
+
+                    // Discard dataflow computed using the old summaries
+                    purgeMethodAnalyses(classDescriptor);
+                    analysisContext.setClassBeingAnalyzed(classDescriptor);
+                    try {
+                        for (Detector2 detector : summaryDetectors) {
+                            if (Thread.interrupted()) {
+                                throw new InterruptedException();
+                            }
+                            applyDetector(detector, classDescriptor);
+                        }
+                    } finally {
+                        analysisContext.clearClassBeingAnalyzed();
+                    }
+                }
+                int updatedCount = getSummaryModificationCount(analysisContext);
+                if (DEBUG)
+                    System.out.println("Iteration " + iteration + " over " + component + ": "
+                            + (updatedCount - modificationCount) + " summaries changed");
+                converged = updatedCount == modificationCount;
+                modificationCount = updatedCount;
+            }
+        } finally {
+            computingSummaries = false;
+        }
+        if (!converged) {
+            // The last iteration changed summaries it had already used
+            for (ClassDescriptor classDescriptor : component.getClasses())
+                purgeMethodAnalyses(classDescriptor);
+        }
+    }
+
+    private static void purgeMethodAnalyses(ClassDescriptor classDescriptor) {
+        IAnalysisCache analysisCache = Global.getAnalysisCache();
+        try {
+            XClass xclass = analysisCache.getClassAnalysis(XClass.class, classDescriptor);
+            for (XMethod xmethod : xclass.getXMethods())
+                analysisCache.purgeMethodAnalyses(xmethod.getMethodDescriptor());
+        } catch (CheckedAnalysisException e) {
+            // no methods analyzed
+        }
+    }
+
+    private static int getSummaryModificationCount(AnalysisContext analysisContext) {
+        return getModificationCount(analysisContext.getUnconditionalDerefParamDatabase())
+                + getModificationCount(analysisContext.getReturnValueNullnessPropertyDatabase());
+    }
+
+    private static int getModificationCount(@CheckForNull PropertyDatabase<?, ?> database) {
+        return database == null ? 0 : database.getModificationCount();
+    }
+
     /**
      * Report an exception that occurred while analyzing a class with a
      * detector.
@@ -1306,6 +1635,85 @@ public class FindBugs2 implements IFindBugsEngine {
 
     }
 
+    /**
+     * Run an analysis in this JVM, as {@link #main(String[])} would, but
+     * return the exit code (as for -exitcode) instead of exiting. Used by the
+     * Ant task when it does not fork. Command line errors return the status
+     * main() would exit with, e.g., 1 if there are no files to analyze.
+     * <p>
+     * The priority adjustments and plugin choices made by the -adjustPriority
+     * and -choosePlugins options are undone before returning, since the
+     * DetectorFactoryCollection outlives the run.
+     */
+    public static int run(String[] args) throws Exception {
+        if (!CheckBcel.check()) {
+            return ExitCodes.ERROR_FLAG;
+        }
+
+        CommandLineSettings saved = new CommandLineSettings(DetectorFactoryCollection.instance());
+        try {
+            FindBugs2 findBugs = new FindBugs2();
+            TextUICommandLine commandLine = new TextUICommandLine();
+            commandLine.setExitAllowed(false);
+            try {
+                FindBugs.processCommandLine(commandLine, args, findBugs);
+            } catch (TextUICommandLine.ExitException e) {
+                return e.getExitCode();
+            }
+
+            boolean justPrintConfiguration = commandLine.justPrintConfiguration();
+            if (justPrintConfiguration || commandLine.justPrintVersion()) {
+                Version.printVersion(justPrintConfiguration);
+                return 0;
+            }
+            return FindBugs.runAnalysis(findBugs, commandLine);
+        } finally {
+            saved.restore(DetectorFactoryCollection.instance());
+        }
+    }
+
+    /**
+     * The settings of a DetectorFactoryCollection which the command line
+     * changes in place. Factories, patterns and plugins loaded after the
+     * settings were saved are restored to their initial state.
+     */
+    static class CommandLineSettings {
+        private final Map<DetectorFactory, Integer> factoryAdjustments = new HashMap<DetectorFactory, Integer>();
+
+        private final Map<BugPattern, Integer> patternAdjustments = new HashMap<BugPattern, Integer>();
+
+        private final Map<Plugin, Boolean> pluginsEnabled = new HashMap<Plugin, Boolean>();
+
+        CommandLineSettings(DetectorFactoryCollection detectorFactoryCollection) {
+            for (Iterator<DetectorFactory> i = detectorFactoryCollection.factoryIterator(); i.hasNext();) {
+                DetectorFactory factory = i.next();
+                factoryAdjustments.put(factory, factory.getPriorityAdjustment());
+            }
+            for (BugPattern pattern : detectorFactoryCollection.getBugPatterns())
+                patternAdjustments.put(pattern, pattern.getPriorityAdjustment());
+            for (Plugin plugin : detectorFactoryCollection.plugins())
+                pluginsEnabled.put(plugin, plugin.isGloballyEnabled());
+        }
+
+        void restore(DetectorFactoryCollection detectorFactoryCollection) {
+            for (Iterator<DetectorFactory> i = detectorFactoryCollection.factoryIterator(); i.hasNext();) {
+                DetectorFactory factory = i.next();
+                Integer adjustment = factoryAdjustments.get(factory);
+                factory.setPriorityAdjustment(adjustment != null ? adjustment.intValue() : 0);
+            }
+            for (BugPattern pattern : detectorFactoryCollection.getBugPatterns()) {
+                Integer adjustment = patternAdjustments.get(pattern);
+                pattern.adjustPriority((adjustment != null ? adjustment.intValue() : 0) - pattern.getPriorityAdjustment());
+            }
+            for (Plugin plugin : detectorFactoryCollection.plugins()) {
+                Boolean enabled = pluginsEnabled.get(plugin);
+                boolean wasEnabled = enabled != null ? enabled.booleanValue() : plugin.isEnabledByDefault();
+                if (plugin.isGloballyEnabled() != wasEnabled)
+                    plugin.setGloballyEnabled(wasEnabled);
+            }
+        }
+    }
+
 
     public void setAbridgedMessages(boolean xmlWithAbridgedMessages) {
         analysisOptions.abridgedMessages = xmlWithAbridgedMessages;
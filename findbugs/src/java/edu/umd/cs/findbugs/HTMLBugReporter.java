@@ -27,11 +27,15 @@ import java.net.URL;
 
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
-import org.dom4j.Document;
-import org.dom4j.io.DocumentSource;
+import org.xml.sax.InputSource;
+
+import edu.umd.cs.findbugs.xml.XMLOutput;
+import edu.umd.cs.findbugs.xml.XMLWriteable;
+import edu.umd.cs.findbugs.xml.XMLWriteableReader;
 
 public class HTMLBugReporter extends BugCollectionBugReporter {
     private String stylesheet;
@@ -46,11 +50,8 @@ public class HTMLBugReporter extends BugCollectionBugReporter {
     @Override
     public void finish() {
         try {
-            BugCollection bugCollection = getBugCollection();
+            final BugCollection bugCollection = getBugCollection();
             bugCollection.setWithMessages(true);
-            // Decorate the XML with messages to display
-            Document document = bugCollection.toDocument();
-            // new AddMessages(bugCollection, document).execute();
 
             // Get the stylesheet as a StreamSource.
             // First, try to load the stylesheet from the filesystem.
@@ -63,8 +64,14 @@ public class HTMLBugReporter extends BugCollectionBugReporter {
             TransformerFactory factory = TransformerFactory.newInstance();
             Transformer transformer = factory.newTransformer(xsl);
 
-            // Source document is the XML generated from the BugCollection
-            DocumentSource source = new DocumentSource(document);
+            // Source document is the XML generated from the BugCollection,
+            // fed to the transformer as it is written rather than being
+            // built as a tree first
+            SAXSource source = new SAXSource(new XMLWriteableReader(new XMLWriteable() {
+                public void writeXML(XMLOutput xmlOutput) throws IOException {
+                    bugCollection.writeXML(xmlOutput);
+                }
+            }), new InputSource());
 
             // Write result to output stream
             StreamResult result = new StreamResult(outputStream);
@@ -0,0 +1,207 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+
+import edu.umd.cs.findbugs.util.Util;
+
+/**
+ * Computes instance hashes of bugs. The parts of the instance key are encoded
+ * as UTF-8 into a reusable buffer, without building the key string first,
+ * and the buffer is hashed with MD5. The result is the same hex string as the
+ * MD5 hash of {@link BugInstance#getInstanceKey()}, without leading zeros.
+ * <p>
+ * Setting the system property <code>findbugs.instanceHash.fast</code> selects
+ * 128 bit MurmurHash3 instead of MD5. It is formatted the same way but gives
+ * different hashes, so it must not be used with results or clouds that hold
+ * MD5 based instance hashes.
+ */
+abstract class InstanceHasher {
+    static final boolean FAST = SystemProperties.getBoolean("findbugs.instanceHash.fast");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<InstanceHasher> HASHER = new ThreadLocal<InstanceHasher>() {
+        @Override
+        protected InstanceHasher initialValue() {
+            return FAST ? new Murmur3Hasher() : new MD5Hasher();
+        }
+    };
+
+    private byte[] buffer = new byte[256];
+
+    private int length;
+
+    /** @return a reset hasher owned by the current thread */
+    static InstanceHasher get() {
+        InstanceHasher hasher = HASHER.get();
+        hasher.length = 0;
+        return hasher;
+    }
+
+    InstanceHasher update(String s) {
+        int n = s.length();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // rare: encode the rest in one go
+                appendEncoded(s.substring(i));
+                return this;
+            }
+            buffer[length++] = (byte) c;
+        }
+        return this;
+    }
+
+    private void appendEncoded(String s) {
+        byte[] bytes;
+        try {
+            bytes = s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            byte[] larger = new byte[Math.max(buffer.length * 2, length + extra)];
+            System.arraycopy(buffer, 0, larger, 0, length);
+            buffer = larger;
+        }
+    }
+
+    /** @return the hash of everything added since {@link #get()} */
+    String finish() {
+        return toHex(hash(buffer, length));
+    }
+
+    abstract byte[] hash(byte[] data, int len);
+
+    /** hex digits of an unsigned big endian number, like BigInteger.toString(16) */
+    static String toHex(byte[] data) {
+        char[] out = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            out[2 * i] = HEX_DIGITS[(data[i] >> 4) & 0xf];
+            out[2 * i + 1] = HEX_DIGITS[data[i] & 0xf];
+        }
+        int start = 0;
+        while (start < out.length - 1 && out[start] == '0')
+            start++;
+        return new String(out, start, out.length - start);
+    }
+
+    static class MD5Hasher extends InstanceHasher {
+        private final MessageDigest digest = Util.getMD5Digest();
+
+        @Override
+        byte[] hash(byte[] data, int len) {
+            digest.update(data, 0, len);
+            return digest.digest();
+        }
+    }
+
+    /** MurmurHash3, x64 128 bit variant */
+    static class Murmur3Hasher extends InstanceHasher {
+        private static final long C1 = 0x87c37b91114253d5L;
+
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        @Override
+        byte[] hash(byte[] data, int len) {
+            long h1 = 0;
+            long h2 = 0;
+            int blocks = len / 16;
+            for (int i = 0; i < blocks; i++) {
+                long k1 = getLong(data, i * 16);
+                long k2 = getLong(data, i * 16 + 8);
+
+                h1 ^= mixK1(k1);
+                h1 = Long.rotateLeft(h1, 27);
+                h1 += h2;
+                h1 = h1 * 5 + 0x52dce729;
+
+                h2 ^= mixK2(k2);
+                h2 = Long.rotateLeft(h2, 31);
+                h2 += h1;
+                h2 = h2 * 5 + 0x38495ab5;
+            }
+
+            int tail = blocks * 16;
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = len - tail - 1; i >= 8; i--)
+                k2 = (k2 << 8) | (data[tail + i] & 0xffL);
+            for (int i = Math.min(len - tail, 8) - 1; i >= 0; i--)
+                k1 = (k1 << 8) | (data[tail + i] & 0xffL);
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+
+            h1 ^= len;
+            h2 ^= len;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+
+            byte[] result = new byte[16];
+            for (int i = 0; i < 8; i++) {
+                result[i] = (byte) (h1 >>> (56 - 8 * i));
+                result[8 + i] = (byte) (h2 >>> (56 - 8 * i));
+            }
+            return result;
+        }
+
+        private static long getLong(byte[] data, int offset) {
+            long result = 0;
+            for (int i = 7; i >= 0; i--)
+                result = (result << 8) | (data[offset + i] & 0xffL);
+            return result;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            return k1 * C2;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            return k2 * C1;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -21,12 +21,9 @@
 
 package edu.umd.cs.findbugs;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.Reader;
 import java.io.Writer;
 import java.text.NumberFormat;
 import java.text.ParseException;
@@ -48,9 +45,12 @@ import javax.annotation.WillClose;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
+import org.xml.sax.InputSource;
+
 import edu.umd.cs.findbugs.PackageStats.ClassStats;
 import edu.umd.cs.findbugs.internalAnnotations.DottedClassName;
 import edu.umd.cs.findbugs.log.Profiler;
@@ -58,6 +58,7 @@ import edu.umd.cs.findbugs.workflow.FileBugHash;
 import edu.umd.cs.findbugs.xml.OutputStreamXMLOutput;
 import edu.umd.cs.findbugs.xml.XMLOutput;
 import edu.umd.cs.findbugs.xml.XMLWriteable;
+import edu.umd.cs.findbugs.xml.XMLWriteableReader;
 
 /**
  * Statistics resulting from analyzing a project.
@@ -93,6 +94,8 @@ public class ProjectStats implements XMLWriteable, Cloneable {
 
     private final Profiler profiler;
 
+    private AnalysisCosts analysisCosts = new AnalysisCosts();
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder();
@@ -125,7 +128,11 @@ public class ProjectStats implements XMLWriteable, Cloneable {
     @Override
     public ProjectStats clone() {
         try {
-            return (ProjectStats) super.clone();
+            ProjectStats result = (ProjectStats) super.clone();
+            // addStats() adds to the costs, so they must not be shared
+            result.analysisCosts = new AnalysisCosts();
+            result.analysisCosts.addAll(analysisCosts);
+            return result;
         } catch (CloneNotSupportedException e) {
             // can't happen
             throw new AssertionError(e);
@@ -426,6 +433,8 @@ public class ProjectStats implements XMLWriteable, Cloneable {
             }
 
         getProfiler().writeXML(xmlOutput);
+        if (!analysisCosts.isEmpty())
+            analysisCosts.writeXML(xmlOutput);
         xmlOutput.closeTag("FindBugsSummary");
     }
 
@@ -464,10 +473,9 @@ public class ProjectStats implements XMLWriteable, Cloneable {
      */
     public void transformSummaryToHTML(Writer htmlWriter) throws IOException, TransformerException {
 
-        ByteArrayOutputStream summaryOut = new ByteArrayOutputStream(8096);
-        reportSummary(summaryOut);
-
-        StreamSource in = new StreamSource(new ByteArrayInputStream(summaryOut.toByteArray()));
+        // Send the summary straight to the transformer, rather than writing
+        // it out and parsing it again
+        SAXSource in = new SAXSource(new XMLWriteableReader(this), new InputSource());
         StreamResult out = new StreamResult(htmlWriter);
         InputStream xslInputStream = this.getClass().getClassLoader().getResourceAsStream("summary.xsl");
         if (xslInputStream == null)
@@ -478,9 +486,6 @@ public class ProjectStats implements XMLWriteable, Cloneable {
         Transformer transformer = tf.newTransformer(xsl);
         transformer.transform(in, out);
 
-        Reader rdr = in.getReader();
-        if (rdr != null)
-            rdr.close();
         htmlWriter.close();
         InputStream is = xsl.getInputStream();
         if (is != null)
@@ -548,6 +553,7 @@ public class ProjectStats implements XMLWriteable, Cloneable {
                 packageStatsMap.put(key, pkgStats2);
             }
         }
+        analysisCosts.addAll(stats2.analysisCosts);
     }
 
     /**
@@ -568,6 +574,13 @@ public class ProjectStats implements XMLWriteable, Cloneable {
         return profiler;
     }
 
+    /**
+     * @return the per-class and per-detector costs of the analysis, never null
+     */
+    public AnalysisCosts getAnalysisCosts() {
+        return analysisCosts;
+    }
+
     /**
      * @param parseInt
      */
@@ -347,6 +347,21 @@ public class SAXBugCollectionHandler extends DefaultHandler {
                     int size = Integer.valueOf(getRequiredAttribute(attributes, "total_size", qName));
                     bugCollection.getProjectStats().putPackageStats(packageName, numClasses, size);
 
+                } else if (outerElement.equals(AnalysisCosts.ELEMENT_NAME)) {
+                    BugCollection bugCollection = this.bugCollection;
+                    assert bugCollection != null;
+                    if (qName.equals(AnalysisCosts.DETECTOR_ELEMENT_NAME) || qName.equals(AnalysisCosts.CLASS_ELEMENT_NAME)) {
+                        String costName = getRequiredAttribute(attributes, "name", qName);
+                        int calls = Integer.parseInt(getRequiredAttribute(attributes, "calls", qName));
+                        long wallNanos = Long.parseLong(getRequiredAttribute(attributes, "wallMicros", qName)) * 1000;
+                        long cpuNanos = Long.parseLong(getRequiredAttribute(attributes, "cpuMicros", qName)) * 1000;
+                        long allocatedBytes = Long.parseLong(getRequiredAttribute(attributes, "allocatedKBytes", qName)) * 1024;
+                        AnalysisCosts costs = bugCollection.getProjectStats().getAnalysisCosts();
+                        if (qName.equals(AnalysisCosts.DETECTOR_ELEMENT_NAME))
+                            costs.addDetectorCost(costName, calls, wallNanos, cpuNanos, allocatedBytes);
+                        else
+                            costs.addClassCost(costName, calls, wallNanos, cpuNanos, allocatedBytes);
+                    }
                 } else if (outerElement.equals("PackageStats")) {
                     BugCollection bugCollection = this.bugCollection;
                     assert bugCollection != null;
@@ -68,6 +68,25 @@ public class TextUICommandLine extends FindBugsCommandLine {
         public void choose(boolean enable, String what);
     }
 
+    /**
+     * Thrown instead of exiting the JVM, when FindBugs runs inside another
+     * program (see {@link TextUICommandLine#setExitAllowed(boolean)}).
+     */
+    public static class ExitException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int exitCode;
+
+        public ExitException(int exitCode) {
+            super("FindBugs exited with status " + exitCode);
+            this.exitCode = exitCode;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+    }
+
     private static final boolean DEBUG = Boolean.getBoolean("textui.debug");
 
     private static final int PRINTING_REPORTER = 0;
@@ -142,6 +161,8 @@ public class TextUICommandLine extends FindBugsCommandLine {
 
     private boolean printVersion;
 
+    private boolean exitAllowed = true;
+
     /**
      * Constructor.
      */
@@ -230,6 +251,26 @@ public class TextUICommandLine extends FindBugsCommandLine {
         return setExitCode;
     }
 
+    /**
+     * Set whether command line errors, and options which just print
+     * something, may exit the JVM. If not, they throw an
+     * {@link ExitException} instead.
+     */
+    public void setExitAllowed(boolean exitAllowed) {
+        this.exitAllowed = exitAllowed;
+    }
+
+    /**
+     * Exit the JVM with the given status, or throw an {@link ExitException}
+     * if that is not allowed.
+     */
+    @SuppressWarnings("DM_EXIT")
+    public void exit(int exitCode) {
+        if (!exitAllowed)
+            throw new ExitException(exitCode);
+        System.exit(exitCode);
+    }
+
     public boolean noClassOk() {
         return noClassOk;
     }
@@ -280,7 +321,7 @@ public class TextUICommandLine extends FindBugsCommandLine {
             if (count == 0) {
                 System.out.println("  No plugins are available (FindBugs installed incorrectly?)");
             }
-            System.exit(0);
+            exit(0);
         } else if (option.equals("-experimental"))
             priorityThreshold = Detector.EXP_PRIORITY;
         else if (option.equals("-longBugCodes"))
@@ -395,7 +436,7 @@ public class TextUICommandLine extends FindBugsCommandLine {
                 outputStream = UTF8.printStream(oStream);
             } catch (IOException e) {
                 System.err.println("Couldn't open " + outputFile + " for output: " + e.toString());
-                System.exit(1);
+                exit(1);
             }
         } else if (option.equals("-cloud"))
             project.setCloudId(argument);
@@ -20,10 +20,11 @@
 package edu.umd.cs.findbugs.ba;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import edu.umd.cs.findbugs.io.IO;
+
 /**
  * Cached data for a source file. Contains a map of line numbers to byte
  * offsets, for quick searching of source lines.
@@ -99,6 +100,15 @@ public class SourceFile {
 
     private int numLines;
 
+    /**
+     * Modification time of the data the line number map was built from, or
+     * -1 if it has not been built
+     */
+    private long lineNumberMapLastModified = -1;
+
+    /** Length of the data the line number map was built from */
+    private int lineNumberMapLength;
+
     /**
      * Constructor.
      *
@@ -126,8 +136,7 @@ public class SourceFile {
      *         given offset
      */
     public InputStream getInputStream() throws IOException {
-        loadFileData();
-        return new ByteArrayInputStream(data);
+        return new ByteArrayInputStream(loadFileData());
     }
 
     /**
@@ -139,8 +148,8 @@ public class SourceFile {
      *         given offset
      */
     public InputStream getInputStreamFromOffset(int offset) throws IOException {
-        loadFileData();
-        return new ByteArrayInputStream(data, offset, data.length - offset);
+        byte[] fileData = loadFileData();
+        return new ByteArrayInputStream(fileData, offset, fileData.length - offset);
     }
 
     /**
@@ -165,49 +174,64 @@ public class SourceFile {
     /**
      * Get the byte offset in the data for a source line. Note that lines are
      * considered to be zero-index, so the first line in the file is numbered
-     * zero.
+     * zero. Once the file has been read, this is answered without reading it
+     * again, from the data read last.
      *
      * @param line
      *            the line number
      * @return the byte offset in the file's data for the line, or -1 if the
      *         line is not valid
      */
-    public int getLineOffset(int line) {
-        try {
-            loadFileData();
-        } catch (IOException e) {
-            System.err.println("SourceFile.getLineOffset: " + e.getMessage());
-            return -1;
+    public synchronized int getLineOffset(int line) {
+        if (lineNumberMapLastModified < 0) {
+            try {
+                loadFileData();
+            } catch (IOException e) {
+                System.err.println("SourceFile.getLineOffset: " + e.getMessage());
+                return -1;
+            }
         }
         if (line < 0 || line >= numLines)
             return -1;
         return lineNumberMap[line];
     }
 
-    private synchronized void loadFileData() throws IOException {
+    /**
+     * Drop the contents of the file, but keep the line number map. The
+     * contents are read again when needed, and the map is rebuilt only if
+     * the file has changed.
+     */
+    synchronized void releaseData() {
+        data = null;
+    }
+
+    private synchronized byte[] loadFileData() throws IOException {
         if (data != null)
-            return;
+            return data;
 
         InputStream in = null;
 
         try {
+            long lastModified = dataSource.getLastModified();
             in = dataSource.open();
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-            addLineOffset(0); // Line 0 starts at offset 0
-            LineNumberMapBuilder mapBuilder = new LineNumberMapBuilder(this);
-
-            // Copy all of the data from the file into the byte array output
-            // stream
-            byte[] buf = new byte[1024];
-            int n;
-            while ((n = in.read(buf)) >= 0) {
-                mapBuilder.addData(buf, n);
-                out.write(buf, 0, n);
+
+            // Read the whole file at once; for files and zip entries,
+            // available() is the remaining size
+            byte[] fileData = IO.readAll(in, Math.max(in.available(), 1024));
+
+            if (lineNumberMapLastModified < 0 || lineNumberMapLastModified != lastModified
+                    || lineNumberMapLength != fileData.length) {
+                numLines = 0;
+                addLineOffset(0); // Line 0 starts at offset 0
+                LineNumberMapBuilder mapBuilder = new LineNumberMapBuilder(this);
+                mapBuilder.addData(fileData, fileData.length);
+                mapBuilder.eof();
+                lineNumberMapLastModified = lastModified;
+                lineNumberMapLength = fileData.length;
             }
-            mapBuilder.eof();
 
-            setData(out.toByteArray());
+            setData(fileData);
+            return fileData;
         } finally {
             if (in != null)
                 in.close();
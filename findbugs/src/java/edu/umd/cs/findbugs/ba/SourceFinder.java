@@ -30,12 +30,22 @@ import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
@@ -58,7 +68,38 @@ import edu.umd.cs.findbugs.util.Util;
 public class SourceFinder {
     private static final boolean DEBUG = SystemProperties.getBoolean("srcfinder.debug");
 
-    private static final int CACHE_SIZE = 50;
+    /** Number of source files whose contents are kept in memory */
+    private static final int CACHE_SIZE = Math.max(1, SystemProperties.getInt("srcfinder.cacheSize", 200));
+
+    /**
+     * How long a directory listing is trusted before the directory's
+     * modification time is checked again
+     */
+    private static final long RECHECK_MILLIS = SystemProperties.getInt("srcfinder.recheckMillis", 1000);
+
+    /**
+     * A directory modified less than this long before it was listed may have
+     * changed again without a change of its modification time
+     */
+    private static final long MTIME_GRANULARITY = 2000;
+
+    /** Maximum number of source files to read ahead for one prefetch request */
+    private static final int MAX_PREFETCH = CACHE_SIZE / 2;
+
+    /** Reads source files ahead for all SourceFinders, one at a time */
+    private static final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Source prefetch thread");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /** Incremented to cancel the current prefetch */
+    private static final AtomicInteger prefetchGeneration = new AtomicInteger();
+
+    /** The last prefetch submitted, which may still be queued or running */
+    private static Future<?> pendingPrefetch;
 
     /*
      * ----------------------------------------------------------------------
@@ -68,7 +109,9 @@ public class SourceFinder {
 
     /**
      * Cache of SourceFiles. We use this to avoid repeatedly having to read
-     * frequently accessed source files.
+     * frequently accessed source files. SourceFiles which fall out of the
+     * cache release their contents, but stay in the source index with their
+     * line-offset tables.
      */
     private static class Cache extends LinkedHashMap<String, SourceFile> {
         /**
@@ -76,9 +119,16 @@ public class SourceFinder {
          */
         private static final long serialVersionUID = 1L;
 
+        Cache() {
+            super(16, 0.75f, true);
+        }
+
         @Override
         protected boolean removeEldestEntry(Map.Entry<String, SourceFile> eldest) {
-            return size() >= CACHE_SIZE;
+            if (size() <= CACHE_SIZE)
+                return false;
+            eldest.getValue().releaseData();
+            return true;
         }
     }
 
@@ -99,6 +149,12 @@ public class SourceFinder {
     private static class DirectorySourceRepository implements SourceRepository {
         private String baseDir;
 
+        /**
+         * Listings of the subdirectories searched so far, by name relative to
+         * baseDir
+         */
+        private final Map<String, DirectoryListing> listings = new HashMap<String, DirectoryListing>();
+
         public DirectorySourceRepository(String baseDir) {
             this.baseDir = baseDir;
         }
@@ -109,10 +165,11 @@ public class SourceFinder {
         }
 
         public boolean contains(String fileName) {
-            File file = new File(getFullFileName(fileName));
-            boolean exists = file.exists();
+            int separator = fileName.lastIndexOf(File.separatorChar);
+            String dirName = separator < 0 ? "" : fileName.substring(0, separator);
+            boolean exists = getListing(dirName).contains(fileName.substring(separator + 1));
             if (DEBUG)
-                System.out.println("Exists " + exists + " for " + file);
+                System.out.println("Exists " + exists + " for " + getFullFileName(fileName));
             return exists;
         }
 
@@ -127,6 +184,62 @@ public class SourceFinder {
         private String getFullFileName(String fileName) {
             return baseDir + File.separator + fileName;
         }
+
+        /**
+         * List each searched directory once, so that looking up a file, found
+         * or not, doesn't touch the file system. The listing is read again
+         * when the directory's modification time changes.
+         */
+        private synchronized DirectoryListing getListing(String dirName) {
+            long now = System.currentTimeMillis();
+            DirectoryListing listing = listings.get(dirName);
+            if (listing == null || listing.isStale(now)) {
+                listing = new DirectoryListing(new File(getFullFileName(dirName)), now);
+                listings.put(dirName, listing);
+            }
+            return listing;
+        }
+    }
+
+    /**
+     * The names of the files in a directory, as of its last modification
+     */
+    private static class DirectoryListing {
+        private final File dir;
+
+        private final long lastModified;
+
+        private final long listedAt;
+
+        private final Set<String> names;
+
+        private long checkedAt;
+
+        DirectoryListing(File dir, long now) {
+            this.dir = dir;
+            // read the time first, so changes made while listing are seen
+            // by the next check
+            this.lastModified = dir.lastModified();
+            String[] contents = dir.list();
+            this.names = contents == null ? Collections.<String> emptySet() : new HashSet<String>(Arrays.asList(contents));
+            this.listedAt = now;
+            this.checkedAt = now;
+        }
+
+        boolean contains(String name) {
+            return names.contains(name);
+        }
+
+        /**
+         * @return true if the directory may have changed since it was listed;
+         *         checks at most once every RECHECK_MILLIS
+         */
+        boolean isStale(long now) {
+            if (now - checkedAt < RECHECK_MILLIS)
+                return false;
+            checkedAt = now;
+            return dir.lastModified() != lastModified || listedAt - lastModified < MTIME_GRANULARITY;
+        }
     }
 
     private static class InMemorySourceRepository implements SourceRepository {
@@ -353,6 +466,12 @@ public class SourceFinder {
 
     private List<SourceRepository> repositoryList;
 
+    /**
+     * Every source file found so far, by canonical name. The contents of
+     * only the most recently used ones are kept, in the cache.
+     */
+    private Map<String, SourceFile> sourceIndex;
+
     private Cache cache;
 
     private Project project;
@@ -458,9 +577,14 @@ public class SourceFinder {
         String platformName = getPlatformName(packageName, fileName);
         String canonicalName = getCanonicalName(packageName, fileName);
 
-        // Is the file in the cache already? Always cache it with the canonical
+        // Has the file been found already? Always index it with the canonical
         // name
-        SourceFile sourceFile = cache.get(canonicalName);
+        SourceFile sourceFile;
+        synchronized (cache) {
+            sourceFile = sourceIndex.get(canonicalName);
+            if (sourceFile != null)
+                cache.put(canonicalName, sourceFile);
+        }
         if (sourceFile != null)
             return sourceFile;
 
@@ -478,8 +602,15 @@ public class SourceFinder {
             if (repos.contains(fileName)) {
                 // Found it
                 sourceFile = new SourceFile(repos.getDataSource(fileName));
-                cache.put(canonicalName, sourceFile); // always cache with
-                                                      // canonicalName
+                synchronized (cache) {
+                    // always index with canonicalName
+                    SourceFile found = sourceIndex.get(canonicalName);
+                    if (found != null)
+                        sourceFile = found;
+                    else
+                        sourceIndex.put(canonicalName, sourceFile);
+                    cache.put(canonicalName, sourceFile);
+                }
                 return sourceFile;
             }
         }
@@ -502,6 +633,50 @@ public class SourceFinder {
         return getPlatformName(source.getPackageName(), getOrGuessSourceFile(source));
     }
     
+    /**
+     * Read the given source files into the cache in the background, e.g. for
+     * the bugs the user is currently looking at. Any prefetch still queued or
+     * running from an earlier call is abandoned.
+     *
+     * @param sources
+     *            source lines whose files should be read
+     */
+    public void prefetch(Collection<SourceLineAnnotation> sources) {
+        final LinkedHashMap<String, SourceLineAnnotation> byFile = new LinkedHashMap<String, SourceLineAnnotation>();
+        for (SourceLineAnnotation source : sources) {
+            if (source == null)
+                continue;
+            String canonicalName = getCanonicalName(source);
+            if (!byFile.containsKey(canonicalName))
+                byFile.put(canonicalName, source);
+            if (byFile.size() >= MAX_PREFETCH)
+                break;
+        }
+        synchronized (prefetchGeneration) {
+            final int generation = prefetchGeneration.incrementAndGet();
+            if (pendingPrefetch != null)
+                pendingPrefetch.cancel(false);
+            pendingPrefetch = null;
+            if (byFile.isEmpty())
+                return;
+            pendingPrefetch = prefetchExecutor.submit(new Runnable() {
+                public void run() {
+                    for (SourceLineAnnotation source : byFile.values()) {
+                        if (prefetchGeneration.get() != generation)
+                            return;
+                        try {
+                            if (hasSourceFile(source))
+                                findSourceFile(source).getInputStream();
+                        } catch (IOException e) {
+                            if (DEBUG)
+                                System.out.println("Unable to prefetch " + source + ": " + e);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
     public static String getCanonicalName(SourceLineAnnotation source) {
         return getCanonicalName(source.getPackageName(), getOrGuessSourceFile(source));
     }
@@ -549,11 +724,12 @@ public class SourceFinder {
         String platformName = getPlatformName(packageName, fileName);
         String canonicalName = getCanonicalName(packageName, fileName);
 
-        // Is the file in the cache already? Always cache it with the canonical
+        // Has the file been found already? Always index it with the canonical
         // name
-        SourceFile sourceFile = cache.get(canonicalName);
-        if (sourceFile != null)
-            return true;
+        synchronized (cache) {
+            if (sourceIndex.containsKey(canonicalName))
+                return true;
+        }
 
         // Find this source file, add its data to the cache
         if (DEBUG)
@@ -582,6 +758,7 @@ public class SourceFinder {
     private void setProject(Project project) {
         this.project = project;
         repositoryList = new LinkedList<SourceRepository>();
+        sourceIndex = new HashMap<String, SourceFile>();
         cache = new Cache();
         setSourceBaseList(project.getResolvedSourcePaths());
     }
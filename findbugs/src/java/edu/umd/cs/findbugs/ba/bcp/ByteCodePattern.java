@@ -35,6 +35,8 @@ public class ByteCodePattern {
 
     private int dummyVariableCount;
 
+    private CompiledByteCodePattern compiled;
+
     /**
      * Add a PatternElement to the end of the pattern.
      * 
@@ -59,9 +61,10 @@ public class ByteCodePattern {
      */
     public ByteCodePattern addWild(int numWild) {
         Wild wild = isLastWild();
-        if (wild != null)
+        if (wild != null) {
             wild.setMinAndMax(0, numWild);
-        else
+            compiled = null;
+        } else
             addElement(new Wild(numWild));
         return this;
     }
@@ -87,6 +90,16 @@ public class ByteCodePattern {
         return first;
     }
 
+    /**
+     * Get the compiled form of the pattern, used to quickly rule out methods
+     * and instructions which can't be part of a match.
+     */
+    public CompiledByteCodePattern compile() {
+        if (compiled == null)
+            compiled = new CompiledByteCodePattern(this);
+        return compiled;
+    }
+
     /**
      * Get a dummy variable name. The name returned will begin with the
      * <code>'$'</code> character, and will be different than any previous dummy
@@ -107,6 +120,7 @@ public class ByteCodePattern {
     }
 
     private void addElement(PatternElement element) {
+        compiled = null;
         element.setIndex(numElements++);
         if (first == null) {
             first = last = element;
@@ -0,0 +1,103 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.ba.bcp;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * A ByteCodePattern compiled into opcode-indexed tables. The tables record
+ * which opcodes can begin a match of the pattern, and which opcodes every
+ * match must use. This allows a method to be rejected in time linear in its
+ * number of instructions, before the CFG and value number analysis needed by
+ * PatternMatcher are built, and allows PatternMatcher to skip starting
+ * positions where the pattern can't possibly begin.
+ *
+ * @see ByteCodePattern#compile()
+ */
+public class CompiledByteCodePattern {
+    private static final int NUM_OPCODES = 256;
+
+    private final boolean[] entryOpcodes;
+
+    private final boolean anyEntryOpcode;
+
+    private final List<BitSet> requiredOpcodeSets;
+
+    CompiledByteCodePattern(ByteCodePattern pattern) {
+        this.entryOpcodes = new boolean[NUM_OPCODES];
+        this.requiredOpcodeSets = new ArrayList<BitSet>();
+
+        // Opcodes which can start a match: those of each leading element
+        // up to and including the first one which must match an instruction.
+        boolean anyEntry = true;
+        for (PatternElement element = pattern.getFirst(); element != null; element = element.getNext()) {
+            BitSet opcodes = element.getOpcodes();
+            if (opcodes == null)
+                break;
+            for (int i = opcodes.nextSetBit(0); i >= 0 && i < NUM_OPCODES; i = opcodes.nextSetBit(i + 1))
+                entryOpcodes[i] = true;
+            if (element.minOccur() > 0) {
+                anyEntry = false;
+                break;
+            }
+        }
+        this.anyEntryOpcode = anyEntry;
+
+        for (PatternElement element = pattern.getFirst(); element != null; element = element.getNext()) {
+            BitSet opcodes = element.getOpcodes();
+            if (opcodes != null && element.minOccur() > 0)
+                requiredOpcodeSets.add(opcodes);
+        }
+    }
+
+    /**
+     * Could a match of the pattern begin at an instruction with given opcode?
+     *
+     * @param opcode
+     *            the opcode
+     * @return true if a match could begin at the instruction, false if not
+     */
+    public boolean isEntryPoint(int opcode) {
+        return anyEntryOpcode || (opcode >= 0 && opcode < NUM_OPCODES && entryOpcodes[opcode]);
+    }
+
+    /**
+     * Could the pattern match a method using given set of opcodes?
+     *
+     * @param bytecodeSet
+     *            the opcodes used by the method, as returned by
+     *            ClassContext.getBytecodeSet(); null if the method has no
+     *            code
+     * @return true if the method could contain a match, false if it can't
+     */
+    public boolean mayMatch(@CheckForNull BitSet bytecodeSet) {
+        if (bytecodeSet == null)
+            return false;
+        for (BitSet required : requiredOpcodeSets) {
+            if (!required.intersects(bytecodeSet))
+                return false;
+        }
+        return true;
+    }
+}
@@ -19,6 +19,9 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
+
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.ConstantPoolGen;
 import org.apache.bcel.generic.IFNONNULL;
 import org.apache.bcel.generic.IFNULL;
@@ -31,6 +34,7 @@ import edu.umd.cs.findbugs.ba.EdgeTypes;
 import edu.umd.cs.findbugs.ba.vna.ValueNumberFrame;
 
 public class IfNull extends OneVariableInstruction implements EdgeTypes {
+    private static final BitSet OPCODES = opcodeSet(Constants.IFNULL, Constants.IFNONNULL);
 
     public IfNull(String varName) {
         super(varName);
@@ -56,6 +60,11 @@ public class IfNull extends OneVariableInstruction implements EdgeTypes {
         boolean isIfNull = (source.getInstruction() instanceof IFNULL);
         return edge.getType() == (isIfNull ? IFCMP_EDGE : FALL_THROUGH_EDGE);
     }
+
+    @Override
+    public BitSet getOpcodes() {
+        return (BitSet) OPCODES.clone();
+    }
 }
 
 // vim:ts=4
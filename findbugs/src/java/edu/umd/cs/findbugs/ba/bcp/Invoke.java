@@ -19,6 +19,7 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
@@ -101,6 +102,9 @@ public class Invoke extends PatternElement {
      */
     public static final int ANY = INSTANCE | STATIC | CONSTRUCTOR;
 
+    private static final BitSet OPCODES = opcodeSet(Constants.INVOKEVIRTUAL, Constants.INVOKESPECIAL, Constants.INVOKESTATIC,
+            Constants.INVOKEINTERFACE, Constants.INVOKEDYNAMIC);
+
     private interface StringMatcher {
         public boolean match(String s);
     }
@@ -223,6 +227,11 @@ public class Invoke extends PatternElement {
 
     }
 
+    @Override
+    public BitSet getOpcodes() {
+        return (BitSet) OPCODES.clone();
+    }
+
     @Override
     public boolean acceptBranch(Edge edge, InstructionHandle source) {
         return true;
@@ -19,6 +19,9 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
+
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.ConstantPoolGen;
 import org.apache.bcel.generic.FieldInstruction;
 import org.apache.bcel.generic.GETFIELD;
@@ -38,6 +41,7 @@ import edu.umd.cs.findbugs.ba.vna.ValueNumberFrame;
  * @see PatternElement
  */
 public class Load extends FieldAccess {
+    private static final BitSet OPCODES = opcodeSet(Constants.GETFIELD, Constants.GETSTATIC);
 
     /**
      * Constructor.
@@ -74,6 +78,11 @@ public class Load extends FieldAccess {
 
         return checkConsistent(field, result, bindingSet);
     }
+
+    @Override
+    public BitSet getOpcodes() {
+        return (BitSet) OPCODES.clone();
+    }
 }
 
 // vim:ts=4
@@ -19,6 +19,8 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
+
 import org.apache.bcel.generic.ConstantPoolGen;
 import org.apache.bcel.generic.InstructionHandle;
 
@@ -87,6 +89,18 @@ public class MatchAny extends PatternElement {
 
     }
 
+    @Override
+    public BitSet getOpcodes() {
+        BitSet result = new BitSet();
+        for (PatternElement child : childList) {
+            BitSet childOpcodes = child.getOpcodes();
+            if (childOpcodes == null)
+                return null;
+            result.or(childOpcodes);
+        }
+        return result;
+    }
+
     @Override
     public boolean acceptBranch(Edge edge, InstructionHandle source) {
         // Note: when selecting branch instructions, only the actual
@@ -19,6 +19,9 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
+
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.ConstantPoolGen;
 import org.apache.bcel.generic.Instruction;
 import org.apache.bcel.generic.InstructionHandle;
@@ -33,6 +36,8 @@ import edu.umd.cs.findbugs.ba.vna.ValueNumberFrame;
  * @author DavidHovemeyer
  */
 public class Monitorenter extends OneVariableInstruction {
+    private static final BitSet OPCODES = opcodeSet(Constants.MONITORENTER);
+
     /**
      * Constructor.
      * 
@@ -58,6 +63,11 @@ public class Monitorenter extends OneVariableInstruction {
         Variable lock = new LocalVariable(before.getTopValue());
         return addOrCheckDefinition(lock, bindingSet);
     }
+
+    @Override
+    public BitSet getOpcodes() {
+        return (BitSet) OPCODES.clone();
+    }
 }
 
 // vim:ts=4
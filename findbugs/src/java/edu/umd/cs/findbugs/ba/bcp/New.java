@@ -19,6 +19,9 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
+
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.ConstantPoolGen;
 import org.apache.bcel.generic.Instruction;
 import org.apache.bcel.generic.InstructionHandle;
@@ -35,6 +38,8 @@ import edu.umd.cs.findbugs.ba.vna.ValueNumberFrame;
  * @see PatternElement
  */
 public class New extends OneVariableInstruction {
+    private static final BitSet OPCODES = opcodeSet(Constants.NEW);
+
     /**
      * Constructor.
      * 
@@ -56,6 +61,11 @@ public class New extends OneVariableInstruction {
         LocalVariable result = new LocalVariable(after.getTopValue());
         return addOrCheckDefinition(result, bindingSet);
     }
+
+    @Override
+    public BitSet getOpcodes() {
+        return (BitSet) OPCODES.clone();
+    }
 }
 
 // vim:ts=4
@@ -19,6 +19,8 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
+
 import org.apache.bcel.generic.ConstantPoolGen;
 import org.apache.bcel.generic.InstructionHandle;
 
@@ -56,6 +58,11 @@ public class Opcode extends PatternElement {
 
     }
 
+    @Override
+    public BitSet getOpcodes() {
+        return opcodeSet(opcode);
+    }
+
     @Override
     public boolean acceptBranch(Edge edge, InstructionHandle source) {
         return true;
@@ -19,6 +19,8 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
+
 import javax.annotation.CheckForNull;
 
 import org.apache.bcel.generic.ConstantPoolGen;
@@ -178,6 +180,33 @@ public abstract class PatternElement {
      */
     public abstract boolean acceptBranch(Edge edge, InstructionHandle source);
 
+    /**
+     * Get the set of opcodes of the instructions this PatternElement could
+     * possibly match. Used by CompiledByteCodePattern to reject methods and
+     * starting instructions without attempting a match.
+     * 
+     * @return a new set of opcodes, which the caller may modify, or null if
+     *         the element may match any instruction
+     */
+    public @CheckForNull
+    BitSet getOpcodes() {
+        return null;
+    }
+
+    /**
+     * Create a set of opcodes.
+     * 
+     * @param opcodes
+     *            the opcodes
+     * @return a BitSet containing the opcodes
+     */
+    protected static BitSet opcodeSet(int... opcodes) {
+        BitSet result = new BitSet();
+        for (int opcode : opcodes)
+            result.set(opcode);
+        return result;
+    }
+
     /**
      * Return the minimum number of instructions this PatternElement must match
      * in the ByteCodePattern.
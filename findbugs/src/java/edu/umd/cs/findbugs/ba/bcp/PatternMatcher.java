@@ -78,6 +78,8 @@ public class PatternMatcher implements DFSEdgeTypes {
 
     private LinkedList<ByteCodePatternMatch> resultList;
 
+    private CompiledByteCodePattern compiledPattern;
+
     /**
      * Constructor.
      * 
@@ -99,6 +101,22 @@ public class PatternMatcher implements DFSEdgeTypes {
         this.workList = new LinkedList<BasicBlock>();
         this.visitedBlockMap = new IdentityHashMap<BasicBlock, BasicBlock>();
         this.resultList = new LinkedList<ByteCodePatternMatch>();
+        this.compiledPattern = pattern.compile();
+    }
+
+    /**
+     * Set whether or not the opcode index of the compiled pattern is used to
+     * skip instructions where a match can't begin. The index is used by
+     * default; turning it off is only useful for benchmarking.
+     *
+     * @param useOpcodeIndex
+     *            true if the opcode index should be used, false if a match
+     *            should be attempted at every instruction
+     * @return this object
+     */
+    public PatternMatcher setUseOpcodeIndex(boolean useOpcodeIndex) {
+        this.compiledPattern = useOpcodeIndex ? pattern.compile() : null;
+        return this;
     }
 
     /**
@@ -119,8 +137,10 @@ public class PatternMatcher implements DFSEdgeTypes {
             // Scan instructions of basic block for possible matches
             BasicBlock.InstructionIterator i = basicBlock.instructionIterator();
             while (i.hasNext()) {
-                attemptMatch(basicBlock, i.duplicate());
-                i.next();
+                BasicBlock.InstructionIterator start = i.duplicate();
+                InstructionHandle handle = i.next();
+                if (compiledPattern == null || compiledPattern.isEntryPoint(handle.getInstruction().getOpcode()))
+                    attemptMatch(basicBlock, start);
             }
 
             // Add successors of the basic block (which haven't been visited
@@ -19,6 +19,9 @@
 
 package edu.umd.cs.findbugs.ba.bcp;
 
+import java.util.BitSet;
+
+import org.apache.bcel.Constants;
 import org.apache.bcel.generic.ConstantPoolGen;
 import org.apache.bcel.generic.FieldInstruction;
 import org.apache.bcel.generic.Instruction;
@@ -38,6 +41,8 @@ import edu.umd.cs.findbugs.ba.vna.ValueNumberFrame;
  * @see PatternElement
  */
 public class Store extends FieldAccess {
+    private static final BitSet OPCODES = opcodeSet(Constants.PUTFIELD, Constants.PUTSTATIC);
+
     /**
      * Constructor.
      * 
@@ -74,6 +79,11 @@ public class Store extends FieldAccess {
 
         return checkConsistent(field, value, bindingSet);
     }
+
+    @Override
+    public BitSet getOpcodes() {
+        return (BitSet) OPCODES.clone();
+    }
 }
 
 // vim:ts=4
@@ -0,0 +1,185 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.ba.ch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.graph.AbstractGraph;
+import edu.umd.cs.findbugs.graph.GraphToolkit;
+import edu.umd.cs.findbugs.graph.StronglyConnectedComponents;
+import edu.umd.cs.findbugs.util.TopologicalSort.OutEdges;
+
+/**
+ * Graph of calls between classes. Vertices represent classes; there is an
+ * edge from one class to another if the first class calls a method of the
+ * second. Calls within a class are not edges: the detectors already analyze
+ * the methods of a class in call order, so they don't make a class
+ * recursive.
+ *
+ * <p>
+ * The graph is used to order interprocedural analysis bottom-up: the
+ * strongly connected components are returned so that callees come before
+ * their callers, and the classes within a recursive component can be
+ * analyzed repeatedly until the summaries computed for them stop changing.
+ * </p>
+ *
+ * @see edu.umd.cs.findbugs.InterproceduralFirstPassDetector
+ */
+public class ClassCallGraph extends AbstractGraph<ClassCallGraphEdge, ClassCallGraphVertex> {
+
+    private final Map<ClassDescriptor, ClassCallGraphVertex> classToVertexMap;
+
+    /**
+     * Constructor. Creates an empty graph.
+     */
+    public ClassCallGraph() {
+        this.classToVertexMap = new HashMap<ClassDescriptor, ClassCallGraphVertex>();
+    }
+
+    /**
+     * Build the call graph for given classes. Calls to classes outside the
+     * collection are ignored.
+     *
+     * @param classes
+     *            the classes to put in the graph
+     * @param outEdges
+     *            yields the classes called by each class
+     * @return the call graph
+     */
+    public static ClassCallGraph build(Collection<ClassDescriptor> classes, OutEdges<ClassDescriptor> outEdges) {
+        ClassCallGraph graph = new ClassCallGraph();
+        for (ClassDescriptor c : classes) {
+            graph.addVertex(new ClassCallGraphVertex(c));
+        }
+        for (ClassDescriptor c : classes) {
+            ClassCallGraphVertex caller = graph.lookupVertex(c);
+            for (ClassDescriptor called : outEdges.getOutEdges(c)) {
+                ClassCallGraphVertex callee = graph.lookupVertex(called);
+                if (callee != null && callee != caller && graph.lookupEdge(caller, callee) == null) {
+                    graph.createEdge(caller, callee);
+                }
+            }
+        }
+        return graph;
+    }
+
+    @Override
+    public void addVertex(ClassCallGraphVertex v) {
+        super.addVertex(v);
+        classToVertexMap.put(v.getClassDescriptor(), v);
+    }
+
+    /**
+     * Look up the vertex representing given class.
+     *
+     * @param classDescriptor
+     *            a class
+     * @return the vertex, or null if the class is not in the graph
+     */
+    public ClassCallGraphVertex lookupVertex(ClassDescriptor classDescriptor) {
+        return classToVertexMap.get(classDescriptor);
+    }
+
+    /**
+     * Get the strongly connected components of the graph, ordered so that
+     * every component comes after all of the components it calls.
+     *
+     * @return list of components, callees first
+     */
+    public List<Component> getComponentsBottomUp() {
+        StronglyConnectedComponents<ClassCallGraph, ClassCallGraphEdge, ClassCallGraphVertex> scc
+            = new StronglyConnectedComponents<ClassCallGraph, ClassCallGraphEdge, ClassCallGraphVertex>();
+        scc.findStronglyConnectedComponents(this, new Toolkit());
+
+        // The components are found in topological order of the
+        // component graph, i.e., callers first.
+        List<Component> result = new ArrayList<Component>();
+        for (Iterator<Set<ClassCallGraphVertex>> i = scc.setIterator(); i.hasNext();) {
+            Set<ClassCallGraphVertex> vertices = i.next();
+            List<ClassDescriptor> classes = new ArrayList<ClassDescriptor>(vertices.size());
+            for (ClassCallGraphVertex v : vertices) {
+                classes.add(v.getClassDescriptor());
+            }
+            result.add(new Component(classes, vertices.size() > 1));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    protected ClassCallGraphEdge allocateEdge(ClassCallGraphVertex source, ClassCallGraphVertex target) {
+        return new ClassCallGraphEdge(source, target);
+    }
+
+    /**
+     * A strongly connected component of the class call graph.
+     */
+    public static class Component {
+        private final List<ClassDescriptor> classes;
+
+        private final boolean recursive;
+
+        Component(List<ClassDescriptor> classes, boolean recursive) {
+            this.classes = classes;
+            this.recursive = recursive;
+        }
+
+        /**
+         * @return the classes in the component
+         */
+        public List<ClassDescriptor> getClasses() {
+            return classes;
+        }
+
+        /**
+         * @return true if the classes in the component call each other, so
+         *         that summaries computed for them depend on each other
+         */
+        public boolean isRecursive() {
+            return recursive;
+        }
+
+        @Override
+        public String toString() {
+            return classes.toString();
+        }
+    }
+
+    private static class Toolkit implements GraphToolkit<ClassCallGraph, ClassCallGraphEdge, ClassCallGraphVertex> {
+        public ClassCallGraph createGraph() {
+            return new ClassCallGraph();
+        }
+
+        public ClassCallGraphVertex duplicateVertex(ClassCallGraphVertex original) {
+            return new ClassCallGraphVertex(original.getClassDescriptor());
+        }
+
+        public void copyEdge(ClassCallGraphEdge source, ClassCallGraphEdge dest) {
+        }
+    }
+}
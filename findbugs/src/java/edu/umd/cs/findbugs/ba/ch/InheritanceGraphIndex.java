@@ -0,0 +1,311 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.ba.ch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.annotation.CheckForNull;
+
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+
+/**
+ * Immutable encoding of an InheritanceGraph which answers subtype queries in
+ * constant time.
+ *
+ * <p>
+ * The direct superclass links form a forest rooted at java.lang.Object (and
+ * at missing classes). Each vertex is numbered in a preorder traversal of
+ * that forest, so the subclasses of a vertex are exactly the vertices whose
+ * numbers fall in its interval. The remaining inheritance edges (mostly
+ * those to interfaces) are handled by giving each vertex reachable through
+ * such an edge a bit number, and recording for every vertex the set of bits
+ * of its supertypes. Vertices which only extend a class share the bit set
+ * of their superclass.
+ * </p>
+ *
+ * <p>
+ * Vertices added to the graph after the index was built are not covered;
+ * callers must check {@link #contains(ClassVertex)}. Since the supertypes
+ * of a vertex do not change once the vertex is in the graph, the answers
+ * for covered vertices stay correct, but subtype sets may become
+ * incomplete: see {@link #isCurrent(InheritanceGraph)}.
+ * </p>
+ *
+ * @see Subtypes2
+ */
+class InheritanceGraphIndex {
+    private static final BitSet EMPTY = new BitSet();
+
+    /** Vertices with a label less than this are in the index */
+    private final int numVertices;
+
+    /** Vertices in preorder of the superclass forest */
+    private final ClassVertex[] preorder;
+
+    /** Preorder number of each vertex, by label */
+    private final int[] start;
+
+    /** One past the preorder number of the vertex's last subclass */
+    private final int[] end;
+
+    /**
+     * Bit number of each vertex reachable through an edge that is not a
+     * superclass link, or -1
+     */
+    private final int[] bit;
+
+    /** Bits of all supertypes of each vertex (including itself) */
+    private final BitSet[] supertypeBits;
+
+    /** Whether a vertex has an unresolved supertype (or is unresolved) */
+    private final boolean[] incomplete;
+
+    private InheritanceGraphIndex(int numVertices) {
+        this.numVertices = numVertices;
+        this.preorder = new ClassVertex[numVertices];
+        this.start = new int[numVertices];
+        this.end = new int[numVertices];
+        this.bit = new int[numVertices];
+        this.supertypeBits = new BitSet[numVertices];
+        this.incomplete = new boolean[numVertices];
+    }
+
+    /**
+     * Build an index of given graph.
+     *
+     * @param graph
+     *            the inheritance graph
+     * @return the index, or null if the graph contains a cycle
+     */
+    static @CheckForNull
+    InheritanceGraphIndex build(InheritanceGraph graph) {
+        InheritanceGraphIndex index = new InheritanceGraphIndex(graph.getNumVertexLabels());
+        if (!index.numberSuperclassForest(graph))
+            return null;
+        index.assignBits(graph);
+        if (!index.computeSupertypeBits(graph))
+            return null;
+        return index;
+    }
+
+    private boolean numberSuperclassForest(InheritanceGraph graph) {
+        // Build child lists of the superclass forest
+        int[] childCount = new int[numVertices];
+        for (ClassVertex v : graph.vertices()) {
+            ClassVertex parent = v.getDirectSuperclass();
+            if (parent != null)
+                childCount[parent.getLabel()]++;
+        }
+        int[][] children = new int[numVertices][];
+        for (int i = 0; i < numVertices; i++)
+            children[i] = new int[childCount[i]];
+        int[] fill = new int[numVertices];
+        ClassVertex[] byLabel = new ClassVertex[numVertices];
+        for (ClassVertex v : graph.vertices()) {
+            byLabel[v.getLabel()] = v;
+            ClassVertex parent = v.getDirectSuperclass();
+            if (parent != null)
+                children[parent.getLabel()][fill[parent.getLabel()]++] = v.getLabel();
+        }
+
+        // Number the vertices in preorder, from each root
+        int count = 0;
+        int[] stack = new int[numVertices];
+        int[] nextChild = new int[numVertices];
+        for (ClassVertex root : graph.vertices()) {
+            if (root.getDirectSuperclass() != null)
+                continue;
+            int depth = 0;
+            stack[depth++] = root.getLabel();
+            start[root.getLabel()] = count;
+            preorder[count++] = root;
+            while (depth > 0) {
+                int v = stack[depth - 1];
+                if (nextChild[v] < children[v].length) {
+                    int child = children[v][nextChild[v]++];
+                    start[child] = count;
+                    preorder[count++] = byLabel[child];
+                    stack[depth++] = child;
+                } else {
+                    end[v] = count;
+                    depth--;
+                }
+            }
+        }
+
+        // Vertices not reached lie on a superclass cycle
+        return count == numVertices;
+    }
+
+    private void assignBits(InheritanceGraph graph) {
+        Arrays.fill(bit, -1);
+        int numBits = 0;
+        ArrayList<ClassVertex> workList = new ArrayList<ClassVertex>();
+        for (Iterator<InheritanceEdge> i = graph.edgeIterator(); i.hasNext();) {
+            InheritanceEdge edge = i.next();
+            if (edge.getSource().getDirectSuperclass() != edge.getTarget())
+                workList.add(edge.getTarget());
+        }
+        // Everything above a vertex with a bit needs a bit as well
+        while (!workList.isEmpty()) {
+            ClassVertex v = workList.remove(workList.size() - 1);
+            if (bit[v.getLabel()] >= 0)
+                continue;
+            bit[v.getLabel()] = numBits++;
+            for (Iterator<InheritanceEdge> i = graph.outgoingEdgeIterator(v); i.hasNext();)
+                workList.add(i.next().getTarget());
+        }
+    }
+
+    private boolean computeSupertypeBits(InheritanceGraph graph) {
+        // Depth first search along supertype edges, so that every vertex is
+        // finished after all of its supertypes
+        ArrayList<ClassVertex> stack = new ArrayList<ClassVertex>();
+        ArrayList<Iterator<InheritanceEdge>> edges = new ArrayList<Iterator<InheritanceEdge>>();
+        boolean[] onStack = new boolean[numVertices];
+        for (ClassVertex root : graph.vertices()) {
+            if (supertypeBits[root.getLabel()] != null)
+                continue;
+            stack.add(root);
+            edges.add(graph.outgoingEdgeIterator(root));
+            onStack[root.getLabel()] = true;
+            while (!stack.isEmpty()) {
+                int top = stack.size() - 1;
+                Iterator<InheritanceEdge> i = edges.get(top);
+                if (i.hasNext()) {
+                    ClassVertex target = i.next().getTarget();
+                    if (onStack[target.getLabel()])
+                        return false;
+                    if (supertypeBits[target.getLabel()] == null) {
+                        stack.add(target);
+                        edges.add(graph.outgoingEdgeIterator(target));
+                        onStack[target.getLabel()] = true;
+                    }
+                } else {
+                    ClassVertex v = stack.remove(top);
+                    edges.remove(top);
+                    onStack[v.getLabel()] = false;
+                    finish(graph, v);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void finish(InheritanceGraph graph, ClassVertex v) {
+        int label = v.getLabel();
+        ClassVertex parent = v.getDirectSuperclass();
+        BitSet bits = parent != null ? supertypeBits[parent.getLabel()] : EMPTY;
+        boolean shared = true;
+        boolean isIncomplete = !v.isResolved();
+        if (bit[label] >= 0) {
+            bits = (BitSet) bits.clone();
+            shared = false;
+            bits.set(bit[label]);
+        }
+        for (Iterator<InheritanceEdge> i = graph.outgoingEdgeIterator(v); i.hasNext();) {
+            ClassVertex target = i.next().getTarget();
+            isIncomplete |= incomplete[target.getLabel()];
+            if (target == parent)
+                continue;
+            if (shared) {
+                bits = (BitSet) bits.clone();
+                shared = false;
+            }
+            bits.or(supertypeBits[target.getLabel()]);
+        }
+        supertypeBits[label] = bits;
+        incomplete[label] = isIncomplete;
+    }
+
+    /**
+     * @return the number of vertex labels covered by the index
+     */
+    int getNumVertices() {
+        return numVertices;
+    }
+
+    /**
+     * @return true if the vertex was in the graph when the index was built
+     */
+    boolean contains(ClassVertex v) {
+        return v.getLabel() < numVertices;
+    }
+
+    /**
+     * @return true if no vertices have been added to the graph since the
+     *         index was built
+     */
+    boolean isCurrent(InheritanceGraph graph) {
+        return graph.getNumVertexLabels() == numVertices;
+    }
+
+    /**
+     * Determine whether one vertex is a known subtype of another, whether or
+     * not the supertypes of the first are complete.
+     */
+    boolean isKnownSubtype(ClassVertex sub, ClassVertex sup) {
+        int s = start[sub.getLabel()];
+        int supLabel = sup.getLabel();
+        if (start[supLabel] <= s && s < end[supLabel])
+            return true;
+        int b = bit[supLabel];
+        return b >= 0 && supertypeBits[sub.getLabel()].get(b);
+    }
+
+    /**
+     * Determine whether one vertex is a subtype of another.
+     *
+     * @throws ClassNotFoundException
+     *             if the answer is no, but a supertype of the first vertex
+     *             is missing
+     */
+    boolean isSubtype(ClassVertex sub, ClassVertex sup) throws ClassNotFoundException {
+        if (isKnownSubtype(sub, sup))
+            return true;
+        if (incomplete[sub.getLabel()])
+            // Any missing classes will already have been reported.
+            throw new ClassNotFoundException();
+        return false;
+    }
+
+    /**
+     * Get the known subtypes of a vertex (including itself) from the
+     * superclass forest.
+     *
+     * @return the subtypes, or null if the vertex may have subtypes which are
+     *         not its subclasses (e.g., it is an interface)
+     */
+    @CheckForNull
+    Set<ClassDescriptor> getSubclasses(ClassVertex v) {
+        int label = v.getLabel();
+        if (bit[label] >= 0)
+            return null;
+        Set<ClassDescriptor> result = new HashSet<ClassDescriptor>();
+        for (int i = start[label]; i < end[label]; i++)
+            result.add(preorder[i].getClassDescriptor());
+        return result;
+    }
+}
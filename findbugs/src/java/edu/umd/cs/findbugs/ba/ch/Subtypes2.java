@@ -65,6 +65,11 @@ public class Subtypes2 {
 
     public static final boolean DEBUG_QUERIES = SystemProperties.getBoolean("findbugs.subtypes2.debugqueries");
 
+    /**
+     * Answer subtype queries from an InheritanceGraphIndex when possible.
+     */
+    private static final boolean USE_INDEX = SystemProperties.getBoolean("findbugs.subtypes2.index", true);
+
     private final InheritanceGraph graph;
 
     private final Map<ClassDescriptor, ClassVertex> classDescriptorToVertexMap;
@@ -81,6 +86,15 @@ public class Subtypes2 {
 
     private final ObjectType CLONEABLE;
 
+    private @CheckForNull
+    InheritanceGraphIndex index;
+
+    /** Number of queries the index could not answer since it was built */
+    private int indexMisses;
+
+    /** Size of the graph when the index was last built */
+    private int indexedGraphSize;
+
     /**
      * Object to record the results of a supertype search.
      */
@@ -412,6 +426,21 @@ public class Subtypes2 {
                     return true;
             }
         }
+        ClassVertex subVertex = getIndexedVertex(subDesc);
+        if (subVertex != null) {
+            ClassVertex[] superVertices = new ClassVertex[superDesc.length];
+            boolean allIndexed = true;
+            for (int i = 0; i < superDesc.length && allIndexed; i++) {
+                superVertices[i] = getIndexedVertex(superDesc[i]);
+                allIndexed = superVertices[i] != null;
+            }
+            if (allIndexed) {
+                for (ClassVertex superVertex : superVertices)
+                    if (index.isSubtype(subVertex, superVertex))
+                        return true;
+                return false;
+            }
+        }
         SupertypeQueryResults supertypeQueryResults = getSupertypeQueryResults(subDesc);
         for (ClassDescriptor s : superDesc)
             if (supertypeQueryResults.containsType(s))
@@ -456,10 +485,55 @@ public class Subtypes2 {
             System.out.println("SUP: " + superDesc);
             System.out.println("CHECK: " + subDesc + " " + superDesc);
             }
+        ClassVertex subVertex = getIndexedVertex(subDesc);
+        if (subVertex != null) {
+            ClassVertex superVertex = getIndexedVertex(superDesc);
+            if (superVertex != null)
+                return index.isSubtype(subVertex, superVertex);
+        }
         SupertypeQueryResults supertypeQueryResults = getSupertypeQueryResults(subDesc);
         return supertypeQueryResults.containsType(superDesc);
     }
 
+    /**
+     * Get the vertex for a class, if subtype queries about the class can be
+     * answered from the index. The index is rebuilt once enough queries have
+     * missed it to pay for the rebuild.
+     *
+     * @param classDescriptor
+     *            a ClassDescriptor
+     * @return the indexed ClassVertex, or null if queries about the class
+     *         must be answered from the graph
+     */
+    private @CheckForNull
+    ClassVertex getIndexedVertex(ClassDescriptor classDescriptor) {
+        if (!USE_INDEX)
+            return null;
+        ClassVertex vertex = classDescriptorToVertexMap.get(classDescriptor);
+        if (vertex == null)
+            return null;
+        if (index == null || !index.contains(vertex))
+            noteIndexMiss();
+        if (index != null && index.contains(vertex))
+            return vertex;
+        return null;
+    }
+
+    /**
+     * Record a query which the index could not answer, rebuilding the index
+     * if there have been enough such queries since it was last built.
+     */
+    private void noteIndexMiss() {
+        int graphSize = graph.getNumVertexLabels();
+        if (++indexMisses < graphSize / 8 || graphSize == indexedGraphSize)
+            return;
+        if (DEBUG)
+            System.out.println("Indexing inheritance graph of " + graphSize + " classes");
+        index = InheritanceGraphIndex.build(graph);
+        indexedGraphSize = graphSize;
+        indexMisses = 0;
+    }
+
     /**
      * Determine whether or not a given ObjectType is a subtype of another.
      * Throws ClassNotFoundException if the question cannot be answered
@@ -691,12 +765,21 @@ public class Subtypes2 {
         ClassVertex aVertex = resolveClassVertex(aDesc);
         ClassVertex bVertex = resolveClassVertex(bDesc);
 
-        Set<ClassDescriptor> aSuperTypes = computeKnownSupertypes(aDesc);
-        Set<ClassDescriptor> bSuperTypes = computeKnownSupertypes(bDesc);
-        if (bSuperTypes.contains(aDesc))
-            return a;
-        if (aSuperTypes.contains(bDesc))
-            return b;
+        Set<ClassDescriptor> aSuperTypes = null;
+        Set<ClassDescriptor> bSuperTypes = null;
+        if (getIndexedVertex(aDesc) != null && getIndexedVertex(bDesc) != null) {
+            if (index.isKnownSubtype(bVertex, aVertex))
+                return a;
+            if (index.isKnownSubtype(aVertex, bVertex))
+                return b;
+        } else {
+            aSuperTypes = computeKnownSupertypes(aDesc);
+            bSuperTypes = computeKnownSupertypes(bDesc);
+            if (bSuperTypes.contains(aDesc))
+                return a;
+            if (aSuperTypes.contains(bDesc))
+                return b;
+        }
         ArrayList<ClassVertex> aSuperList = getAllSuperclassVertices(aVertex);
         ArrayList<ClassVertex> bSuperList = getAllSuperclassVertices(bVertex);
 
@@ -722,6 +805,10 @@ public class Subtypes2 {
                     .toDottedClassName());
         if (firstCommonSupertype.equals(Type.OBJECT)) {
             // see if we can't do better
+            if (aSuperTypes == null) {
+                aSuperTypes = computeKnownSupertypes(aDesc);
+                bSuperTypes = computeKnownSupertypes(bDesc);
+            }
             ClassDescriptor objDesc = DescriptorFactory.getClassDescriptor(Type.OBJECT);
             aSuperTypes.retainAll(bSuperTypes);
             aSuperTypes.remove(objDesc);
@@ -786,6 +873,16 @@ public class Subtypes2 {
      * @throws ClassNotFoundException
      */
     public Set<ClassDescriptor> getSubtypes(ClassDescriptor classDescriptor) throws ClassNotFoundException {
+        ClassVertex vertex = getIndexedVertex(classDescriptor);
+        if (vertex != null && vertex.isResolved()) {
+            if (index.isCurrent(graph)) {
+                Set<ClassDescriptor> subclasses = index.getSubclasses(vertex);
+                if (subclasses != null)
+                    return subclasses;
+            } else {
+                noteIndexMiss();
+            }
+        }
         Set<ClassDescriptor> result = subtypeSetMap.get(classDescriptor);
         if (result == null) {
             result = computeKnownSubtypes(classDescriptor);
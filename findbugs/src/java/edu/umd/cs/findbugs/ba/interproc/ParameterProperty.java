@@ -188,6 +188,18 @@ public class ParameterProperty {
         return bits == 0;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ParameterProperty))
+            return false;
+        return bits == ((ParameterProperty) o).bits;
+    }
+
+    @Override
+    public int hashCode() {
+        return bits;
+    }
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder();
@@ -55,6 +55,8 @@ import edu.umd.cs.findbugs.util.Util;
 public abstract class PropertyDatabase<KeyType extends FieldOrMethodDescriptor, ValueType> {
     private Map<KeyType, ValueType> propertyMap;
 
+    private int modificationCount;
+
     /**
      * Constructor. Creates an empty property database.
      */
@@ -71,7 +73,20 @@ public abstract class PropertyDatabase<KeyType extends FieldOrMethodDescriptor,
      *            the property
      */
     public void setProperty(KeyType key, ValueType property) {
-        propertyMap.put(key, property);
+        ValueType old = propertyMap.put(key, property);
+        if (old == null || !old.equals(property))
+            modificationCount++;
+    }
+
+    /**
+     * Get the number of times a property has been added or changed. Clients
+     * computing properties iteratively can compare counts to tell whether an
+     * iteration changed the database.
+     *
+     * @return the modification count
+     */
+    public int getModificationCount() {
+        return modificationCount;
     }
 
     /**
@@ -112,7 +127,10 @@ public abstract class PropertyDatabase<KeyType extends FieldOrMethodDescriptor,
      *         this key
      */
     public ValueType removeProperty(KeyType key) {
-        return propertyMap.remove(key);
+        ValueType old = propertyMap.remove(key);
+        if (old != null)
+            modificationCount++;
+        return old;
     }
 
     /**
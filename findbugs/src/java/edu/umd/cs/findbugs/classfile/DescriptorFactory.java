@@ -21,8 +21,8 @@ package edu.umd.cs.findbugs.classfile;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -42,7 +42,10 @@ import edu.umd.cs.findbugs.util.MapCache;
 
 /**
  * Factory for creating ClassDescriptors, MethodDescriptors, and
- * FieldDescriptors.
+ * FieldDescriptors. A factory may be shared with worker threads (see
+ * {@link #setInstanceForCurrentThread(DescriptorFactory)}): the descriptor
+ * maps are concurrent, and the string cache is locked once the factory is
+ * shared.
  *
  * @author David Hovemeyer
  */
@@ -54,31 +57,43 @@ public class DescriptorFactory {
         }
     };
 
-    private final Map<String, ClassDescriptor> classDescriptorMap;
+    private final ConcurrentHashMap<String, ClassDescriptor> classDescriptorMap;
 
-    private final Map<String, ClassDescriptor> dottedClassDescriptorMap;
+    private final ConcurrentHashMap<String, ClassDescriptor> dottedClassDescriptorMap;
 
-    private final Map<MethodDescriptor, MethodDescriptor> methodDescriptorMap;
+    private final ConcurrentHashMap<MethodDescriptor, MethodDescriptor> methodDescriptorMap;
 
-    private final Map<FieldDescriptor, FieldDescriptor> fieldDescriptorMap;
+    private final ConcurrentHashMap<FieldDescriptor, FieldDescriptor> fieldDescriptorMap;
 
     private DescriptorFactory() {
-        this.classDescriptorMap = new HashMap<String, ClassDescriptor>();
-        this.dottedClassDescriptorMap = new HashMap<String, ClassDescriptor>();
-        this.methodDescriptorMap = new HashMap<MethodDescriptor, MethodDescriptor>();
-        this.fieldDescriptorMap = new HashMap<FieldDescriptor, FieldDescriptor>();
+        this.classDescriptorMap = new ConcurrentHashMap<String, ClassDescriptor>();
+        this.dottedClassDescriptorMap = new ConcurrentHashMap<String, ClassDescriptor>();
+        this.methodDescriptorMap = new ConcurrentHashMap<MethodDescriptor, MethodDescriptor>();
+        this.fieldDescriptorMap = new ConcurrentHashMap<FieldDescriptor, FieldDescriptor>();
     }
 
     private MapCache<String, String> stringCache = new MapCache<String, String>(10000);
 
+    /** True once the factory has been handed to another thread */
+    private volatile boolean shared;
+
     public static String canonicalizeString(@CheckForNull String s) {
         if (s == null)
             return s;
         DescriptorFactory df =  instanceThreadLocal.get();
-        String cached = df.stringCache.get(s);
+        if (df.shared) {
+            synchronized (df.stringCache) {
+                return df.canonicalizeCachedString(s);
+            }
+        }
+        return df.canonicalizeCachedString(s);
+    }
+
+    private String canonicalizeCachedString(String s) {
+        String cached = stringCache.get(s);
         if (cached != null)
             return cached;
-        df.stringCache.put(s, s);
+        stringCache.put(s, s);
         return s;
     }
 
@@ -95,6 +110,19 @@ public class DescriptorFactory {
         instanceThreadLocal.remove();
     }
 
+    /**
+     * Use the given DescriptorFactory in the current thread. This allows
+     * worker threads to create descriptors that are shared with (and identical
+     * to) those of the thread that created them.
+     *
+     * @param factory
+     *            the DescriptorFactory to use
+     */
+    public static void setInstanceForCurrentThread(DescriptorFactory factory) {
+        factory.shared = true;
+        instanceThreadLocal.set(factory);
+    }
+
     public Collection<ClassDescriptor> getAllClassDescriptors() {
         return classDescriptorMap.values();
     }
@@ -125,7 +153,9 @@ public class DescriptorFactory {
         ClassDescriptor classDescriptor = classDescriptorMap.get(className);
         if (classDescriptor == null) {
             classDescriptor = new ClassDescriptor(className);
-            classDescriptorMap.put(className, classDescriptor);
+            ClassDescriptor existing = classDescriptorMap.putIfAbsent(className, classDescriptor);
+            if (existing != null)
+                classDescriptor = existing;
         }
         return classDescriptor;
     }
@@ -173,8 +203,9 @@ public class DescriptorFactory {
         MethodDescriptor methodDescriptor = new MethodDescriptor(className, name, signature, isStatic);
         MethodDescriptor existing = methodDescriptorMap.get(methodDescriptor);
         if (existing == null) {
-            methodDescriptorMap.put(methodDescriptor, methodDescriptor);
-            existing = methodDescriptor;
+            existing = methodDescriptorMap.putIfAbsent(methodDescriptor, methodDescriptor);
+            if (existing == null)
+                existing = methodDescriptor;
         }
         return existing;
     }
@@ -234,8 +265,9 @@ public class DescriptorFactory {
         FieldDescriptor fieldDescriptor = new FieldDescriptor(className, name, signature, isStatic);
         FieldDescriptor existing = fieldDescriptorMap.get(fieldDescriptor);
         if (existing == null) {
-            fieldDescriptorMap.put(fieldDescriptor, fieldDescriptor);
-            existing = fieldDescriptor;
+            existing = fieldDescriptorMap.putIfAbsent(fieldDescriptor, fieldDescriptor);
+            if (existing == null)
+                existing = fieldDescriptor;
         }
         return existing;
     }
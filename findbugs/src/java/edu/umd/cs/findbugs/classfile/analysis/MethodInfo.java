@@ -276,16 +276,23 @@ public class MethodInfo extends MethodDescriptor implements XMethod {
         this.methodSourceSignature = DescriptorFactory.canonicalizeString(methodSourceSignature);
         this.methodAnnotations = Util.immutableMap(methodAnnotations);
         this.methodParameterAnnotations = Util.immutableMap(methodParameterAnnotations);
-        if (isUnconditionalThrower)
-            getUnconditionalthrowers().put(this, null);
-        if (isUnsupported)
-            getUnconditionalthrowers().put(this, null);
-        if (accessMethodForMethod != null)
-            getAccessmethodformethod().put(this, accessMethodForMethod);
-        if (accessMethodForField!= null)
-            getAccessmethodforfield().put(this, accessMethodForField);
-        if (isIdentity) {
-            getIdentitymethods().put(this, null);
+        if (isUnconditionalThrower || isUnsupported || accessMethodForMethod != null || accessMethodForField != null
+                || isIdentity) {
+            // MethodInfo objects may be created on ClassInfo loader threads
+            MethodInfoDatabase database = getDatabase();
+            synchronized (database) {
+                if (isUnconditionalThrower)
+                    database.unconditionalThrowers.put(this, null);
+                if (isUnsupported)
+                    database.unconditionalThrowers.put(this, null);
+                if (accessMethodForMethod != null)
+                    database.accessMethodForMethod.put(this, accessMethodForMethod);
+                if (accessMethodForField != null)
+                    database.accessMethodForField.put(this, accessMethodForField);
+                if (isIdentity) {
+                    database.identityMethods.put(this, null);
+                }
+            }
         }
 
         this.usesConcurrency = usesConcurrency;
@@ -19,6 +19,7 @@
 
 package edu.umd.cs.findbugs.classfile.engine;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -60,6 +61,27 @@ public class ClassDataAnalysisEngine extends RecomputableClassAnalysisEngine<Cla
             }
         }
 
+        return readClassData(descriptor, codeBaseEntry);
+    }
+
+    /**
+     * Read the data of a class from the codebase entry it was found in.
+     *
+     * @param descriptor
+     *            the class
+     * @param codeBaseEntry
+     *            the codebase entry containing the class
+     * @return the ClassData
+     * @throws MissingClassException
+     *             if the class data could not be read
+     */
+    static ClassData readClassData(ClassDescriptor descriptor, ICodeBaseEntry codeBaseEntry) throws MissingClassException {
+        File sharedFile = SharedClassData.ENABLED ? SharedClassData.getSharedFile(codeBaseEntry.getCodeBase()) : null;
+        if (sharedFile != null) {
+            byte[] data = SharedClassData.get(sharedFile, codeBaseEntry.getResourceName());
+            if (data != null)
+                return new ClassData(descriptor, codeBaseEntry, data);
+        }
         byte[] data;
         if (codeBaseEntry instanceof ZipInputStreamCodeBaseEntry) {
             data = ((ZipInputStreamCodeBaseEntry) codeBaseEntry).getBytes();
@@ -78,6 +100,8 @@ public class ClassDataAnalysisEngine extends RecomputableClassAnalysisEngine<Cla
                 throw new MissingClassException(descriptor, e);
             }
         }
+        if (sharedFile != null)
+            SharedClassData.put(sharedFile, codeBaseEntry.getResourceName(), data);
         return new ClassData(descriptor, codeBaseEntry, data);
     }
 
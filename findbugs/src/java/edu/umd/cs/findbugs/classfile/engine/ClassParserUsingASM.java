@@ -107,6 +107,58 @@ public class ClassParserUsingASM implements ClassParserInterface {
 
         final TreeSet<ClassDescriptor> calledClassSet = new TreeSet<ClassDescriptor>();
 
+        HashSet<ClassDescriptor> referencedClassSet = new HashSet<ClassDescriptor>();
+
+        // collect class references, using the constant pool index the
+        // ClassReader already built rather than walking the pool again.
+        // Do this before visiting the class: the ClassReader misreads every
+        // constant after the first one whose tag it doesn't know (e.g.,
+        // CONSTANT_MethodHandle), so such classes must be rejected first.
+        // Class constants may name a later Utf8 constant, so all tags are
+        // checked before any name is read.
+
+        int constantPoolCount = classReader.readUnsignedShort(8);
+        int[] classConstants = new int[constantPoolCount];
+        int numClassConstants = 0;
+        for (int count = 1; count < constantPoolCount; count++) {
+            int offset = classReader.getItem(count);
+            if (offset == 0) {
+                // second slot of a long or double constant
+                continue;
+            }
+            int tag = classReader.readByte(offset - 1);
+            switch (tag) {
+            case Constants.CONSTANT_Class:
+                classConstants[numClassConstants++] = offset;
+                break;
+            case Constants.CONSTANT_Utf8:
+            case Constants.CONSTANT_Integer:
+            case Constants.CONSTANT_Float:
+            case Constants.CONSTANT_Long:
+            case Constants.CONSTANT_Double:
+            case Constants.CONSTANT_String:
+            case Constants.CONSTANT_Fieldref:
+            case Constants.CONSTANT_Methodref:
+            case Constants.CONSTANT_InterfaceMethodref:
+            case Constants.CONSTANT_NameAndType:
+                break;
+            default:
+                throw new InvalidClassFileFormatException("Unexpected tag of " + tag + " at offset " + (offset - 1)
+                        + " of the constant pool", expectedClassDescriptor, codeBaseEntry);
+            }
+        }
+        char[] buf = new char[1024];
+        for (int i = 0; i < numClassConstants; i++) {
+            @SlashedClassName
+            String className = classReader.readUTF8(classConstants[i], buf);
+            if (className.indexOf('[') >= 0) {
+                ClassParser.extractReferencedClassesFromSignature(referencedClassSet, className);
+            } else if (ClassName.isValidClassName(className)) {
+                ClassDescriptor classDescriptor = DescriptorFactory.instance().getClassDescriptor(className);
+                referencedClassSet.add(classDescriptor);
+            }
+        }
+
         classReader.accept(new ClassVisitor() {
 
             boolean isInnerClass = false;
@@ -504,59 +556,6 @@ public class ClassParserUsingASM implements ClassParserInterface {
 
             }
         }, ClassReader.SKIP_FRAMES);
-        HashSet<ClassDescriptor> referencedClassSet = new HashSet<ClassDescriptor>();
-
-        // collect class references
-
-        int constantPoolCount = classReader.readUnsignedShort(8);
-        int offset = 10;
-        char[] buf = new char[1024];
-        // System.out.println("constant pool count: " + constantPoolCount);
-        for (int count = 1; count < constantPoolCount; count++) {
-            int tag = classReader.readByte(offset);
-
-            int size;
-            switch (tag) {
-            case Constants.CONSTANT_Methodref:
-            case Constants.CONSTANT_InterfaceMethodref:
-            case Constants.CONSTANT_Fieldref:
-            case Constants.CONSTANT_Integer:
-            case Constants.CONSTANT_Float:
-            case Constants.CONSTANT_NameAndType:
-                size = 5;
-                break;
-            case Constants.CONSTANT_Long:
-            case Constants.CONSTANT_Double:
-                size = 9;
-                count++;
-                break;
-            case Constants.CONSTANT_Utf8:
-                size = 3 + classReader.readUnsignedShort(offset + 1);
-                break;
-            case Constants.CONSTANT_Class:
-                @SlashedClassName
-                String className = classReader.readUTF8(offset + 1, buf);
-                if (className.indexOf('[') >= 0) {
-                    ClassParser.extractReferencedClassesFromSignature(referencedClassSet, className);
-                } else if (ClassName.isValidClassName(className)) {
-                    ClassDescriptor classDescriptor = DescriptorFactory.instance().getClassDescriptor(className);
-                    referencedClassSet.add(classDescriptor);
-                }
-                size = 3;
-                break;
-            // case ClassWriter.CLASS:
-            // case ClassWriter.STR:
-            case Constants.CONSTANT_String:
-                size = 3;
-                break;
-            default:
-                throw new IllegalStateException("Unexpected tag of " + tag + " at offset " + offset + " while parsing "
-                        + slashedClassName + " from " + codeBaseEntry);
-            }
-            // System.out.println(count + "@" + offset + " : [" + tag
-            // +"] size="+size);
-            offset += size;
-        }
         cBuilder.setCalledClassDescriptors(calledClassSet);
         cBuilder.setReferencedClassDescriptors(referencedClassSet);
     }
@@ -0,0 +1,175 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.classfile.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import edu.umd.cs.findbugs.asm.FBClassReader;
+import edu.umd.cs.findbugs.ba.XClass;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.classfile.DescriptorFactory;
+import edu.umd.cs.findbugs.classfile.ICodeBaseEntry;
+import edu.umd.cs.findbugs.classfile.ResourceNotFoundException;
+import edu.umd.cs.findbugs.classfile.analysis.ClassData;
+import edu.umd.cs.findbugs.classfile.analysis.ClassInfo;
+import edu.umd.cs.findbugs.classfile.analysis.MethodInfo;
+import edu.umd.cs.findbugs.classfile.impl.AnalysisCache;
+
+/**
+ * Load the ClassInfo objects for a batch of classes using a pool of worker
+ * threads. The workers read the class data and run the ASM class parser,
+ * creating descriptors in the DescriptorFactory of the calling thread. The
+ * calling thread builds the ClassInfo objects and puts them in the analysis
+ * cache in the order the classes were given, so the result is the same as
+ * loading the classes one at a time.
+ * 
+ * <p>
+ * Classes which are already cached, or which cannot be found, read, or parsed,
+ * are left alone: the ClassInfoAnalysisEngine will load them (and report any
+ * errors) when they are requested.
+ * </p>
+ * 
+ * @see ClassInfoAnalysisEngine
+ */
+public class ParallelClassInfoLoader {
+
+    private final AnalysisCache analysisCache;
+
+    private final DescriptorFactory descriptorFactory;
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructor.
+     * 
+     * @param analysisCache
+     *            the analysis cache to load the classes into
+     * @param numThreads
+     *            number of worker threads to use
+     */
+    public ParallelClassInfoLoader(AnalysisCache analysisCache, int numThreads) {
+        this.analysisCache = analysisCache;
+        this.descriptorFactory = DescriptorFactory.instance();
+        // mark the factory as shared before any worker uses it
+        DescriptorFactory.setInstanceForCurrentThread(descriptorFactory);
+        this.executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ClassInfo loader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Load the ClassInfo objects for given classes into the analysis cache.
+     * 
+     * @param classes
+     *            the classes to load
+     * @throws InterruptedException
+     *             if the calling thread is interrupted
+     */
+    public void load(Collection<ClassDescriptor> classes) throws InterruptedException {
+        // Workers may create MethodInfo objects, which register themselves
+        // in this database: make sure it exists before they start
+        analysisCache.getDatabase(MethodInfo.MethodInfoDatabase.class);
+
+        List<ClassDescriptor> submitted = new ArrayList<ClassDescriptor>();
+        List<Future<ClassInfo.Builder>> results = new ArrayList<Future<ClassInfo.Builder>>();
+        for (ClassDescriptor classDescriptor : classes) {
+            if (isCached(classDescriptor)) {
+                continue;
+            }
+            ICodeBaseEntry codeBaseEntry;
+            try {
+                codeBaseEntry = analysisCache.getClassPath().lookupResource(classDescriptor.toResourceName());
+            } catch (ResourceNotFoundException e) {
+                continue;
+            }
+            submitted.add(classDescriptor);
+            results.add(executor.submit(new Parse(classDescriptor, codeBaseEntry)));
+        }
+
+        try {
+            for (int i = 0; i < submitted.size(); i++) {
+                ClassDescriptor classDescriptor = submitted.get(i);
+                ClassInfo.Builder builder;
+                try {
+                    builder = results.get(i).get();
+                } catch (ExecutionException e) {
+                    continue;
+                }
+                ClassInfo classInfo = builder.build();
+                if (classInfo.getClassDescriptor().equals(classDescriptor) && !isCached(classDescriptor)) {
+                    analysisCache.eagerlyPutClassAnalysis(XClass.class, classDescriptor, classInfo);
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<ClassInfo.Builder> result : results) {
+                result.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stop the worker threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean isCached(ClassDescriptor classDescriptor) {
+        try {
+            return analysisCache.probeClassAnalysis(XClass.class, classDescriptor) != null;
+        } catch (ClassCastException e) {
+            // a cached failure
+            return true;
+        }
+    }
+
+    private class Parse implements Callable<ClassInfo.Builder> {
+        private final ClassDescriptor classDescriptor;
+
+        private final ICodeBaseEntry codeBaseEntry;
+
+        Parse(ClassDescriptor classDescriptor, ICodeBaseEntry codeBaseEntry) {
+            this.classDescriptor = classDescriptor;
+            this.codeBaseEntry = codeBaseEntry;
+        }
+
+        public ClassInfo.Builder call() throws Exception {
+            DescriptorFactory.setInstanceForCurrentThread(descriptorFactory);
+            ClassData classData = ClassDataAnalysisEngine.readClassData(classDescriptor, codeBaseEntry);
+            FBClassReader reader = new FBClassReader(classData.getData());
+            ClassInfo.Builder builder = new ClassInfo.Builder();
+            new ClassParserUsingASM(reader, classDescriptor, codeBaseEntry).parse(builder);
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.classfile.engine;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+import edu.umd.cs.findbugs.SystemProperties;
+import edu.umd.cs.findbugs.classfile.ICodeBase;
+import edu.umd.cs.findbugs.classfile.impl.ZipFileCodeBase;
+
+/**
+ * Class data read from the jar files on the aux classpath, kept for the life
+ * of the class loader, so that analyses run one after another in the same
+ * JVM (e.g., by the Ant task with fork="false") don't read and inflate the
+ * same library and JDK classes again. Only enabled by the
+ * findbugs.shareAuxClassData property.
+ * <p>
+ * The data of a jar file is dropped when its size or modification time
+ * changes, and the data of each class is softly referenced, so it is freed
+ * when memory runs short.
+ */
+class SharedClassData {
+    static final boolean ENABLED = SystemProperties.getBoolean("findbugs.shareAuxClassData");
+
+    private static class JarData {
+        final long length;
+
+        final long lastModified;
+
+        final Map<String, SoftReference<byte[]>> classes = new HashMap<String, SoftReference<byte[]>>();
+
+        JarData(File file) {
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        boolean isCurrent(File file) {
+            return length == file.length() && lastModified == file.lastModified();
+        }
+    }
+
+    private static final Map<String, JarData> jars = new HashMap<String, JarData>();
+
+    /**
+     * @return the jar file of the codebase, if it is on the aux classpath, or
+     *         null if classes in the codebase are not shared
+     */
+    static @CheckForNull
+    File getSharedFile(@CheckForNull ICodeBase codeBase) {
+        if (codeBase == null || codeBase.isApplicationCodeBase() || !(codeBase instanceof ZipFileCodeBase))
+            return null;
+        File file = new File(codeBase.getPathName());
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * @return the data of a class in the jar file, or null if it is not
+     *         shared yet
+     */
+    static synchronized @CheckForNull
+    byte[] get(File file, String resourceName) {
+        JarData jar = jars.get(file.getPath());
+        if (jar == null)
+            return null;
+        if (!jar.isCurrent(file)) {
+            jars.remove(file.getPath());
+            return null;
+        }
+        SoftReference<byte[]> ref = jar.classes.get(resourceName);
+        return ref == null ? null : ref.get();
+    }
+
+    static synchronized void put(File file, String resourceName, byte[] data) {
+        JarData jar = jars.get(file.getPath());
+        if (jar == null || !jar.isCurrent(file)) {
+            jar = new JarData(file);
+            jars.put(file.getPath(), jar);
+        }
+        jar.classes.put(resourceName, new SoftReference<byte[]>(data));
+    }
+}
@@ -19,9 +19,9 @@
 
 package edu.umd.cs.findbugs.classfile.engine.asm;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
 
+import edu.umd.cs.findbugs.asm.FBClassReader;
 import edu.umd.cs.findbugs.classfile.CheckedAnalysisException;
 import edu.umd.cs.findbugs.classfile.ClassDescriptor;
 import edu.umd.cs.findbugs.classfile.IAnalysisCache;
@@ -44,7 +44,10 @@ public class ClassNodeAnalysisEngine extends RecomputableClassAnalysisEngine<Cla
      * .classfile.IAnalysisCache, java.lang.Object)
      */
     public ClassNode analyze(IAnalysisCache analysisCache, ClassDescriptor descriptor) throws CheckedAnalysisException {
-        ClassReader classReader = analysisCache.getClassAnalysis(ClassReader.class, descriptor);
+        // Share the cached reader (and its constant pool index) with the
+        // other ASM-based views of the class. Note that plain ClassReader
+        // is not registered with the analysis cache.
+        FBClassReader classReader = analysisCache.getClassAnalysis(FBClassReader.class, descriptor);
 
         ICodeBaseEntry entry = analysisCache.getClassPath().lookupResource(descriptor.toResourceName());
 
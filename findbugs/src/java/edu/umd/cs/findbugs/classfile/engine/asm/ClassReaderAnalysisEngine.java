@@ -23,6 +23,7 @@ import edu.umd.cs.findbugs.asm.FBClassReader;
 import edu.umd.cs.findbugs.classfile.CheckedAnalysisException;
 import edu.umd.cs.findbugs.classfile.ClassDescriptor;
 import edu.umd.cs.findbugs.classfile.IAnalysisCache;
+import edu.umd.cs.findbugs.classfile.InvalidClassFileFormatException;
 import edu.umd.cs.findbugs.classfile.RecomputableClassAnalysisEngine;
 import edu.umd.cs.findbugs.classfile.analysis.ClassData;
 
@@ -44,7 +45,14 @@ public class ClassReaderAnalysisEngine extends RecomputableClassAnalysisEngine<F
 
         ClassData classData = analysisCache.getClassAnalysis(ClassData.class, descriptor);
 
-        FBClassReader classReader = new FBClassReader(classData.getData());
+        FBClassReader classReader;
+        try {
+            classReader = new FBClassReader(classData.getData());
+        } catch (RuntimeException e) {
+            // e.g., reading past the end of a constant pool with constants
+            // the reader doesn't know
+            throw new InvalidClassFileFormatException(descriptor, classData.getCodeBaseEntry(), e);
+        }
 
         return classReader;
     }
@@ -69,7 +69,7 @@ public class EngineRegistrar implements IAnalysisEngineRegistrar {
             new BlockTypeAnalysisFactory(), new CallListDataflowFactory(), new UnconditionalValueDerefDataflowFactory(),
             new CompactLocationNumberingFactory(),  new ReturnPathTypeDataflowFactory(),
             new ForwardTypeQualifierDataflowFactoryFactory(), new BackwardTypeQualifierDataflowFactoryFactory(),
-            new OpcodeStack.JumpInfoFactory(), new ObligationDataflowFactory(), };
+            new OpcodeStack.JumpInfoFactory(), new ObligationDataflowFactory(), new DecodedCodeFactory(), };
 
     private static final IDatabaseFactory<?>[] databaseFactoryList = {
             // new ReflectionDatabaseFactory<Subtypes>(Subtypes.class),
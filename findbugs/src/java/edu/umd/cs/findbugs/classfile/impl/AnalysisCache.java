@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
@@ -87,6 +88,20 @@ public class AnalysisCache implements IAnalysisCache {
 
     private final Map<?, ?> analysisLocals = Collections.synchronizedMap(new HashMap<Object, Object>());
 
+    /**
+     * Hits and misses are counted only when asked for, to keep the contended
+     * counters off the lookup path otherwise
+     */
+    private volatile boolean countHits;
+
+    private final AtomicLong classAnalysisHits = new AtomicLong();
+
+    private final AtomicLong classAnalysisMisses = new AtomicLong();
+
+    private final AtomicLong methodAnalysisHits = new AtomicLong();
+
+    private final AtomicLong methodAnalysisMisses = new AtomicLong();
+
     public final Map<?, ?> getAnalysisLocals() {
         return analysisLocals;
     }
@@ -251,8 +266,13 @@ public class AnalysisCache implements IAnalysisCache {
 
         // See if there is a cached result in the descriptor map
         Object analysisResult = descriptorMap.get(classDescriptor);
-        if (analysisResult == null) {
+        if (analysisResult != null) {
+            if (countHits)
+                classAnalysisHits.incrementAndGet();
+        } else {
             // No cached result - compute (or recompute)
+            if (countHits)
+                classAnalysisMisses.incrementAndGet();
 
             IAnalysisEngine<ClassDescriptor, E> engine = (IAnalysisEngine<ClassDescriptor, E>) classAnalysisEngineMap
                     .get(analysisClass);
@@ -335,7 +355,12 @@ public class AnalysisCache implements IAnalysisCache {
         ClassContext classContext = getClassAnalysis(ClassContext.class, methodDescriptor.getClassDescriptor());
         Object object = classContext.getMethodAnalysis(analysisClass, methodDescriptor);
 
-        if (object == null) {
+        if (object != null) {
+            if (countHits)
+                methodAnalysisHits.incrementAndGet();
+        } else {
+            if (countHits)
+                methodAnalysisMisses.incrementAndGet();
             try {
                 object = analyzeMethod(classContext, analysisClass, methodDescriptor);
                 if (object == null) {
@@ -390,6 +415,27 @@ public class AnalysisCache implements IAnalysisCache {
         }
     }
 
+    /**
+     * Eagerly put a class analysis object in the cache. This can be used to
+     * install analysis objects computed ahead of time (e.g., on another
+     * thread).
+     *
+     * @param <E>
+     *            the type of the analysis (e.g., FoobarAnalysis)
+     * @param analysisClass
+     *            the analysis class object (e.g., FoobarAnalysis.class)
+     * @param classDescriptor
+     *            the descriptor of the class
+     * @param analysisObject
+     *            the analysis object
+     */
+    public <E> void eagerlyPutClassAnalysis(Class<E> analysisClass, @Nonnull ClassDescriptor classDescriptor, E analysisObject) {
+        assert analysisClass.isInstance(analysisObject);
+        Map<ClassDescriptor, Object> descriptorMap = findOrCreateDescriptorMap(classAnalysisMap, classAnalysisEngineMap,
+                analysisClass);
+        descriptorMap.put(classDescriptor, analysisObject);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -583,4 +629,38 @@ public class AnalysisCache implements IAnalysisCache {
     public Profiler getProfiler() {
         return bugReporter.getProjectStats().getProfiler();
     }
+
+    /**
+     * Start or stop counting cache hits and misses.
+     *
+     * @param countHits
+     *            true if hits and misses should be counted
+     */
+    public void setCountHits(boolean countHits) {
+        this.countHits = countHits;
+    }
+
+    /**
+     * @return the number of class analysis requests answered from the cache;
+     *         like the other counts, always 0 unless counting was turned on
+     *         with {@link #setCountHits(boolean)}
+     */
+    public long getClassAnalysisHits() {
+        return classAnalysisHits.get();
+    }
+
+    /** @return the number of class analysis requests which ran an engine */
+    public long getClassAnalysisMisses() {
+        return classAnalysisMisses.get();
+    }
+
+    /** @return the number of method analysis requests answered from the cache */
+    public long getMethodAnalysisHits() {
+        return methodAnalysisHits.get();
+    }
+
+    /** @return the number of method analysis requests which ran an engine */
+    public long getMethodAnalysisMisses() {
+        return methodAnalysisMisses.get();
+    }
 }
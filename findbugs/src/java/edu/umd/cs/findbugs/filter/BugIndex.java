@@ -0,0 +1,308 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.filter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugRanker;
+import edu.umd.cs.findbugs.ClassAnnotation;
+
+/**
+ * An inverted index over a fixed list of bugs. Each indexed attribute maps its
+ * distinct values to the set of positions of the bugs that have that value;
+ * the postings for an attribute are built the first time it is queried.
+ *
+ * <p>
+ * {@link #select(Matcher)} compiles a matcher tree down to these postings:
+ * leaf matchers that only look at one attribute are tested once per distinct
+ * value rather than once per bug, and And/Or/Not become set operations.
+ * Matchers the index knows nothing about are tested against each candidate
+ * bug, so the result is always the same as calling
+ * {@link Matcher#match(BugInstance)} on every bug.
+ * </p>
+ *
+ * <p>
+ * The index does not track changes to the bugs: if an attribute of a bug
+ * changes (e.g., its user designation), call {@link #invalidate(Attribute)}.
+ * </p>
+ */
+public class BugIndex {
+
+    /** Bug attributes that can be indexed. */
+    public enum Attribute {
+        TYPE, CATEGORY, PRIORITY, RANK, PRIMARY_CLASS, PACKAGE, DESIGNATION, FIRST_VERSION, LAST_VERSION;
+
+        Object valueOf(BugInstance bug) {
+            switch (this) {
+            case TYPE:
+                return bug.getType();
+            case CATEGORY:
+                return bug.getBugPattern().getCategory();
+            case PRIORITY:
+                return bug.getPriority();
+            case RANK:
+                return BugRanker.findRank(bug);
+            case PRIMARY_CLASS: {
+                ClassAnnotation primaryClass = bug.getPrimaryClass();
+                return primaryClass == null ? null : primaryClass.getClassName();
+            }
+            case PACKAGE: {
+                ClassAnnotation primaryClass = bug.getPrimaryClass();
+                return primaryClass == null ? null : primaryClass.getPackageName();
+            }
+            case DESIGNATION:
+                return bug.getUserDesignationKey();
+            case FIRST_VERSION:
+                return bug.getFirstVersion();
+            case LAST_VERSION:
+                return bug.getLastVersion();
+            default:
+                throw new AssertionError(this);
+            }
+        }
+    }
+
+    private final List<BugInstance> bugs;
+
+    private final Map<Attribute, Map<Object, BitSet>> postings = new EnumMap<Attribute, Map<Object, BitSet>>(Attribute.class);
+
+    private IdentityHashMap<BugInstance, Integer> positions;
+
+    /**
+     * Constructor.
+     *
+     * @param bugs
+     *            the bugs to index; positions in the index follow the
+     *            iteration order of the collection
+     */
+    public BugIndex(Collection<BugInstance> bugs) {
+        this.bugs = Collections.unmodifiableList(new ArrayList<BugInstance>(bugs));
+    }
+
+    /**
+     * @return the indexed bugs, in position order
+     */
+    public List<BugInstance> getBugs() {
+        return bugs;
+    }
+
+    public int size() {
+        return bugs.size();
+    }
+
+    /**
+     * @return the bugs at the positions in the given set, in position order
+     */
+    public List<BugInstance> getBugs(BitSet selected) {
+        List<BugInstance> result = new ArrayList<BugInstance>(selected.cardinality());
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1))
+            result.add(bugs.get(i));
+        return result;
+    }
+
+    /**
+     * @return the position of the given bug, or -1 if it is not indexed
+     */
+    public int indexOf(BugInstance bug) {
+        if (positions == null) {
+            positions = new IdentityHashMap<BugInstance, Integer>(bugs.size());
+            for (int i = bugs.size() - 1; i >= 0; i--)
+                positions.put(bugs.get(i), i);
+        }
+        Integer result = positions.get(bug);
+        return result == null ? -1 : result;
+    }
+
+    /**
+     * @return a set containing every position in the index
+     */
+    public BitSet all() {
+        BitSet result = new BitSet(bugs.size());
+        result.set(0, bugs.size());
+        return result;
+    }
+
+    /**
+     * Get the postings for an attribute, building them if necessary.
+     *
+     * @return unmodifiable map from each distinct value of the attribute to
+     *         the positions of the bugs having it; callers must not modify
+     *         the sets
+     */
+    public Map<Object, BitSet> getPostings(Attribute attribute) {
+        Map<Object, BitSet> result = postings.get(attribute);
+        if (result == null) {
+            result = new LinkedHashMap<Object, BitSet>();
+            int i = 0;
+            for (BugInstance bug : bugs) {
+                Object value = attribute.valueOf(bug);
+                BitSet posting = result.get(value);
+                if (posting == null) {
+                    posting = new BitSet();
+                    result.put(value, posting);
+                }
+                posting.set(i++);
+            }
+            result = Collections.unmodifiableMap(result);
+            postings.put(attribute, result);
+        }
+        return result;
+    }
+
+    /**
+     * Discard the postings for an attribute whose value may have changed.
+     */
+    public void invalidate(Attribute attribute) {
+        postings.remove(attribute);
+    }
+
+    /**
+     * @return positions of the bugs whose value of the attribute is one of
+     *         the given values
+     */
+    public BitSet select(Attribute attribute, Collection<?> values) {
+        BitSet result = new BitSet();
+        Map<Object, BitSet> byValue = getPostings(attribute);
+        for (Object value : values) {
+            BitSet posting = byValue.get(value);
+            if (posting != null)
+                result.or(posting);
+        }
+        return result;
+    }
+
+    /**
+     * @return positions of the bugs matched by the matcher
+     */
+    public BitSet select(Matcher matcher) {
+        return select(matcher, all());
+    }
+
+    /**
+     * Select the bugs among the given candidates that the matcher matches.
+     *
+     * @param matcher
+     *            the matcher
+     * @param candidates
+     *            positions of the bugs to consider; not modified
+     * @return a new set of positions, a subset of the candidates
+     */
+    public BitSet select(Matcher matcher, BitSet candidates) {
+        BitSet result;
+        if (matcher instanceof Filter) {
+            Filter filter = (Filter) matcher;
+            result = new BitSet();
+            for (Iterator<Matcher> i = filter.childIterator(); i.hasNext();) {
+                Matcher child = i.next();
+                if (!filter.isEnabled(child))
+                    continue;
+                BitSet remaining = (BitSet) candidates.clone();
+                remaining.andNot(result);
+                result.or(select(child, remaining));
+            }
+        } else if (matcher instanceof OrMatcher) {
+            result = new BitSet();
+            for (Iterator<Matcher> i = ((OrMatcher) matcher).childIterator(); i.hasNext();) {
+                BitSet remaining = (BitSet) candidates.clone();
+                remaining.andNot(result);
+                result.or(select(i.next(), remaining));
+            }
+        } else if (matcher instanceof AndMatcher) {
+            result = (BitSet) candidates.clone();
+            for (Iterator<Matcher> i = ((AndMatcher) matcher).childIterator(); i.hasNext() && !result.isEmpty();)
+                result = select(i.next(), result);
+            if (!result.isEmpty()) {
+                // keep AndMatcher.anyMatches() accurate
+                matcher.match(bugs.get(result.nextSetBit(0)));
+            }
+        } else if (matcher instanceof NotMatcher) {
+            Iterator<Matcher> i = ((NotMatcher) matcher).childIterator();
+            if (!i.hasNext())
+                return new BitSet();
+            result = (BitSet) candidates.clone();
+            result.andNot(select(i.next(), candidates));
+        } else {
+            Attribute attribute = getAttribute(matcher);
+            if (attribute != null)
+                result = selectByValue(attribute, matcher, candidates);
+            else
+                result = scan(matcher, candidates);
+        }
+        return result;
+    }
+
+    /**
+     * @return the only attribute the given leaf matcher depends on, or null if
+     *         it depends on something else
+     */
+    static Attribute getAttribute(Matcher matcher) {
+        Class<? extends Matcher> c = matcher.getClass();
+        if (c == BugMatcher.class)
+            return Attribute.TYPE;
+        if (c == ClassMatcher.class)
+            return Attribute.PRIMARY_CLASS;
+        if (c == PriorityMatcher.class)
+            return Attribute.PRIORITY;
+        if (c == RankMatcher.class)
+            return Attribute.RANK;
+        if (c == DesignationMatcher.class)
+            return Attribute.DESIGNATION;
+        if (c == FirstVersionMatcher.class)
+            return Attribute.FIRST_VERSION;
+        if (c == LastVersionMatcher.class)
+            return Attribute.LAST_VERSION;
+        return null;
+    }
+
+    /**
+     * Test the matcher once per distinct value of the attribute, on one bug
+     * having that value.
+     */
+    private BitSet selectByValue(Attribute attribute, Matcher matcher, BitSet candidates) {
+        Map<Object, BitSet> byValue = getPostings(attribute);
+        BitSet result = new BitSet();
+        if (candidates.cardinality() < byValue.size())
+            return scan(matcher, candidates);
+        for (BitSet posting : byValue.values()) {
+            if (posting.intersects(candidates) && matcher.match(bugs.get(posting.nextSetBit(0))))
+                result.or(posting);
+        }
+        result.and(candidates);
+        return result;
+    }
+
+    private BitSet scan(Matcher matcher, BitSet candidates) {
+        BitSet result = new BitSet();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+            if (matcher.match(bugs.get(i)))
+                result.set(i);
+        return result;
+    }
+}
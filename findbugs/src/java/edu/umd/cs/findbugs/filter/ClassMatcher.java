@@ -21,6 +21,8 @@ package edu.umd.cs.findbugs.filter;
 
 import java.io.IOException;
 
+import javax.annotation.CheckForNull;
+
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.ClassAnnotation;
 import edu.umd.cs.findbugs.SystemProperties;
@@ -41,6 +43,18 @@ public class ClassMatcher implements Matcher {
         this.className = new NameMatch(className);
     }
 
+    /**
+     * @return the exact class name matched, or null if this matcher uses a
+     *         regular expression
+     */
+    @CheckForNull
+    String getExactClassName() {
+        String spec = className.getSpec();
+        if (spec == null || spec.startsWith("~"))
+            return null;
+        return spec;
+    }
+
     public boolean match(BugInstance bugInstance) {
         ClassAnnotation primaryClassAnnotation = bugInstance.getPrimaryClass();
         String bugClassName = primaryClassAnnotation.getClassName();
@@ -0,0 +1,540 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.filter.BugIndex.Attribute;
+import edu.umd.cs.findbugs.xml.XMLOutput;
+
+/**
+ * A matcher tree compiled for fast repeated matching of single bugs, e.g. in
+ * {@link edu.umd.cs.findbugs.FilterBugReporter}.
+ *
+ * <ul>
+ * <li>Subtrees that depend on only one bug attribute (see
+ * {@link BugIndex.Attribute}) are evaluated once per distinct attribute value
+ * and the decision is remembered, so each class-name regular expression runs
+ * once per class rather than once per bug.</li>
+ * <li>The children of an Or (including the Match elements of a filter file)
+ * are dispatched on the primary class or bug type they require: exact class
+ * names go into a hash table, and the remaining keys are tested once per
+ * distinct value. A bug is then only checked against the children that can
+ * match it.</li>
+ * <li>And/Or children are ordered so that cheap, memoized tests run first and
+ * evaluation stops as soon as the result is known.</li>
+ * </ul>
+ *
+ * <p>
+ * The structure of And/Or/Not trees and of {@link Filter} is copied when the
+ * filter is compiled; later changes to them are not seen. Other matchers are
+ * consulted live. Instances are not thread safe.
+ * </p>
+ */
+public class CompiledFilter implements Matcher {
+
+    private final Matcher original;
+
+    private final Node root;
+
+    private CompiledFilter(Matcher original) {
+        this.original = original;
+        this.root = memoize(compileNode(original));
+    }
+
+    /**
+     * Compile a matcher.
+     *
+     * @param matcher
+     *            the matcher
+     * @return a matcher that matches the same bugs
+     */
+    public static Matcher compile(Matcher matcher) {
+        if (matcher instanceof CompiledFilter)
+            return matcher;
+        return new CompiledFilter(matcher);
+    }
+
+    public boolean match(BugInstance bugInstance) {
+        return root.match(bugInstance);
+    }
+
+    public void writeXML(XMLOutput xmlOutput, boolean disabled) throws IOException {
+        original.writeXML(xmlOutput, disabled);
+    }
+
+    @Override
+    public String toString() {
+        return original.toString();
+    }
+
+    /** Relative costs of evaluating a node, used to order And/Or children */
+    private static final int MEMO_COST = 1, LEAF_COST = 4, MEMBER_LEAF_COST = 8, OTHER_LEAF_COST = 16;
+
+    private abstract static class Node {
+        abstract boolean match(BugInstance bug);
+
+        /**
+         * @return the only attribute this node depends on, or null
+         */
+        @CheckForNull
+        abstract Attribute getAttribute();
+
+        abstract int getCost();
+    }
+
+    private static final Comparator<Node> BY_COST = new Comparator<Node>() {
+        public int compare(Node n1, Node n2) {
+            return n1.getCost() - n2.getCost();
+        }
+    };
+
+    private static final class Constant extends Node {
+        static final Constant TRUE = new Constant(true), FALSE = new Constant(false);
+
+        private final boolean value;
+
+        private Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean match(BugInstance bug) {
+            return value;
+        }
+
+        @Override
+        Attribute getAttribute() {
+            return null;
+        }
+
+        @Override
+        int getCost() {
+            return 0;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Matcher matcher;
+
+        final Attribute attribute;
+
+        Leaf(Matcher matcher) {
+            this.matcher = matcher;
+            this.attribute = BugIndex.getAttribute(matcher);
+        }
+
+        @Override
+        boolean match(BugInstance bug) {
+            return matcher.match(bug);
+        }
+
+        @Override
+        Attribute getAttribute() {
+            return attribute;
+        }
+
+        @Override
+        int getCost() {
+            if (attribute != null)
+                return LEAF_COST;
+            if (matcher instanceof MemberMatcher || matcher instanceof LocalMatcher)
+                return MEMBER_LEAF_COST;
+            return OTHER_LEAF_COST;
+        }
+    }
+
+    /** Remembers the decision of a single-attribute node for each value */
+    private static final class Memo extends Node {
+        final Attribute attribute;
+
+        final Node node;
+
+        final HashMap<Object, Boolean> decisions = new HashMap<Object, Boolean>();
+
+        Memo(Attribute attribute, Node node) {
+            this.attribute = attribute;
+            this.node = node;
+        }
+
+        @Override
+        boolean match(BugInstance bug) {
+            Object value = attribute.valueOf(bug);
+            Boolean result = decisions.get(value);
+            if (result == null) {
+                result = node.match(bug);
+                decisions.put(value, result);
+            }
+            return result;
+        }
+
+        @Override
+        Attribute getAttribute() {
+            return attribute;
+        }
+
+        @Override
+        int getCost() {
+            return MEMO_COST;
+        }
+    }
+
+    private static final class Not extends Node {
+        final Node node;
+
+        Not(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        boolean match(BugInstance bug) {
+            return !node.match(bug);
+        }
+
+        @Override
+        Attribute getAttribute() {
+            return node.getAttribute();
+        }
+
+        @Override
+        int getCost() {
+            return node.getCost();
+        }
+    }
+
+    private static final class And extends Node {
+        final Node[] nodes;
+
+        final Attribute attribute;
+
+        final int cost;
+
+        And(List<Node> nodes) {
+            Collections.sort(nodes, BY_COST);
+            this.nodes = nodes.toArray(new Node[nodes.size()]);
+            this.attribute = commonAttribute(nodes);
+            this.cost = totalCost(nodes);
+        }
+
+        @Override
+        boolean match(BugInstance bug) {
+            for (Node n : nodes)
+                if (!n.match(bug))
+                    return false;
+            return true;
+        }
+
+        @Override
+        Attribute getAttribute() {
+            return attribute;
+        }
+
+        @Override
+        int getCost() {
+            return cost;
+        }
+    }
+
+    private static final class Or extends Node {
+        final Dispatch[] dispatches;
+
+        final Node[] nodes;
+
+        final Attribute attribute;
+
+        final int cost;
+
+        Or(List<Dispatch> dispatches, List<Node> nodes, Attribute attribute) {
+            Collections.sort(nodes, BY_COST);
+            this.dispatches = dispatches.toArray(new Dispatch[dispatches.size()]);
+            this.nodes = nodes.toArray(new Node[nodes.size()]);
+            this.attribute = attribute;
+            this.cost = dispatches.size() * MEMO_COST + totalCost(nodes);
+        }
+
+        @Override
+        boolean match(BugInstance bug) {
+            for (Dispatch d : dispatches)
+                for (Node n : d.candidates(bug))
+                    if (n.match(bug))
+                        return true;
+            for (Node n : nodes)
+                if (n.match(bug))
+                    return true;
+            return false;
+        }
+
+        @Override
+        Attribute getAttribute() {
+            return attribute;
+        }
+
+        @Override
+        int getCost() {
+            return cost;
+        }
+    }
+
+    /**
+     * The children of an Or that each require some condition on the same
+     * attribute, split into that key condition and the rest of the child.
+     */
+    private static final class Dispatch {
+        final Attribute attribute;
+
+        /** Remaining conditions of children whose key is an exact value */
+        final HashMap<Object, List<Node>> exact = new HashMap<Object, List<Node>>();
+
+        /** Keys that must be tested, and the remaining conditions of each */
+        final List<Node> keys = new ArrayList<Node>(), rests = new ArrayList<Node>();
+
+        /** The Or children in this table */
+        final List<Node> originals = new ArrayList<Node>();
+
+        final HashMap<Object, Node[]> candidates = new HashMap<Object, Node[]>();
+
+        Dispatch(Attribute attribute) {
+            this.attribute = attribute;
+        }
+
+        void add(Node key, Node rest, Node original) {
+            originals.add(original);
+            Object exactValue = getExactValue(key);
+            if (exactValue != null) {
+                List<Node> forValue = exact.get(exactValue);
+                if (forValue == null) {
+                    forValue = new ArrayList<Node>();
+                    exact.put(exactValue, forValue);
+                }
+                forValue.add(rest);
+            } else {
+                keys.add(key);
+                rests.add(rest);
+            }
+        }
+
+        /**
+         * @return the remaining conditions of the children whose key the bug
+         *         satisfies
+         */
+        Node[] candidates(BugInstance bug) {
+            Object value = attribute.valueOf(bug);
+            Node[] result = candidates.get(value);
+            if (result == null) {
+                List<Node> matching = new ArrayList<Node>();
+                List<Node> forValue = exact.get(value);
+                if (forValue != null)
+                    matching.addAll(forValue);
+                for (int i = 0; i < keys.size(); i++)
+                    if (keys.get(i).match(bug))
+                        matching.add(rests.get(i));
+                Collections.sort(matching, BY_COST);
+                result = matching.toArray(new Node[matching.size()]);
+                candidates.put(value, result);
+            }
+            return result;
+        }
+
+        @CheckForNull
+        private static Object getExactValue(Node key) {
+            if (key instanceof Memo)
+                key = ((Memo) key).node;
+            if (key instanceof Leaf && ((Leaf) key).matcher instanceof ClassMatcher)
+                return ((ClassMatcher) ((Leaf) key).matcher).getExactClassName();
+            return null;
+        }
+    }
+
+    @CheckForNull
+    private static Attribute commonAttribute(List<Node> nodes) {
+        Attribute result = null;
+        for (Node n : nodes) {
+            Attribute a = n.getAttribute();
+            if (a == null || result != null && result != a)
+                return null;
+            result = a;
+        }
+        return result;
+    }
+
+    private static int totalCost(List<Node> nodes) {
+        int result = 0;
+        for (Node n : nodes)
+            result += n.getCost();
+        return result;
+    }
+
+    /**
+     * Wrap a node that depends on a single attribute so that it is evaluated
+     * once per value of the attribute.
+     */
+    private static Node memoize(Node node) {
+        Attribute attribute = node.getAttribute();
+        if (attribute == null || node instanceof Memo || node instanceof Constant)
+            return node;
+        if (node instanceof Not)
+            return new Not(memoize(((Not) node).node));
+        return new Memo(attribute, node);
+    }
+
+    private static Node compileNode(Matcher matcher) {
+        if (matcher instanceof Filter) {
+            Filter filter = (Filter) matcher;
+            List<Node> children = new ArrayList<Node>();
+            for (Iterator<Matcher> i = filter.childIterator(); i.hasNext();) {
+                Matcher child = i.next();
+                if (filter.isEnabled(child))
+                    children.add(compileNode(child));
+            }
+            return compileOr(children);
+        }
+        if (matcher instanceof OrMatcher)
+            return compileOr(compileChildren((OrMatcher) matcher));
+        if (matcher instanceof AndMatcher)
+            return compileAnd(compileChildren((AndMatcher) matcher));
+        if (matcher instanceof NotMatcher) {
+            Iterator<Matcher> i = ((NotMatcher) matcher).childIterator();
+            if (!i.hasNext())
+                return Constant.FALSE;
+            Node child = compileNode(i.next());
+            if (child instanceof Constant)
+                return child == Constant.TRUE ? Constant.FALSE : Constant.TRUE;
+            return new Not(child);
+        }
+        return new Leaf(matcher);
+    }
+
+    private static List<Node> compileChildren(CompoundMatcher matcher) {
+        List<Node> result = new ArrayList<Node>();
+        for (Iterator<Matcher> i = matcher.childIterator(); i.hasNext();)
+            result.add(compileNode(i.next()));
+        return result;
+    }
+
+    private static Node compileAnd(List<Node> children) {
+        List<Node> flat = new ArrayList<Node>();
+        for (Node n : children) {
+            if (n == Constant.FALSE)
+                return Constant.FALSE;
+            if (n instanceof And)
+                Collections.addAll(flat, ((And) n).nodes);
+            else if (n != Constant.TRUE)
+                flat.add(n);
+        }
+        if (flat.isEmpty())
+            return Constant.TRUE;
+        Attribute common = commonAttribute(flat);
+        if (common != null)
+            return flat.size() == 1 ? flat.get(0) : new And(flat);
+
+        // Evaluate the conditions on each attribute together, once per value
+        Map<Attribute, List<Node>> byAttribute = new EnumMap<Attribute, List<Node>>(Attribute.class);
+        List<Node> nodes = new ArrayList<Node>();
+        for (Node n : flat) {
+            Attribute a = n.getAttribute();
+            if (a == null) {
+                nodes.add(n);
+                continue;
+            }
+            List<Node> group = byAttribute.get(a);
+            if (group == null) {
+                group = new ArrayList<Node>();
+                byAttribute.put(a, group);
+            }
+            group.add(n);
+        }
+        for (List<Node> group : byAttribute.values())
+            nodes.add(memoize(group.size() == 1 ? group.get(0) : new And(group)));
+        return new And(nodes);
+    }
+
+    private static Node compileOr(List<Node> children) {
+        List<Node> flat = new ArrayList<Node>();
+        for (Node n : children) {
+            if (n == Constant.TRUE)
+                return Constant.TRUE;
+            if (n instanceof Or && ((Or) n).dispatches.length == 0)
+                Collections.addAll(flat, ((Or) n).nodes);
+            else if (n != Constant.FALSE)
+                flat.add(n);
+        }
+        if (flat.isEmpty())
+            return Constant.FALSE;
+        if (flat.size() == 1)
+            return flat.get(0);
+        Attribute common = commonAttribute(flat);
+
+        Dispatch byClass = new Dispatch(Attribute.PRIMARY_CLASS);
+        Dispatch byType = new Dispatch(Attribute.TYPE);
+        List<Node> nodes = new ArrayList<Node>();
+        for (Node n : flat) {
+            if (!addToDispatch(byClass, n) && !addToDispatch(byType, n))
+                nodes.add(n);
+        }
+        List<Dispatch> dispatches = new ArrayList<Dispatch>();
+        for (Dispatch d : new Dispatch[] { byClass, byType }) {
+            if (d.originals.size() > 1)
+                dispatches.add(d);
+            else
+                nodes.addAll(d.originals); // not worth a table
+        }
+        Node result = new Or(dispatches, nodes, common);
+        if (common != null && dispatches.isEmpty())
+            return memoize(result);
+        return result;
+    }
+
+    /**
+     * Add an Or child to the dispatch table if the child is, or is an And
+     * containing, a condition on the table's attribute.
+     *
+     * @return true if the child was added
+     */
+    private static boolean addToDispatch(Dispatch dispatch, Node n) {
+        if (n.getAttribute() == dispatch.attribute) {
+            dispatch.add(n, Constant.TRUE, n);
+            return true;
+        }
+        if (n instanceof And) {
+            Node[] conjuncts = ((And) n).nodes;
+            for (int i = 0; i < conjuncts.length; i++)
+                if (conjuncts[i].getAttribute() == dispatch.attribute) {
+                    List<Node> rest = new ArrayList<Node>();
+                    for (int j = 0; j < conjuncts.length; j++)
+                        if (j != i)
+                            rest.add(conjuncts[j]);
+                    dispatch.add(conjuncts[i], compileAnd(rest), n);
+                    return true;
+                }
+        }
+        return false;
+    }
+}
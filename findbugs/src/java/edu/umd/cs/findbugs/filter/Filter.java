@@ -60,6 +60,8 @@ public class Filter extends OrMatcher {
 
     private IdentityHashMap<Matcher, Boolean> disabled = new IdentityHashMap<Matcher, Boolean>();
 
+    private int modificationCount;
+
     /**
      * Constructor for empty filter
      * 
@@ -106,6 +108,7 @@ public class Filter extends OrMatcher {
 
     public void disable(Matcher m) {
         disabled.put(m, true);
+        modificationCount++;
     }
 
     public boolean isEnabled(Matcher m) {
@@ -114,6 +117,16 @@ public class Filter extends OrMatcher {
 
     public void enable(Matcher m) {
         disabled.remove(m);
+        modificationCount++;
+    }
+
+    /**
+     * @return a count that changes whenever matchers are added, removed,
+     *         enabled or disabled, so that users can tell whether results
+     *         computed from the filter are still valid
+     */
+    public int getModificationCount() {
+        return modificationCount;
     }
 
     public static Filter parseFilter(String fileName) throws IOException {
@@ -150,6 +163,7 @@ public class Filter extends OrMatcher {
      */
     public void softAdd(Matcher child) {
         super.addChild(child);
+        modificationCount++;
     }
 
     @Override
@@ -168,6 +182,7 @@ public class Filter extends OrMatcher {
     public void clear() {
         disabled.clear();
         super.clear();
+        modificationCount++;
     }
 
     @Override
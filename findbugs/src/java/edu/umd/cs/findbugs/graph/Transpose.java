@@ -66,7 +66,7 @@ public class Transpose<GraphType extends Graph<EdgeType, VertexType>, EdgeType e
             // (Ensuring that transposed graph has same labeling as original)
             VertexType dupVertex = toolkit.duplicateVertex(v);
             dupVertex.setLabel(v.getLabel());
-            trans.addVertex(v);
+            trans.addVertex(dupVertex);
 
             // Keep track of correspondence between equivalent vertices
             m_origToTransposeMap.put(v, dupVertex);
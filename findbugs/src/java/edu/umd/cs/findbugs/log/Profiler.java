@@ -22,12 +22,19 @@ package edu.umd.cs.findbugs.log;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.EmptyStackException;
+import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -38,18 +45,36 @@ import edu.umd.cs.findbugs.xml.XMLOutput;
 import edu.umd.cs.findbugs.xml.XMLWriteable;
 
 /**
+ * Records the time spent in detectors and analysis engines.
+ * <p>
+ * By default every call is timed. If the system property
+ * <code>findbugs.profiler.sampling</code> is set, the profiler instead only
+ * keeps track of which class is running on each thread, and a background
+ * thread attributes the time between samples (every
+ * <code>findbugs.profiler.samplingInterval</code> milliseconds, default 5) to
+ * the class running at the time. Call counts are still exact, but the times
+ * are estimates and the maximum and standard deviation per call are not
+ * known. This costs much less than timing every call, so it can be left on.
+ *
  * @author pugh
  */
 public class Profiler implements XMLWriteable {
 
     final static boolean REPORT = SystemProperties.getBoolean("profiler.report");
     final static boolean MAX_CONTEXT = SystemProperties.getBoolean("findbugs.profiler.maxcontext");
+    final static boolean SAMPLING = SystemProperties.getBoolean("findbugs.profiler.sampling");
+    final static int SAMPLING_INTERVAL = SystemProperties.getInt("findbugs.profiler.samplingInterval", 5);
 
     public Profiler() {
+        this(SAMPLING);
+    }
+
+    Profiler(boolean sampling) {
         startTimes = new Stack<Clock>();
         profile = new ConcurrentHashMap<Class<?>, Profile>();
+        this.sampling = sampling;
         if (REPORT)
-            System.err.println("Profiling activated");
+            System.err.println(sampling ? "Sampling profiling activated" : "Profiling activated");
     }
 
     public static interface Filter {
@@ -145,6 +170,14 @@ public class Profiler implements XMLWriteable {
             return totalTime.get();
         }
 
+        public int getTotalCalls() {
+            return totalCalls.get();
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
         /**
          * @param xmlOutput
          * @throws IOException
@@ -200,9 +233,71 @@ public class Profiler implements XMLWriteable {
 
     }
 
+    /**
+     * Classes running on one thread, written only by that thread and read by
+     * the sampler.
+     */
+    static class SampleStack {
+        Class<?>[] classes = new Class<?>[32];
+
+        Profile[] profiles = new Profile[32];
+
+        volatile int depth;
+
+        void push(Class<?> c, Profile p) {
+            int d = depth;
+            if (d == classes.length) {
+                Class<?>[] newClasses = new Class<?>[2 * d];
+                System.arraycopy(classes, 0, newClasses, 0, d);
+                Profile[] newProfiles = new Profile[2 * d];
+                System.arraycopy(profiles, 0, newProfiles, 0, d);
+                classes = newClasses;
+                profiles = newProfiles;
+            }
+            classes[d] = c;
+            profiles[d] = p;
+            depth = d + 1;
+        }
+
+        /** Forget the classes running now, even if called by another thread */
+        void clear() {
+            depth = 0;
+            Arrays.fill(profiles, null);
+        }
+
+        /** @return the profile running now, or null if none */
+        Profile top() {
+            int d = depth;
+            Profile[] p = profiles;
+            if (d == 0 || d > p.length)
+                return null;
+            return p[d - 1];
+        }
+    }
+
     final Stack<Clock> startTimes;
 
     final ConcurrentHashMap<Class<?>, Profile> profile;
+
+    final boolean sampling;
+
+    /**
+     * The stacks of all threads which used the profiler. Only the thread
+     * holds its stack strongly, so the stack of a finished thread is
+     * collected and its reference is dropped by the sampler.
+     */
+    final List<WeakReference<SampleStack>> sampleStacks = new CopyOnWriteArrayList<WeakReference<SampleStack>>();
+
+    final ThreadLocal<SampleStack> sampleStack = new ThreadLocal<SampleStack>() {
+        @Override
+        protected SampleStack initialValue() {
+            SampleStack stack = new SampleStack();
+            sampleStacks.add(new WeakReference<SampleStack>(stack));
+            return stack;
+        }
+    };
+
+    final AtomicBoolean samplerRunning = new AtomicBoolean();
     
     final Stack<Object> context = new Stack<Object>();
     
@@ -225,6 +320,14 @@ public class Profiler implements XMLWriteable {
         }
     }
     public void start(Class<?> c) {
+        if (sampling) {
+            Profile counter = getOrCreateProfile(c);
+            counter.totalCalls.incrementAndGet();
+            sampleStack.get().push(c, counter);
+            if (!samplerRunning.get() && samplerRunning.compareAndSet(false, true))
+                startSampler();
+            return;
+        }
         long currentNanoTime = System.nanoTime();
 
         Stack<Clock> stack = startTimes;
@@ -238,6 +341,17 @@ public class Profiler implements XMLWriteable {
 
     public void end(Class<?> c) {
         // System.err.println("pop " + c.getSimpleName());
+        if (sampling) {
+            SampleStack stack = sampleStack.get();
+            int d = stack.depth - 1;
+            if (d < 0 || stack.classes[d] != c) {
+                throw new AssertionError("Asked to end timing for " + c + " but top of stack is "
+                        + (d < 0 ? null : stack.classes[d]));
+            }
+            stack.profiles[d] = null;
+            stack.depth = d;
+            return;
+        }
         long currentNanoTime = System.nanoTime();
 
         Stack<Clock> stack = startTimes;
@@ -255,6 +369,12 @@ public class Profiler implements XMLWriteable {
         if (accumulatedTime == 0) {
             return;
         }
+        Profile counter = getOrCreateProfile(c);
+        counter.handleCall(accumulatedTime, getContext());
+
+    }
+
+    private Profile getOrCreateProfile(Class<?> c) {
         Profile counter = profile.get(c);
         if (counter == null) {
             counter = new Profile(c.getName());
@@ -263,8 +383,66 @@ public class Profiler implements XMLWriteable {
                 counter = counter2;
             }
         }
-        counter.handleCall(accumulatedTime, getContext());
+        return counter;
+    }
+
+    private void startSampler() {
+        Thread sampler = new Thread("FindBugs profiler sampler") {
+            @Override
+            public void run() {
+                try {
+                    long last = System.nanoTime();
+                    while (true) {
+                        Thread.sleep(SAMPLING_INTERVAL);
+                        long now = System.nanoTime();
+                        if (!sample(now - last)) {
+                            // nothing running; stop unless a start() raced
+                            // with us
+                            samplerRunning.set(false);
+                            if (!isAnyRunning() || !samplerRunning.compareAndSet(false, true))
+                                return;
+                        }
+                        last = now;
+                    }
+                } catch (InterruptedException e) {
+                    samplerRunning.set(false);
+                }
+            }
+        };
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Attribute the given time to the class running on each thread.
+     *
+     * @return true if any class was running
+     */
+    boolean sample(long elapsedNanos) {
+        boolean running = false;
+        for (WeakReference<SampleStack> ref : sampleStacks) {
+            SampleStack stack = ref.get();
+            if (stack == null) {
+                // its thread is gone
+                sampleStacks.remove(ref);
+                continue;
+            }
+            Profile p = stack.top();
+            if (p != null) {
+                p.totalTime.addAndGet(elapsedNanos);
+                running = true;
+            }
+        }
+        return running;
+    }
 
+    private boolean isAnyRunning() {
+        for (WeakReference<SampleStack> ref : sampleStacks) {
+            SampleStack stack = ref.get();
+            if (stack != null && stack.depth > 0)
+                return true;
+        }
+        return false;
     }
 
     public static class ClassNameComparator implements Comparator<Class<?>>, Serializable {
@@ -406,6 +584,21 @@ public class Profiler implements XMLWriteable {
     public void clear() {
         profile.clear();
         startTimes.clear();
+        if (sampling) {
+            for (WeakReference<SampleStack> ref : sampleStacks) {
+                SampleStack stack = ref.get();
+                if (stack != null)
+                    stack.clear();
+            }
+        }
+    }
+
+    /**
+     * @return a live view of the profiles collected so far; may be read while
+     *         the analysis is running
+     */
+    public Map<Class<?>, Profile> getProfiles() {
+        return Collections.unmodifiableMap(profile);
     }
 
     public Profile getProfile(Class<?> c) {
@@ -20,8 +20,10 @@
 package edu.umd.cs.findbugs.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
@@ -29,6 +31,7 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import edu.umd.cs.findbugs.SystemProperties;
@@ -41,6 +44,11 @@ import edu.umd.cs.findbugs.log.Profiler;
 public class TopologicalSort {
     final static boolean DEBUG = SystemProperties.getBoolean("tsort.debug");
 
+    /**
+     * Use the original collection-based sort rather than the array-based one.
+     */
+    final static boolean LEGACY = SystemProperties.getBoolean("tsort.legacy");
+
     public interface OutEdges<E> {
         Collection<E> getOutEdges(E e);
     }
@@ -74,13 +82,53 @@ public class TopologicalSort {
         Profiler profile = Global.getAnalysisCache().getProfiler();
         profile.start(TopologicalSort.class);
         try {
-            SortAlgorithm<E> instance = new Worker2<E>(elements, outEdges);
+            SortAlgorithm<E> instance = LEGACY ? new Worker2<E>(elements, outEdges) : new Worker3<E>(elements, outEdges);
             return instance.compute();
         } finally {
             profile.end(TopologicalSort.class);
         }
     }
 
+    /**
+     * Partition a sorted list into levels that can be processed one after
+     * another, with the elements of each level processed in any order (e.g.,
+     * by parallel workers). Every element comes in a later level than all of
+     * the elements it has out edges to and which precede it in the sorted
+     * order, so any dependency respected by the sort is also respected by
+     * the partition.
+     *
+     * @param sorted
+     *            list sorted by {@link #sortByCallGraph(Collection, OutEdges)}
+     * @param outEdges
+     *            the out edges used for sorting
+     * @return the levels, in processing order
+     */
+    public static <E> List<List<E>> partitionIntoLevels(List<E> sorted, OutEdges<E> outEdges) {
+        Map<E, Integer> position = new HashMap<E, Integer>();
+        for (E e : sorted)
+            position.put(e, position.size());
+        int[] level = new int[sorted.size()];
+        int numLevels = 0;
+        int i = 0;
+        for (E e : sorted) {
+            int myLevel = 0;
+            for (E e2 : outEdges.getOutEdges(e)) {
+                Integer j = position.get(e2);
+                if (j != null && j < i)
+                    myLevel = Math.max(myLevel, level[j] + 1);
+            }
+            level[i++] = myLevel;
+            numLevels = Math.max(numLevels, myLevel + 1);
+        }
+        List<List<E>> result = new ArrayList<List<E>>(numLevels);
+        for (int k = 0; k < numLevels; k++)
+            result.add(new ArrayList<E>());
+        i = 0;
+        for (E e : sorted)
+            result.get(level[i++]).add(e);
+        return result;
+    }
+
     public static <E> void countBadEdges(List<E> elements, OutEdges<E> outEdges) {
         if (!DEBUG)
             return;
@@ -138,6 +186,244 @@ public class TopologicalSort {
         }
     }
 
+    /**
+     * Array-based version of the {@link Worker2} heuristic. Elements are
+     * numbered and the graph is kept as arrays of successor and predecessor
+     * indices with live degree counts, so that sinks and sources can be found
+     * from a work list rather than by rescanning every remaining element.
+     * When only cycles remain, the element with the best score is taken from
+     * a priority queue whose entries are refreshed as neighboring elements
+     * are removed.
+     */
+    static class Worker3<E> implements SortAlgorithm<E> {
+        final List<E> elements;
+
+        final OutEdges<E> outEdges;
+
+        int[][] succ, pred;
+
+        int[] outDegree, inDegree;
+
+        boolean[] removed;
+
+        /** Scores, valid for elements in the priority queue that are not dirty */
+        int[] score;
+
+        boolean[] dirty;
+
+        int[] dirtyList;
+
+        int numDirty;
+
+        /** Encoded (score, element) entries; null until first needed */
+        PriorityQueue<Long> best;
+
+        int[] workList;
+
+        int workHead, workTail;
+
+        Worker3(Collection<E> consider, OutEdges<E> outEdges) {
+            if (outEdges == null)
+                throw new IllegalArgumentException("outEdges must not be null");
+            this.elements = new ArrayList<E>(new LinkedHashSet<E>(consider));
+            this.outEdges = outEdges;
+        }
+
+        private void buildGraph() {
+            int n = elements.size();
+            Map<E, Integer> index = new HashMap<E, Integer>();
+            for (E e : elements)
+                index.put(e, index.size());
+
+            // Out edges, without self edges and duplicates, sorted by index
+            succ = new int[n][];
+            int[] buffer = new int[16];
+            for (int i = 0; i < n; i++) {
+                int count = 0;
+                for (E e2 : outEdges.getOutEdges(elements.get(i))) {
+                    Integer j = index.get(e2);
+                    if (j == null || j == i)
+                        continue;
+                    buffer = append(buffer, count++, j);
+                }
+                Arrays.sort(buffer, 0, count);
+                int distinct = 0;
+                for (int k = 0; k < count; k++)
+                    if (distinct == 0 || buffer[distinct - 1] != buffer[k])
+                        buffer[distinct++] = buffer[k];
+                succ[i] = copyOf(buffer, distinct);
+            }
+
+            // Drop edges in both directions between mutually dependent
+            // elements, as they give no ordering information
+            int[][] oneWay = new int[n][];
+            outDegree = new int[n];
+            for (int i = 0; i < n; i++) {
+                int count = 0;
+                for (int j : succ[i])
+                    if (Arrays.binarySearch(succ[j], i) < 0)
+                        buffer = append(buffer, count++, j);
+                outDegree[i] = count;
+                oneWay[i] = count < succ[i].length ? copyOf(buffer, count) : succ[i];
+            }
+            succ = oneWay;
+
+            inDegree = new int[n];
+            for (int i = 0; i < n; i++)
+                for (int j : succ[i])
+                    inDegree[j]++;
+            pred = new int[n][];
+            for (int j = 0; j < n; j++)
+                pred[j] = new int[inDegree[j]];
+            int[] fill = new int[n];
+            for (int i = 0; i < n; i++)
+                for (int j : succ[i])
+                    pred[j][fill[j]++] = i;
+        }
+
+        private static int[] copyOf(int[] a, int length) {
+            int[] result = new int[length];
+            System.arraycopy(a, 0, result, 0, Math.min(length, a.length));
+            return result;
+        }
+
+        private static int[] append(int[] buffer, int count, int value) {
+            if (count == buffer.length)
+                buffer = copyOf(buffer, 2 * count);
+            buffer[count] = value;
+            return buffer;
+        }
+
+        public List<E> compute() {
+            int n = elements.size();
+            buildGraph();
+            removed = new boolean[n];
+            workList = new int[3 * n];
+            for (int i = 0; i < n; i++)
+                if (outDegree[i] == 0 || inDegree[i] == 0)
+                    workList[workTail++] = i;
+
+            ArrayList<E> doFirst = new ArrayList<E>(n);
+            ArrayList<E> doLast = new ArrayList<E>(n);
+            int remaining = n;
+            while (remaining > 0) {
+                int e;
+                if (workHead < workTail) {
+                    e = workList[workHead++];
+                    if (removed[e])
+                        continue;
+                    if (outDegree[e] == 0) {
+                        doFirst.add(elements.get(e));
+                        if (DEBUG)
+                            System.out.println("do " + elements.get(e) + " first");
+                    } else {
+                        doLast.add(elements.get(e));
+                        if (DEBUG)
+                            System.out.println("do " + elements.get(e) + " last");
+                    }
+                } else {
+                    e = chooseBest();
+                    if (DEBUG) {
+                        System.out.println("do " + elements.get(e) + " first, reluctantly");
+                        System.out.println("  score: " + score[e]);
+                    }
+                    doFirst.add(elements.get(e));
+                }
+                removeVertex(e);
+                remaining--;
+            }
+            Collections.reverse(doLast);
+            doFirst.addAll(doLast);
+            return doFirst;
+        }
+
+        private void removeVertex(int e) {
+            removed[e] = true;
+            for (int e2 : succ[e])
+                if (!removed[e2]) {
+                    markDirty(e2);
+                    if (--inDegree[e2] == 0)
+                        workList[workTail++] = e2;
+                    else if (inDegree[e2] == 1)
+                        // score of predecessors of e2 depends on this
+                        for (int e3 : pred[e2])
+                            markDirty(e3);
+                }
+            for (int e2 : pred[e])
+                if (!removed[e2]) {
+                    markDirty(e2);
+                    if (--outDegree[e2] == 0)
+                        workList[workTail++] = e2;
+                    else if (outDegree[e2] == 1)
+                        // score of successors of e2 depends on this
+                        for (int e3 : succ[e2])
+                            markDirty(e3);
+                }
+        }
+
+        private void markDirty(int e) {
+            if (best == null || dirty[e] || removed[e])
+                return;
+            dirty[e] = true;
+            dirtyList[numDirty++] = e;
+        }
+
+        private int chooseBest() {
+            int n = elements.size();
+            if (best == null) {
+                best = new PriorityQueue<Long>(n, Collections.reverseOrder());
+                score = new int[n];
+                dirty = new boolean[n];
+                dirtyList = new int[n];
+                for (int e = 0; e < n; e++)
+                    if (!removed[e])
+                        push(e);
+            } else {
+                for (int k = 0; k < numDirty; k++) {
+                    int e = dirtyList[k];
+                    dirty[e] = false;
+                    if (!removed[e])
+                        push(e);
+                }
+                numDirty = 0;
+            }
+            while (true) {
+                long entry = best.poll();
+                int e = n - 1 - (int) (entry & 0xffffffffL);
+                if (!removed[e] && score[e] == (int) (entry >> 32))
+                    return e;
+            }
+        }
+
+        private void push(int e) {
+            score[e] = getScore(e);
+            // Higher score first; for equal scores, earlier element first
+            best.add(((long) score[e] << 32) | (elements.size() - 1 - e));
+        }
+
+        private int getScore(int e) {
+            int myScore = score(e);
+            if (outEdges instanceof OutEdges2) {
+                int score2 = ((OutEdges2<E>) outEdges).score(elements.get(e));
+                if (score2 > 1)
+                    score2 += 11;
+                myScore = 5 * myScore + score2;
+            }
+            return myScore;
+        }
+
+        private int score(int e) {
+            int myScore = 0;
+            for (int e2 : succ[e])
+                if (!removed[e2])
+                    myScore -= inDegree[e2] == 1 ? 2 : 1;
+            for (int e2 : pred[e])
+                if (!removed[e2])
+                    myScore += outDegree[e2] == 1 ? 2 : 1;
+            return myScore;
+        }
+    }
+
     static class Worker2<E> implements SortAlgorithm<E> {
         Worker2(Collection<E> consider, OutEdges<E> outEdges) {
             if (outEdges == null)
@@ -0,0 +1,120 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.visitclass;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+
+/**
+ * The bytecode of a method, decoded once by DismantleBytecode so that it can
+ * be replayed to every bytecode scanning detector in an analysis pass without
+ * each of them having to read the code bytes and resolve constant pool
+ * entries again.
+ *
+ * @see DismantleBytecode#useSharedDecoding()
+ */
+public class DecodedCode {
+
+    /**
+     * Operands of a single decoded instruction.
+     */
+    static class Instruction {
+        int pc, nextPC;
+
+        int opcode;
+
+        boolean wide;
+
+        int branchOffset, branchTarget, branchFallThrough, defaultSwitchOffset;
+
+        int[] switchOffsets, switchLabels;
+
+        int switchLow, switchHigh;
+
+        String classConstantOperand, nameConstantOperand, sigConstantOperand, stringConstantOperand, refConstantOperand;
+
+        ClassDescriptor referencedClass;
+
+        boolean refFieldIsStatic;
+
+        Constant constantRefOperand;
+
+        int intConstant;
+
+        long longConstant;
+
+        float floatConstant;
+
+        double doubleConstant;
+
+        int registerOperand;
+
+        boolean isRegisterLoad, isRegisterStore;
+    }
+
+    private final Code code;
+
+    private final List<Instruction> instructions;
+
+    DecodedCode(Code code, List<Instruction> instructions) {
+        this.code = code;
+        this.instructions = Collections.unmodifiableList(instructions);
+    }
+
+    /**
+     * Decode the code of a method.
+     *
+     * @param jclass
+     *            the class containing the method
+     * @param method
+     *            the method; must have a Code attribute
+     * @return the decoded code
+     */
+    public static DecodedCode decode(JavaClass jclass, Method method) {
+        if (method.getCode() == null)
+            throw new IllegalArgumentException(method.getName() + " has no code");
+        return DismantleBytecode.decode(jclass, method);
+    }
+
+    /**
+     * @return the Code attribute that was decoded
+     */
+    public Code getCode() {
+        return code;
+    }
+
+    /**
+     * @return the number of instructions in the method
+     */
+    public int getNumInstructions() {
+        return instructions.size();
+    }
+
+    List<Instruction> getInstructions() {
+        return instructions;
+    }
+}
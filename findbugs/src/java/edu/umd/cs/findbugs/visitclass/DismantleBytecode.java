@@ -23,6 +23,8 @@ import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.annotation.CheckForNull;
 
@@ -40,7 +42,11 @@ import org.apache.bcel.classfile.ConstantLong;
 import org.apache.bcel.classfile.ConstantMethodref;
 import org.apache.bcel.classfile.ConstantNameAndType;
 import org.apache.bcel.classfile.ConstantString;
+import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.LineNumberTable;
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.SystemProperties;
 
 import edu.umd.cs.findbugs.annotations.SuppressWarnings;
 import edu.umd.cs.findbugs.ba.AnalysisContext;
@@ -53,6 +59,7 @@ import edu.umd.cs.findbugs.classfile.ClassDescriptor;
 import edu.umd.cs.findbugs.classfile.DescriptorFactory;
 import edu.umd.cs.findbugs.classfile.FieldDescriptor;
 import edu.umd.cs.findbugs.classfile.Global;
+import edu.umd.cs.findbugs.classfile.IAnalysisCache;
 import edu.umd.cs.findbugs.classfile.MethodDescriptor;
 import edu.umd.cs.findbugs.internalAnnotations.SlashedClassName;
 import edu.umd.cs.findbugs.util.ClassName;
@@ -128,6 +135,10 @@ abstract public class DismantleBytecode extends AnnotationVisitor {
 
     private static final int INVALID_OFFSET = Integer.MIN_VALUE;
 
+    private static final boolean SHARED_DECODING = SystemProperties.getBoolean("findbugs.fusedBytecodeScan");
+
+    private List<DecodedCode.Instruction> decodedCodeRecorder;
+
     private static final String NOT_AVAILABLE = SlashedClassName.NOT_AVAILABLE;
 
     static String replaceSlashesWithDots(String c) {
@@ -494,6 +505,150 @@ abstract public class DismantleBytecode extends AnnotationVisitor {
 
     @Override
     public void visit(Code obj) {
+        if (decodedCodeRecorder != null) {
+            dismantle(obj, decodedCodeRecorder);
+            return;
+        }
+        if (SHARED_DECODING && useSharedDecoding()) {
+            DecodedCode decodedCode = getSharedDecodedCode(obj);
+            if (decodedCode != null) {
+                replay(obj, decodedCode);
+                return;
+            }
+        }
+        dismantle(obj, null);
+    }
+
+    /**
+     * Should the current method be replayed from the shared decoded form
+     * computed by the analysis cache, rather than decoded again by this
+     * visitor? Only consulted when the engine is run with
+     * findbugs.fusedBytecodeScan set.
+     *
+     * Detectors that can't work from a shared decoding (e.g., because they
+     * visit Code attributes that don't belong to the method being visited)
+     * can override this method to opt out.
+     *
+     * @return true if the shared decoding may be used
+     */
+    protected boolean useSharedDecoding() {
+        return true;
+    }
+
+    private @CheckForNull
+    DecodedCode getSharedDecodedCode(Code obj) {
+        MethodDescriptor methodDescriptor = getMethodDescriptor();
+        IAnalysisCache analysisCache = Global.getAnalysisCache();
+        if (methodDescriptor == null || analysisCache == null || getMethod() == null || getMethod().getCode() != obj)
+            return null;
+        try {
+            DecodedCode decodedCode = analysisCache.getMethodAnalysis(DecodedCode.class, methodDescriptor);
+            if (decodedCode != null && decodedCode.getCode() == obj)
+                return decodedCode;
+        } catch (CheckedAnalysisException e) {
+            AnalysisContext.logError("Unable to get decoded bytecode for " + methodDescriptor, e);
+        }
+        return null;
+    }
+
+    /**
+     * Decode the code of the given method once, recording the operands of
+     * each instruction so that they can be replayed to any number of
+     * visitors.
+     *
+     * @param jclass
+     *            the class containing the method
+     * @param method
+     *            the method, which must have code
+     * @return the decoded code
+     */
+    static DecodedCode decode(JavaClass jclass, Method method) {
+        DismantleBytecode decoder = new DismantleBytecode() {
+        };
+        decoder.setupVisitorForClass(jclass);
+        decoder.decodedCodeRecorder = new ArrayList<DecodedCode.Instruction>();
+        // decoding doesn't depend on the method, so just visit its code
+        method.getCode().accept(decoder);
+        return new DecodedCode(method.getCode(), decoder.decodedCodeRecorder);
+    }
+
+    void replay(Code obj, DecodedCode decodedCode) {
+        sizePrevOpcodeBuffer = 0;
+        currentPosInPrevOpcodeBuffer = prevOpcode.length - 1;
+        codeBytes = obj.getCode();
+        lineNumberTable = obj.getLineNumberTable();
+
+        for (DecodedCode.Instruction ins : decodedCode.getInstructions()) {
+            resetState();
+            PC = ins.pc;
+            nextPC = ins.nextPC;
+            opcode = ins.opcode;
+            opcodeIsWide = ins.wide;
+            sizePrevOpcodeBuffer++;
+            currentPosInPrevOpcodeBuffer++;
+            if (currentPosInPrevOpcodeBuffer >= prevOpcode.length)
+                currentPosInPrevOpcodeBuffer = 0;
+            prevOpcode[currentPosInPrevOpcodeBuffer] = ins.wide ? WIDE : ins.opcode;
+
+            branchOffset = ins.branchOffset;
+            branchTarget = ins.branchTarget;
+            branchFallThrough = ins.branchFallThrough;
+            defaultSwitchOffset = ins.defaultSwitchOffset;
+            switchOffsets = ins.switchOffsets;
+            switchLabels = ins.switchLabels;
+            classConstantOperand = ins.classConstantOperand;
+            referencedClass = ins.referencedClass;
+            nameConstantOperand = ins.nameConstantOperand;
+            sigConstantOperand = ins.sigConstantOperand;
+            stringConstantOperand = ins.stringConstantOperand;
+            refConstantOperand = ins.refConstantOperand;
+            refFieldIsStatic = ins.refFieldIsStatic;
+            constantRefOperand = ins.constantRefOperand;
+            intConstant = ins.intConstant;
+            longConstant = ins.longConstant;
+            floatConstant = ins.floatConstant;
+            doubleConstant = ins.doubleConstant;
+            registerOperand = ins.registerOperand;
+            isRegisterLoad = ins.isRegisterLoad;
+            isRegisterStore = ins.isRegisterStore;
+
+            fireOpcodeEvents(ins.switchLow, ins.switchHigh);
+        }
+    }
+
+    private DecodedCode.Instruction recordState(int switchLow, int switchHigh) {
+        DecodedCode.Instruction ins = new DecodedCode.Instruction();
+        ins.pc = PC;
+        ins.nextPC = nextPC;
+        ins.opcode = opcode;
+        ins.wide = opcodeIsWide;
+        ins.branchOffset = branchOffset;
+        ins.branchTarget = branchTarget;
+        ins.branchFallThrough = branchFallThrough;
+        ins.defaultSwitchOffset = defaultSwitchOffset;
+        ins.switchOffsets = switchOffsets;
+        ins.switchLabels = switchLabels;
+        ins.switchLow = switchLow;
+        ins.switchHigh = switchHigh;
+        ins.classConstantOperand = classConstantOperand;
+        ins.referencedClass = referencedClass;
+        ins.nameConstantOperand = nameConstantOperand;
+        ins.sigConstantOperand = sigConstantOperand;
+        ins.stringConstantOperand = stringConstantOperand;
+        ins.refConstantOperand = refConstantOperand;
+        ins.refFieldIsStatic = refFieldIsStatic;
+        ins.constantRefOperand = constantRefOperand;
+        ins.intConstant = intConstant;
+        ins.longConstant = longConstant;
+        ins.floatConstant = floatConstant;
+        ins.doubleConstant = doubleConstant;
+        ins.registerOperand = registerOperand;
+        ins.isRegisterLoad = isRegisterLoad;
+        ins.isRegisterStore = isRegisterStore;
+        return ins;
+    }
+
+    private void dismantle(Code obj, @CheckForNull List<DecodedCode.Instruction> recorder) {
         sizePrevOpcodeBuffer = 0;
         currentPosInPrevOpcodeBuffer = prevOpcode.length - 1;
 
@@ -816,63 +971,9 @@ abstract public class DismantleBytecode extends AnnotationVisitor {
                 }
 
                 nextPC = i;
-                if (beforeOpcode(opcode))
-                    sawOpcode(opcode);
-                afterOpcode(opcode);
-
-                if (opcode == TABLESWITCH) {
-                    sawInt(switchLow);
-                    sawInt(switchHigh);
-                    int prevOffset = i - PC;
-                    for (int o = 0; o <= switchHigh - switchLow; o++) {
-                        sawBranchTo(switchOffsets[o] + PC);
-                        prevOffset = switchOffsets[o];
-                    }
-                    sawBranchTo(defaultSwitchOffset + PC);
-                } else if (opcode == LOOKUPSWITCH) {
-                    sawInt(switchOffsets.length);
-                    int prevOffset = i - PC;
-                    for (int o = 0; o < switchOffsets.length; o++) {
-                        sawBranchTo(switchOffsets[o] + PC);
-                        prevOffset = switchOffsets[o];
-                        sawInt(switchLabels[o]);
-                    }
-                    sawBranchTo(defaultSwitchOffset + PC);
-                } else
-                    for (int k = 0; k < TYPE_OF_OPERANDS[opcode].length; k++) {
-                        int m = MEANING_OF_OPERANDS[opcode][k];
-                        switch (m) {
-                        case M_BR:
-                            sawBranchTo(branchOffset + PC);
-                            break;
-                        case M_CP:
-                            if (constantRefOperand instanceof ConstantInteger)
-                                sawInt(intConstant);
-                            else if (constantRefOperand instanceof ConstantLong)
-                                sawLong(longConstant);
-                            else if (constantRefOperand instanceof ConstantFloat)
-                                sawFloat(floatConstant);
-                            else if (constantRefOperand instanceof ConstantDouble)
-                                sawDouble(doubleConstant);
-                            else if (constantRefOperand instanceof ConstantString)
-                                sawString(stringConstantOperand);
-                            else if (constantRefOperand instanceof ConstantFieldref)
-                                sawField();
-                            else if (constantRefOperand instanceof ConstantMethodref)
-                                sawMethod();
-                            else if (constantRefOperand instanceof ConstantInterfaceMethodref)
-                                sawIMethod();
-                            else if (constantRefOperand instanceof ConstantClass)
-                                sawClass();
-                            break;
-                        case M_R:
-                            sawRegister(registerOperand);
-                            break;
-                        case M_INT:
-                            sawInt(intConstant);
-                            break;
-                        }
-                    }
+                if (recorder != null)
+                    recorder.add(recordState(switchLow, switchHigh));
+                fireOpcodeEvents(switchLow, switchHigh);
             }
         } catch (IOException e) {
             AnalysisContext.logError("Error while dismantling bytecode", e);
@@ -886,6 +987,66 @@ abstract public class DismantleBytecode extends AnnotationVisitor {
         }
     }
 
+    private void fireOpcodeEvents(int switchLow, int switchHigh) {
+        if (beforeOpcode(opcode))
+            sawOpcode(opcode);
+        afterOpcode(opcode);
+
+        if (opcode == TABLESWITCH) {
+            sawInt(switchLow);
+            sawInt(switchHigh);
+            int prevOffset = nextPC - PC;
+            for (int o = 0; o <= switchHigh - switchLow; o++) {
+                sawBranchTo(switchOffsets[o] + PC);
+                prevOffset = switchOffsets[o];
+            }
+            sawBranchTo(defaultSwitchOffset + PC);
+        } else if (opcode == LOOKUPSWITCH) {
+            sawInt(switchOffsets.length);
+            int prevOffset = nextPC - PC;
+            for (int o = 0; o < switchOffsets.length; o++) {
+                sawBranchTo(switchOffsets[o] + PC);
+                prevOffset = switchOffsets[o];
+                sawInt(switchLabels[o]);
+            }
+            sawBranchTo(defaultSwitchOffset + PC);
+        } else
+            for (int k = 0; k < TYPE_OF_OPERANDS[opcode].length; k++) {
+                int m = MEANING_OF_OPERANDS[opcode][k];
+                switch (m) {
+                case M_BR:
+                    sawBranchTo(branchOffset + PC);
+                    break;
+                case M_CP:
+                    if (constantRefOperand instanceof ConstantInteger)
+                        sawInt(intConstant);
+                    else if (constantRefOperand instanceof ConstantLong)
+                        sawLong(longConstant);
+                    else if (constantRefOperand instanceof ConstantFloat)
+                        sawFloat(floatConstant);
+                    else if (constantRefOperand instanceof ConstantDouble)
+                        sawDouble(doubleConstant);
+                    else if (constantRefOperand instanceof ConstantString)
+                        sawString(stringConstantOperand);
+                    else if (constantRefOperand instanceof ConstantFieldref)
+                        sawField();
+                    else if (constantRefOperand instanceof ConstantMethodref)
+                        sawMethod();
+                    else if (constantRefOperand instanceof ConstantInterfaceMethodref)
+                        sawIMethod();
+                    else if (constantRefOperand instanceof ConstantClass)
+                        sawClass();
+                    break;
+                case M_R:
+                    sawRegister(registerOperand);
+                    break;
+                case M_INT:
+                    sawInt(intConstant);
+                    break;
+                }
+            }
+    }
+
     public void sawDouble(double seen) {
     }
 
@@ -0,0 +1,416 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.workflow;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+import org.dom4j.DocumentException;
+
+import edu.umd.cs.findbugs.AppVersion;
+import edu.umd.cs.findbugs.BugCollection;
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.SortedBugCollection;
+import edu.umd.cs.findbugs.SystemProperties;
+import edu.umd.cs.findbugs.ba.ClassHash;
+import edu.umd.cs.findbugs.util.Util;
+
+/**
+ * Column-oriented view of the version history of the bugs in a
+ * BugCollection. The first and last version, the pattern, category, package,
+ * rank, designation and instance hash of each bug are kept in primitive
+ * arrays, with strings replaced by indices into per-column tables. This lets
+ * the history tools compute per-version statistics with a single pass over
+ * these arrays.
+ * <p>
+ * If the system property <code>history.index.dir</code> names a directory,
+ * an index built from a results file is stored there, under the MD5 hash of
+ * the contents of the results file and with the suffix {@value #SUFFIX}. It
+ * is reused as long as a results file has exactly these contents, so running
+ * several history tools over the same file parses the XML only once. Nothing
+ * is written otherwise.
+ */
+public class BugHistoryIndex {
+    public static final String SUFFIX = ".history";
+
+    private static final String CACHE_DIR = SystemProperties.getProperty("history.index.dir");
+
+    private static final int MAGIC = 0x46424849;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final byte INTRODUCED_BY_CHANGE_OF_EXISTING_CLASS = 1;
+
+    private static final byte REMOVED_BY_CHANGE_OF_PERSISTING_CLASS = 2;
+
+    private long sequenceNumber;
+
+    private int errorCount;
+
+    private final List<AppVersion> appVersions = new ArrayList<AppVersion>();
+
+    private int size;
+
+    private int[] firstVersion;
+
+    private int[] lastVersion;
+
+    private byte[] flags;
+
+    private int[] rank;
+
+    private final Column pattern = new Column();
+
+    private final Column category = new Column();
+
+    private final Column packageName = new Column();
+
+    private final Column designation = new Column();
+
+    private final Column instanceHash = new Column();
+
+    /** strings of one column, stored once each */
+    private static class Column {
+        final List<String> values = new ArrayList<String>();
+
+        final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+        int[] column;
+
+        void init(int size) {
+            column = new int[size];
+        }
+
+        void set(int i, String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            column[i] = id;
+        }
+
+        String get(int i) {
+            return values.get(column[i]);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values)
+                out.writeUTF(value);
+            for (int id : column)
+                out.writeInt(id);
+        }
+
+        void read(DataInputStream in, int size) throws IOException {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+                values.add(in.readUTF());
+            column = new int[size];
+            for (int i = 0; i < size; i++)
+                column[i] = in.readInt();
+        }
+    }
+
+    private BugHistoryIndex() {
+    }
+
+    public static BugHistoryIndex build(BugCollection bugCollection) {
+        BugHistoryIndex index = new BugHistoryIndex();
+        index.sequenceNumber = bugCollection.getSequenceNumber();
+        if (bugCollection instanceof SortedBugCollection)
+            index.errorCount = ((SortedBugCollection) bugCollection).getErrors().size();
+        for (Iterator<AppVersion> i = bugCollection.appVersionIterator(); i.hasNext();)
+            index.appVersions.add(i.next());
+        AppVersion current = bugCollection.getCurrentAppVersion();
+        index.appVersions.add(new AppVersion(index.sequenceNumber, current.getTimestamp(), current.getReleaseName())
+                .setNumClasses(current.getNumClasses()).setCodeSize(current.getCodeSize()));
+
+        int size = bugCollection.getCollection().size();
+        index.size = size;
+        index.firstVersion = new int[size];
+        index.lastVersion = new int[size];
+        index.flags = new byte[size];
+        index.rank = new int[size];
+        index.pattern.init(size);
+        index.category.init(size);
+        index.packageName.init(size);
+        index.designation.init(size);
+        index.instanceHash.init(size);
+        int i = 0;
+        for (BugInstance bug : bugCollection.getCollection()) {
+            index.firstVersion[i] = (int) bug.getFirstVersion();
+            index.lastVersion[i] = (int) bug.getLastVersion();
+            byte f = 0;
+            if (bug.isIntroducedByChangeOfExistingClass())
+                f |= INTRODUCED_BY_CHANGE_OF_EXISTING_CLASS;
+            if (bug.isRemovedByChangeOfPersistingClass())
+                f |= REMOVED_BY_CHANGE_OF_PERSISTING_CLASS;
+            index.flags[i] = f;
+            index.rank[i] = bug.getBugRank();
+            index.pattern.set(i, bug.getType());
+            index.category.set(i, bug.getCategoryAbbrev());
+            index.packageName.set(i, bug.getPrimaryClass().getPackageName());
+            index.designation.set(i, bug.getUserDesignationKey());
+            index.instanceHash.set(i, bug.getInstanceHash());
+            i++;
+        }
+        return index;
+    }
+
+    /**
+     * Get the index of the given results file, reusing the index cached in the
+     * directory named by the system property <code>history.index.dir</code>,
+     * if that is set.
+     */
+    public static BugHistoryIndex forFile(String filename) throws IOException, DocumentException {
+        return forFile(filename, CACHE_DIR == null ? null : new File(CACHE_DIR));
+    }
+
+    /**
+     * Get the index of the given results file.
+     *
+     * @param cacheDir
+     *            directory in which indexes are cached, or null to always read
+     *            the XML
+     */
+    public static BugHistoryIndex forFile(String filename, @CheckForNull File cacheDir) throws IOException,
+            DocumentException {
+        File file = new File(filename);
+        if (cacheDir == null || !file.isFile())
+            return build(filename);
+        byte[] contentHash = hash(file);
+        File cache = new File(cacheDir, ClassHash.hashToString(contentHash) + SUFFIX);
+        if (cache.isFile()) {
+            try {
+                BugHistoryIndex index = read(cache, contentHash);
+                if (index != null)
+                    return index;
+            } catch (IOException e) {
+                // damaged or incomplete, so rebuild it
+            }
+        }
+        BugHistoryIndex index = build(filename);
+        try {
+            cacheDir.mkdirs();
+            index.write(cache, contentHash);
+        } catch (IOException e) {
+            System.err.println("Could not write history index " + cache + ": " + e.getMessage());
+            cache.delete();
+        }
+        return index;
+    }
+
+    private static BugHistoryIndex build(String filename) throws IOException, DocumentException {
+        SortedBugCollection bugCollection = new SortedBugCollection();
+        bugCollection.readXML(filename);
+        return build(bugCollection);
+    }
+
+    /** @return the MD5 hash of the contents of the file */
+    static byte[] hash(File file) throws IOException {
+        MessageDigest digest = Util.getMD5Digest();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) >= 0)
+                digest.update(buffer, 0, bytesRead);
+        } finally {
+            in.close();
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return the index stored in the given cache file, or null if it was not
+     *         built from a results file with the given content hash
+     */
+    static @CheckForNull
+    BugHistoryIndex read(File cache, byte[] contentHash) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+                return null;
+            byte[] cachedHash = new byte[in.readInt()];
+            in.readFully(cachedHash);
+            if (!Arrays.equals(cachedHash, contentHash))
+                return null;
+            BugHistoryIndex index = new BugHistoryIndex();
+            index.sequenceNumber = in.readLong();
+            index.errorCount = in.readInt();
+            int versions = in.readInt();
+            for (int i = 0; i < versions; i++) {
+                AppVersion appVersion = new AppVersion(in.readLong(), in.readLong(), in.readUTF());
+                appVersion.setNumClasses(in.readInt());
+                appVersion.setCodeSize(in.readInt());
+                index.appVersions.add(appVersion);
+            }
+            int size = in.readInt();
+            index.size = size;
+            index.firstVersion = readInts(in, size);
+            index.lastVersion = readInts(in, size);
+            index.flags = new byte[size];
+            in.readFully(index.flags);
+            index.rank = readInts(in, size);
+            index.pattern.read(in, size);
+            index.category.read(in, size);
+            index.packageName.read(in, size);
+            index.designation.read(in, size);
+            index.instanceHash.read(in, size);
+            return index;
+        } finally {
+            in.close();
+        }
+    }
+
+    void write(File cache, byte[] contentHash) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cache)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(contentHash.length);
+            out.write(contentHash);
+            out.writeLong(sequenceNumber);
+            out.writeInt(errorCount);
+            out.writeInt(appVersions.size());
+            for (AppVersion appVersion : appVersions) {
+                out.writeLong(appVersion.getSequenceNumber());
+                out.writeLong(appVersion.getTimestamp());
+                out.writeUTF(appVersion.getReleaseName() != null ? appVersion.getReleaseName() : "");
+                out.writeInt(appVersion.getNumClasses());
+                out.writeInt(appVersion.getCodeSize());
+            }
+            out.writeInt(size);
+            writeInts(out, firstVersion);
+            writeInts(out, lastVersion);
+            out.write(flags);
+            writeInts(out, rank);
+            pattern.write(out);
+            category.write(out);
+            packageName.write(out);
+            designation.write(out);
+            instanceHash.write(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static int[] readInts(DataInputStream in, int size) throws IOException {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++)
+            result[i] = in.readInt();
+        return result;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values)
+            out.writeInt(value);
+    }
+
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the versions of the history, including the current one
+     */
+    public List<AppVersion> getAppVersions() {
+        return appVersions;
+    }
+
+    /** @return the number of bugs */
+    public int size() {
+        return size;
+    }
+
+    public int getFirstVersion(int bug) {
+        return firstVersion[bug];
+    }
+
+    public int getLastVersion(int bug) {
+        return lastVersion[bug];
+    }
+
+    public boolean isDead(int bug) {
+        return lastVersion[bug] != -1;
+    }
+
+    public boolean isIntroducedByChangeOfExistingClass(int bug) {
+        return (flags[bug] & INTRODUCED_BY_CHANGE_OF_EXISTING_CLASS) != 0;
+    }
+
+    public boolean isRemovedByChangeOfPersistingClass(int bug) {
+        return (flags[bug] & REMOVED_BY_CHANGE_OF_PERSISTING_CLASS) != 0;
+    }
+
+    public int getBugRank(int bug) {
+        return rank[bug];
+    }
+
+    public String getType(int bug) {
+        return pattern.get(bug);
+    }
+
+    public String getCategoryAbbrev(int bug) {
+        return category.get(bug);
+    }
+
+    public String getPackageName(int bug) {
+        return packageName.get(bug);
+    }
+
+    public String getUserDesignationKey(int bug) {
+        return designation.get(bug);
+    }
+
+    public String getInstanceHash(int bug) {
+        return instanceHash.get(bug);
+    }
+
+    /**
+     * @return a small integer identifying the instance hash of the bug; bugs
+     *         have the same id if and only if they have the same hash
+     */
+    public int getInstanceHashId(int bug) {
+        return instanceHash.column[bug];
+    }
+}
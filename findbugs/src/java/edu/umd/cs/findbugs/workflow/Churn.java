@@ -22,12 +22,10 @@ package edu.umd.cs.findbugs.workflow;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
 
 import edu.umd.cs.findbugs.BugCollection;
-import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.DetectorFactoryCollection;
 import edu.umd.cs.findbugs.SortedBugCollection;
 import edu.umd.cs.findbugs.charsets.UTF8;
@@ -39,6 +37,8 @@ import edu.umd.cs.findbugs.config.CommandLine;
 public class Churn {
     BugCollection bugCollection;
 
+    BugHistoryIndex historyIndex;
+
     int fixRate = -1;
 
     public Churn() {
@@ -50,12 +50,17 @@ public class Churn {
 
     public void setBugCollection(BugCollection bugCollection) {
         this.bugCollection = bugCollection;
+        this.historyIndex = null;
+    }
+
+    public void setHistoryIndex(BugHistoryIndex historyIndex) {
+        this.historyIndex = historyIndex;
     }
 
-    String getKey(BugInstance b) {
+    String getKey(BugHistoryIndex index, int bug) {
         if (false)
-            return b.getType();
-        String result = b.getCategoryAbbrev();
+            return index.getType(bug);
+        String result = index.getCategoryAbbrev(bug);
         if (result.equals("C") || result.equals("N"))
             return result;
         return "O";
@@ -76,12 +81,11 @@ public class Churn {
 
         Map<Long, Integer> lastCount = new HashMap<Long, Integer>();
 
-        void update(BugInstance bug) {
-            if (bug.isDead())
+        void update(boolean dead, long lastVersion) {
+            if (dead)
                 fixed++;
             else
                 persist++;
-            final long lastVersion = bug.getLastVersion();
             if (lastVersion != -1) {
                 Integer v = lastCount.get(lastVersion);
                 if (v == null)
@@ -101,23 +105,27 @@ public class Churn {
     int[] diedAfter;
 
     public Churn execute() {
+        if (historyIndex == null)
+            historyIndex = BugHistoryIndex.build(bugCollection);
+        long sequenceNumber = historyIndex.getSequenceNumber();
 
         data.put("all", all);
-        aliveAt = new int[(int) bugCollection.getSequenceNumber() + 1];
-        diedAfter = new int[(int) bugCollection.getSequenceNumber() + 1];
-
-        for (Iterator<BugInstance> j = bugCollection.iterator(); j.hasNext();) {
-            BugInstance bugInstance = j.next();
-
-            String key = getKey(bugInstance);
+        aliveAt = new int[(int) sequenceNumber + 1];
+        diedAfter = new int[(int) sequenceNumber + 1];
+        // aliveAt[t] is the number of bugs living longer than t versions;
+        // count where each lifespan ends and sum up afterwards
+        int[] lifespans = new int[(int) sequenceNumber + 2];
+
+        for (int b = 0; b < historyIndex.size(); b++) {
+            String key = getKey(historyIndex, b);
             Data d = data.get(key);
             if (d == null)
                 data.put(key, d = new Data());
-            d.update(bugInstance);
-            all.update(bugInstance);
-
-            long first = bugInstance.getFirstVersion();
-            long last = bugInstance.getLastVersion();
+            boolean dead = historyIndex.isDead(b);
+            long first = historyIndex.getFirstVersion(b);
+            long last = historyIndex.getLastVersion(b);
+            d.update(dead, last);
+            all.update(dead, last);
 
             if (last != -1) {
                 System.out.printf("%3d #fixed %s%n", last, key);
@@ -128,14 +136,19 @@ public class Churn {
                 System.out.printf("%3d #age %s%n", lifespan, key);
                 System.out.printf("%3d %3d #spread %s%n", first, last, key);
                 diedAfter[lifespan]++;
-                for (int t = 1; t < lifespan; t++)
-                    aliveAt[t]++;
+                if (lifespan > 1)
+                    lifespans[lifespan]++;
             } else if (first != 0) {
-                int lifespan = (int) (bugCollection.getSequenceNumber() - first + 1);
-                for (int t = 1; t < lifespan; t++)
-                    aliveAt[t]++;
+                int lifespan = (int) (sequenceNumber - first + 1);
+                if (lifespan > 1)
+                    lifespans[lifespan]++;
             }
         }
+        int alive = 0;
+        for (int t = aliveAt.length - 1; t >= 1; t--) {
+            alive += lifespans[t + 1];
+            aliveAt[t] = alive;
+        }
         return this;
     }
 
@@ -212,12 +225,13 @@ public class Churn {
         int argCount = commandLine
                 .parse(args, 0, 2, "Usage: " + Churn.class.getName() + " [options] [<xml results> [<history]] ");
 
-        SortedBugCollection bugCollection = new SortedBugCollection();
-        if (argCount < args.length)
-            bugCollection.readXML(args[argCount++]);
-        else
+        if (argCount < args.length) {
+            churn.setHistoryIndex(BugHistoryIndex.forFile(args[argCount++]));
+        } else {
+            SortedBugCollection bugCollection = new SortedBugCollection();
             bugCollection.readXML(System.in);
-        churn.setBugCollection(bugCollection);
+            churn.setBugCollection(bugCollection);
+        }
         churn.execute();
         PrintStream out = System.out;
         try {
@@ -0,0 +1,207 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.workflow;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import edu.umd.cs.findbugs.AnalysisCosts;
+import edu.umd.cs.findbugs.AnalysisCosts.Cost;
+import edu.umd.cs.findbugs.DetectorFactoryCollection;
+import edu.umd.cs.findbugs.SortedBugCollection;
+import edu.umd.cs.findbugs.config.CommandLine;
+
+/**
+ * Compare the analysis costs recorded in two results files (see
+ * {@link AnalysisCosts}), and list the detectors and classes whose cost grew.
+ * With -fail, the exit status is 1 if there are any, so that analysis time
+ * regressions can fail a build.
+ */
+public class CompareCosts {
+
+    enum Metric {
+        WALL("ms", 1000000), CPU("ms", 1000000), ALLOC("KB", 1024);
+
+        final String unit;
+
+        /** size of the unit, in nanoseconds or bytes */
+        final long unitSize;
+
+        Metric(String unit, long unitSize) {
+            this.unit = unit;
+            this.unitSize = unitSize;
+        }
+
+        /** @return the value of the cost, in nanoseconds or bytes */
+        long get(Cost cost) {
+            switch (this) {
+            case WALL:
+                return cost.getWallNanos();
+            case CPU:
+                return cost.getCpuNanos();
+            default:
+                return cost.getAllocatedBytes();
+            }
+        }
+    }
+
+    static class Regression {
+        final String name;
+
+        /** the cost in the baseline, or -1 if it is not in the baseline */
+        final long before;
+
+        final long after;
+
+        Regression(String name, long before, long after) {
+            this.name = name;
+            this.before = before;
+            this.after = after;
+        }
+
+        long getGrowth() {
+            return after - Math.max(before, 0);
+        }
+
+        String getChange() {
+            if (before < 0)
+                return "new";
+            if (before == 0)
+                return "";
+            return String.format("+%d%%", (after - before) * 100 / before);
+        }
+    }
+
+    Metric metric = Metric.CPU;
+
+    int threshold = 25;
+
+    long minDelta = 100;
+
+    boolean fail;
+
+    class CompareCostsCommandLine extends CommandLine {
+
+        CompareCostsCommandLine() {
+            addOption("-metric", "wall|cpu|alloc", "cost to compare (default cpu)");
+            addOption("-threshold", "percent", "report costs which grew by more than this (default 25)");
+            addOption("-minDelta", "amount", "ignore growth of less than this many ms or KB (default 100)");
+            addSwitch("-fail", "exit with status 1 if any cost grew");
+        }
+
+        @Override
+        public void handleOption(String option, String optionalExtraPart) {
+            if (option.equals("-fail"))
+                fail = true;
+            else
+                throw new IllegalArgumentException("unknown option: " + option);
+        }
+
+        @Override
+        public void handleOptionWithArgument(String option, String argument) {
+            if (option.equals("-metric"))
+                metric = Metric.valueOf(argument.toUpperCase(Locale.ENGLISH));
+            else if (option.equals("-threshold"))
+                threshold = Integer.parseInt(argument);
+            else if (option.equals("-minDelta"))
+                minDelta = Long.parseLong(argument);
+            else
+                throw new IllegalArgumentException("unknown option: " + option);
+        }
+    }
+
+    /**
+     * @return the costs which grew by more than the threshold, largest growth
+     *         first; costs missing from the baseline count as 0
+     */
+    List<Regression> compare(Collection<Cost> baseline, Collection<Cost> current) {
+        Map<String, Cost> before = new HashMap<String, Cost>();
+        for (Cost c : baseline)
+            before.put(c.getName(), c);
+        List<Regression> result = new ArrayList<Regression>();
+        for (Cost c : current) {
+            Cost old = before.get(c.getName());
+            long b = old == null ? 0 : metric.get(old);
+            long a = metric.get(c);
+            if (a - b >= minDelta * metric.unitSize && a * 100 > b * (100 + threshold))
+                result.add(new Regression(c.getName(), old == null ? -1 : b, a));
+        }
+        Collections.sort(result, new Comparator<Regression>() {
+            public int compare(Regression r1, Regression r2) {
+                long d1 = r1.getGrowth();
+                long d2 = r2.getGrowth();
+                if (d1 != d2)
+                    return d1 > d2 ? -1 : 1;
+                return r1.name.compareTo(r2.name);
+            }
+        });
+        return result;
+    }
+
+    void print(PrintStream out, String kind, List<Regression> regressions) {
+        if (regressions.isEmpty())
+            return;
+        out.printf("%s whose %s cost grew by more than %d%%:%n", kind, metric.name().toLowerCase(Locale.ENGLISH), threshold);
+        out.printf("%12s %12s %8s  %s%n", "before", "after", "change", "name");
+        for (Regression r : regressions)
+            out.printf("%9d %s %9d %s %8s  %s%n", Math.max(r.before, 0) / metric.unitSize, metric.unit, r.after
+                    / metric.unitSize, metric.unit, r.getChange(), r.name);
+        out.println();
+    }
+
+    private static AnalysisCosts readCosts(String filename) throws Exception {
+        SortedBugCollection bugCollection = new SortedBugCollection();
+        bugCollection.readXML(filename);
+        AnalysisCosts costs = bugCollection.getProjectStats().getAnalysisCosts();
+        if (costs.isEmpty()) {
+            System.err.println(filename + " has no analysis costs; analyze with -Dfindbugs.recordCosts=true");
+            System.exit(2);
+        }
+        return costs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        DetectorFactoryCollection.instance(); // load plugins
+
+        CompareCosts compareCosts = new CompareCosts();
+        CompareCostsCommandLine commandLine = compareCosts.new CompareCostsCommandLine();
+        int argCount = commandLine.parse(args, 2, 2, "Usage: " + CompareCosts.class.getName()
+                + " [options] <baseline results> <current results>");
+
+        AnalysisCosts baseline = readCosts(args[argCount++]);
+        AnalysisCosts current = readCosts(args[argCount++]);
+
+        List<Regression> detectors = compareCosts.compare(baseline.getDetectorCosts(), current.getDetectorCosts());
+        List<Regression> classes = compareCosts.compare(baseline.getClassCosts(), current.getClassCosts());
+        compareCosts.print(System.out, "Detectors", detectors);
+        compareCosts.print(System.out, "Classes", classes);
+        if (detectors.isEmpty() && classes.isEmpty())
+            System.out.println("No costs grew by more than " + compareCosts.threshold + "%");
+        else if (compareCosts.fail)
+            System.exit(1);
+    }
+}
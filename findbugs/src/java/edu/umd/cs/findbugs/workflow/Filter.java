@@ -21,6 +21,7 @@ package edu.umd.cs.findbugs.workflow;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -41,8 +42,6 @@ import edu.umd.cs.findbugs.AppVersion;
 import edu.umd.cs.findbugs.BugCategory;
 import edu.umd.cs.findbugs.BugCollection;
 import edu.umd.cs.findbugs.BugInstance;
-import edu.umd.cs.findbugs.BugPattern;
-import edu.umd.cs.findbugs.BugRanker;
 import edu.umd.cs.findbugs.DetectorFactoryCollection;
 import edu.umd.cs.findbugs.ExcludingHashesBugReporter;
 import edu.umd.cs.findbugs.FieldAnnotation;
@@ -59,6 +58,7 @@ import edu.umd.cs.findbugs.SourceLineAnnotation;
 import edu.umd.cs.findbugs.charsets.UTF8;
 import edu.umd.cs.findbugs.cloud.Cloud;
 import edu.umd.cs.findbugs.config.CommandLine;
+import edu.umd.cs.findbugs.filter.BugIndex;
 import edu.umd.cs.findbugs.filter.FilterException;
 import edu.umd.cs.findbugs.filter.Matcher;
 import edu.umd.cs.findbugs.util.Util;
@@ -369,7 +369,7 @@ public class Filter {
         }
 
         boolean accept(BugCollection collection, BugInstance bug) {
-            boolean result = evaluate(collection, bug);
+            boolean result = preselected.get(index.indexOf(bug)) && evaluate(collection, bug);
             if (not)
                 return !result;
             return result;
@@ -377,24 +377,10 @@ public class Filter {
 
         boolean evaluate(BugCollection collection, BugInstance bug) {
 
-            for (Matcher m : includeFilter)
-                if (!m.match(bug))
-                    return false;
-            for (Matcher m : excludeFilter)
-                if (m.match(bug))
-                    return false;
             if (excludedInstanceHashes.contains(bug.getInstanceHash()))
                 return false;
             if (annotation != null && bug.getAnnotationText().indexOf(annotation) == -1)
                 return false;
-            if (bug.getPriority() > priority)
-                return false;
-            if (firstAsString != null && bug.getFirstVersion() != first)
-                return false;
-            if (afterAsString != null && bug.getFirstVersion() <= after)
-                return false;
-            if (beforeAsString != null && bug.getFirstVersion() >= before)
-                return false;
             if (hashesFromFile != null && !hashesFromFile.contains(bug.getInstanceHash()))
                 return false;
             long lastSeen = bug.getLastVersion();
@@ -415,9 +401,6 @@ public class Filter {
             if (hasLocalSpecified && (hasLocal != (bug.getPrimaryLocalVariableAnnotation() != null)))
                 return false;
 
-            if (maxRank < Integer.MAX_VALUE && BugRanker.findRank(bug) > maxRank)
-                return false;
-
             if (activeSpecified && active == bug.isDead())
                 return false;
             if (removedByChangeSpecified && bug.isRemovedByChangeOfPersistingClass() != removedByChange)
@@ -429,10 +412,6 @@ public class Filter {
             if (removedCodeSpecified && removedCode != (!bug.isRemovedByChangeOfPersistingClass() && bug.isDead()))
                 return false;
 
-            if (bugPattern != null && !bugPattern.matcher(bug.getType()).find())
-                return false;
-            if (classPattern != null && !classPattern.matcher(bug.getPrimaryClass().getClassName()).find())
-                return false;
             if (callsPattern != null) {
                 MethodAnnotation m = bug.getAnnotationWithRole(MethodAnnotation.class, MethodAnnotation.METHOD_CALLED);
                 if (m == null) 
@@ -444,18 +423,10 @@ public class Filter {
             if (maybeMutatedAsString != null && !(atMutationPoint(bug) && mutationPoints.contains(getBugLocation(bug))))
                 return false;
 
-            BugPattern thisBugPattern = bug.getBugPattern();
-            if (!categoryKey.isEmpty() && thisBugPattern != null && !categoryKey.contains(thisBugPattern.getCategory()))
-                return false;
-            if (!designationKey.isEmpty() && !designationKey.contains(bug.getUserDesignationKey()))
-                return false;
-
             if (hashChangedSpecified) {
                 if (bug.isInstanceHashConsistent() == hashChanged)
                     return false;
             }
-            if (applySuppressionSpecified && applySuppression && suppressionFilter.match(bug))
-                return false;
             SourceLineAnnotation primarySourceLineAnnotation = bug.getPrimarySourceLineAnnotation();
 
             if (knownSourceSpecified) {
@@ -653,6 +624,56 @@ public class Filter {
                 mutationPoints = addedIssues;
             }
 
+            index = new BugIndex(origCollection.getCollection());
+            preselected = preselect(index);
+        }
+
+        /** Index over the bugs being filtered, built by getReady() */
+        private BugIndex index;
+
+        /** Bugs passing the checks that depend only on indexed attributes */
+        private BitSet preselected;
+
+        /**
+         * Apply the checks that depend only on bug attributes the index
+         * covers, testing each distinct attribute value once rather than each
+         * bug.
+         */
+        private BitSet preselect(BugIndex index) {
+            BitSet result = index.all();
+            for (Matcher m : includeFilter)
+                result = index.select(m, result);
+            for (Matcher m : excludeFilter)
+                result.andNot(index.select(m, result));
+            if (applySuppressionSpecified && applySuppression)
+                result.andNot(index.select(suppressionFilter, result));
+            for (Map.Entry<Object, BitSet> e : index.getPostings(BugIndex.Attribute.PRIORITY).entrySet())
+                if ((Integer) e.getKey() > priority)
+                    result.andNot(e.getValue());
+            if (maxRank < Integer.MAX_VALUE)
+                for (Map.Entry<Object, BitSet> e : index.getPostings(BugIndex.Attribute.RANK).entrySet())
+                    if ((Integer) e.getKey() > maxRank)
+                        result.andNot(e.getValue());
+            if (firstAsString != null || afterAsString != null || beforeAsString != null)
+                for (Map.Entry<Object, BitSet> e : index.getPostings(BugIndex.Attribute.FIRST_VERSION).entrySet()) {
+                    long firstVersion = (Long) e.getKey();
+                    if (firstAsString != null && firstVersion != first || afterAsString != null && firstVersion <= after
+                            || beforeAsString != null && firstVersion >= before)
+                        result.andNot(e.getValue());
+                }
+            if (bugPattern != null)
+                for (Map.Entry<Object, BitSet> e : index.getPostings(BugIndex.Attribute.TYPE).entrySet())
+                    if (!bugPattern.matcher((String) e.getKey()).find())
+                        result.andNot(e.getValue());
+            if (classPattern != null)
+                for (Map.Entry<Object, BitSet> e : index.getPostings(BugIndex.Attribute.PRIMARY_CLASS).entrySet())
+                    if (!classPattern.matcher((String) e.getKey()).find())
+                        result.andNot(e.getValue());
+            if (!categoryKey.isEmpty())
+                result.and(index.select(BugIndex.Attribute.CATEGORY, categoryKey));
+            if (!designationKey.isEmpty())
+                result.and(index.select(BugIndex.Attribute.DESIGNATION, designationKey));
+            return result;
         }
 
         /**
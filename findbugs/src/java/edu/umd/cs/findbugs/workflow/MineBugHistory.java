@@ -24,12 +24,10 @@ import java.io.PrintStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 
 import edu.umd.cs.findbugs.AppVersion;
-import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.DetectorFactoryCollection;
 import edu.umd.cs.findbugs.FindBugs;
 import edu.umd.cs.findbugs.SortedBugCollection;
@@ -84,12 +82,6 @@ public class MineBugHistory {
             return sequence;
         }
 
-        void increment(int key) {
-            tuple[key]++;
-            if (key == ADDED || key == RETAINED || key == NEWCODE)
-                tuple[ACTIVE_NOW]++;
-        }
-
         int get(int key) {
             return tuple[key];
         }
@@ -97,6 +89,8 @@ public class MineBugHistory {
 
     SortedBugCollection bugCollection;
 
+    BugHistoryIndex historyIndex;
+
     Version[] versionList;
 
     Map<Long, AppVersion> sequenceToAppVersionMap = new HashMap<Long, AppVersion>();
@@ -118,6 +112,11 @@ public class MineBugHistory {
 
     public void setBugCollection(SortedBugCollection bugCollection) {
         this.bugCollection = bugCollection;
+        this.historyIndex = null;
+    }
+
+    public void setHistoryIndex(BugHistoryIndex historyIndex) {
+        this.historyIndex = historyIndex;
     }
 
     public void setFormatDates(boolean value) {
@@ -143,44 +142,65 @@ public class MineBugHistory {
     }
 
     public MineBugHistory execute() {
-        long sequenceNumber = bugCollection.getSequenceNumber();
+        if (historyIndex == null)
+            historyIndex = BugHistoryIndex.build(bugCollection);
+        long sequenceNumber = historyIndex.getSequenceNumber();
         int maxSequence = (int) sequenceNumber;
         versionList = new Version[maxSequence + 1];
         for (int i = 0; i <= maxSequence; ++i) {
             versionList[i] = new Version(i);
         }
 
-        for (Iterator<AppVersion> i = bugCollection.appVersionIterator(); i.hasNext();) {
-            AppVersion appVersion = i.next();
-            long versionSequenceNumber = appVersion.getSequenceNumber();
-            sequenceToAppVersionMap.put(versionSequenceNumber, appVersion);
+        for (AppVersion appVersion : historyIndex.getAppVersions()) {
+            sequenceToAppVersionMap.put(appVersion.getSequenceNumber(), appVersion);
         }
 
-        AppVersion currentAppVersion = bugCollection.getCurrentAppVersion();
-        sequenceToAppVersionMap.put(sequenceNumber, currentAppVersion);
-
-        for (Iterator<BugInstance> j = bugCollection.iterator(); j.hasNext();) {
-            BugInstance bugInstance = j.next();
-
+        // Each bug is ADDED (or NEWCODE) in its first version, RETAINED until
+        // its last version, REMOVED (or REMOVEDCODE) in the version after
+        // that and DEAD afterwards. Record where these intervals start and
+        // end, and sum them up per version afterwards.
+        int[][] delta = new int[TUPLE_SIZE][maxSequence + 2];
+        for (int b = 0; b < historyIndex.size(); b++) {
+            int first = historyIndex.getFirstVersion(b);
+            if (first > maxSequence)
+                continue;
+            first = Math.max(first, 0);
+            int last = historyIndex.isDead(b) ? Math.min(historyIndex.getLastVersion(b), maxSequence) : maxSequence;
+            if (last < first) {
+                addInterval(delta[DEAD], first, maxSequence);
+                continue;
+            }
+            addInterval(delta[historyIndex.isIntroducedByChangeOfExistingClass(b) ? ADDED : NEWCODE], first, first);
+            addInterval(delta[RETAINED], first + 1, last);
+            if (last < maxSequence) {
+                addInterval(delta[historyIndex.isRemovedByChangeOfPersistingClass(b) ? REMOVED : REMOVEDCODE], last + 1,
+                        last + 1);
+                addInterval(delta[DEAD], last + 2, maxSequence);
+            }
+        }
+        for (int key = 0; key < TUPLE_SIZE; key++) {
+            if (key == ACTIVE_NOW)
+                continue;
+            int count = 0;
             for (int i = 0; i <= maxSequence; ++i) {
-                if (bugInstance.getFirstVersion() > i)
-                    continue;
-                boolean activePrevious = bugInstance.getFirstVersion() < i
-                        && (!bugInstance.isDead() || bugInstance.getLastVersion() >= i - 1);
-                boolean activeCurrent = !bugInstance.isDead() || bugInstance.getLastVersion() >= i;
-
-                int key = getKey(activePrevious, activeCurrent);
-                if (key == REMOVED && !bugInstance.isRemovedByChangeOfPersistingClass())
-                    key = REMOVEDCODE;
-                else if (key == ADDED && !bugInstance.isIntroducedByChangeOfExistingClass())
-                    key = NEWCODE;
-                versionList[i].increment(key);
+                count += delta[key][i];
+                versionList[i].tuple[key] = count;
+                if (key == ADDED || key == RETAINED || key == NEWCODE)
+                    versionList[i].tuple[ACTIVE_NOW] += count;
             }
         }
 
         return this;
     }
 
+    /** count a bug in the versions from start to end, inclusive */
+    private static void addInterval(int[] delta, int start, int end) {
+        if (start > end)
+            return;
+        delta[start]++;
+        delta[end + 1]--;
+    }
+
     public void dump(PrintStream out) {
         if (xml)
             dumpXml(out);
@@ -216,7 +236,7 @@ public class MineBugHistory {
             if (paddingNeeded > 0)
                 b.append("                                                     ".substring(0, paddingNeeded));
         }
-        int errors = bugCollection.getErrors().size();
+        int errors = historyIndex.getErrorCount();
         if (errors > 0)
             b.append("     ").append(errors).append(" errors");
 
@@ -389,25 +409,6 @@ public class MineBugHistory {
         out.print("</history>");
     }
 
-    /**
-     * Get key used to classify the presence and/or abscence of a BugInstance in
-     * successive versions in the history.
-     * 
-     * @param activePrevious
-     *            true if the bug was active in the previous version, false if
-     *            not
-     * @param activeCurrent
-     *            true if the bug is active in the current version, false if not
-     * @return the key: one of ADDED, RETAINED, REMOVED, and DEAD
-     */
-    private int getKey(boolean activePrevious, boolean activeCurrent) {
-        if (activePrevious)
-            return activeCurrent ? RETAINED : REMOVED;
-        else
-            // !activePrevious
-            return activeCurrent ? ADDED : DEAD;
-    }
-
     class MineBugHistoryCommandLine extends CommandLine {
 
         MineBugHistoryCommandLine() {
@@ -447,12 +448,13 @@ public class MineBugHistory {
         int argCount = commandLine.parse(args, 0, 2, "Usage: " + MineBugHistory.class.getName()
                 + " [options] [<xml results> [<history]] ");
 
-        SortedBugCollection bugCollection = new SortedBugCollection();
-        if (argCount < args.length)
-            bugCollection.readXML(args[argCount++]);
-        else
+        if (argCount < args.length) {
+            mineBugHistory.setHistoryIndex(BugHistoryIndex.forFile(args[argCount++]));
+        } else {
+            SortedBugCollection bugCollection = new SortedBugCollection();
             bugCollection.readXML(System.in);
-        mineBugHistory.setBugCollection(bugCollection);
+            mineBugHistory.setBugCollection(bugCollection);
+        }
 
         mineBugHistory.execute();
         PrintStream out = System.out;
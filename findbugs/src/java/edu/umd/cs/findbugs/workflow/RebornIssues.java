@@ -27,7 +27,6 @@ import java.util.Map;
 import java.util.TreeSet;
 
 import edu.umd.cs.findbugs.BugCollection;
-import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.DetectorFactoryCollection;
 import edu.umd.cs.findbugs.FindBugs;
 import edu.umd.cs.findbugs.SortedBugCollection;
@@ -43,6 +42,8 @@ import edu.umd.cs.findbugs.SortedBugCollection;
 public class RebornIssues {
     BugCollection bugCollection;
 
+    BugHistoryIndex historyIndex;
+
     public RebornIssues() {
     }
 
@@ -52,32 +53,40 @@ public class RebornIssues {
 
     public void setBugCollection(BugCollection bugCollection) {
         this.bugCollection = bugCollection;
+        this.historyIndex = null;
     }
 
-    public RebornIssues execute() {
+    public void setHistoryIndex(BugHistoryIndex historyIndex) {
+        this.historyIndex = historyIndex;
+    }
 
-        Map<String, List<BugInstance>> map = new HashMap<String, List<BugInstance>>();
-        for (BugInstance b : bugCollection.getCollection())
-            if (b.getFirstVersion() != 0 || b.getLastVersion() != -1) {
-                List<BugInstance> lst = map.get(b.getInstanceHash());
+    public RebornIssues execute() {
+        if (historyIndex == null)
+            historyIndex = BugHistoryIndex.build(bugCollection);
+
+        Map<Integer, List<Integer>> map = new HashMap<Integer, List<Integer>>();
+        for (int b = 0; b < historyIndex.size(); b++)
+            if (historyIndex.getFirstVersion(b) != 0 || historyIndex.getLastVersion(b) != -1) {
+                Integer hash = historyIndex.getInstanceHashId(b);
+                List<Integer> lst = map.get(hash);
                 if (lst == null) {
-                    lst = new LinkedList<BugInstance>();
-                    map.put(b.getInstanceHash(), lst);
+                    lst = new LinkedList<Integer>();
+                    map.put(hash, lst);
                 }
                 lst.add(b);
             }
-        for (List<BugInstance> lst : map.values()) {
+        for (List<Integer> lst : map.values()) {
             if (lst.size() > 1) {
                 TreeSet<Long> removalTimes = new TreeSet<Long>();
                 TreeSet<Long> additionTimes = new TreeSet<Long>();
 
                 String bugPattern = "XXX";
-                for (BugInstance b : lst) {
-                    bugPattern = b.getBugPattern().getType();
-                    if (b.getFirstVersion() > 0)
-                        additionTimes.add(b.getFirstVersion());
-                    if (b.getLastVersion() != -1)
-                        removalTimes.add(b.getLastVersion());
+                for (int b : lst) {
+                    bugPattern = historyIndex.getType(b);
+                    if (historyIndex.getFirstVersion(b) > 0)
+                        additionTimes.add((long) historyIndex.getFirstVersion(b));
+                    if (historyIndex.getLastVersion(b) != -1)
+                        removalTimes.add((long) historyIndex.getLastVersion(b));
                 }
                 Iterator<Long> aI = additionTimes.iterator();
                 if (!aI.hasNext())
@@ -119,12 +128,13 @@ public class RebornIssues {
         int argCount = commandLine.parse(args, 0, 2, "Usage: " + RebornIssues.class.getName()
                 + " [options] [<xml results> [<history]] ");
 
-        SortedBugCollection bugCollection = new SortedBugCollection();
-        if (argCount < args.length)
-            bugCollection.readXML(args[argCount++]);
-        else
+        if (argCount < args.length) {
+            reborn.setHistoryIndex(BugHistoryIndex.forFile(args[argCount++]));
+        } else {
+            SortedBugCollection bugCollection = new SortedBugCollection();
             bugCollection.readXML(System.in);
-        reborn.setBugCollection(bugCollection);
+            reborn.setBugCollection(bugCollection);
+        }
         reborn.execute();
 
     }
@@ -126,8 +126,11 @@ public class UnionResults {
                 SortedBugCollection more = new SortedBugCollection();
 
                 more.readXML(argv[i]);
-                if (results == null)
+                if (results == null) {
                     results = more.createEmptyCollectionWithMetadata();
+                    // merge() adds the costs of every file, this one included
+                    results.getProjectStats().getAnalysisCosts().clear();
+                }
 
                 merge(hashes, results, more);
 
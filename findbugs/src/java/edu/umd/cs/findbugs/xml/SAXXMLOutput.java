@@ -0,0 +1,175 @@
+/*
+ * XML input/output support for FindBugs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.xml;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * XMLOutput class to send the document as a stream of SAX events to a
+ * ContentHandler, e.g., an XSLT transformer. Unlike Dom4JXMLOutput, no tree
+ * is built.
+ * 
+ * @see XMLOutput
+ * @see XMLWriteableReader
+ */
+public class SAXXMLOutput implements XMLOutput {
+    private final ContentHandler handler;
+
+    private final LexicalHandler lexicalHandler;
+
+    private final LinkedList<String> stack = new LinkedList<String>();
+
+    private final AttributesImpl attributes = new AttributesImpl();
+
+    private String startedTag;
+
+    /**
+     * Constructor.
+     * 
+     * @param handler
+     *            the ContentHandler to receive the document
+     */
+    public SAXXMLOutput(ContentHandler handler) {
+        this(handler, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param handler
+     *            the ContentHandler to receive the document
+     * @param lexicalHandler
+     *            if not null, the LexicalHandler to receive the boundaries
+     *            of CDATA sections
+     */
+    public SAXXMLOutput(ContentHandler handler, LexicalHandler lexicalHandler) {
+        this.handler = handler;
+        this.lexicalHandler = lexicalHandler;
+    }
+
+    public void beginDocument() {
+    }
+
+    public void openTag(String tagName) throws IOException {
+        attributes.clear();
+        startElement(tagName);
+    }
+
+    public void openTag(String tagName, XMLAttributeList attributeList) throws IOException {
+        attributes.clear();
+        for (Iterator<XMLAttributeList.NameValuePair> i = attributeList.iterator(); i.hasNext();) {
+            XMLAttributeList.NameValuePair pair = i.next();
+            addAttribute(pair.getName(), pair.getValue());
+        }
+        startElement(tagName);
+    }
+
+    public void startTag(String tagName) {
+        attributes.clear();
+        startedTag = tagName;
+    }
+
+    public void addAttribute(String name, String value) {
+        // As in a tree, an attribute written twice keeps its last value
+        int index = attributes.getIndex(name);
+        if (index >= 0) {
+            attributes.setValue(index, value);
+        } else {
+            attributes.addAttribute("", name, name, "CDATA", value);
+        }
+    }
+
+    public void stopTag(boolean close) throws IOException {
+        String tagName = startedTag;
+        startedTag = null;
+        startElement(tagName);
+        if (close) {
+            closeTag(tagName);
+        }
+    }
+
+    public void openCloseTag(String tagName) throws IOException {
+        openTag(tagName);
+        closeTag(tagName);
+    }
+
+    public void openCloseTag(String tagName, XMLAttributeList attributeList) throws IOException {
+        openTag(tagName, attributeList);
+        closeTag(tagName);
+    }
+
+    public void closeTag(String tagName) throws IOException {
+        String open = stack.removeLast();
+        try {
+            handler.endElement("", open, open);
+        } catch (SAXException e) {
+            throw toIOException(e);
+        }
+    }
+
+    public void writeText(String text) throws IOException {
+        try {
+            handler.characters(text.toCharArray(), 0, text.length());
+        } catch (SAXException e) {
+            throw toIOException(e);
+        }
+    }
+
+    public void writeCDATA(String cdata) throws IOException {
+        try {
+            if (lexicalHandler != null) {
+                lexicalHandler.startCDATA();
+            }
+            handler.characters(cdata.toCharArray(), 0, cdata.length());
+            if (lexicalHandler != null) {
+                lexicalHandler.endCDATA();
+            }
+        } catch (SAXException e) {
+            throw toIOException(e);
+        }
+    }
+
+    public void finish() {
+    }
+
+    private void startElement(String tagName) throws IOException {
+        stack.addLast(tagName);
+        try {
+            handler.startElement("", tagName, tagName, attributes);
+        } catch (SAXException e) {
+            throw toIOException(e);
+        }
+    }
+
+    private static IOException toIOException(SAXException e) {
+        IOException ioe = new IOException("Error sending XML to content handler: " + e.getMessage());
+        ioe.initCause(e);
+        return ioe;
+    }
+}
+
+// vim:ts=4
@@ -0,0 +1,142 @@
+/*
+ * XML input/output support for FindBugs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.xml;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+
+/**
+ * An XMLReader which, rather than parsing its input, has an XMLWriteable
+ * object write itself as SAX events. Wrapped in a
+ * {@link javax.xml.transform.sax.SAXSource}, this allows an XMLWriteable to be
+ * transformed without first building a document tree or serializing it.
+ * 
+ * @see SAXXMLOutput
+ */
+public class XMLWriteableReader implements XMLReader {
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+    private final XMLWriteable writeable;
+
+    private final Map<String, Boolean> features = new HashMap<String, Boolean>();
+
+    private final Map<String, Object> properties = new HashMap<String, Object>();
+
+    private ContentHandler contentHandler;
+
+    private DTDHandler dtdHandler;
+
+    private EntityResolver entityResolver;
+
+    private ErrorHandler errorHandler;
+
+    /**
+     * Constructor.
+     * 
+     * @param writeable
+     *            the object to write as the document
+     */
+    public XMLWriteableReader(XMLWriteable writeable) {
+        this.writeable = writeable;
+    }
+
+    public void parse(InputSource input) throws IOException, SAXException {
+        if (contentHandler == null) {
+            throw new SAXException("No content handler");
+        }
+        contentHandler.startDocument();
+        try {
+            Object lexicalHandler = properties.get(LEXICAL_HANDLER);
+            writeable.writeXML(new SAXXMLOutput(contentHandler, lexicalHandler instanceof LexicalHandler
+                    ? (LexicalHandler) lexicalHandler : null));
+        } catch (IOException e) {
+            if (e.getCause() instanceof SAXException) {
+                throw (SAXException) e.getCause();
+            }
+            throw e;
+        }
+        contentHandler.endDocument();
+    }
+
+    public void parse(String systemId) throws IOException, SAXException {
+        parse(new InputSource(systemId));
+    }
+
+    public boolean getFeature(String name) {
+        Boolean value = features.get(name);
+        return value != null && value.booleanValue();
+    }
+
+    public void setFeature(String name, boolean value) {
+        features.put(name, Boolean.valueOf(value));
+    }
+
+    public Object getProperty(String name) {
+        return properties.get(name);
+    }
+
+    public void setProperty(String name, Object value) {
+        properties.put(name, value);
+    }
+
+    public void setEntityResolver(EntityResolver resolver) {
+        this.entityResolver = resolver;
+    }
+
+    public EntityResolver getEntityResolver() {
+        return entityResolver;
+    }
+
+    public void setDTDHandler(DTDHandler handler) {
+        this.dtdHandler = handler;
+    }
+
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+
+    public void setContentHandler(ContentHandler handler) {
+        this.contentHandler = handler;
+    }
+
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    public void setErrorHandler(ErrorHandler handler) {
+        this.errorHandler = handler;
+    }
+
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+}
+
+// vim:ts=4
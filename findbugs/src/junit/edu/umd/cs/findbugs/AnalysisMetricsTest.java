@@ -0,0 +1,33 @@
+package edu.umd.cs.findbugs;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.classfile.DescriptorFactory;
+import edu.umd.cs.findbugs.log.Profiler;
+
+public class AnalysisMetricsTest extends TestCase {
+
+    public void testProgress() {
+        Profiler profiler = new Profiler();
+        AnalysisMetrics metrics = new AnalysisMetrics(new NoOpFindBugsProgress(), profiler, null);
+        metrics.predictPassCount(new int[] { 10, 2 });
+        metrics.startAnalysis(10);
+        metrics.startAnalysis(2);
+        metrics.observeClass(DescriptorFactory.createClassDescriptor("a/B\"c"));
+        assertEquals("a.B\"c", metrics.getCurrentClass());
+        profiler.start(AnalysisMetricsTest.class);
+        profiler.end(AnalysisMetricsTest.class);
+        metrics.finishClass();
+
+        assertEquals(2, metrics.getPass());
+        assertEquals(2, metrics.getNumberOfPasses());
+        assertEquals(1, metrics.getClassesAnalyzed());
+        assertEquals(2, metrics.getClassesInPass());
+        assertEquals("", metrics.getCurrentClass());
+        assertEquals(0, metrics.getCurrentClassMilliseconds());
+
+        String json = metrics.toJSON();
+        assertTrue(json, json.startsWith("{\"elapsedSeconds\":"));
+        assertTrue(json, json.contains("\"pass\":2,\"passes\":2,\"classesAnalyzed\":1,\"classesInPass\":2,"));
+        assertTrue(json, json.endsWith("]}"));
+    }
+}
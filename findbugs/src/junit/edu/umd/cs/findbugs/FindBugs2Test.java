@@ -0,0 +1,265 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.CheckReturnValue;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.config.UserPreferences;
+import edu.umd.cs.findbugs.io.IO;
+
+public class FindBugs2Test extends TestCase {
+
+    private static final String[] DETECTORS = { "FindNullDeref", "FindDeadLocalStores", "FindRefComparison",
+            "FindUselessControlFlow", "FindReturnRef", "Naming", "MethodReturnCheck" };
+
+    /** The application analyzed by testDemandDrivenReferencedClassesGiveTheSameWarnings */
+    static class Caller {
+        void ignoreLength() {
+            Library.length("ignored");
+        }
+    }
+
+    /**
+     * On the auxiliary classpath; the first pass notes the annotation that
+     * MethodReturnCheck reports against
+     */
+    static class Library {
+        @CheckReturnValue
+        static int length(String s) {
+            return s.length();
+        }
+    }
+
+    /**
+     * Ping and Pong call each other. Pong.f dereferences its parameter, and
+     * Ping.a passes it on to Pong.f through the other methods, back and forth
+     * between the classes, so that it takes several visits of each class to
+     * learn that Ping.a dereferences its parameter
+     */
+    static class Ping {
+        static int a(String s) {
+            return Pong.b(s);
+        }
+
+        static int c(String s) {
+            return Pong.d(s);
+        }
+
+        static int e(String s) {
+            return Pong.f(s);
+        }
+    }
+
+    static class Pong {
+        static int b(String s) {
+            return Ping.c(s);
+        }
+
+        static int d(String s) {
+            return Ping.e(s);
+        }
+
+        static int f(String s) {
+            return s.length();
+        }
+    }
+
+    /** Calls the recursive component with a null argument */
+    static class NullPasser {
+        int passNull() {
+            return Ping.a(null);
+        }
+    }
+
+    private FindBugs2 engine;
+
+    private boolean sccSummaries;
+
+    private String[] extraDetectors = new String[0];
+
+    private BugCollectionBugReporter bugReporter;
+
+    private File tmpdir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        DetectorFactoryCollection.resetInstance(new DetectorFactoryCollection());
+        tmpdir = File.createTempFile("fbtest", null);
+        tmpdir.delete();
+        assertTrue(tmpdir.mkdir());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(tmpdir);
+        super.tearDown();
+    }
+
+    private static void delete(File file) {
+        File[] contents = file.listFiles();
+        if (contents != null)
+            for (File f : contents)
+                delete(f);
+        file.delete();
+    }
+
+    /**
+     * Copy the class file of the given class into its own directory
+     */
+    private String copyClass(Class<?> c) throws IOException {
+        return copyClasses(c.getSimpleName(), c);
+    }
+
+    /**
+     * Copy the class files of the given classes into the given directory
+     */
+    private String copyClasses(String dir, Class<?>... classes) throws IOException {
+        for (Class<?> c : classes)
+            copyClass(c, dir);
+        return new File(tmpdir, dir).getPath();
+    }
+
+    private void copyClass(Class<?> c, String dir) throws IOException {
+        String resourceName = c.getName().replace('.', '/') + ".class";
+        File file = new File(new File(tmpdir, dir), resourceName);
+        file.getParentFile().mkdirs();
+        InputStream in = c.getClassLoader().getResourceAsStream(resourceName);
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                IO.copy(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void analyze(int loaderThreads, boolean demandDriven, int maxAuxCallDepth, String application, String... auxClasspath)
+            throws Exception {
+        Project project = new Project();
+        project.addFile(application);
+        for (String aux : auxClasspath)
+            project.addAuxClasspathEntry(aux);
+        engine = new FindBugs2();
+        engine.setProject(project);
+        engine.setDetectorFactoryCollection(DetectorFactoryCollection.instance());
+        bugReporter = new BugCollectionBugReporter(project);
+        bugReporter.setPriorityThreshold(Priorities.LOW_PRIORITY);
+        engine.setBugReporter(bugReporter);
+        UserPreferences preferences = UserPreferences.createDefaultUserPreferences();
+        preferences.enableAllDetectors(false);
+        for (String detector : DETECTORS)
+            preferences.enableDetector(DetectorFactoryCollection.instance().getFactory(detector), true);
+        for (String detector : extraDetectors)
+            preferences.enableDetector(DetectorFactoryCollection.instance().getFactory(detector), true);
+        // the first pass, which builds the interprocedural databases
+        for (Iterator<DetectorFactory> i = DetectorFactoryCollection.instance().factoryIterator(); i.hasNext();) {
+            DetectorFactory factory = i.next();
+            if (!factory.isReportingDetector() && factory.isDefaultEnabled())
+                preferences.enableDetector(factory, true);
+        }
+        engine.setUserPreferences(preferences);
+        // summarize the auxiliary classes too
+        engine.setAnalysisFeatureSettings(FindBugs.MAX_EFFORT);
+        engine.setReferencedClassLoaderThreads(loaderThreads);
+        engine.setDemandDrivenReferencedClasses(demandDriven, maxAuxCallDepth);
+        engine.setSccSummaries(sccSummaries);
+        engine.execute();
+    }
+
+    private List<String> getReferencedClasses() {
+        List<String> result = new ArrayList<String>();
+        for (ClassDescriptor d : engine.getReferencedClassSet())
+            result.add(d.getClassName());
+        return result;
+    }
+
+    private List<String> getWarnings() {
+        List<String> result = new ArrayList<String>();
+        for (BugInstance bug : bugReporter.getBugCollection())
+            result.add(bug.getInstanceKey());
+        return result;
+    }
+
+    public void testReferencedClassSetDoesNotDependOnLoaderThreads() throws Exception {
+        analyze(1, false, 0, "lib/jFormatString.jar", "lib/jsr305.jar");
+        List<String> sequential = getReferencedClasses();
+        List<String> sequentialWarnings = getWarnings();
+        assertTrue(sequential.toString(), sequential.contains("java/lang/Object"));
+
+        analyze(4, false, 0, "lib/jFormatString.jar", "lib/jsr305.jar");
+        assertEquals(sequential, getReferencedClasses());
+        assertEquals(sequentialWarnings, getWarnings());
+    }
+
+    public void testDemandDrivenReferencedClassesGiveTheSameWarnings() throws Exception {
+        String application = copyClass(Caller.class);
+        String library = copyClass(Library.class);
+
+        analyze(1, false, 0, application, library);
+        List<String> warnings = getWarnings();
+        assertEquals(1, bugReporter.getBugCollection().getCollection().size());
+        assertEquals("RV_RETURN_VALUE_IGNORED", bugReporter.getBugCollection().iterator().next().getType());
+
+        analyze(1, true, 1, application, library);
+        List<String> demandedClasses = getReferencedClasses();
+        assertTrue(demandedClasses.toString(), demandedClasses.contains(Library.class.getName().replace('.', '/')));
+        assertEquals(warnings, getWarnings());
+
+        // without the library's annotations the warning is lost
+        analyze(1, true, 0, application, library);
+        assertFalse(getReferencedClasses().contains(Library.class.getName().replace('.', '/')));
+        assertEquals(Collections.emptyList(), getWarnings());
+    }
+
+    public void testSummariesTravelAroundRecursiveComponents() throws Exception {
+        String application = copyClasses("recursive", Ping.class, Pong.class, NullPasser.class);
+        extraDetectors = new String[] { "NoteUnconditionalParamDerefs", "NoteNonnullReturnValues" };
+
+        analyze(1, false, 0, application);
+        assertFalse(getWarningTypes().contains("NP_NULL_PARAM_DEREF_NONVIRTUAL"));
+
+        sccSummaries = true;
+        analyze(1, false, 0, application);
+        assertTrue(getWarningTypes().toString(), getWarningTypes().contains("NP_NULL_PARAM_DEREF_NONVIRTUAL"));
+    }
+
+    private List<String> getWarningTypes() {
+        List<String> result = new ArrayList<String>();
+        for (BugInstance bug : bugReporter.getBugCollection())
+            result.add(bug.getType());
+        return result;
+    }
+}
@@ -22,10 +22,15 @@ package edu.umd.cs.findbugs;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import junit.framework.TestCase;
 import edu.umd.cs.findbugs.config.UserPreferences;
+import edu.umd.cs.findbugs.io.IO;
 
 /**
  * Abstract base class for TestCase classes that need to run in the context of a
@@ -66,10 +71,13 @@ public abstract class FindBugsTestCase extends TestCase {
     private static final class TestRunnerThread extends Thread {
         private final RunnableWithExceptions runnable;
 
+        private final Class<?>[] analyzedClasses;
+
         private JUnitDetectorAdapter detectorAdapter;
 
-        private TestRunnerThread(RunnableWithExceptions runnable) {
+        private TestRunnerThread(RunnableWithExceptions runnable, Class<?>[] analyzedClasses) {
             this.runnable = runnable;
+            this.analyzedClasses = analyzedClasses;
         }
 
         /**
@@ -103,10 +111,14 @@ public abstract class FindBugsTestCase extends TestCase {
             }
 
             File tmpfile = null;
+            List<File> copiedFiles = new ArrayList<File>();
 
             try {
                 // Create a class file to analyze
                 tmpfile = createEmptyClassFile(tmpdir);
+                for (Class<?> c : analyzedClasses) {
+                    copyClassFile(tmpdir, c, copiedFiles);
+                }
 
                 // Unfortunately there's quite a bit of gobbledygook required
                 // to set up a FindBugs2.
@@ -153,6 +165,10 @@ public abstract class FindBugsTestCase extends TestCase {
                 if (tmpfile != null) {
                     deleteAndLog(tmpfile);
                 }
+                Collections.reverse(copiedFiles);
+                for (File f : copiedFiles) {
+                    deleteAndLog(f);
+                }
                 deleteAndLog(tmpdir);
                 DetectorFactoryCollection.resetInstance(null);
 
@@ -178,6 +194,32 @@ public abstract class FindBugsTestCase extends TestCase {
             }
             return outFile;
         }
+
+        /**
+         * Copy the class file of a class loaded by the test into the
+         * directory, recording the files and directories created.
+         */
+        private void copyClassFile(File tmpdir, Class<?> c, List<File> created) throws IOException {
+            String resourceName = c.getName().replace('.', '/') + ".class";
+            File outFile = tmpdir;
+            for (String part : resourceName.split("/")) {
+                outFile = new File(outFile, part);
+                if (!outFile.exists())
+                    created.add(outFile);
+            }
+            outFile.getParentFile().mkdirs();
+            InputStream in = c.getClassLoader().getResourceAsStream(resourceName);
+            try {
+                OutputStream out = new FileOutputStream(outFile);
+                try {
+                    IO.copy(in, out);
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+        }
     }
 
     /**
@@ -191,7 +233,24 @@ public abstract class FindBugsTestCase extends TestCase {
      * @throws Throwable
      */
     protected void executeFindBugsTest(final RunnableWithExceptions runnable) throws Exception {
-        TestRunnerThread thread = new TestRunnerThread(runnable);
+        executeFindBugsTest(runnable, new Class<?>[0]);
+    }
+
+    /**
+     * Execute some JUnit test code inside a Detector2 class running inside a
+     * FindBugs2 analysis run, with the given classes of the test added to the
+     * application.
+     *
+     * @param runnable
+     *            a RunnableWithExceptions object whose run() method has some
+     *            JUnit test code
+     * @param analyzedClasses
+     *            classes whose class files are analyzed as part of the
+     *            application
+     * @throws Throwable
+     */
+    protected void executeFindBugsTest(final RunnableWithExceptions runnable, Class<?>... analyzedClasses) throws Exception {
+        TestRunnerThread thread = new TestRunnerThread(runnable, analyzedClasses);
 
         thread.start();
         try {
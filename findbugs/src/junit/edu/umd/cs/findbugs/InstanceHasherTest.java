@@ -0,0 +1,32 @@
+package edu.umd.cs.findbugs;
+
+import java.math.BigInteger;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.util.Util;
+
+public class InstanceHasherTest extends TestCase {
+
+    public void testSameAsMD5OfInstanceKey() throws Exception {
+        BugInstance bug = new BugInstance("NP_NULL_ON_SOME_PATH", Priorities.NORMAL_PRIORITY);
+        bug.addClass("a.B\u00e9").addMethod("a.B\u00e9", "m\u4e2d", "()V", false);
+        bug.addField("a.B\u00e9", "f", "I", false);
+        bug.addString("ignored");
+        String expected = new BigInteger(1, Util.getMD5Digest().digest(bug.getInstanceKey().getBytes("UTF-8")))
+                .toString(16);
+        assertEquals(expected, new InstanceHasher.MD5Hasher().update(bug.getInstanceKey()).finish());
+        if (!InstanceHasher.FAST)
+            assertEquals(expected, bug.getInstanceHash());
+    }
+
+    public void testMurmur3() throws Exception {
+        assertEquals("cbd8a7b341bd9b025b1e906a48ae1d19", new InstanceHasher.Murmur3Hasher().update("hello").finish());
+        assertEquals("e34bbc7bbc071b6c7a433ca9c49a9347",
+                new InstanceHasher.Murmur3Hasher().update("The quick brown fox jumps over the lazy dog").finish());
+    }
+
+    public void testToHex() {
+        assertEquals("0", InstanceHasher.toHex(new byte[2]));
+        assertEquals("1ff", InstanceHasher.toHex(new byte[] { 0, 1, (byte) 0xff }));
+    }
+}
@@ -0,0 +1,22 @@
+package edu.umd.cs.findbugs;
+
+import junit.framework.TestCase;
+
+public class TextUICommandLineTest extends TestCase {
+
+    public void testExitNotAllowed() {
+        TextUICommandLine commandLine = new TextUICommandLine();
+        commandLine.setExitAllowed(false);
+        try {
+            commandLine.exit(3);
+            fail();
+        } catch (TextUICommandLine.ExitException e) {
+            assertEquals(3, e.getExitCode());
+        }
+    }
+
+    public void testNoFilesReturnsExitCode() throws Exception {
+        // main() would exit with status 1 after printing the usage
+        assertEquals(1, FindBugs2.run(new String[] { "-quiet" }));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.anttask;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.tools.ant.Project;
+
+public class InProcessEngineTest extends TestCase {
+
+    private static InProcessEngine getEngine(String... args) {
+        FindBugsTask task = new FindBugsTask();
+        task.setProject(new Project());
+        String[] classpath = System.getProperty("java.class.path").split(File.pathSeparator);
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("findbugs.hostApp", "FBAntTask");
+        return new InProcessEngine(task, "edu.umd.cs.findbugs.FindBugs2", classpath, properties, args);
+    }
+
+    private static ClassLoader getLoader(String... args) {
+        Method run = getEngine(args).getRunMethod();
+        assertNotNull(run);
+        return run.getDeclaringClass().getClassLoader();
+    }
+
+    /**
+     * @return the priority adjustment of the named bug pattern or detector,
+     *         as seen by programs run with the given loader
+     */
+    private static int getPriorityAdjustment(ClassLoader loader, String lookup, String name) throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            Class<?> collectionClass = loader.loadClass("edu.umd.cs.findbugs.DetectorFactoryCollection");
+            Object collection = collectionClass.getMethod("instance").invoke(null);
+            Object found = collectionClass.getMethod(lookup, String.class).invoke(collection, name);
+            return ((Integer) found.getClass().getMethod("getPriorityAdjustment").invoke(found)).intValue();
+        } finally {
+            thread.setContextClassLoader(contextLoader);
+        }
+    }
+
+    public void testSamePluginsShareClasses() {
+        assertSame(getLoader("-pluginList", "a.jar", "-quiet", "one.jar"),
+                getLoader("-pluginList", "a.jar", "-quiet", "two.jar"));
+        assertSame(getLoader("one.jar"), getLoader("two.jar"));
+    }
+
+    public void testDifferentPluginsDontShareClasses() {
+        ClassLoader a = getLoader("-pluginList", "a.jar", "one.jar");
+        ClassLoader b = getLoader("-pluginList", "b.jar", "two.jar");
+        ClassLoader none = getLoader("three.jar");
+        assertNotSame(a, b);
+        assertNotSame(a, none);
+        assertNotSame(b, none);
+    }
+
+    public void testPriorityAdjustmentDoesNotOutliveTask() throws Exception {
+        InProcessEngine first = getEngine("-adjustPriority", "NP_ALWAYS_NULL=raise,FindDeadLocalStores=lower", "-version");
+        Method firstRun = first.getRunMethod();
+        assertNotNull(firstRun);
+        ClassLoader loader = firstRun.getDeclaringClass().getClassLoader();
+        int patternBefore = getPriorityAdjustment(loader, "lookupBugPattern", "NP_ALWAYS_NULL");
+        int factoryBefore = getPriorityAdjustment(loader, "getFactory", "FindDeadLocalStores");
+        assertEquals(0, first.execute(firstRun, 0, 0));
+
+        InProcessEngine second = getEngine("-version");
+        Method secondRun = second.getRunMethod();
+        assertSame(loader, secondRun.getDeclaringClass().getClassLoader());
+        assertEquals(0, second.execute(secondRun, 0, 0));
+        assertEquals(patternBefore, getPriorityAdjustment(loader, "lookupBugPattern", "NP_ALWAYS_NULL"));
+        assertEquals(factoryBefore, getPriorityAdjustment(loader, "getFactory", "FindDeadLocalStores"));
+    }
+}
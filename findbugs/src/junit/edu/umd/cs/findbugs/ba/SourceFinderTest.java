@@ -0,0 +1,132 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.ba;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.Project;
+import edu.umd.cs.findbugs.io.IO;
+
+public class SourceFinderTest extends TestCase {
+
+    private File root;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        root = File.createTempFile("sources", "");
+        root.delete();
+        assertTrue(root.mkdir());
+        write("a/b/Present.java", "class Present {\n}\n");
+        write("a/b/Other.java", "class Other {}\n");
+        write("Top.java", "class Top {}\n");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(root);
+        super.tearDown();
+    }
+
+    private void write(String name, String contents) throws IOException {
+        File file = new File(root, name.replace('/', File.separatorChar));
+        file.getParentFile().mkdirs();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] contents = file.listFiles();
+        if (contents != null)
+            for (File f : contents)
+                delete(f);
+        file.delete();
+    }
+
+    private SourceFinder createSourceFinder() {
+        Project project = new Project();
+        project.addSourceDir(root.getPath());
+        return project.getSourceFinder();
+    }
+
+    private static String read(SourceFile sourceFile) throws IOException {
+        InputStream in = sourceFile.getInputStream();
+        try {
+            return new String(IO.readAll(in), "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    public void testHits() throws Exception {
+        SourceFinder finder = createSourceFinder();
+        assertTrue(finder.hasSourceFile("a.b", "Present.java"));
+        assertTrue(finder.hasSourceFile("a.b", "Other.java"));
+        assertTrue(finder.hasSourceFile("", "Top.java"));
+        SourceFile sourceFile = finder.findSourceFile("a.b", "Present.java");
+        assertEquals("class Present {\n}\n", read(sourceFile));
+        assertSame(sourceFile, finder.findSourceFile("a.b", "Present.java"));
+    }
+
+    public void testMisses() throws Exception {
+        SourceFinder finder = createSourceFinder();
+        assertFalse(finder.hasSourceFile("a.b", "Missing.java"));
+        assertFalse(finder.hasSourceFile("a.c", "Present.java"));
+        assertFalse(finder.hasSourceFile("", "Present.java"));
+        try {
+            finder.findSourceFile("a.b", "Missing.java");
+            fail("found a missing file");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    public void testFilesCreatedAfterIndexing() throws Exception {
+        SourceFinder finder = createSourceFinder();
+        assertFalse(finder.hasSourceFile("a.b", "Later.java"));
+        assertFalse(finder.hasSourceFile("x.y", "NewPackage.java"));
+        write("a/b/Later.java", "class Later {}\n");
+        write("x/y/NewPackage.java", "class NewPackage {}\n");
+        // the listings are trusted for a second before being checked again
+        Thread.sleep(1100);
+        assertTrue(finder.hasSourceFile("a.b", "Later.java"));
+        assertTrue(finder.hasSourceFile("x.y", "NewPackage.java"));
+        assertEquals("class Later {}\n", read(finder.findSourceFile("a.b", "Later.java")));
+    }
+
+    public void testLineOffsetsSurviveReleasedData() throws Exception {
+        SourceFile sourceFile = createSourceFinder().findSourceFile("a.b", "Present.java");
+        assertEquals(0, sourceFile.getLineOffset(0));
+        assertEquals(16, sourceFile.getLineOffset(1));
+        sourceFile.releaseData();
+        // answered from the line table, so a deleted file doesn't matter
+        assertTrue(new File(sourceFile.getFullFileName()).delete());
+        assertEquals(16, sourceFile.getLineOffset(1));
+        assertEquals(-1, sourceFile.getLineOffset(5));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.ba.bcp;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.FindBugsTestCase;
+import edu.umd.cs.findbugs.RunnableWithExceptions;
+import edu.umd.cs.findbugs.ba.ClassContext;
+import edu.umd.cs.findbugs.classfile.DescriptorFactory;
+import edu.umd.cs.findbugs.classfile.Global;
+import edu.umd.cs.findbugs.detect.LazyInit;
+
+public class CompiledByteCodePatternTest extends FindBugsTestCase {
+
+    /**
+     * The methods the patterns are matched against.
+     */
+    static class Fixture {
+        static Object instance;
+
+        Object field;
+
+        final Object lock = new Object();
+
+        static Object getInstance() {
+            if (instance == null)
+                instance = new Object();
+            return instance;
+        }
+
+        Object getField() {
+            if (field == null)
+                field = new Object();
+            return field;
+        }
+
+        int hashField() {
+            Object f = field;
+            return f != null ? f.hashCode() : 0;
+        }
+
+        void lockField() {
+            synchronized (lock) {
+                field = null;
+            }
+        }
+
+        void lockNew() {
+            synchronized (new Object()) {
+                field = lock.toString();
+            }
+        }
+
+        int arithmetic(int x) {
+            return x * 2 + 1;
+        }
+    }
+
+    /**
+     * An element which may be skipped
+     */
+    private static class OptionalOpcode extends Opcode {
+        OptionalOpcode(int opcode) {
+            super(opcode);
+        }
+
+        @Override
+        public int minOccur() {
+            return 0;
+        }
+    }
+
+    private static List<ByteCodePattern> createPatterns() {
+        List<ByteCodePattern> patterns = new ArrayList<ByteCodePattern>();
+        patterns.add(new LazyInit(null).getPattern());
+
+        // optional leading element, then the element which must match
+        patterns.add(new ByteCodePattern().add(new OptionalOpcode(Constants.ALOAD_0)).add(new Load("f", "val"))
+                .add(new IfNull("val")));
+
+        // leading wildcard: may begin anywhere
+        patterns.add(new ByteCodePattern().addWild(2).add(new Invoke("/.*", "/.*", "/.*", Invoke.ANY, null)));
+
+        ByteCodePattern lockPattern = new ByteCodePattern();
+        lockPattern.setInterElementWild(3);
+        lockPattern.add(new MatchAny(new PatternElement[] { new Load("f", "lock"), new New("lock") })).add(
+                new Monitorenter("lock"));
+        patterns.add(lockPattern);
+        return patterns;
+    }
+
+    private static List<String> getMatches(PatternMatcher matcher) throws Exception {
+        List<String> result = new ArrayList<String>();
+        for (Iterator<ByteCodePatternMatch> i = matcher.execute().byteCodePatternMatchIterator(); i.hasNext();)
+            result.add(i.next().toString());
+        return result;
+    }
+
+    public void testCompiledMatchesInterpreted() throws Exception {
+        executeFindBugsTest(new RunnableWithExceptions() {
+            public void run() throws Throwable {
+                ClassContext classContext = Global.getAnalysisCache().getClassAnalysis(ClassContext.class,
+                        DescriptorFactory.createClassDescriptor(Fixture.class));
+                for (ByteCodePattern pattern : createPatterns()) {
+                    int numMatches = 0;
+                    for (Method method : classContext.getJavaClass().getMethods()) {
+                        if (method.getCode() == null)
+                            continue;
+                        String where = pattern.getFirst() + " in " + method;
+                        List<String> interpreted = getMatches(new PatternMatcher(pattern, classContext, method)
+                                .setUseOpcodeIndex(false));
+                        List<String> compiled = getMatches(new PatternMatcher(pattern, classContext, method));
+                        assertEquals(where, interpreted, compiled);
+                        if (!pattern.compile().mayMatch(classContext.getBytecodeSet(method)))
+                            assertTrue(where, interpreted.isEmpty());
+                        numMatches += interpreted.size();
+                    }
+                    assertTrue(pattern.getFirst() + " never matched", numMatches > 0);
+                }
+            }
+        }, Fixture.class);
+    }
+
+    public void testOptionalLeadingElementsAreEntryPoints() {
+        List<ByteCodePattern> patterns = createPatterns();
+
+        CompiledByteCodePattern lazyInit = patterns.get(0).compile();
+        assertTrue(lazyInit.isEntryPoint(Constants.GETSTATIC));
+        assertFalse(lazyInit.isEntryPoint(Constants.IFNULL));
+
+        CompiledByteCodePattern optional = patterns.get(1).compile();
+        assertTrue(optional.isEntryPoint(Constants.ALOAD_0));
+        assertTrue(optional.isEntryPoint(Constants.GETFIELD));
+        assertFalse(optional.isEntryPoint(Constants.ALOAD_1));
+
+        CompiledByteCodePattern wild = patterns.get(2).compile();
+        assertTrue(wild.isEntryPoint(Constants.IADD));
+    }
+
+    public void testOpcodesAreNotShared() {
+        new Load("f", "val").getOpcodes().clear();
+        new Invoke("/.*", "/.*", "/.*", Invoke.ANY, null).getOpcodes().clear();
+        new IfNull("val").getOpcodes().clear();
+        assertTrue(new Load("g", "val").getOpcodes().get(Constants.GETFIELD));
+        assertTrue(new Invoke("/.*", "/.*", "/.*", Invoke.ANY, null).getOpcodes().get(Constants.INVOKEVIRTUAL));
+        assertTrue(new IfNull("val").getOpcodes().get(Constants.IFNULL));
+    }
+}
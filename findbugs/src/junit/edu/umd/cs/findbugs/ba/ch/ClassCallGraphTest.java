@@ -0,0 +1,80 @@
+package edu.umd.cs.findbugs.ba.ch;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.classfile.DescriptorFactory;
+import edu.umd.cs.findbugs.util.TopologicalSort.OutEdges;
+
+public class ClassCallGraphTest extends TestCase {
+    ClassDescriptor a, b, c, d, e;
+
+    Map<ClassDescriptor, List<ClassDescriptor>> calls;
+
+    @Override
+    protected void setUp() {
+        a = DescriptorFactory.createClassDescriptor("test/A");
+        b = DescriptorFactory.createClassDescriptor("test/B");
+        c = DescriptorFactory.createClassDescriptor("test/C");
+        d = DescriptorFactory.createClassDescriptor("test/D");
+        e = DescriptorFactory.createClassDescriptor("test/E");
+
+        // A calls B; B and C call each other; C calls D; D calls itself
+        calls = new HashMap<ClassDescriptor, List<ClassDescriptor>>();
+        calls.put(a, Arrays.asList(b));
+        calls.put(b, Arrays.asList(c));
+        calls.put(c, Arrays.asList(b, d));
+        calls.put(d, Arrays.asList(d));
+    }
+
+    private ClassCallGraph build(List<ClassDescriptor> classes) {
+        return ClassCallGraph.build(classes, new OutEdges<ClassDescriptor>() {
+            public Collection<ClassDescriptor> getOutEdges(ClassDescriptor c) {
+                List<ClassDescriptor> result = calls.get(c);
+                return result == null ? Collections.<ClassDescriptor> emptyList() : result;
+            }
+        });
+    }
+
+    public void testComponentsBottomUp() {
+        List<ClassCallGraph.Component> components = build(Arrays.asList(a, b, c, d, e)).getComponentsBottomUp();
+        assertEquals(4, components.size());
+        int posA = -1, posBC = -1, posD = -1;
+        for (int i = 0; i < components.size(); i++) {
+            ClassCallGraph.Component component = components.get(i);
+            List<ClassDescriptor> classes = component.getClasses();
+            if (classes.contains(a)) {
+                posA = i;
+                assertFalse(component.isRecursive());
+            } else if (classes.contains(b)) {
+                posBC = i;
+                assertEquals(2, classes.size());
+                assertTrue(classes.contains(c));
+                assertTrue(component.isRecursive());
+            } else if (classes.contains(d)) {
+                posD = i;
+                // calls within a class don't make it recursive
+                assertFalse(component.isRecursive());
+            } else {
+                assertEquals(Collections.singletonList(e), classes);
+                assertFalse(component.isRecursive());
+            }
+        }
+        assertTrue(posD < posBC);
+        assertTrue(posBC < posA);
+    }
+
+    public void testCallsOutsideGraphIgnored() {
+        List<ClassCallGraph.Component> components = build(Arrays.asList(a, b)).getComponentsBottomUp();
+        assertEquals(2, components.size());
+        assertEquals(Collections.singletonList(b), components.get(0).getClasses());
+        assertEquals(Collections.singletonList(a), components.get(1).getClasses());
+        assertFalse(components.get(0).isRecursive());
+    }
+}
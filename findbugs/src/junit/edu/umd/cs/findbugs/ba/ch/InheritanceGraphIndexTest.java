@@ -0,0 +1,124 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.ba.ch;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.classfile.DescriptorFactory;
+
+public class InheritanceGraphIndexTest extends TestCase {
+    InheritanceGraph graph;
+
+    ClassVertex object, a, b, c, i, j, k, d;
+
+    private ClassVertex vertex(String name, boolean isInterface) {
+        ClassVertex v = ClassVertex.createMissingClassVertex(DescriptorFactory.createClassDescriptor(name), isInterface);
+        graph.addVertex(v);
+        if (isInterface)
+            graph.createEdge(v, object);
+        return v;
+    }
+
+    @Override
+    protected void setUp() {
+        graph = new InheritanceGraph();
+        object = vertex("java/lang/Object", false);
+        a = vertex("test/A", false);
+        b = vertex("test/B", false);
+        c = vertex("test/C", false);
+        i = vertex("test/I", true);
+        j = vertex("test/J", true);
+        k = vertex("test/K", false);
+        d = vertex("test/D", false);
+
+        // A extends Object; B extends A; C extends B implements I;
+        // J extends I; K implements J; D extends A
+        graph.createEdge(a, object);
+        graph.createEdge(b, a);
+        graph.createEdge(c, b);
+        graph.createEdge(c, i);
+        graph.createEdge(j, i);
+        graph.createEdge(k, object);
+        graph.createEdge(k, j);
+        graph.createEdge(d, a);
+    }
+
+    public void testKnownSubtypes() {
+        InheritanceGraphIndex index = InheritanceGraphIndex.build(graph);
+        assertNotNull(index);
+        ClassVertex[] all = { object, a, b, c, i, j, k, d };
+        boolean[][] expected = {
+                // object, a, b, c, i, j, k, d
+                { true, false, false, false, false, false, false, false }, // object
+                { true, true, false, false, false, false, false, false }, // a
+                { true, true, true, false, false, false, false, false }, // b
+                { true, true, true, true, true, false, false, false }, // c
+                { true, false, false, false, true, false, false, false }, // i
+                { true, false, false, false, true, true, false, false }, // j
+                { true, false, false, false, true, true, true, false }, // k
+                { true, true, false, false, false, false, false, true }, // d
+        };
+        for (int x = 0; x < all.length; x++)
+            for (int y = 0; y < all.length; y++)
+                assertEquals(all[x] + " <: " + all[y], expected[x][y], index.isKnownSubtype(all[x], all[y]));
+    }
+
+    public void testMissingSupertypes() {
+        InheritanceGraphIndex index = InheritanceGraphIndex.build(graph);
+        try {
+            // Every vertex here is unresolved, so a negative answer is not
+            // definitive
+            index.isSubtype(b, d);
+            fail();
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+    }
+
+    public void testSubclasses() {
+        InheritanceGraphIndex index = InheritanceGraphIndex.build(graph);
+        Set<ClassDescriptor> expected = new HashSet<ClassDescriptor>();
+        expected.add(a.getClassDescriptor());
+        expected.add(b.getClassDescriptor());
+        expected.add(c.getClassDescriptor());
+        expected.add(d.getClassDescriptor());
+        assertEquals(expected, index.getSubclasses(a));
+        assertNull(index.getSubclasses(i));
+        assertNull(index.getSubclasses(object));
+    }
+
+    public void testGrowth() {
+        InheritanceGraphIndex index = InheritanceGraphIndex.build(graph);
+        assertTrue(index.isCurrent(graph));
+        ClassVertex e = vertex("test/E", false);
+        graph.createEdge(e, c);
+        assertFalse(index.isCurrent(graph));
+        assertFalse(index.contains(e));
+        assertTrue(index.contains(c));
+    }
+
+    public void testCycle() {
+        graph.createEdge(i, k);
+        assertNull(InheritanceGraphIndex.build(graph));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.classfile.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+import org.apache.bcel.Constants;
+
+import edu.umd.cs.findbugs.asm.FBClassReader;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.classfile.DescriptorFactory;
+import edu.umd.cs.findbugs.classfile.InvalidClassFileFormatException;
+import edu.umd.cs.findbugs.classfile.analysis.ClassInfo;
+
+public class ClassParserUsingASMTest extends TestCase {
+
+    private static final int CONSTANT_MethodHandle = 15;
+
+    private static final int CONSTANT_MethodType = 16;
+
+    private static final int CONSTANT_InvokeDynamic = 18;
+
+    /**
+     * Builds a class file with no members, whose constant pool holds one of
+     * each kind of constant. The class itself is constant 2, its superclass
+     * constant 4.
+     */
+    private static class ClassFileBuilder {
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+
+        private final DataOutputStream out = new DataOutputStream(pool);
+
+        private int count = 1;
+
+        int utf8(String s) throws IOException {
+            out.writeByte(Constants.CONSTANT_Utf8);
+            out.writeUTF(s);
+            return count++;
+        }
+
+        int classRef(String name) throws IOException {
+            int nameIndex = utf8(name);
+            out.writeByte(Constants.CONSTANT_Class);
+            out.writeShort(nameIndex);
+            return count++;
+        }
+
+        int constant(int tag, int... shorts) throws IOException {
+            out.writeByte(tag);
+            for (int s : shorts)
+                out.writeShort(s);
+            return count++;
+        }
+
+        void addAllJava6Constants() throws IOException {
+            out.writeByte(Constants.CONSTANT_Integer);
+            out.writeInt(42);
+            count++;
+            out.writeByte(Constants.CONSTANT_Float);
+            out.writeFloat(1.5f);
+            count++;
+            out.writeByte(Constants.CONSTANT_Long);
+            out.writeLong(1L << 40);
+            count += 2;
+            out.writeByte(Constants.CONSTANT_Double);
+            out.writeDouble(2.5);
+            count += 2;
+            int name = utf8("size");
+            constant(Constants.CONSTANT_String, name);
+            int nameAndType = constant(Constants.CONSTANT_NameAndType, name, utf8("()I"));
+            int list = classRef("java/util/List");
+            constant(Constants.CONSTANT_Fieldref, list, nameAndType);
+            constant(Constants.CONSTANT_Methodref, list, nameAndType);
+            constant(Constants.CONSTANT_InterfaceMethodref, list, nameAndType);
+            classRef("[[Ljava/util/Map;");
+            // after the two-slot constants, to check the index lines up
+            classRef("java/util/Set");
+        }
+
+        byte[] build(int majorVersion) throws IOException {
+            out.flush();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream file = new DataOutputStream(bytes);
+            file.writeInt(0xCAFEBABE);
+            file.writeShort(0);
+            file.writeShort(majorVersion);
+            file.writeShort(count);
+            pool.writeTo(file);
+            file.writeShort(Constants.ACC_PUBLIC | Constants.ACC_SUPER);
+            file.writeShort(2); // this class
+            file.writeShort(4); // superclass
+            file.writeShort(0); // interfaces
+            file.writeShort(0); // fields
+            file.writeShort(0); // methods
+            file.writeShort(0); // attributes
+            file.flush();
+            return bytes.toByteArray();
+        }
+    }
+
+    private static ClassFileBuilder newClassFile() throws IOException {
+        ClassFileBuilder builder = new ClassFileBuilder();
+        builder.classRef("test/Constants");
+        builder.classRef("java/lang/Object");
+        return builder;
+    }
+
+    private static Collection<String> parseReferencedClasses(byte[] classFile) throws InvalidClassFileFormatException {
+        final TreeSet<String> referenced = new TreeSet<String>();
+        ClassInfo.Builder builder = new ClassInfo.Builder() {
+            @Override
+            public void setReferencedClassDescriptors(Collection<ClassDescriptor> referencedClassDescriptorList) {
+                super.setReferencedClassDescriptors(referencedClassDescriptorList);
+                for (ClassDescriptor d : referencedClassDescriptorList)
+                    referenced.add(d.getClassName());
+            }
+        };
+        ClassDescriptor expected = DescriptorFactory.createClassDescriptor("test/Constants");
+        new ClassParserUsingASM(new FBClassReader(classFile), expected, null).parse(builder);
+        return referenced;
+    }
+
+    public void testReferencedClassesWithEveryJava6Constant() throws Exception {
+        ClassFileBuilder classFile = newClassFile();
+        classFile.addAllJava6Constants();
+        assertEquals("[java/lang/Object, java/util/List, java/util/Map, java/util/Set, test/Constants]",
+                parseReferencedClasses(classFile.build(50)).toString());
+    }
+
+    public void testMethodHandleConstantsAreRejected() throws Exception {
+        ClassFileBuilder classFile = newClassFile();
+        classFile.addAllJava6Constants();
+        int nameAndType = classFile.constant(Constants.CONSTANT_NameAndType, classFile.utf8("run"), classFile.utf8("()V"));
+        int methodRef = classFile.constant(Constants.CONSTANT_Methodref, 4, nameAndType);
+        classFile.out.writeByte(CONSTANT_MethodHandle);
+        classFile.out.writeByte(6); // REF_invokeStatic
+        classFile.out.writeShort(methodRef);
+        classFile.count++;
+        classFile.constant(CONSTANT_MethodType, classFile.utf8("()V"));
+        classFile.constant(CONSTANT_InvokeDynamic, 0, nameAndType);
+        classFile.classRef("java/util/Queue");
+        try {
+            parseReferencedClasses(classFile.build(51));
+            fail("parsed a constant pool the class reader can't index");
+        } catch (InvalidClassFileFormatException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Unexpected tag of " + CONSTANT_MethodHandle));
+        }
+    }
+
+    public void testInvokeDynamicConstantsAreRejected() throws Exception {
+        ClassFileBuilder classFile = newClassFile();
+        int nameAndType = classFile.constant(Constants.CONSTANT_NameAndType, classFile.utf8("run"), classFile.utf8("()V"));
+        classFile.constant(CONSTANT_InvokeDynamic, 0, nameAndType);
+        classFile.addAllJava6Constants();
+        try {
+            parseReferencedClasses(classFile.build(51));
+            fail("parsed a constant pool the class reader can't index");
+        } catch (InvalidClassFileFormatException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Unexpected tag of " + CONSTANT_InvokeDynamic));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.umd.cs.findbugs.BugInstance;
+
+public class BugIndexTest {
+
+    private final List<BugInstance> bugs = new ArrayList<BugInstance>();
+
+    private BugIndex index;
+
+    @Before
+    public void setUp() {
+        String[] classes = { "a.Foo", "a.Bar", "b.Foo", "b.Baz" };
+        for (int i = 0; i < 40; i++) {
+            BugInstance bug = new BugInstance("UUF_UNUSED_FIELD", 1 + i % 3);
+            bug.addClass(classes[i % classes.length]);
+            bug.setFirstVersion(i % 5);
+            bugs.add(bug);
+        }
+        index = new BugIndex(bugs);
+    }
+
+    private void assertSelectsSameAsMatch(Matcher m) {
+        BitSet expected = new BitSet();
+        for (int i = 0; i < bugs.size(); i++)
+            if (m.match(bugs.get(i)))
+                expected.set(i);
+        assertEquals(m.toString(), expected, index.select(m));
+    }
+
+    @Test
+    public void leafMatchers() {
+        assertSelectsSameAsMatch(new PriorityMatcher("2"));
+        assertSelectsSameAsMatch(new ClassMatcher("~a\\..*"));
+        assertSelectsSameAsMatch(new FirstVersionMatcher("2", "GEQ"));
+    }
+
+    @Test
+    public void compoundMatchers() {
+        AndMatcher and = new AndMatcher();
+        and.addChild(new ClassMatcher("~.*Foo"));
+        NotMatcher not = new NotMatcher();
+        not.addChild(new PriorityMatcher("1"));
+        and.addChild(not);
+        assertSelectsSameAsMatch(and);
+
+        OrMatcher or = new OrMatcher();
+        or.addChild(and);
+        or.addChild(new FirstVersionMatcher("0", "EQ"));
+        assertSelectsSameAsMatch(or);
+    }
+
+    @Test
+    public void disabledFilterChildrenAreIgnored() {
+        Filter filter = new Filter();
+        Matcher priority = new PriorityMatcher("3");
+        filter.addChild(priority);
+        filter.addChild(new ClassMatcher("b.Baz"));
+        assertSelectsSameAsMatch(filter);
+        filter.disable(priority);
+        assertSelectsSameAsMatch(filter);
+    }
+
+    @Test
+    public void selectByValues() {
+        BitSet selected = index.select(BugIndex.Attribute.PACKAGE, Collections.singleton("b"));
+        for (BugInstance bug : index.getBugs(selected))
+            assertEquals("b", bug.getPrimaryClass().getPackageName());
+        assertEquals(bugs.size() / 2, selected.cardinality());
+    }
+}
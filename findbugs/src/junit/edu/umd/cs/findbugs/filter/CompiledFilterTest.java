@@ -0,0 +1,109 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.umd.cs.findbugs.BugInstance;
+
+public class CompiledFilterTest {
+
+    private final List<BugInstance> bugs = new ArrayList<BugInstance>();
+
+    @Before
+    public void setUp() {
+        String[] classes = { "a.Foo", "a.Bar", "b.Foo", "b.Baz" };
+        String[] methods = { "get", "set", "run" };
+        for (int i = 0; i < 60; i++) {
+            BugInstance bug = new BugInstance("UUF_UNUSED_FIELD", 1 + i % 3);
+            bug.addClass(classes[i % classes.length]);
+            bug.addMethod(classes[i % classes.length], methods[i % methods.length], "()V", false);
+            bug.setFirstVersion(i % 5);
+            bugs.add(bug);
+        }
+    }
+
+    private void assertCompiledMatchesSame(Matcher m) {
+        Matcher compiled = CompiledFilter.compile(m);
+        // twice, to check the remembered decisions
+        for (int pass = 0; pass < 2; pass++)
+            for (BugInstance bug : bugs)
+                assertEquals(m + " on " + bug.getPrimaryClass().getClassName() + "/" + bug.getPriority(), m.match(bug), compiled.match(bug));
+    }
+
+    private static AndMatcher and(Matcher... children) {
+        AndMatcher result = new AndMatcher();
+        for (Matcher child : children)
+            result.addChild(child);
+        return result;
+    }
+
+    private static NotMatcher not(Matcher child) {
+        NotMatcher result = new NotMatcher();
+        result.addChild(child);
+        return result;
+    }
+
+    @Test
+    public void singleMatchers() {
+        assertCompiledMatchesSame(new ClassMatcher("a.Foo"));
+        assertCompiledMatchesSame(new ClassMatcher("~b\\..*"));
+        assertCompiledMatchesSame(new MethodMatcher("~s.*"));
+        assertCompiledMatchesSame(not(new PriorityMatcher("2")));
+        assertCompiledMatchesSame(new NotMatcher());
+    }
+
+    @Test
+    public void filterDispatchedOnClass() {
+        Filter filter = new Filter();
+        filter.addChild(and(new ClassMatcher("a.Foo"), new PriorityMatcher("1")));
+        filter.addChild(and(new ClassMatcher("a.Foo"), new MethodMatcher("run")));
+        filter.addChild(and(new ClassMatcher("~.*Baz"), not(new PriorityMatcher("3"))));
+        filter.addChild(and(new FirstVersionMatcher("3", "GEQ"), new MethodMatcher("get")));
+        filter.addChild(new ClassMatcher("b.Foo"));
+        assertCompiledMatchesSame(filter);
+    }
+
+    @Test
+    public void disabledFilterChildrenAreIgnored() {
+        Filter filter = new Filter();
+        Matcher foo = new ClassMatcher("a.Foo");
+        filter.addChild(foo);
+        filter.addChild(and(new ClassMatcher("a.Bar"), new PriorityMatcher("2")));
+        filter.disable(foo);
+        assertCompiledMatchesSame(filter);
+    }
+
+    @Test
+    public void nestedCompoundMatchers() {
+        OrMatcher or = new OrMatcher();
+        or.addChild(and(new ClassMatcher("~a\\..*"), new ClassMatcher("~.*Bar")));
+        or.addChild(not(and(new MethodMatcher("set"), new PriorityMatcher("2"))));
+        assertCompiledMatchesSame(and(or, not(new FirstVersionMatcher("0", "EQ"))));
+        assertCompiledMatchesSame(new AndMatcher());
+        assertCompiledMatchesSame(new OrMatcher());
+    }
+}
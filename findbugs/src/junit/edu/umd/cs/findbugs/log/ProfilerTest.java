@@ -0,0 +1,93 @@
+package edu.umd.cs.findbugs.log;
+
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+public class ProfilerTest extends TestCase {
+
+    static class Outer {
+    }
+
+    static class Inner {
+    }
+
+    public void testSampling() {
+        Profiler profiler = new Profiler(true);
+        profiler.start(Outer.class);
+        profiler.start(Inner.class);
+        assertTrue(profiler.sample(1000));
+        profiler.end(Inner.class);
+        profiler.start(Inner.class);
+        profiler.end(Inner.class);
+        assertTrue(profiler.sample(500));
+        profiler.end(Outer.class);
+        assertFalse(profiler.sample(700));
+
+        // the sampler thread may have added samples of its own
+        assertTrue(profiler.getProfile(Inner.class).getTotalTime() >= 1000);
+        assertEquals(2, profiler.getProfile(Inner.class).getTotalCalls());
+        assertTrue(profiler.getProfile(Outer.class).getTotalTime() >= 500);
+        assertEquals(1, profiler.getProfile(Outer.class).getTotalCalls());
+    }
+
+    public void testSamplingUnbalancedEnd() {
+        Profiler profiler = new Profiler(true);
+        profiler.start(Outer.class);
+        try {
+            profiler.end(Inner.class);
+            fail();
+        } catch (AssertionError e) {
+            // expected
+        }
+    }
+
+    public void testClearResetsAllThreads() throws InterruptedException {
+        final Profiler profiler = new Profiler(true);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cleared = new CountDownLatch(1);
+        Thread other = new Thread() {
+            @Override
+            public void run() {
+                profiler.start(Outer.class);
+                started.countDown();
+                try {
+                    cleared.await();
+                } catch (InterruptedException e) {
+                    // fall through
+                }
+            }
+        };
+        other.start();
+        started.await();
+        profiler.start(Inner.class);
+
+        profiler.clear();
+
+        assertFalse(profiler.sample(1000));
+        cleared.countDown();
+        other.join();
+        assertTrue(profiler.getProfiles().isEmpty());
+    }
+
+    public void testStacksOfFinishedThreadsAreDropped() throws InterruptedException {
+        final Profiler profiler = new Profiler(true);
+        Thread other = new Thread() {
+            @Override
+            public void run() {
+                profiler.start(Outer.class);
+                profiler.end(Outer.class);
+            }
+        };
+        other.start();
+        other.join();
+        other = null;
+        assertEquals(1, profiler.sampleStacks.size());
+
+        for (int i = 0; i < 100 && !profiler.sampleStacks.isEmpty(); i++) {
+            System.gc();
+            profiler.sample(1);
+        }
+        assertTrue(profiler.sampleStacks.isEmpty());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.util.TopologicalSort.OutEdges;
+
+public class TopologicalSortTest extends TestCase {
+
+    static class Graph implements OutEdges<Integer> {
+        final Map<Integer, Set<Integer>> edges = new HashMap<Integer, Set<Integer>>();
+
+        void addEdge(int from, int to) {
+            Set<Integer> s = edges.get(from);
+            if (s == null) {
+                s = new HashSet<Integer>();
+                edges.put(from, s);
+            }
+            s.add(to);
+        }
+
+        public Collection<Integer> getOutEdges(Integer e) {
+            Set<Integer> s = edges.get(e);
+            return s == null ? new HashSet<Integer>() : s;
+        }
+    }
+
+    private static List<Integer> range(int n) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++)
+            result.add(i);
+        return result;
+    }
+
+    /** Assert that every element comes after the elements it has edges to */
+    private static void checkOrder(List<Integer> order, Graph g) {
+        for (int i = 0; i < order.size(); i++)
+            for (int target : g.getOutEdges(order.get(i)))
+                assertTrue(order.get(i) + " before " + target, order.indexOf(target) < i);
+    }
+
+    private static Graph randomDag(int n, int edges, long seed) {
+        Random r = new Random(seed);
+        Graph g = new Graph();
+        for (int k = 0; k < edges; k++) {
+            int a = r.nextInt(n), b = r.nextInt(n);
+            if (a > b)
+                g.addEdge(a, b);
+            else if (b > a)
+                g.addEdge(b, a);
+        }
+        return g;
+    }
+
+    public void testDag() {
+        Graph g = randomDag(200, 800, 1);
+        List<Integer> order = new TopologicalSort.Worker3<Integer>(range(200), g).compute();
+        assertEquals(200, order.size());
+        assertEquals(200, new HashSet<Integer>(order).size());
+        checkOrder(order, g);
+        checkOrder(new TopologicalSort.Worker2<Integer>(range(200), g).compute(), g);
+    }
+
+    public void testCycles() {
+        Graph g = randomDag(100, 300, 2);
+        g.addEdge(3, 90);
+        g.addEdge(10, 50);
+        g.addEdge(50, 10);
+        g.addEdge(7, 7);
+        List<Integer> order = new TopologicalSort.Worker3<Integer>(range(100), g).compute();
+        assertEquals(100, order.size());
+        assertEquals(100, new HashSet<Integer>(order).size());
+    }
+
+    public void testEdgesOutsideCollectionIgnored() {
+        Graph g = new Graph();
+        g.addEdge(1, 0);
+        g.addEdge(1, 5);
+        g.addEdge(2, 1);
+        List<Integer> order = new TopologicalSort.Worker3<Integer>(range(3), g).compute();
+        assertEquals(range(3), order);
+    }
+
+    public void testPartitionIntoLevels() {
+        Graph g = randomDag(150, 400, 3);
+        List<Integer> order = new TopologicalSort.Worker3<Integer>(range(150), g).compute();
+        List<List<Integer>> levels = TopologicalSort.partitionIntoLevels(order, g);
+        Map<Integer, Integer> levelOf = new HashMap<Integer, Integer>();
+        int count = 0;
+        for (int i = 0; i < levels.size(); i++) {
+            assertFalse(levels.get(i).isEmpty());
+            for (int e : levels.get(i))
+                levelOf.put(e, i);
+            count += levels.get(i).size();
+        }
+        assertEquals(150, count);
+        for (int e : order)
+            for (int target : g.getOutEdges(e))
+                assertTrue(levelOf.get(target) < levelOf.get(e));
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.visitclass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.bcel.Constants;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+import org.apache.bcel.generic.ALOAD;
+import org.apache.bcel.generic.ARETURN;
+import org.apache.bcel.generic.ArrayType;
+import org.apache.bcel.generic.CHECKCAST;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.GETSTATIC;
+import org.apache.bcel.generic.GOTO;
+import org.apache.bcel.generic.IINC;
+import org.apache.bcel.generic.ILOAD;
+import org.apache.bcel.generic.INVOKEINTERFACE;
+import org.apache.bcel.generic.INVOKEVIRTUAL;
+import org.apache.bcel.generic.ISTORE;
+import org.apache.bcel.generic.InstructionConstants;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.LDC;
+import org.apache.bcel.generic.LDC2_W;
+import org.apache.bcel.generic.LOOKUPSWITCH;
+import org.apache.bcel.generic.MULTIANEWARRAY;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.POP;
+import org.apache.bcel.generic.POP2;
+import org.apache.bcel.generic.TABLESWITCH;
+import org.apache.bcel.generic.Type;
+
+import edu.umd.cs.findbugs.FindBugs;
+
+/**
+ * Check that replaying the shared DecodedCode of a method gives a visitor the
+ * same events, and the same operands during each of them, as dismantling the
+ * code bytes itself.
+ */
+public class DecodedCodeTest extends TestCase {
+
+    /**
+     * Records every event, with the operands available at the time.
+     */
+    static class RecordingVisitor extends DismantleBytecode {
+        final List<String> events = new ArrayList<String>();
+
+        DecodedCode replayFrom;
+
+        @Override
+        public void visit(Code obj) {
+            if (replayFrom != null)
+                replay(obj, replayFrom);
+            else
+                super.visit(obj);
+        }
+
+        @Override
+        public void sawOpcode(int seen) {
+            events.add("opcode " + seen + " " + describeState());
+        }
+
+        @Override
+        public void sawInt(int seen) {
+            events.add("int " + seen);
+        }
+
+        @Override
+        public void sawLong(long seen) {
+            events.add("long " + seen);
+        }
+
+        @Override
+        public void sawFloat(float seen) {
+            events.add("float " + seen);
+        }
+
+        @Override
+        public void sawDouble(double seen) {
+            events.add("double " + seen);
+        }
+
+        @Override
+        public void sawString(String seen) {
+            events.add("string " + seen);
+        }
+
+        @Override
+        public void sawRegister(int r) {
+            events.add("register " + r);
+        }
+
+        @Override
+        public void sawBranchTo(int targetPC) {
+            events.add("branch " + targetPC);
+        }
+
+        @Override
+        public void sawField() {
+            events.add("field " + getFieldDescriptorOperand());
+        }
+
+        @Override
+        public void sawMethod() {
+            events.add("method " + getMethodDescriptorOperand());
+        }
+
+        @Override
+        public void sawIMethod() {
+            events.add("imethod " + getMethodDescriptorOperand());
+        }
+
+        @Override
+        public void sawClass() {
+            events.add("class " + getClassConstantOperand());
+        }
+
+        private String describeState() {
+            StringBuilder buf = new StringBuilder();
+            buf.append("pc=").append(getPC()).append(" next=").append(getNextPC());
+            buf.append(" wide=").append(isWideOpcode());
+            buf.append(" prev=").append(getPrevOpcode(1)).append(',').append(getPrevOpcode(2));
+            buf.append(" load=").append(isRegisterLoad()).append(" store=").append(isRegisterStore());
+            buf.append(" static=").append(getRefFieldIsStatic());
+            if (getOpcode() != LDC)
+                buf.append(" int=").append(getIntConstant());
+            if (getOpcode() != LDC2_W)
+                buf.append(" long=").append(getLongConstant());
+            for (int i = 0; i < ACCESSORS.length; i++) {
+                buf.append(' ').append(ACCESSORS[i]).append('=');
+                try {
+                    buf.append(access(i));
+                } catch (IllegalStateException e) {
+                    buf.append('-');
+                }
+            }
+            return buf.toString();
+        }
+
+        private static final String[] ACCESSORS = { "register", "branchOffset", "branchTarget", "fallThrough",
+                "defaultOffset", "switchOffsets", "switchLabels", "class", "dottedClass", "name", "sig", "string", "ref",
+                "constant", "classDescriptor" };
+
+        @SuppressWarnings("deprecation")
+        private Object access(int i) {
+            switch (i) {
+            case 0:
+                return getRegisterOperand();
+            case 1:
+                return getBranchOffset();
+            case 2:
+                return getBranchTarget();
+            case 3:
+                return getBranchFallThrough();
+            case 4:
+                return getDefaultSwitchOffset();
+            case 5:
+                return Arrays.toString(getSwitchOffsets());
+            case 6:
+                return Arrays.toString(getSwitchLabels());
+            case 7:
+                return getClassConstantOperand();
+            case 8:
+                return getDottedClassConstantOperand();
+            case 9:
+                return getNameConstantOperand();
+            case 10:
+                return getSigConstantOperand();
+            case 11:
+                return getStringConstantOperand();
+            case 12:
+                return getRefConstantOperand();
+            case 13:
+                return getConstantRefOperand();
+            default:
+                return getClassDescriptorOperand();
+            }
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        FindBugs.setNoAnalysis();
+    }
+
+    private static List<String> record(JavaClass jclass, Method method, boolean shared) {
+        RecordingVisitor visitor = new RecordingVisitor();
+        if (shared)
+            visitor.replayFrom = DecodedCode.decode(jclass, method);
+        // doVisitMethod() would need an analysis cache
+        visitor.setupVisitorForClass(jclass);
+        method.getCode().accept(visitor);
+        return visitor.events;
+    }
+
+    /**
+     * @return the opcodes in all of the methods compared
+     */
+    private static Set<Integer> checkSameEvents(JavaClass jclass) {
+        Set<Integer> opcodes = new HashSet<Integer>();
+        for (Method method : jclass.getMethods()) {
+            if (method.getCode() == null)
+                continue;
+            List<String> dismantled = record(jclass, method, false);
+            List<String> replayed = record(jclass, method, true);
+            assertEquals(jclass.getClassName() + "." + method.getName(), dismantled, replayed);
+            assertFalse(dismantled.isEmpty());
+            for (String event : dismantled)
+                if (event.startsWith("opcode "))
+                    opcodes.add(Integer.valueOf(event.substring(7, event.indexOf(' ', 7))));
+        }
+        return opcodes;
+    }
+
+    private static JavaClass parse(Class<?> c) throws IOException {
+        String resource = c.getName().replace('.', '/') + ".class";
+        InputStream in = c.getClassLoader().getResourceAsStream(resource);
+        assertNotNull(resource, in);
+        try {
+            return new ClassParser(in, resource).parse();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return a class with a method using the wide, ldc_w and ldc2_w forms
+     *         and both kinds of switch, which javac would not emit for a
+     *         small test class
+     */
+    private static JavaClass createUnusualClass() {
+        ClassGen cg = new ClassGen("test.Unusual", "java.lang.Object", "Unusual.java", Constants.ACC_PUBLIC, null);
+        ConstantPoolGen cp = cg.getConstantPool();
+        int smallString = cp.addString("small");
+        // push the next constant past index 255
+        for (int i = 0; i < 300; i++)
+            cp.addString("filler" + i);
+        int bigString = cp.addString("big");
+        int bigInt = cp.addInteger(123456789);
+        int bigFloat = cp.addFloat(1.5f);
+        int longConstant = cp.addLong(1234567890123L);
+        int doubleConstant = cp.addDouble(2.5);
+
+        InstructionList il = new InstructionList();
+        il.append(new LDC(smallString));
+        il.append(new POP());
+        il.append(new LDC(bigString));
+        il.append(new POP());
+        il.append(new LDC(bigInt));
+        il.append(new POP());
+        il.append(new LDC(bigFloat));
+        il.append(new POP());
+        il.append(new LDC2_W(longConstant));
+        il.append(new POP2());
+        il.append(new LDC2_W(doubleConstant));
+        il.append(new POP2());
+        il.append(new ILOAD(300));
+        il.append(new ISTORE(301));
+        il.append(new IINC(300, 1000));
+        il.append(new IINC(2, 1));
+        il.append(new ILOAD(2));
+        InstructionHandle case1 = il.append(new ILOAD(2));
+        InstructionHandle case2 = il.append(new ILOAD(1));
+        InstructionHandle end = il.append(new ALOAD(0));
+        il.insert(case1, new TABLESWITCH(new int[] { 3, 4, 5 }, new InstructionHandle[] { case1, case2, case1 }, end));
+        il.insert(case2, new LOOKUPSWITCH(new int[] { -7, 100, 100000 }, new InstructionHandle[] { case2, end, case1 },
+                end));
+        il.insert(end, new GOTO(end));
+        il.append(new GETSTATIC(cp.addFieldref("java.lang.System", "out", "Ljava/io/PrintStream;")));
+        il.append(new LDC(bigString));
+        il.append(new INVOKEVIRTUAL(cp.addMethodref("java.io.PrintStream", "println", "(Ljava/lang/String;)V")));
+        il.append(new ALOAD(0));
+        il.append(new INVOKEINTERFACE(cp.addInterfaceMethodref("java.util.List", "size", "()I"), 1));
+        il.append(new POP());
+        il.append(new ALOAD(0));
+        il.append(new CHECKCAST(cp.addClass("java.util.List")));
+        il.append(InstructionConstants.ICONST_1);
+        il.append(InstructionConstants.ICONST_2);
+        il.append(new MULTIANEWARRAY(cp.addArrayClass(new ArrayType(Type.INT, 2)), (short) 2));
+        il.append(new ARETURN());
+
+        MethodGen mg = new MethodGen(Constants.ACC_PUBLIC | Constants.ACC_STATIC, Type.OBJECT, new Type[] { Type.OBJECT,
+                Type.INT, Type.INT }, null, "unusual", "test.Unusual", il, cp);
+        mg.setMaxLocals(302);
+        mg.setMaxStack(4);
+        cg.addMethod(mg.getMethod());
+        return cg.getJavaClass();
+    }
+
+    public void testUnusualInstructions() {
+        Set<Integer> opcodes = checkSameEvents(createUnusualClass());
+        for (int opcode : new int[] { Constants.LDC, Constants.LDC_W, Constants.LDC2_W, Constants.ILOAD, Constants.ISTORE,
+                Constants.IINC, Constants.TABLESWITCH, Constants.LOOKUPSWITCH, Constants.GETSTATIC, Constants.INVOKEVIRTUAL,
+                Constants.INVOKEINTERFACE, Constants.CHECKCAST, Constants.MULTIANEWARRAY })
+            assertTrue(Constants.OPCODE_NAMES[opcode], opcodes.contains(Integer.valueOf(opcode)));
+    }
+
+    public void testCompiledClasses() throws IOException {
+        checkSameEvents(parse(DismantleBytecode.class));
+        checkSameEvents(parse(edu.umd.cs.findbugs.OpcodeStack.class));
+        checkSameEvents(parse(DecodedCodeTest.class));
+    }
+}
@@ -0,0 +1,131 @@
+package edu.umd.cs.findbugs.workflow;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.Priorities;
+import edu.umd.cs.findbugs.SortedBugCollection;
+
+public class BugHistoryIndexTest extends TestCase {
+
+    SortedBugCollection bugCollection;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        bugCollection = new SortedBugCollection();
+        bugCollection.setSequenceNumber(3);
+        bugCollection.add(createBug("a.A", 0, -1, false, false));
+        bugCollection.add(createBug("a.B", 1, 1, true, true));
+        bugCollection.add(createBug("b.C", 2, -1, false, false));
+    }
+
+    private static BugInstance createBug(String cls, long first, long last, boolean introducedByChange,
+            boolean removedByChange) {
+        BugInstance bug = new BugInstance("NP_NULL_ON_SOME_PATH", Priorities.NORMAL_PRIORITY);
+        bug.addClass(cls);
+        bug.setFirstVersion(first);
+        bug.setLastVersion(last);
+        bug.setIntroducedByChangeOfExistingClass(introducedByChange);
+        bug.setRemovedByChangeOfPersistingClass(removedByChange);
+        return bug;
+    }
+
+    public void testMineBugHistory() {
+        MineBugHistory history = new MineBugHistory(bugCollection).execute();
+        assertEquals(4, history.versionList.length);
+        assertTuple(history, 0, MineBugHistory.NEWCODE, 1, MineBugHistory.ACTIVE_NOW, 1);
+        assertTuple(history, 1, MineBugHistory.ADDED, 1, MineBugHistory.RETAINED, 1, MineBugHistory.ACTIVE_NOW, 2);
+        assertTuple(history, 2, MineBugHistory.NEWCODE, 1, MineBugHistory.RETAINED, 1, MineBugHistory.REMOVED, 1,
+                MineBugHistory.ACTIVE_NOW, 2);
+        assertTuple(history, 3, MineBugHistory.RETAINED, 2, MineBugHistory.DEAD, 1, MineBugHistory.ACTIVE_NOW, 2);
+    }
+
+    private static void assertTuple(MineBugHistory history, int version, int... keysAndCounts) {
+        int[] expected = new int[MineBugHistory.TUPLE_SIZE];
+        for (int i = 0; i < keysAndCounts.length; i += 2)
+            expected[keysAndCounts[i]] = keysAndCounts[i + 1];
+        for (int key = 0; key < MineBugHistory.TUPLE_SIZE; key++)
+            assertEquals("version " + version + ", key " + key, expected[key], history.versionList[version].get(key));
+    }
+
+    public void testCachedIndex() throws Exception {
+        File cache = File.createTempFile("history", BugHistoryIndex.SUFFIX);
+        byte[] contentHash = { 1, 2, 3 };
+        try {
+            BugHistoryIndex index = BugHistoryIndex.build(bugCollection);
+            index.write(cache, contentHash);
+
+            BugHistoryIndex cached = BugHistoryIndex.read(cache, contentHash);
+            assertNotNull(cached);
+            assertEquals(3, cached.getSequenceNumber());
+            assertEquals(index.size(), cached.size());
+            for (int b = 0; b < index.size(); b++) {
+                assertEquals(index.getFirstVersion(b), cached.getFirstVersion(b));
+                assertEquals(index.getLastVersion(b), cached.getLastVersion(b));
+                assertEquals(index.isIntroducedByChangeOfExistingClass(b), cached.isIntroducedByChangeOfExistingClass(b));
+                assertEquals(index.isRemovedByChangeOfPersistingClass(b), cached.isRemovedByChangeOfPersistingClass(b));
+                assertEquals(index.getPackageName(b), cached.getPackageName(b));
+                assertEquals(index.getInstanceHash(b), cached.getInstanceHash(b));
+            }
+
+            assertNull(BugHistoryIndex.read(cache, new byte[] { 1, 2, 4 }));
+        } finally {
+            cache.delete();
+        }
+    }
+
+    public void testForFile() throws Exception {
+        File dir = File.createTempFile("history", "");
+        dir.delete();
+        File results = File.createTempFile("history", ".xml", dir.getParentFile());
+        File cacheDir = new File(dir, "cache");
+        try {
+            bugCollection.writeXML(results.getPath());
+
+            // nothing is written unless a cache directory is given
+            assertEquals(3, BugHistoryIndex.forFile(results.getPath(), null).size());
+            assertFalse(dir.exists());
+
+            assertEquals(3, BugHistoryIndex.forFile(results.getPath(), cacheDir).size());
+            assertEquals(1, cacheDir.listFiles().length);
+            assertEquals(3, BugHistoryIndex.forFile(results.getPath(), cacheDir).size());
+            assertEquals(1, cacheDir.listFiles().length);
+
+            // a rewrite with the same length and time stamp is still noticed
+            long lastModified = results.lastModified();
+            String xml = read(results);
+            assertEquals(1, xml.split("last=\"1\"", -1).length - 1);
+            FileWriter writer = new FileWriter(results);
+            writer.write(xml.replace("last=\"1\"", "last=\"2\""));
+            writer.close();
+            results.setLastModified(lastModified);
+            BugHistoryIndex index = BugHistoryIndex.forFile(results.getPath(), cacheDir);
+            assertEquals(2, index.getLastVersion(1));
+            assertEquals(2, cacheDir.listFiles().length);
+        } finally {
+            results.delete();
+            if (cacheDir.isDirectory())
+                for (File f : cacheDir.listFiles())
+                    f.delete();
+            cacheDir.delete();
+            dir.delete();
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        byte[] contents = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(contents);
+        } finally {
+            in.close();
+        }
+        return new String(contents, "UTF-8");
+    }
+}
@@ -0,0 +1,83 @@
+package edu.umd.cs.findbugs.workflow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.AnalysisCosts;
+import edu.umd.cs.findbugs.SortedBugCollection;
+
+public class CompareCostsTest extends TestCase {
+
+    private static final long MS = 1000000;
+
+    public void testReadWrite() throws Exception {
+        SortedBugCollection bugCollection = new SortedBugCollection();
+        AnalysisCosts costs = bugCollection.getProjectStats().getAnalysisCosts();
+        costs.addDetectorCost("a.Detector", 3, 5 * MS, 4 * MS, 2048);
+        costs.addClassCost("a.B", 2, 7 * MS, 6 * MS, 4096);
+        costs.addClassCost("a.Cheap", 2, 1000, 1000, 1024);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bugCollection.writeXML(out);
+        SortedBugCollection read = new SortedBugCollection();
+        read.readXML(new ByteArrayInputStream(out.toByteArray()));
+
+        AnalysisCosts readCosts = read.getProjectStats().getAnalysisCosts();
+        assertEquals(1, readCosts.getDetectorCosts().size());
+        AnalysisCosts.Cost detector = readCosts.getDetectorCosts().iterator().next();
+        assertEquals("a.Detector", detector.getName());
+        assertEquals(3, detector.getCalls());
+        assertEquals(5 * MS, detector.getWallNanos());
+        assertEquals(4 * MS, detector.getCpuNanos());
+        assertEquals(2048, detector.getAllocatedBytes());
+        // classes under a millisecond are not written
+        assertEquals(1, readCosts.getClassCosts().size());
+        assertEquals("a.B", readCosts.getClassCosts().iterator().next().getName());
+    }
+
+    public void testWrittenCostsMatchSchema() throws Exception {
+        SortedBugCollection bugCollection = new SortedBugCollection();
+        bugCollection.setTimestamp(System.currentTimeMillis());
+        AnalysisCosts costs = bugCollection.getProjectStats().getAnalysisCosts();
+        costs.addDetectorCost("a.Detector", 3, 5 * MS, 4 * MS, 2048);
+        costs.addClassCost("a.B", 2, 7 * MS, 6 * MS, 4096);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bugCollection.writeXML(out);
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(
+                new File("etc/bugcollection.xsd"));
+        schema.newValidator().validate(new StreamSource(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    public void testCompare() {
+        AnalysisCosts baseline = new AnalysisCosts();
+        baseline.addDetectorCost("Same", 1, 0, 1000 * MS, 0);
+        baseline.addDetectorCost("Slower", 1, 0, 1000 * MS, 0);
+        baseline.addDetectorCost("SlightlySlower", 1, 0, 1000 * MS, 0);
+        baseline.addDetectorCost("MuchSlower", 1, 0, 1000 * MS, 0);
+        AnalysisCosts current = new AnalysisCosts();
+        current.addDetectorCost("Same", 1, 0, 1000 * MS, 0);
+        current.addDetectorCost("Slower", 1, 0, 1500 * MS, 0);
+        current.addDetectorCost("SlightlySlower", 1, 0, 1100 * MS, 0);
+        current.addDetectorCost("MuchSlower", 1, 0, 3000 * MS, 0);
+        current.addDetectorCost("New", 1, 0, 200 * MS, 0);
+        current.addDetectorCost("NewButCheap", 1, 0, 50 * MS, 0);
+
+        List<CompareCosts.Regression> regressions = new CompareCosts().compare(baseline.getDetectorCosts(),
+                current.getDetectorCosts());
+        assertEquals(3, regressions.size());
+        assertEquals("MuchSlower", regressions.get(0).name);
+        assertEquals("+200%", regressions.get(0).getChange());
+        assertEquals("Slower", regressions.get(1).name);
+        assertEquals("New", regressions.get(2).name);
+        assertEquals("new", regressions.get(2).getChange());
+    }
+}
@@ -0,0 +1,91 @@
+package edu.umd.cs.findbugs.workflow;
+
+import java.io.File;
+import java.util.Collection;
+
+import junit.framework.TestCase;
+import edu.umd.cs.findbugs.AnalysisCosts;
+import edu.umd.cs.findbugs.SortedBugCollection;
+
+public class UnionResultsTest extends TestCase {
+
+    private static final long MS = 1000000;
+
+    private File first;
+
+    private File second;
+
+    private File output;
+
+    @Override
+    protected void setUp() throws Exception {
+        first = File.createTempFile("union", ".xml");
+        second = File.createTempFile("union", ".xml");
+        output = File.createTempFile("union", ".xml");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        first.delete();
+        second.delete();
+        output.delete();
+    }
+
+    public void testUnionKeepsInputCosts() {
+        SortedBugCollection orig = createCollection(2);
+        SortedBugCollection more = createCollection(3);
+
+        SortedBugCollection union = UnionResults.union(orig, more);
+
+        checkCosts(union, 5);
+        checkCosts(orig, 2);
+        checkCosts(more, 3);
+    }
+
+    public void testDuplicateHasItsOwnCosts() {
+        SortedBugCollection orig = createCollection(2);
+
+        SortedBugCollection dup = orig.duplicate();
+        checkCosts(dup, 2);
+        dup.getProjectStats().addStats(orig.getProjectStats());
+
+        checkCosts(dup, 4);
+        checkCosts(orig, 2);
+    }
+
+    public void testMainCountsEachFileOnce() throws Exception {
+        createCollection(2).writeXML(first.getPath());
+        createCollection(3).writeXML(second.getPath());
+
+        UnionResults.main(new String[] { "-output", output.getPath(), first.getPath(), second.getPath() });
+
+        SortedBugCollection union = new SortedBugCollection();
+        union.readXML(output.getPath());
+        checkCosts(union, 5);
+    }
+
+    private static SortedBugCollection createCollection(int calls) {
+        SortedBugCollection bugCollection = new SortedBugCollection();
+        bugCollection.setTimestamp(System.currentTimeMillis());
+        AnalysisCosts costs = bugCollection.getProjectStats().getAnalysisCosts();
+        costs.addDetectorCost("a.Detector", calls, calls * MS, calls * MS, calls * 1024L);
+        costs.addClassCost("a.B", calls, calls * MS, calls * MS, calls * 1024L);
+        return bugCollection;
+    }
+
+    private static void checkCosts(SortedBugCollection bugCollection, int calls) {
+        AnalysisCosts costs = bugCollection.getProjectStats().getAnalysisCosts();
+        checkCost(costs.getDetectorCosts(), "a.Detector", calls);
+        checkCost(costs.getClassCosts(), "a.B", calls);
+    }
+
+    private static void checkCost(Collection<AnalysisCosts.Cost> costs, String name, int calls) {
+        assertEquals(1, costs.size());
+        AnalysisCosts.Cost cost = costs.iterator().next();
+        assertEquals(name, cost.getName());
+        assertEquals(calls, cost.getCalls());
+        assertEquals(calls * MS, cost.getWallNanos());
+        assertEquals(calls * MS, cost.getCpuNanos());
+        assertEquals(calls * 1024L, cost.getAllocatedBytes());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.xml;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+
+import junit.framework.TestCase;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentFactory;
+import org.dom4j.io.DocumentSource;
+import org.xml.sax.InputSource;
+
+public class XMLWriteableReaderTest extends TestCase {
+
+    static final XMLWriteable SAMPLE = new XMLWriteable() {
+        public void writeXML(XMLOutput xmlOutput) throws IOException {
+            xmlOutput.beginDocument();
+            xmlOutput.openTag("Root", new XMLAttributeList().addAttribute("version", "1").addAttribute("name", "a<b"));
+            xmlOutput.startTag("Empty");
+            xmlOutput.addAttribute("x", "1");
+            xmlOutput.addAttribute("y", "2");
+            xmlOutput.addAttribute("x", "3");
+            xmlOutput.stopTag(true);
+            xmlOutput.startTag("Text");
+            xmlOutput.stopTag(false);
+            xmlOutput.writeText("some & text");
+            xmlOutput.closeTag("Text");
+            xmlOutput.openTag("Data");
+            xmlOutput.writeCDATA("<not a tag>");
+            xmlOutput.closeTag("Data");
+            xmlOutput.openCloseTag("Leaf");
+            xmlOutput.closeTag("Root");
+            xmlOutput.finish();
+        }
+    };
+
+    private static String transform(Source source) throws Exception {
+        StringWriter out = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(out));
+        return out.toString();
+    }
+
+    public void testSameAsTree() throws Exception {
+        Document document = new DocumentFactory().createDocument();
+        SAMPLE.writeXML(new Dom4JXMLOutput(document));
+
+        String fromTree = transform(new DocumentSource(document));
+        String fromEvents = transform(new SAXSource(new XMLWriteableReader(SAMPLE), new InputSource()));
+        assertEquals(fromTree, fromEvents);
+        assertTrue(fromEvents.indexOf("<Empty x=\"3\" y=\"2\"/>") >= 0);
+    }
+}
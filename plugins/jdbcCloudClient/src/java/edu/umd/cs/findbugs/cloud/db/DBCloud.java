@@ -43,7 +43,9 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -355,6 +357,77 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
     
     static final boolean LOG_BUG_UPLOADS = SystemProperties.getBoolean("cloud.buguploads.log");
 
+    /**
+     * Maximal number of rows looked up by one query, or written by one JDBC
+     * batch
+     */
+    static final int BATCH_SIZE = Math.max(1, SystemProperties.getInt("cloud.db.batchSize", 100));
+
+    /**
+     * Number of ids below the highest evaluation id seen so far which are
+     * read again on resync. Auto-increment ids are handed out when a row is
+     * inserted, not when it is committed, so a writer can commit an
+     * evaluation after one with a higher id has already been read. Such
+     * evaluations are found as long as fewer than this many evaluations were
+     * inserted while the transaction was open. Rows read twice are dropped
+     * because the designations of an issue are a set.
+     */
+    static final int EVALUATION_ID_WINDOW = Math.max(0, SystemProperties.getInt("cloud.db.evaluationIdWindow", 1000));
+
+    /** see {@link #BATCH_SIZE} */
+    int batchSize = BATCH_SIZE;
+
+    /**
+     * Highest id of the evaluations loaded from database; only accessed from
+     * the database synchronization thread
+     */
+    int lastEvaluationId;
+
+    /**
+     * @return SQL list "(?,?,...)" with given number of parameters
+     */
+    static String parameterList(int count) {
+        StringBuilder buf = new StringBuilder(2 * count + 1);
+        buf.append('(');
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                buf.append(',');
+            buf.append('?');
+        }
+        buf.append(')');
+        return buf.toString();
+    }
+
+    /**
+     * Load database ids and timestamps of the issues with given hashes,
+     * querying at most {@link #batchSize} issues at once
+     */
+    void loadIssues(Connection c, Collection<String> hashes) throws SQLException {
+        List<String> all = new ArrayList<String>(hashes);
+        for (int start = 0; start < all.size(); start += batchSize) {
+            List<String> chunk = all.subList(start, Math.min(all.size(), start + batchSize));
+            PreparedStatement ps = c.prepareStatement("SELECT id, hash, firstSeen, lastSeen FROM findbugs_issue WHERE hash IN "
+                    + parameterList(chunk.size()));
+            try {
+                int col = 1;
+                for (String hash : chunk)
+                    ps.setString(col++, hash);
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    col = 1;
+                    int id = rs.getInt(col++);
+                    String hash = rs.getString(col++);
+                    Timestamp firstSeen = rs.getTimestamp(col++);
+                    Timestamp lastSeen = rs.getTimestamp(col++);
+                    loadDatabaseInfo(hash, id, firstSeen.getTime(), lastSeen.getTime());
+                }
+                rs.close();
+            } finally {
+                ps.close();
+            }
+        }
+    }
+
     volatile boolean sendToDatabasePopulated = false;
 
     class PopulateBugs implements Update {
@@ -398,22 +471,7 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
                         if (CloudFactory.DEBUG) {
                             System.out.printf("Loading %d individual bugs from database%n", sendToDatabase.size());
                         }
-                        for (String hash : sendToDatabase.keySet()) {
-                            ps = c.prepareStatement("SELECT id, firstSeen, lastSeen FROM findbugs_issue WHERE hash=?");
-                            ps.setString(1, hash);
-                            rs = ps.executeQuery();
-                            if (rs.next()) {
-                                int col = 1;
-                                int id = rs.getInt(col++);
-                                Timestamp firstSeen = rs.getTimestamp(col++);
-                                Timestamp lastSeen = rs.getTimestamp(col++);
-                                loadDatabaseInfo(hash, id, firstSeen.getTime(),
-                                        lastSeen.getTime());
-                            }
-                            rs.close();
-                            ps.close();
-
-                        }
+                        loadIssues(c, sendToDatabase.keySet());
                     } else {
                         if (CloudFactory.DEBUG) {
                             System.out.printf("Bulk loading all %d bugs from database%n", issuesInDatabase);
@@ -438,35 +496,31 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
                 if (startShutdown)
                     return;
 
-                ps = c.prepareStatement("SELECT id, issueId, who, designation, comment, time FROM findbugs_evaluation");
-
-                rs = ps.executeQuery();
-
-                while (rs.next()) {
-                    int col = 1;
-                    int id = rs.getInt(col++);
-                    int issueId = rs.getInt(col++);
-                    String who = rs.getString(col++);
-                    String designation = rs.getString(col++);
-                    String comment = rs.getString(col++);
-                    Timestamp when = rs.getTimestamp(col++);
-                    BugData data = fromDatabase.get(issueId);
-
-                    if (data != null) {
-                        BugDesignation bd = new BugDesignation(designation, when.getTime(), comment, who);
-                        if (data.designations.add(bd)) {
-                            bugDesignationId.put(bd, id);
-                            updates++;
-                            for (BugInstance bug : data.bugs) {
-                                updatedIssue(bug);
-                            }
-                        }
-
+                // on resync, only evaluations above the ones already seen
+                // (less EVALUATION_ID_WINDOW) are loaded
+                if (performFullLoad && issuesInDatabase > 10 * sendToDatabase.size()) {
+                    Statement stmt = c.createStatement();
+                    rs = stmt.executeQuery("SELECT MAX(id) FROM findbugs_evaluation");
+                    int maxId = rs.next() ? rs.getInt(1) : 0;
+                    rs.close();
+                    stmt.close();
+                    List<Integer> issueIds = new ArrayList<Integer>(fromDatabase.keySet());
+                    for (int start = 0; start < issueIds.size(); start += batchSize) {
+                        List<Integer> chunk = issueIds.subList(start, Math.min(issueIds.size(), start + batchSize));
+                        ps = c.prepareStatement("SELECT id, issueId, who, designation, comment, time FROM findbugs_evaluation"
+                                + " WHERE id <= ? AND issueId IN " + parameterList(chunk.size()));
+                        int col = 1;
+                        ps.setInt(col++, maxId);
+                        for (Integer issueId : chunk)
+                            ps.setInt(col++, issueId);
+                        updates += loadEvaluations(ps);
                     }
-
+                    lastEvaluationId = Math.max(lastEvaluationId, maxId);
+                } else {
+                    ps = c.prepareStatement("SELECT id, issueId, who, designation, comment, time FROM findbugs_evaluation WHERE id > ?");
+                    ps.setInt(1, Math.max(0, lastEvaluationId - EVALUATION_ID_WINDOW));
+                    updates += loadEvaluations(ps);
                 }
-                rs.close();
-                ps.close();
                 if (startShutdown)
                     return;
 
@@ -578,11 +632,14 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
                 }
             } else {
                 long stillPresentAt = bugCollection.getTimestamp();
+                List<BugInstance> newBugs = new ArrayList<BugInstance>();
+                List<BugData> backdated = new ArrayList<BugData>();
+                List<BugData> stillPresent = new ArrayList<BugData>();
                 for (BugInstance b : bugCollection.getCollection())
                     if (!skipBug(b)) {
                         BugData bd = getBugData(b.getInstanceHash());
                         if (!bd.inDatabase) {
-                            storeNewBug(b, stillPresentAt);
+                            newBugs.add(b);
                             if (LOG_BUG_UPLOADS) 
                                 System.out.printf("NEW %tD: %s%n", new Date(getLocalFirstSeen(b)), b.getMessage());
                         } else {
@@ -594,10 +651,10 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
                                     System.out.printf("BACKDATED %tD -> %tD: %s%n", new Date(bd.firstSeen), new Date(firstSeenLocally), b.getMessage());
                
                                 bd.firstSeen = firstSeenLocally;
-                                storeFirstSeen(bd);
+                                backdated.add(bd);
                             } else if (FindBugs.validTimestamp(stillPresentAt)
                                     && stillPresentAt > bd.lastSeen + LAST_SEEN_UPDATE_WINDOW) {
-                                storeLastSeen(bd, stillPresentAt);
+                                stillPresent.add(bd);
                             }
 
                             BugDesignation designation = bd.getPrimaryDesignation();
@@ -605,6 +662,12 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
                                 b.setUserDesignation(new BugDesignation(designation));
                         }
                     }
+                if (!newBugs.isEmpty())
+                    storeNewBugs(newBugs, stillPresentAt);
+                if (!backdated.isEmpty())
+                    storeFirstSeen(backdated);
+                if (!stillPresent.isEmpty())
+                    storeLastSeen(stillPresent, stillPresentAt);
                 initialSyncDone.countDown();
                 assert !scheduled;
 
@@ -635,6 +698,48 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
         }
     }
 
+    /**
+     * Execute given evaluation query and record the new evaluations
+     *
+     * @return number of the new evaluations
+     */
+    @SuppressWarnings("boxing")
+    int loadEvaluations(PreparedStatement ps) throws SQLException {
+        int updates = 0;
+        try {
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                int col = 1;
+                int id = rs.getInt(col++);
+                int issueId = rs.getInt(col++);
+                String who = rs.getString(col++);
+                String designation = rs.getString(col++);
+                String comment = rs.getString(col++);
+                Timestamp when = rs.getTimestamp(col++);
+                if (id > lastEvaluationId)
+                    lastEvaluationId = id;
+                BugData data = fromDatabase.get(issueId);
+
+                if (data != null) {
+                    BugDesignation bd = new BugDesignation(designation, when.getTime(), comment, who);
+                    if (data.designations.add(bd)) {
+                        bugDesignationId.put(bd, id);
+                        updates++;
+                        for (BugInstance bug : data.bugs) {
+                            updatedIssue(bug);
+                        }
+                    }
+
+                }
+
+            }
+            rs.close();
+        } finally {
+            ps.close();
+        }
+        return updates;
+    }
+
     boolean scheduled = false;
 
     int numSkipped = 0;
@@ -877,28 +982,39 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
     }
 
     public void storeNewBug(BugInstance bug, long analysisTime) {
+        storeNewBugs(Collections.singletonList(bug), analysisTime);
+    }
 
+    public void storeNewBugs(Collection<BugInstance> bugs, long analysisTime) {
         checkForShutdown();
-        queue.add(new StoreNewBug(bug, analysisTime));
+        queue.add(new StoreNewBug(bugs, analysisTime));
     }
 
     public void storeFirstSeen(final BugData bd) {
+        storeFirstSeen(Collections.singletonList(bd));
+    }
+
+    public void storeFirstSeen(final Collection<BugData> bugs) {
         checkForShutdown();
         queue.add(new Update() {
 
             public void execute(DatabaseSyncTask t) throws SQLException {
-                t.storeFirstSeen(bd);
+                t.storeFirstSeen(bugs);
 
             }
         });
     }
 
     public void storeLastSeen(final BugData bd, final long timestamp) {
+        storeLastSeen(Collections.singletonList(bd), timestamp);
+    }
+
+    public void storeLastSeen(final Collection<BugData> bugs, final long timestamp) {
         checkForShutdown();
         queue.add(new Update() {
 
             public void execute(DatabaseSyncTask t) throws SQLException {
-                t.storeLastSeen(bd, timestamp);
+                t.storeLastSeen(bugs, timestamp);
 
             }
         });
@@ -1041,32 +1157,39 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
             updatesSentToDatabase++;
         }
 
-        public void newBug(BugInstance b) {
+        /**
+         * Insert given bugs into the database, {@link #batchSize} rows per
+         * JDBC batch
+         */
+        public void newBugs(Collection<BugInstance> bugs) {
             try {
-                BugData bug = getBugData(b.getInstanceHash());
-
-                if (bug.inDatabase)
-                    return;
-
-                PreparedStatement insertBugData = c
-                        .prepareStatement(
-                                "INSERT INTO findbugs_issue (firstSeen, lastSeen, hash, bugPattern, priority, primaryClass) VALUES (?,?,?,?,?,?)",
-                                Statement.RETURN_GENERATED_KEYS);
-                int col = 1;
-                insertBugData.setTimestamp(col++, new Timestamp(bug.firstSeen));
-                insertBugData.setTimestamp(col++, new Timestamp(bug.lastSeen));
-                insertBugData.setString(col++, bug.instanceHash);
-                insertBugData.setString(col++, b.getBugPattern().getType());
-                insertBugData.setInt(col++, b.getPriority());
-                insertBugData.setString(col++, b.getPrimaryClass().getClassName());
-                insertBugData.executeUpdate();
-                ResultSet rs = insertBugData.getGeneratedKeys();
-                if (rs.next()) {
-                    bug.id = rs.getInt(1);
-                    bug.inDatabase = true;
+                List<BugInstance> all = new ArrayList<BugInstance>(bugs);
+                for (int start = 0; start < all.size(); start += batchSize) {
+                    List<BugInstance> chunk = all.subList(start, Math.min(all.size(), start + batchSize));
+                    PreparedStatement insertBugData = c
+                            .prepareStatement("INSERT INTO findbugs_issue (firstSeen, lastSeen, hash, bugPattern, priority, primaryClass) VALUES (?,?,?,?,?,?)");
+                    List<String> hashes = new ArrayList<String>(chunk.size());
+                    try {
+                        for (BugInstance b : chunk) {
+                            BugData bug = getBugData(b.getInstanceHash());
+                            int col = 1;
+                            insertBugData.setTimestamp(col++, new Timestamp(bug.firstSeen));
+                            insertBugData.setTimestamp(col++, new Timestamp(bug.lastSeen));
+                            insertBugData.setString(col++, bug.instanceHash);
+                            insertBugData.setString(col++, b.getBugPattern().getType());
+                            insertBugData.setInt(col++, b.getPriority());
+                            insertBugData.setString(col++, b.getPrimaryClass().getClassName());
+                            insertBugData.addBatch();
+                            hashes.add(bug.instanceHash);
+                        }
+                        insertBugData.executeBatch();
+                    } finally {
+                        insertBugData.close();
+                    }
+                    // generated keys of batches are not portable, so look up
+                    // the ids of the new rows instead
+                    loadIssues(c, hashes);
                 }
-                rs.close();
-                insertBugData.close();
 
             } catch (Exception e) {
                 displayMessage("Problems looking up user annotations", e);
@@ -1074,18 +1197,27 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
 
         }
 
-        public void storeFirstSeen(BugData bug) {
-            if (bug.firstSeen <= FIRST_LIGHT)
-                return;
+        public void storeFirstSeen(Collection<BugData> bugs) {
             try {
-
                 PreparedStatement insertBugData = c.prepareStatement("UPDATE  findbugs_issue SET firstSeen = ? WHERE id = ?");
-                Timestamp date = new Timestamp(bug.firstSeen);
-                int col = 1;
-                insertBugData.setTimestamp(col++, date);
-                insertBugData.setInt(col++, bug.id);
-                insertBugData.executeUpdate();
-                insertBugData.close();
+                try {
+                    int batched = 0;
+                    for (BugData bug : bugs) {
+                        if (bug.firstSeen <= FIRST_LIGHT)
+                            continue;
+                        Timestamp date = new Timestamp(bug.firstSeen);
+                        int col = 1;
+                        insertBugData.setTimestamp(col++, date);
+                        insertBugData.setInt(col++, bug.id);
+                        insertBugData.addBatch();
+                        if (++batched % batchSize == 0)
+                            insertBugData.executeBatch();
+                    }
+                    if (batched % batchSize != 0)
+                        insertBugData.executeBatch();
+                } finally {
+                    insertBugData.close();
+                }
 
             } catch (Exception e) {
                 displayMessage("Problems looking up user annotations", e);
@@ -1093,19 +1225,27 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
 
         }
 
-        public void storeLastSeen(BugData bug, long timestamp) {
-            if (bug.lastSeen >= now + ONE_DAY)
-                return;
-
+        public void storeLastSeen(Collection<BugData> bugs, long timestamp) {
             try {
-
                 PreparedStatement insertBugData = c.prepareStatement("UPDATE  findbugs_issue SET lastSeen = ? WHERE id = ?");
-                Timestamp date = new Timestamp(timestamp);
-                int col = 1;
-                insertBugData.setTimestamp(col++, date);
-                insertBugData.setInt(col++, bug.id);
-                insertBugData.executeUpdate();
-                insertBugData.close();
+                try {
+                    Timestamp date = new Timestamp(timestamp);
+                    int batched = 0;
+                    for (BugData bug : bugs) {
+                        if (bug.lastSeen >= now + ONE_DAY)
+                            continue;
+                        int col = 1;
+                        insertBugData.setTimestamp(col++, date);
+                        insertBugData.setInt(col++, bug.id);
+                        insertBugData.addBatch();
+                        if (++batched % batchSize == 0)
+                            insertBugData.executeBatch();
+                    }
+                    if (batched % batchSize != 0)
+                        insertBugData.executeBatch();
+                } finally {
+                    insertBugData.close();
+                }
 
             } catch (Exception e) {
                 displayMessage("Problems looking up user annotations", e);
@@ -1245,32 +1385,40 @@ public class DBCloud extends AbstractCloud implements OnlineCloud {
     }
 
     class StoreNewBug implements Update {
-        public StoreNewBug(BugInstance bug, long analysisTime) {
-            this.bug = bug;
+        public StoreNewBug(Collection<BugInstance> bugs, long analysisTime) {
+            this.bugs = bugs;
             this.analysisTime = analysisTime;
 
         }
 
-        final BugInstance bug;
+        final Collection<BugInstance> bugs;
 
         final long analysisTime;
 
         public void execute(DatabaseSyncTask t) throws SQLException {
-            BugData data = getBugData(bug.getInstanceHash());
-            if (data.lastSeen < analysisTime && FindBugs.validTimestamp(analysisTime))
-                data.lastSeen = analysisTime;
-
-            long timestamp = getLocalFirstSeen(bug);
-
-            if (timestamp < FIRST_LIGHT)
-                timestamp = analysisTime;
-            timestamp = sanityCheckFirstSeen(sanityCheckLastSeen(timestamp));
-            data.firstSeen = timestamp;
-            if (data.inDatabase)
+            // one row per hash, even if several bugs share it
+            Map<BugData, BugInstance> newBugs = new LinkedHashMap<BugData, BugInstance>();
+            for (BugInstance bug : bugs) {
+                BugData data = getBugData(bug.getInstanceHash());
+                if (data.lastSeen < analysisTime && FindBugs.validTimestamp(analysisTime))
+                    data.lastSeen = analysisTime;
+
+                long timestamp = getLocalFirstSeen(bug);
+
+                if (timestamp < FIRST_LIGHT)
+                    timestamp = analysisTime;
+                timestamp = sanityCheckFirstSeen(sanityCheckLastSeen(timestamp));
+                data.firstSeen = timestamp;
+                if (data.inDatabase || newBugs.containsKey(data))
+                    continue;
+                newBugs.put(data, bug);
+            }
+            if (newBugs.isEmpty())
                 return;
 
-            t.newBug(bug);
-            data.inDatabase = true;
+            t.newBugs(newBugs.values());
+            for (BugData data : newBugs.keySet())
+                data.inDatabase = true;
         }
     }
 
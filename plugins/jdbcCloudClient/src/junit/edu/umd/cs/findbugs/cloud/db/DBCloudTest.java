@@ -0,0 +1,295 @@
+/*
+ * FindBugs - Find Bugs in Java programs
+ * Copyright (C) 2013, University of Maryland
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package edu.umd.cs.findbugs.cloud.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.PropertyBundle;
+import edu.umd.cs.findbugs.SortedBugCollection;
+import edu.umd.cs.findbugs.cloud.CloudPlugin;
+import edu.umd.cs.findbugs.cloud.CloudPluginBuilder;
+import edu.umd.cs.findbugs.cloud.db.DBCloud.BugData;
+import edu.umd.cs.findbugs.cloud.username.NoNameLookup;
+
+/**
+ * Runs the database synchronization of DBCloud against an in-memory HSQLDB
+ * database with the schema of findbugs.sql.
+ */
+public class DBCloudTest extends TestCase {
+
+    private static final long SAMPLE_DATE = 1200000000L * 1000L;
+
+    private static final int[] BATCH_SIZES = { 1, 2, 3, 100 };
+
+    private static int databaseCount;
+
+    private String url;
+
+    private Connection c;
+
+    private SortedBugCollection bugCollection;
+
+    private DBCloud cloud;
+
+    @Override
+    protected void setUp() throws Exception {
+        Class.forName("org.hsqldb.jdbcDriver");
+        url = "jdbc:hsqldb:mem:dbcloudtest" + (databaseCount++);
+        c = DriverManager.getConnection(url, "sa", "");
+        Statement stmt = c.createStatement();
+        stmt.execute("CREATE TABLE findbugs_issue (id INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,"
+                + " firstSeen TIMESTAMP NOT NULL, lastSeen TIMESTAMP NOT NULL, hash VARCHAR(32) NOT NULL,"
+                + " bugPattern VARCHAR(80) NOT NULL, priority INTEGER NOT NULL, primaryClass VARCHAR(512) NOT NULL, UNIQUE (hash))");
+        stmt.execute("CREATE TABLE findbugs_evaluation (id INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,"
+                + " issueId INTEGER NOT NULL, who VARCHAR(128) NOT NULL, invocationId INTEGER,"
+                + " designation VARCHAR(16) NOT NULL, comment LONGVARCHAR NOT NULL, time TIMESTAMP NOT NULL)");
+        stmt.execute("CREATE TABLE findbugs_bugreport (id INTEGER GENERATED BY DEFAULT AS IDENTITY (START WITH 1) PRIMARY KEY,"
+                + " hash VARCHAR(32) NOT NULL, bugReportId VARCHAR(64) NOT NULL, whoFiled VARCHAR(64) NOT NULL,"
+                + " whenFiled TIMESTAMP NOT NULL, status VARCHAR(64), assignedTo VARCHAR(64), componentId VARCHAR(64),"
+                + " componentName VARCHAR(128))");
+        stmt.close();
+
+        // the invocation record is not what is tested here
+        DBCloud.invocationRecorded = true;
+        bugCollection = new SortedBugCollection();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (cloud != null)
+            cloud.resyncTimer.cancel();
+        Statement stmt = c.createStatement();
+        stmt.execute("SHUTDOWN");
+        stmt.close();
+        c.close();
+    }
+
+    private DBCloud createCloud(int batchSize) {
+        PropertyBundle properties = new PropertyBundle();
+        properties.setProperty("findbugs.jdbc.dbDriver", "org.hsqldb.jdbcDriver");
+        properties.setProperty("findbugs.jdbc.dbUrl", url);
+        properties.setProperty("findbugs.jdbc.dbName", "findbugs");
+        properties.setProperty("findbugs.jdbc.dbUser", "sa");
+        properties.setProperty("findbugs.jdbc.dbPassword", "");
+        properties.setProperty("findbugs.cloud." + DBCloud.FINDBUGS_USER_PROPERTY, "tester");
+        CloudPlugin plugin = new CloudPluginBuilder().setCloudid("DBCloudTest").setClassLoader(DBCloud.class.getClassLoader())
+                .setCloudClass(DBCloud.class).setUsernameClass(NoNameLookup.class).setProperties(properties)
+                .setDescription("none").setDetails("none").createCloudPlugin();
+        cloud = new DBCloud(plugin, bugCollection, new Properties());
+        cloud.batchSize = batchSize;
+        cloud.runner.c = c;
+        return cloud;
+    }
+
+    private static BugInstance createBug(String hash) {
+        BugInstance bug = new BugInstance("NP_ALWAYS_NULL", 1).addClass("com.example.Foo" + hash);
+        bug.setInstanceHash(hash);
+        return bug;
+    }
+
+    private int insertIssue(String hash, long firstSeen, long lastSeen) throws SQLException {
+        PreparedStatement ps = c.prepareStatement("INSERT INTO findbugs_issue (firstSeen, lastSeen, hash, bugPattern,"
+                + " priority, primaryClass) VALUES (?,?,?,'NP_ALWAYS_NULL',1,'com.example.Foo')");
+        ps.setTimestamp(1, new Timestamp(firstSeen));
+        ps.setTimestamp(2, new Timestamp(lastSeen));
+        ps.setString(3, hash);
+        ps.executeUpdate();
+        ps.close();
+        return getIssueId(hash);
+    }
+
+    private int getIssueId(String hash) throws SQLException {
+        PreparedStatement ps = c.prepareStatement("SELECT id FROM findbugs_issue WHERE hash = ?");
+        ps.setString(1, hash);
+        ResultSet rs = ps.executeQuery();
+        int result = rs.next() ? rs.getInt(1) : -1;
+        rs.close();
+        ps.close();
+        return result;
+    }
+
+    private long getTimestamp(String column, String hash) throws SQLException {
+        PreparedStatement ps = c.prepareStatement("SELECT " + column + " FROM findbugs_issue WHERE hash = ?");
+        ps.setString(1, hash);
+        ResultSet rs = ps.executeQuery();
+        assertTrue(rs.next());
+        long result = rs.getTimestamp(1).getTime();
+        rs.close();
+        ps.close();
+        return result;
+    }
+
+    /** insert an evaluation with given id, as if committed now */
+    private void insertEvaluation(int id, int issueId, String who, String designation, long time) throws SQLException {
+        PreparedStatement ps = c.prepareStatement("INSERT INTO findbugs_evaluation (id, issueId, who, designation, comment, time)"
+                + " VALUES (?,?,?,?,'',?)");
+        ps.setInt(1, id);
+        ps.setInt(2, issueId);
+        ps.setString(3, who);
+        ps.setString(4, designation);
+        ps.setTimestamp(5, new Timestamp(time));
+        ps.executeUpdate();
+        ps.close();
+    }
+
+    private void executeQueuedUpdates() throws SQLException {
+        DBCloud.Update u;
+        while ((u = cloud.queue.poll()) != null)
+            u.execute(cloud.runner);
+    }
+
+    public void testLoadIssuesInChunks() throws Exception {
+        List<String> hashes = Arrays.asList("a1", "a2", "a3", "a4", "a5");
+        List<Integer> ids = new ArrayList<Integer>();
+        for (String hash : hashes)
+            ids.add(insertIssue(hash, SAMPLE_DATE, SAMPLE_DATE + 1000));
+
+        for (int batchSize : BATCH_SIZES) {
+            createCloud(batchSize);
+            for (String hash : hashes)
+                cloud.getBugData(hash);
+            cloud.getBugData("missing");
+            List<String> lookup = new ArrayList<String>(hashes);
+            lookup.add(2, "missing");
+
+            cloud.loadIssues(c, lookup);
+
+            for (int i = 0; i < hashes.size(); i++) {
+                BugData bd = cloud.getBugData(hashes.get(i));
+                assertTrue("batch size " + batchSize, bd.inDatabase);
+                assertEquals("batch size " + batchSize, ids.get(i).intValue(), bd.id);
+                assertEquals(SAMPLE_DATE, bd.firstSeen);
+                assertEquals(SAMPLE_DATE + 1000, bd.lastSeen);
+                assertSame(bd, cloud.fromDatabase.get(bd.id));
+            }
+            assertFalse(cloud.getBugData("missing").inDatabase);
+            assertEquals(hashes.size(), cloud.fromDatabase.size());
+            cloud.resyncTimer.cancel();
+        }
+    }
+
+    public void testBatchedInsertsAndUpdates() throws Exception {
+        for (int batchSize : BATCH_SIZES) {
+            createCloud(batchSize);
+            String prefix = "b" + batchSize + "_";
+            List<BugInstance> bugs = new ArrayList<BugInstance>();
+            for (int i = 0; i < 5; i++)
+                bugs.add(createBug(prefix + i));
+            for (BugInstance bug : bugs) {
+                BugData bd = cloud.getBugData(bug.getInstanceHash());
+                bd.firstSeen = SAMPLE_DATE;
+                bd.lastSeen = SAMPLE_DATE;
+            }
+
+            cloud.runner.newBugs(bugs);
+
+            List<BugData> all = new ArrayList<BugData>();
+            for (BugInstance bug : bugs) {
+                BugData bd = cloud.getBugData(bug.getInstanceHash());
+                assertTrue(bd.inDatabase);
+                assertEquals(getIssueId(bd.instanceHash), bd.id);
+                all.add(bd);
+            }
+
+            for (BugData bd : all)
+                bd.firstSeen = SAMPLE_DATE - 1000;
+            cloud.runner.storeFirstSeen(all);
+            cloud.runner.storeLastSeen(all, SAMPLE_DATE + 5000);
+            for (BugData bd : all) {
+                assertEquals("batch size " + batchSize, SAMPLE_DATE - 1000, getTimestamp("firstSeen", bd.instanceHash));
+                assertEquals("batch size " + batchSize, SAMPLE_DATE + 5000, getTimestamp("lastSeen", bd.instanceHash));
+            }
+            cloud.resyncTimer.cancel();
+        }
+        Statement stmt = c.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM findbugs_issue");
+        assertTrue(rs.next());
+        assertEquals(5 * BATCH_SIZES.length, rs.getInt(1));
+        rs.close();
+        stmt.close();
+    }
+
+    public void testInitialSyncOfLargeDatabase() throws Exception {
+        int known = insertIssue("c1", SAMPLE_DATE, SAMPLE_DATE);
+        int other = insertIssue("c2", SAMPLE_DATE, SAMPLE_DATE);
+        insertEvaluation(1, known, "reviewer", "MUST_FIX", SAMPLE_DATE + 100);
+        insertEvaluation(2, other, "reviewer", "NOT_A_BUG", SAMPLE_DATE + 200);
+        bugCollection.add(createBug("c1"));
+        bugCollection.add(createBug("c3"));
+        createCloud(1);
+        // more issues in the database than we have bugs, so only the
+        // issues and evaluations of our bugs are looked up
+        cloud.issuesInDatabase = 1000;
+
+        cloud.new PopulateBugs(true).execute(cloud.runner);
+        executeQueuedUpdates();
+
+        BugData c1 = cloud.getBugData("c1");
+        assertEquals(known, c1.id);
+        assertEquals(1, c1.designations.size());
+        assertEquals("MUST_FIX", c1.designations.first().getDesignationKey());
+        assertFalse(cloud.fromDatabase.containsKey(other));
+        BugData c3 = cloud.getBugData("c3");
+        assertTrue(c3.inDatabase);
+        assertEquals(getIssueId("c3"), c3.id);
+        assertEquals(2, cloud.lastEvaluationId);
+    }
+
+    public void testResyncLoadsEvaluationsCommittedOutOfOrder() throws Exception {
+        int issueId = insertIssue("d1", SAMPLE_DATE, SAMPLE_DATE);
+        createCloud(DBCloud.BATCH_SIZE);
+        cloud.getBugData("d1");
+        cloud.loadIssues(c, Arrays.asList("d1"));
+        BugData d1 = cloud.getBugData("d1");
+
+        insertEvaluation(10, issueId, "first", "MUST_FIX", SAMPLE_DATE + 100);
+        cloud.new PopulateBugs(false).execute(cloud.runner);
+        assertEquals(1, d1.designations.size());
+        assertEquals(1, cloud.resyncCount);
+        assertEquals(10, cloud.lastEvaluationId);
+
+        // id 7 was handed out before id 10, but committed after it was read
+        insertEvaluation(7, issueId, "second", "NOT_A_BUG", SAMPLE_DATE + 50);
+        insertEvaluation(11, issueId, "third", "NEEDS_STUDY", SAMPLE_DATE + 200);
+        cloud.new PopulateBugs(false).execute(cloud.runner);
+        assertEquals(3, d1.designations.size());
+        assertEquals(2, cloud.resyncCount);
+        assertEquals(11, cloud.lastEvaluationId);
+
+        // evaluations in the window which were read before are not new
+        Object resync = cloud.resync;
+        cloud.new PopulateBugs(false).execute(cloud.runner);
+        assertEquals(3, d1.designations.size());
+        assertSame(resync, cloud.resync);
+    }
+}
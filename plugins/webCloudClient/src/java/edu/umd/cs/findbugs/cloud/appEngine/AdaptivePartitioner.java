@@ -0,0 +1,65 @@
+package edu.umd.cs.findbugs.cloud.appEngine;
+
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Hands out consecutive partitions of a list to concurrent workers. The
+ * partition size starts small and is adapted to the observed request latency:
+ * it doubles while requests finish in less than half of the target time, and
+ * halves when they take longer than the target time.
+ */
+class AdaptivePartitioner<T> {
+    private final List<T> items;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long targetMillis;
+
+    private int size;
+
+    private int next;
+
+    AdaptivePartitioner(List<T> items, int initialSize, int maxSize, long targetMillis) {
+        this.items = items;
+        this.minSize = initialSize;
+        this.maxSize = Math.max(initialSize, maxSize);
+        this.targetMillis = targetMillis;
+        this.size = initialSize;
+    }
+
+    /**
+     * @return number of workers which can be kept busy at the beginning
+     */
+    int initialPartitionCount() {
+        return (items.size() + minSize - 1) / minSize;
+    }
+
+    /**
+     * @return next partition, or null if all items were handed out
+     */
+    synchronized @CheckForNull List<T> next() {
+        if (next >= items.size())
+            return null;
+        int start = next;
+        next = Math.min(items.size(), start + size);
+        return items.subList(start, next);
+    }
+
+    /**
+     * Record the time needed to process a partition of the given size
+     */
+    synchronized void completed(int partitionSize, long elapsedMillis) {
+        if (elapsedMillis > targetMillis)
+            size = Math.max(minSize, Math.min(size, partitionSize) / 2);
+        else if (elapsedMillis < targetMillis / 2 && partitionSize >= size)
+            size = Math.min(maxSize, size * 2);
+    }
+
+    synchronized int getPartitionSize() {
+        return size;
+    }
+}
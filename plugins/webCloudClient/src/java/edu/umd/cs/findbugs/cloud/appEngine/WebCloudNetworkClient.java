@@ -79,6 +79,23 @@ public class WebCloudNetworkClient {
      */
     private static final int HASH_CHECK_PARTITION_SIZE = 20;
 
+    private static final int MAX_HASH_CHECK_PARTITION_SIZE = 200;
+
+    private static final int MAX_BUG_UPLOAD_PARTITION_SIZE = 50;
+
+    /**
+     * Partitions grow or shrink so that one request takes about this long;
+     * see {@link AdaptivePartitioner}
+     */
+    private static final long TARGET_REQUEST_MILLIS = 2000;
+
+    /**
+     * Maximal number of concurrent hash check or upload requests. One thread
+     * of the background executor is left for the task waiting for them.
+     * Package-private for testing.
+     */
+    static final int MAX_CONCURRENT_REQUESTS = 3;
+
     private WebCloudClient cloudClient;
 
     private WebCloudNameLookup lookerupper;
@@ -196,14 +213,20 @@ public class WebCloudNetworkClient {
                                            final ConcurrentMap<String, BugInstance> bugsByHash) {
         final int numBugs = hashes.size();
         final AtomicInteger numberOfBugsCheckedSoFar = new AtomicInteger();
-        for (int i = 0; i < numBugs; i += HASH_CHECK_PARTITION_SIZE) {
-            final List<String> partition = hashes.subList(i, Math.min(i + HASH_CHECK_PARTITION_SIZE, numBugs));
+        final AdaptivePartitioner<String> partitioner = new AdaptivePartitioner<String>(hashes, HASH_CHECK_PARTITION_SIZE,
+                MAX_HASH_CHECK_PARTITION_SIZE, TARGET_REQUEST_MILLIS);
+        int workers = Math.min(MAX_CONCURRENT_REQUESTS, partitioner.initialPartitionCount());
+        for (int i = 0; i < workers; i++) {
             tasks.add(new Callable<Object>() {
                 public Object call() throws Exception {
-                    checkHashesPartition(partition, bugsByHash);
-                    numberOfBugsCheckedSoFar.addAndGet(partition.size());
-                    int sofar = numberOfBugsCheckedSoFar.get();
-                    task.update("Checked " + sofar + " of " + numBugs, (sofar * 100.0 / numBugs));
+                    List<String> partition;
+                    while ((partition = partitioner.next()) != null) {
+                        long start = System.currentTimeMillis();
+                        checkHashesPartition(partition, bugsByHash);
+                        partitioner.completed(partition.size(), System.currentTimeMillis() - start);
+                        int sofar = numberOfBugsCheckedSoFar.addAndGet(partition.size());
+                        task.update("Checked " + sofar + " of " + numBugs, (sofar * 100.0 / numBugs));
+                    }
                     return null;
                 }
             });
@@ -320,14 +343,29 @@ public class WebCloudNetworkClient {
                     + "Would you like to sign in and upload them to the Cloud?");
         final MutableCloudTask task = cloudClient.createTask("Uploading to the " + cloudClient.getCloudName());
         final AtomicInteger bugsUploaded = new AtomicInteger(0);
-        for (int i = 0; i < bugCount; i += BUG_UPLOAD_PARTITION_SIZE) {
-            final List<BugInstance> partition = newBugs.subList(i, Math.min(bugCount, i + BUG_UPLOAD_PARTITION_SIZE));
+        final AdaptivePartitioner<BugInstance> partitioner = new AdaptivePartitioner<BugInstance>(newBugs,
+                BUG_UPLOAD_PARTITION_SIZE, MAX_BUG_UPLOAD_PARTITION_SIZE, TARGET_REQUEST_MILLIS);
+        int workers = Math.min(MAX_CONCURRENT_REQUESTS, partitioner.initialPartitionCount());
+        for (int i = 0; i < workers; i++) {
             callables.add(new Callable<Void>() {
                 public Void call() throws Exception {
-                    uploadNewBugsPartition(partition);
-                    bugsUploaded.addAndGet(partition.size());
-                    int uploaded = bugsUploaded.get();
-                    task.update("Uploaded " + uploaded + " of " + bugCount + " issues", uploaded * 100.0 / bugCount);
+                    // the command for the next partition is built while the
+                    // current one is being uploaded
+                    List<BugInstance> partition = partitioner.next();
+                    Future<UploadIssues> command = partition == null ? null : buildUploadIssuesCommandInUIThread(partition);
+                    while (partition != null) {
+                        List<BugInstance> nextPartition = partitioner.next();
+                        Future<UploadIssues> nextCommand = nextPartition == null ? null
+                                : buildUploadIssuesCommandInUIThread(nextPartition);
+                        long start = System.currentTimeMillis();
+                        LOGGER.finer("Uploading " + partition.size() + " bugs to App Engine Cloud");
+                        uploadNewBugsPartition(getUploadIssuesCommand(command));
+                        partitioner.completed(partition.size(), System.currentTimeMillis() - start);
+                        int uploaded = bugsUploaded.addAndGet(partition.size());
+                        task.update("Uploaded " + uploaded + " of " + bugCount + " issues", uploaded * 100.0 / bugCount);
+                        partition = nextPartition;
+                        command = nextCommand;
+                    }
                     return null;
                 }
             });
@@ -656,10 +694,7 @@ public class WebCloudNetworkClient {
         return conn.go();
     }
 
-    private void uploadNewBugsPartition(final Collection<BugInstance> bugsToSend) throws IOException {
-
-        LOGGER.finer("Uploading " + bugsToSend.size() + " bugs to App Engine Cloud");
-        UploadIssues uploadIssues = buildUploadIssuesCommandInUIThread(bugsToSend);
+    private void uploadNewBugsPartition(@CheckForNull UploadIssues uploadIssues) throws IOException {
         if (uploadIssues == null)
             return;
         openPostUrl("/upload-issues", uploadIssues);
@@ -685,10 +720,10 @@ public class WebCloudNetworkClient {
         });
     }
 
-    private UploadIssues buildUploadIssuesCommandInUIThread(final Collection<BugInstance> bugsToSend) {
+    private Future<UploadIssues> buildUploadIssuesCommandInUIThread(final Collection<BugInstance> bugsToSend) {
         ExecutorService updateExecutor = cloudClient.getBugUpdateExecutor();
 
-        Future<UploadIssues> future = updateExecutor.submit(new Callable<UploadIssues>() {
+        return updateExecutor.submit(new Callable<UploadIssues>() {
             public UploadIssues call() throws Exception {
                 Builder uploadIssuesCmd = UploadIssues.newBuilder();
                 if (cloudClient.getCloudTokenProperty() != null) {
@@ -709,6 +744,9 @@ public class WebCloudNetworkClient {
                 return uploadIssuesCmd.build();
             }
         });
+    }
+
+    private @CheckForNull UploadIssues getUploadIssuesCommand(Future<UploadIssues> future) {
         try {
             return future.get();
         } catch (InterruptedException e) {
@@ -771,6 +809,7 @@ public class WebCloudNetworkClient {
             IOException firstException = null;
             IOException lastException = null;
             for (int i = 0; i < 3 && !finished; i++) {
+                boolean keepAlive = false;
                 if (i > 0 && lastException != null)
                     LOGGER.warning("Retrying connection to " + url + " due to "
                             + lastException.getClass().getSimpleName() + ": " + lastException.getMessage());
@@ -790,8 +829,10 @@ public class WebCloudNetworkClient {
                     OutputStream out = conn.getOutputStream();
                     write(out);
                     out.close();
-                    result = finish(conn.getResponseCode(), conn.getResponseMessage(), conn.getInputStream());
+                    InputStream in = conn.getInputStream();
+                    result = finish(conn.getResponseCode(), conn.getResponseMessage(), in);
                     finished = true;
+                    keepAlive = consume(in);
                 } catch (UnknownHostException ex2) {
                     UnknownHostException ex = new UnknownHostException(ex2.getMessage());
                     if (firstException == null)
@@ -813,10 +854,12 @@ public class WebCloudNetworkClient {
                         } catch (IOException e) {
                             // skip this check
                         }
-                        try {
-                            conn.disconnect();
-                        } catch (Exception e) {
-                            // ignore
+                        if (!keepAlive) {
+                            try {
+                                conn.disconnect();
+                            } catch (Exception e) {
+                                // ignore
+                            }
                         }
                     }
                 }
@@ -827,5 +870,26 @@ public class WebCloudNetworkClient {
                 throw firstException;
             return null;
         }
+
+        /**
+         * Read the rest of the response and close it, so that the underlying
+         * (keep-alive) connection can be reused by the next request.
+         *
+         * @return true if the response was consumed completely
+         */
+        private boolean consume(@CheckForNull InputStream in) {
+            if (in == null)
+                return false;
+            try {
+                byte[] buf = new byte[1024];
+                while (in.read(buf) >= 0) {
+                    // skip
+                }
+                in.close();
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
     }
 }
@@ -0,0 +1,52 @@
+package edu.umd.cs.findbugs.cloud.appEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class AdaptivePartitionerTests extends TestCase {
+
+    private static List<Integer> items(int count) {
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++)
+            items.add(i);
+        return items;
+    }
+
+    public void testHandsOutAllItemsOnce() {
+        AdaptivePartitioner<Integer> partitioner = new AdaptivePartitioner<Integer>(items(45), 10, 40, 1000);
+        assertEquals(5, partitioner.initialPartitionCount());
+        List<Integer> seen = new ArrayList<Integer>();
+        List<Integer> partition;
+        while ((partition = partitioner.next()) != null) {
+            seen.addAll(partition);
+            partitioner.completed(partition.size(), 10);
+        }
+        assertEquals(items(45), seen);
+    }
+
+    public void testGrowsWhileFast() {
+        AdaptivePartitioner<Integer> partitioner = new AdaptivePartitioner<Integer>(items(1000), 10, 40, 1000);
+        assertEquals(10, partitioner.next().size());
+        partitioner.completed(10, 100);
+        assertEquals(20, partitioner.next().size());
+        partitioner.completed(20, 100);
+        partitioner.completed(40, 100);
+        assertEquals(40, partitioner.getPartitionSize());
+    }
+
+    public void testShrinksWhenSlow() {
+        AdaptivePartitioner<Integer> partitioner = new AdaptivePartitioner<Integer>(items(1000), 10, 80, 1000);
+        partitioner.completed(10, 100);
+        partitioner.completed(20, 100);
+        partitioner.completed(40, 100);
+        assertEquals(80, partitioner.getPartitionSize());
+        partitioner.completed(80, 3000);
+        assertEquals(40, partitioner.getPartitionSize());
+        partitioner.completed(40, 3000);
+        partitioner.completed(20, 3000);
+        partitioner.completed(10, 3000);
+        assertEquals(10, partitioner.getPartitionSize());
+    }
+}
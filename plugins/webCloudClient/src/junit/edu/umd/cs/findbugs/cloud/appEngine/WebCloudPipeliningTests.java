@@ -0,0 +1,203 @@
+package edu.umd.cs.findbugs.cloud.appEngine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.cloud.Cloud.SigninState;
+import edu.umd.cs.findbugs.cloud.MutableCloudTask;
+import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.FindIssues;
+import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.FindIssuesResponse;
+import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.Issue;
+import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.UploadIssues;
+import edu.umd.cs.findbugs.cloud.appEngine.protobuf.WebCloudProtoUtil;
+
+/**
+ * Runs the hash check and upload workers concurrently, all of them taking
+ * partitions from the same {@link AdaptivePartitioner}.
+ */
+public class WebCloudPipeliningTests extends AbstractWebCloudTest {
+
+    private static final int BUG_COUNT = 1000;
+
+    /** hashes sent, one list per request, in the order the requests were answered */
+    private final List<List<String>> requests = Collections.synchronizedList(new ArrayList<List<String>>());
+
+    /** released once MAX_CONCURRENT_REQUESTS requests are waiting for their responses */
+    private CountDownLatch allWorkersBusy;
+
+    private List<BugInstance> bugs;
+
+    private MockWebCloudClient cloud;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        assertTrue(WebCloudNetworkClient.MAX_CONCURRENT_REQUESTS > 1);
+        allWorkersBusy = new CountDownLatch(WebCloudNetworkClient.MAX_CONCURRENT_REQUESTS);
+        bugs = new ArrayList<BugInstance>();
+        for (int i = 0; i < BUG_COUNT; i++) {
+            BugInstance bug = new BugInstance("PIPELINED", 2).addClass("PipelinedClass" + i);
+            bug.setInstanceHash(Integer.toHexString(0x1000 + i));
+            bugCollection.add(bug);
+            bugs.add(bug);
+        }
+        cloud = createWebCloudClient();
+        cloud.setNetworkClient(new PipelinedNetworkClient());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        cloud.awaitBackgroundTasks();
+        super.tearDown();
+    }
+
+    public void testHashCheckWorkersShareOnePartitioner() throws Exception {
+        List<String> hashes = new ArrayList<String>();
+        ConcurrentMap<String, BugInstance> bugsByHash = new ConcurrentHashMap<String, BugInstance>();
+        for (BugInstance bug : bugs) {
+            hashes.add(bug.getInstanceHash());
+            bugsByHash.put(bug.getInstanceHash(), bug);
+        }
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        cloud.getNetworkClient().generateHashCheckRunnables(cloud.createTask("Checking"), hashes, tasks, bugsByHash);
+        assertEquals(WebCloudNetworkClient.MAX_CONCURRENT_REQUESTS, tasks.size());
+
+        runConcurrently(tasks);
+
+        checkEveryHashSentOnce(hashes, 20);
+        assertTrue("not found: " + bugsByHash.keySet(), bugsByHash.isEmpty());
+        for (BugInstance bug : bugs)
+            assertTrue(bug.getInstanceHash(), cloud.isInCloud(bug));
+    }
+
+    public void testUploadWorkersShareOnePartitioner() throws Exception {
+        cloud.setSigninState(SigninState.SIGNED_IN);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        MutableCloudTask task = cloud.getNetworkClient().generateUploadRunnables(bugs, tasks);
+        assertNotNull(task);
+        assertEquals(WebCloudNetworkClient.MAX_CONCURRENT_REQUESTS, tasks.size());
+
+        runConcurrently(tasks);
+
+        List<String> hashes = new ArrayList<String>();
+        for (BugInstance bug : bugs)
+            hashes.add(bug.getInstanceHash());
+        checkEveryHashSentOnce(hashes, 5);
+        for (BugInstance bug : bugs)
+            assertTrue(bug.getInstanceHash(), cloud.isInCloud(bug));
+    }
+
+    // =============================== end of tests ==========================
+
+    private <T> void runConcurrently(List<? extends Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<T> future : executor.invokeAll(tasks, 30, TimeUnit.SECONDS))
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("requests in flight at once", 0, allWorkersBusy.getCount());
+    }
+
+    private void checkEveryHashSentOnce(List<String> hashes, int initialPartitionSize) {
+        List<String> sent = new ArrayList<String>();
+        int largest = 0;
+        for (List<String> request : requests) {
+            sent.addAll(request);
+            largest = Math.max(largest, request.size());
+        }
+        assertEquals("hashes sent", hashes.size(), sent.size());
+        assertEquals(new HashSet<String>(hashes), new HashSet<String>(sent));
+        // the partitioner grows the partitions, since every request is fast
+        assertTrue("largest request: " + largest, largest > initialPartitionSize);
+        assertTrue("requests: " + requests.size(), requests.size() < BUG_COUNT / initialPartitionSize);
+    }
+
+    private class PipelinedNetworkClient extends WebCloudNetworkClient {
+        @Override
+        HttpURLConnection openConnection(String url) throws IOException {
+            return new PipelinedConnection(url);
+        }
+    }
+
+    /**
+     * Answers each request as if all issues were found. The first requests
+     * only get their response once every worker has sent one.
+     */
+    private class PipelinedConnection extends HttpURLConnection {
+        private final String path;
+
+        private final ByteArrayOutputStream postData = new ByteArrayOutputStream();
+
+        PipelinedConnection(String path) throws IOException {
+            super(new URL("http://localhost" + path));
+            this.path = path;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return postData;
+        }
+
+        @Override
+        public int getResponseCode() {
+            return 200;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            allWorkersBusy.countDown();
+            try {
+                allWorkersBusy.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted");
+            }
+            if (path.equals("/find-issues")) {
+                FindIssues findIssues = FindIssues.parseFrom(postData.toByteArray());
+                requests.add(WebCloudProtoUtil.decodeHashes(findIssues.getMyIssueHashesList()));
+                FindIssuesResponse.Builder response = FindIssuesResponse.newBuilder();
+                for (int i = 0; i < findIssues.getMyIssueHashesCount(); i++)
+                    response.addFoundIssues(Issue.newBuilder().setFirstSeen(SAMPLE_DATE).setLastSeen(SAMPLE_DATE).build());
+                return new ByteArrayInputStream(response.build().toByteArray());
+            }
+            assertEquals("/upload-issues", path);
+            List<String> uploaded = new ArrayList<String>();
+            for (Issue issue : UploadIssues.parseFrom(postData.toByteArray()).getNewIssuesList())
+                uploaded.add(WebCloudProtoUtil.decodeHash(issue.getHash()));
+            requests.add(uploaded);
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+}
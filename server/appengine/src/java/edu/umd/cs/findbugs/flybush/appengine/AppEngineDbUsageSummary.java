@@ -105,12 +105,12 @@ public class AppEngineDbUsageSummary implements DbUsageSummary {
 
     @Override
     public byte[] getBlob() {
-        return blob.getBytes();
+        return blob == null ? null : blob.getBytes();
     }
 
     @Override
     public void setBlob(byte[] blob) {
-        this.blob = new Blob(blob);
+        this.blob = blob == null ? null : new Blob(blob);
     }
 
     @Override
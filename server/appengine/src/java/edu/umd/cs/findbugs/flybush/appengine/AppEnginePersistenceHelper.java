@@ -2,6 +2,7 @@ package edu.umd.cs.findbugs.flybush.appengine;
 
 import static com.google.appengine.api.taskqueue.TaskOptions.Builder.withUrl;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -44,6 +45,10 @@ import edu.umd.cs.findbugs.flybush.PersistenceHelper;
 
 public class AppEnginePersistenceHelper extends PersistenceHelper {
     private static final Logger LOGGER = Logger.getLogger(AppEnginePersistenceHelper.class.getName());
+
+    /** the datastore runs a sub-query per value of a contains() filter, and allows at most 30 of them */
+    private static final int MAX_CONTAINS_VALUES = 30;
+
     private Random random = new Random();
 
     @Override
@@ -174,8 +179,20 @@ public class AppEnginePersistenceHelper extends PersistenceHelper {
         javax.jdo.Query query = pm
                 .newQuery("select hash, firstSeen, lastSeen, bugLink, bugLinkType, hasEvaluations, evaluations from "
                         + getDbIssueClassname() + " where :hashes.contains(hash)");
-        List<Object[]> results = (List<Object[]>) query.execute(hashes);
+        List<String> hashList = new ArrayList<String>();
+        for (String hash : hashes) {
+            hashList.add(hash);
+        }
         Map<String, DbIssue> map = new HashMap<String, DbIssue>();
+        for (int i = 0; i < hashList.size(); i += MAX_CONTAINS_VALUES) {
+            List<String> chunk = hashList.subList(i, Math.min(hashList.size(), i + MAX_CONTAINS_VALUES));
+            addIssues(map, (List<Object[]>) query.execute(chunk));
+        }
+        return map;
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    private void addIssues(Map<String, DbIssue> map, List<Object[]> results) {
         for (Object[] result : results) {
             DbIssue issue = createDbIssue();
             issue.setHash((String) result[0]);
@@ -194,7 +211,6 @@ public class AppEnginePersistenceHelper extends PersistenceHelper {
             issue.setEvaluationsDontLook((Set<DbEvaluation>) result[6]);
             map.put(issue.getHash(), issue);
         }
-        return map;
     }
 
     @Override
@@ -22,6 +22,10 @@ public abstract class AbstractFlybushServlet extends HttpServlet {
     protected static final Logger LOGGER = Logger.getLogger(AbstractFlybushServlet.class.getName());
 
     protected PersistenceHelper persistenceHelper;
+
+    /** shared by all servlets of the application; null if caching is disabled */
+    protected IssueCache issueCache;
+
     private JspHelper jspHelper = new JspHelper();
 
     /** for testing */
@@ -29,6 +33,11 @@ public abstract class AbstractFlybushServlet extends HttpServlet {
         this.persistenceHelper = persistenceHelper;
     }
 
+    /** for testing */
+    void setIssueCache(IssueCache issueCache) {
+        this.issueCache = issueCache;
+    }
+
     @Override
     public void init(ServletConfig config) throws ServletException {
         super.init(config);
@@ -38,6 +47,7 @@ public abstract class AbstractFlybushServlet extends HttpServlet {
         } catch (Exception e) {
             throw new ServletException("Couldn't load persistence helper " + helperCls, e);
         }
+        issueCache = IssueCache.getInstance(config.getServletContext());
     }
 
     @Override
@@ -0,0 +1,127 @@
+package edu.umd.cs.findbugs.flybush;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+
+import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.Issue;
+
+/**
+ * LRU cache of terse {@link Issue} protos, keyed by instance hash. The protos
+ * are built once by {@link QueryServlet} and reused until the issue is changed
+ * through {@link UpdateServlet}, which invalidates the affected hashes.
+ * <p>
+ * A server may run on several instances, and updates made on one instance are
+ * not seen by the caches of the others. Entries therefore expire after a
+ * configurable time, which bounds how stale a cached issue can get.
+ * <p>
+ * The cache is shared by all servlets of a web application, and is disabled
+ * unless the {@value #SIZE_PARAM} context parameter is set.
+ */
+public class IssueCache {
+    public static final String SIZE_PARAM = "edu.umd.cs.findbugs.flybush.issueCacheSize";
+
+    public static final String EXPIRATION_PARAM = "edu.umd.cs.findbugs.flybush.issueCacheSeconds";
+
+    private static final int DEFAULT_EXPIRATION_SECONDS = 60;
+
+    private static final String ATTRIBUTE = IssueCache.class.getName();
+
+    private final Map<String, Entry> entries;
+
+    private final long expirationMillis;
+
+    private int hits;
+
+    private int misses;
+
+    public IssueCache(final int maxSize, long expirationMillis) {
+        this.expirationMillis = expirationMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cache shared by the servlets of the given context, or null
+     *         if caching is not enabled
+     */
+    public static IssueCache getInstance(ServletContext context) {
+        String sizeParam = context.getInitParameter(SIZE_PARAM);
+        if (sizeParam == null)
+            return null;
+        int size = Integer.parseInt(sizeParam.trim());
+        if (size <= 0)
+            return null;
+        synchronized (context) {
+            IssueCache cache = (IssueCache) context.getAttribute(ATTRIBUTE);
+            if (cache == null) {
+                String expirationParam = context.getInitParameter(EXPIRATION_PARAM);
+                int seconds = expirationParam != null ? Integer.parseInt(expirationParam.trim())
+                        : DEFAULT_EXPIRATION_SECONDS;
+                cache = new IssueCache(size, seconds * 1000L);
+                context.setAttribute(ATTRIBUTE, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * @return cached protos for those of the given hashes which are present
+     *         and not yet expired
+     */
+    public synchronized Map<String, Issue> getAll(Iterable<String> hashes) {
+        Map<String, Issue> result = new HashMap<String, Issue>();
+        long now = System.currentTimeMillis();
+        for (String hash : hashes) {
+            Entry entry = entries.get(hash);
+            if (entry == null) {
+                misses++;
+            } else if (now - entry.created > expirationMillis) {
+                entries.remove(hash);
+                misses++;
+            } else {
+                result.put(hash, entry.issue);
+                hits++;
+            }
+        }
+        return result;
+    }
+
+    public synchronized void put(String hash, Issue issue) {
+        entries.put(hash, new Entry(issue, System.currentTimeMillis()));
+    }
+
+    public synchronized void invalidate(String hash) {
+        entries.remove(hash);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "IssueCache[size=" + entries.size() + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+
+    private static class Entry {
+        final Issue issue;
+
+        final long created;
+
+        Entry(Issue issue, long created) {
+            this.issue = issue;
+            this.created = created;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package edu.umd.cs.findbugs.flybush;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -32,6 +34,9 @@ import edu.umd.cs.findbugs.cloud.appEngine.protobuf.WebCloudProtoUtil;
 @SuppressWarnings("serial")
 public class QueryServlet extends AbstractFlybushServlet {
 
+    /** sent in place of issues which are not in the database */
+    private static final Issue MISSING_ISSUE = Issue.newBuilder().build();
+
     @Override
     protected void handlePost(PersistenceManager pm, HttpServletRequest req, HttpServletResponse resp, String uri)
             throws IOException {
@@ -51,21 +56,40 @@ public class QueryServlet extends AbstractFlybushServlet {
         }
 
         List<String> hashes = WebCloudProtoUtil.decodeHashes(loginMsg.getMyIssueHashesList());
-        Map<String, DbIssue> issues = persistenceHelper.findIssues(pm, hashes);
+        Map<String, Issue> cached = issueCache != null ? issueCache.getAll(hashes) : new HashMap<String, Issue>();
+        Map<String, DbIssue> issues;
+        if (cached.size() < hashes.size()) {
+            List<String> uncached = new ArrayList<String>();
+            for (String hash : hashes) {
+                if (!cached.containsKey(hash))
+                    uncached.add(hash);
+            }
+            issues = persistenceHelper.findIssues(pm, uncached);
+        } else {
+            issues = Collections.emptyMap();
+        }
         FindIssuesResponse.Builder issueProtos = FindIssuesResponse.newBuilder();
         issueProtos.setCurrentServerTime(System.currentTimeMillis());
         int found = 0;
         for (String hash : hashes) {
-            DbIssue dbIssue = issues.get(hash);
-            Builder issueBuilder = Issue.newBuilder();
-            if (dbIssue != null) {
+            Issue protoIssue = cached.get(hash);
+            if (protoIssue == null) {
+                DbIssue dbIssue = issues.get(hash);
+                if (dbIssue == null) {
+                    issueProtos.addFoundIssues(MISSING_ISSUE);
+                    continue;
+                }
+                Builder issueBuilder = Issue.newBuilder();
                 buildTerseIssueProto(dbIssue, issueBuilder);
-                found++;
+                protoIssue = issueBuilder.build();
+                if (issueCache != null)
+                    issueCache.put(hash, protoIssue);
             }
-
-            Issue protoIssue = issueBuilder.build();
+            found++;
             issueProtos.addFoundIssues(protoIssue);
         }
+        if (issueCache != null)
+            LOGGER.info("Served " + cached.size() + " issues from cache: " + issueCache);
         LOGGER.info("Found on server: " + found + ", missing from server: " + (hashes.size() - found));
 
         resp.setStatus(200);
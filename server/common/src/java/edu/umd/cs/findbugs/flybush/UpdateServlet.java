@@ -34,6 +34,9 @@ import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.UploadIssues;
 public class UpdateServlet extends AbstractFlybushServlet {
     static final int ONE_DAY_IN_MILLIS = 1000 * 60 * 60 * 24;
 
+    /** App Engine runs a sub-query per value of a contains() filter, and allows at most 30 of them */
+    static final int MAX_HASHES_PER_QUERY = 30;
+
     @SuppressWarnings({ "deprecation" })
     private static final long FINDBUGS_FIRST_RELEASE = new Date("Jan 23, 1996").getTime();
 
@@ -60,9 +63,11 @@ public class UpdateServlet extends AbstractFlybushServlet {
 
             } else if (req.getRequestURI().equals("/update-evaluation-emails")) {
                 updateEvaluationEmails(resp, pm);
+                clearIssueCache();
 
             } else if (req.getRequestURI().equals("/update-db-jun29")) {
                 updateDatabaseJun29(resp, pm);
+                clearIssueCache();
 
             } else {
                 super.doGet(req, resp);
@@ -217,6 +222,7 @@ public class UpdateServlet extends AbstractFlybushServlet {
         boolean completed = false;
         int updated = 0;
         try {
+            Map<String, Long> newFirstSeenByHash = Maps.newHashMap();
             for (IssueGroup issueGroup : issues.getIssueGroupsList()) {
                 long newFirstSeen = issueGroup.getTimestamp();
                 if (newFirstSeen < FINDBUGS_FIRST_RELEASE) {
@@ -225,10 +231,19 @@ public class UpdateServlet extends AbstractFlybushServlet {
                             + "- date too early - " + dateFormat.format(new Date(newFirstSeen)));
                     continue;
                 }
+                for (String hash : WebCloudProtoUtil.decodeHashes(issueGroup.getIssueHashesList())) {
+                    Long previous = newFirstSeenByHash.get(hash);
+                    if (previous == null || newFirstSeen < previous)
+                        newFirstSeenByHash.put(hash, newFirstSeen);
+                }
+            }
+            List<String> hashes = new ArrayList<String>(newFirstSeenByHash.keySet());
+            for (int i = 0; i < hashes.size(); i += MAX_HASHES_PER_QUERY) {
+                List<String> chunk = hashes.subList(i, Math.min(hashes.size(), i + MAX_HASHES_PER_QUERY));
                 Query query = pm.newQuery("select from " + persistenceHelper.getDbIssueClassname()
                         + " where :hashes.contains(hash)");
-                for (DbIssue issue : (List<? extends DbIssue>) query.execute(WebCloudProtoUtil.decodeHashes(issueGroup
-                        .getIssueHashesList()))) {
+                for (DbIssue issue : (List<? extends DbIssue>) query.execute(chunk)) {
+                    long newFirstSeen = newFirstSeenByHash.get(issue.getHash());
                     long storedFirstSeen = issue.getFirstSeen();
                     long firstSeen = storedFirstSeen == 0 ? newFirstSeen : Math.min(newFirstSeen, storedFirstSeen);
                     if (storedFirstSeen != firstSeen) {
@@ -238,6 +253,7 @@ public class UpdateServlet extends AbstractFlybushServlet {
                         try {
                             pm.makePersistent(issue);
                             tx.commit();
+                            invalidateCachedIssue(issue.getHash());
                             updated++;
                         } finally {
                             if (tx.isActive())
@@ -262,6 +278,7 @@ public class UpdateServlet extends AbstractFlybushServlet {
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, "Could not delete all data - only " + deleted + " entities", e);
         }
+        clearIssueCache();
         setResponse(resp, 200, "Deleted " + deleted + " entities");
     }
 
@@ -304,6 +321,7 @@ public class UpdateServlet extends AbstractFlybushServlet {
 
                 start = System.currentTimeMillis();
                 commitInTransaction(pm, dbIssue);
+                invalidateCachedIssue(hashStr);
                 LOGGER.info("Committed new issue in " + (System.currentTimeMillis() - start) + "ms: " + dbIssue.getPrimaryClass());
             } else {
                 LOGGER.warning("User is trying to upload existing issue " + hashStr);
@@ -346,6 +364,7 @@ public class UpdateServlet extends AbstractFlybushServlet {
             pm.makePersistent(issue);
 
             tx.commit();
+            invalidateCachedIssue(hash);
 
         } finally {
             if (tx.isActive())
@@ -381,6 +400,7 @@ public class UpdateServlet extends AbstractFlybushServlet {
             pm.makePersistent(issue);
 
             tx.commit();
+            invalidateCachedIssue(decodedHash);
 
         } finally {
             if (tx.isActive())
@@ -393,6 +413,16 @@ public class UpdateServlet extends AbstractFlybushServlet {
     // ========================= end of request handling
     // ================================
 
+    private void invalidateCachedIssue(String hash) {
+        if (issueCache != null)
+            issueCache.invalidate(hash);
+    }
+
+    private void clearIssueCache() {
+        if (issueCache != null)
+            issueCache.clear();
+    }
+
     private List<String> decodeHashesForIssues(UploadIssues issues) {
         List<String> hashes = new ArrayList<String>();
         for (Issue issue : issues.getNewIssuesList()) {
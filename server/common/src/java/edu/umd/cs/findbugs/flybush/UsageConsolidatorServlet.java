@@ -22,7 +22,7 @@ public class UsageConsolidatorServlet extends AbstractFlybushServlet {
      * update this when adding a new DbUsageSummary field, or when changing / fixing
      * bugs in the UsageDataConsolidator
      */
-    public static final int CONSOLIDATION_DATA_VERSION = 13;
+    public static final int CONSOLIDATION_DATA_VERSION = 14;
 
     public static final DateFormat DATE_FORMAT = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, Locale.ENGLISH);
 
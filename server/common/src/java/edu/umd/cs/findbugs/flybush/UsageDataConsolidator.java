@@ -1,56 +1,49 @@
 package edu.umd.cs.findbugs.flybush;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.InetAddress;
-import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.jdo.Query;
 
-import com.google.common.base.Supplier;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
-import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
+/**
+ * Counts unique users and IP addresses, overall and per category, in
+ * {@link HyperLogLog} sketches. The sketches are stored in the blobs of the
+ * {@link DbUsageSummary} entries, so summaries of short periods can be merged
+ * into summaries of longer ones without going back to the raw usage entries.
+ */
 public class UsageDataConsolidator {
     protected static final Logger LOGGER = Logger.getLogger(UsageDataConsolidator.class.getName());
     
     private final PersistenceHelper persistenceHelper;
-    public Multimap<String, Long> uuidsByPlugin = newHashSetMultiMap();
-    public Multimap<String, Long> uuidsByAppName = newHashSetMultiMap();
-    public Multimap<String, Long> uuidsByEntryPoint = newHashSetMultiMap();
-    public Multimap<String, Long> uuidsByLanguage = newHashSetMultiMap();
-    public Map<String, Multimap<String, Long>> uuidsByPluginVersion = Maps.newHashMap();
-    public Multimap<String, Long> uuidsByVersion = newHashSetMultiMap();
-    public Multimap<String, Long> uuidsByCountry = newHashSetMultiMap();
-    public Multimap<String, Long> uuidsByOs = newHashSetMultiMap();
-    public Multimap<String, Long> uuidsByJavaVersion = newHashSetMultiMap();
-    public Set<Long> uuidsByDay = Sets.newHashSet();
-    public Set<String> ipsByDay = Sets.newHashSet();
+    public Map<String, HyperLogLog> uuidsByPlugin = Maps.newHashMap();
+    public Map<String, HyperLogLog> uuidsByAppName = Maps.newHashMap();
+    public Map<String, HyperLogLog> uuidsByEntryPoint = Maps.newHashMap();
+    public Map<String, HyperLogLog> uuidsByLanguage = Maps.newHashMap();
+    public Map<String, Map<String, HyperLogLog>> uuidsByPluginVersion = Maps.newHashMap();
+    public Map<String, HyperLogLog> uuidsByVersion = Maps.newHashMap();
+    public Map<String, HyperLogLog> uuidsByCountry = Maps.newHashMap();
+    public Map<String, HyperLogLog> uuidsByOs = Maps.newHashMap();
+    public Map<String, HyperLogLog> uuidsByJavaVersion = Maps.newHashMap();
+    public HyperLogLog uuidsByDay = new HyperLogLog();
+    public HyperLogLog ipsByDay = new HyperLogLog();
 
     public UsageDataConsolidator(PersistenceHelper persistenceHelper) {
         this.persistenceHelper = persistenceHelper;
     }
 
-    private static <K,V> SetMultimap<K, V> newHashSetMultiMap() {
-        return Multimaps.newSetMultimap(Maps.<K, Collection<V>>newHashMap(),
-                new Supplier<Set<V>>() {
-                    public Set<V> get() {
-                        return Sets.newHashSet();
-                    }
-                });
+    private static HyperLogLog sketch(Map<String, HyperLogLog> map, String key) {
+        HyperLogLog sketch = map.get(key);
+        if (sketch == null) {
+            sketch = new HyperLogLog();
+            map.put(key, sketch);
+        }
+        return sketch;
     }
 
     private DbUsageSummary createSummaryEntryWithValue(Date date, Date endDate, String category, String categoryKey, 
@@ -66,55 +59,14 @@ public class UsageDataConsolidator {
         return entry;
     }
 
-    private DbUsageSummary createSummaryEntryWithIps(Date date, Date endDate, String category, String categoryKey, 
-                                                     String categorySubkey, Collection<String> ipAddresses) {
-        DbUsageSummary entry = createSummaryEntryWithValue(date, endDate, category, categoryKey, categorySubkey, ipAddresses.size());
-        if (endDate != null)
-            entry.setBlob(createIpBlob(ipAddresses));
-        return entry;
-    }
-
-    private DbUsageSummary createSummaryEntryWithUuids(Date date, Date endDate, String category, String categoryKey, 
-                                                       String categorySubkey, Collection<Long> uuids) {
-        DbUsageSummary entry = createSummaryEntryWithValue(date,endDate,category,categoryKey,categorySubkey,uuids.size());
-        if (endDate != null)
-            entry.setBlob(createUuidBlob(uuids));
+    private DbUsageSummary createSummaryEntryWithSketch(Date date, Date endDate, String category, String categoryKey,
+                                                        String categorySubkey, HyperLogLog sketch) {
+        DbUsageSummary entry = createSummaryEntryWithValue(date, endDate, category, categoryKey, categorySubkey,
+                sketch.estimate());
+        entry.setBlob(sketch.toBytes());
         return entry;
     }
 
-    @SuppressWarnings("ConstantConditions")
-    private byte[] createIpBlob(Collection<String> ips) {
-        byte[] out = new byte[ips.size()*4];
-        int count = 0;
-        for (String ip : ips) {
-            try {
-                System.arraycopy(InetAddress.getByName(ip).getAddress(), 0, out, count, 4);
-            } catch (Throwable e) {
-                LOGGER.log(Level.WARNING, "Error parsing IP address " + ip, e);
-            }
-            count += 4;
-        }
-        return out;
-    }
-
-    private byte[] createUuidBlob(Collection<Long> uuids) {
-        long[] data = new long[uuids.size()];
-        int count = 0;
-        for (Long uuid : uuids) {
-            data[count++] = uuid;
-        }
-        ByteArrayOutputStream out = new ByteArrayOutputStream((int) (data.length * 1.5));
-        try {
-            ObjectOutputStream stream = new ObjectOutputStream(out);
-            stream.writeObject(data);
-            stream.close();
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Error while writing " + uuids.size() +" UUID's", e);
-            return null;
-        }
-        return out.toByteArray();
-    }
-
     public void process(Query query, List<DbUsageEntry> entries) {
         int count = 0;
         for (DbUsageEntry entry : entries) {
@@ -122,109 +74,102 @@ public class UsageDataConsolidator {
                 AbstractFlybushServlet.LOGGER.info("Processed " + count);
             }
             String uuidStr = entry.getUuid();
-            Long uuid = Long.parseLong(uuidStr, 16);
+            long uuid = Long.parseLong(uuidStr, 16);
             uuidsByDay.add(uuid);
-            ipsByDay.add(entry.getIpAddress());
+            String ip = entry.getIpAddress();
+            if (ip != null)
+                ipsByDay.add(ip);
             String pluginFqn = entry.getPlugin();
             boolean corePlugin = "edu.umd.cs.findbugs.plugins.core".equals(pluginFqn);
             if (!corePlugin && pluginFqn != null && !pluginFqn.equals("")) {
-                uuidsByPlugin.put(pluginFqn, uuid);
+                sketch(uuidsByPlugin, pluginFqn).add(uuid);
                 String pluginVersion = entry.getPluginVersion();
-                if (pluginVersion != null) {
-                    Multimap<String, Long> byPlugin = uuidsByPluginVersion.get(pluginFqn);
-                    if (byPlugin == null) {
-                        byPlugin = newHashSetMultiMap();
-                        uuidsByPluginVersion.put(pluginFqn, byPlugin);
-                    }
-                    byPlugin.put(pluginVersion, uuid);
-                }
+                if (pluginVersion != null)
+                    sketch(pluginVersions(pluginFqn), pluginVersion).add(uuid);
             }
-            uuidsByVersion.put(entry.getVersion(), uuid);
+            sketch(uuidsByVersion, entry.getVersion()).add(uuid);
             String country = entry.getCountry();
             if (country != null)
-                uuidsByCountry.put(country.toLowerCase(), uuid);
+                sketch(uuidsByCountry, country.toLowerCase()).add(uuid);
             String language = entry.getLanguage();
             if (language != null)
-                uuidsByLanguage.put(language.toLowerCase(), uuid);
-            uuidsByOs.put(entry.getOs(), uuid);
-            uuidsByJavaVersion.put(entry.getJavaVersion(), uuid);
-            uuidsByAppName.put(entry.getAppName(), uuid);
-            uuidsByEntryPoint.put(entry.getEntryPoint(), uuid);
+                sketch(uuidsByLanguage, language.toLowerCase()).add(uuid);
+            sketch(uuidsByOs, entry.getOs()).add(uuid);
+            sketch(uuidsByJavaVersion, entry.getJavaVersion()).add(uuid);
+            sketch(uuidsByAppName, entry.getAppName()).add(uuid);
+            sketch(uuidsByEntryPoint, entry.getEntryPoint()).add(uuid);
         }
 
         query.closeAll();
     }
 
-    public void processSummaries(Query vquery, List<DbUsageSummary> entries) {
-        for (DbUsageSummary summary : entries) {
-            if (summary.getEndDate() == null)
-                continue;
-            String categoryKey = summary.getCategoryKey();
-            if (summary.getCategory().equals("users"))
-                uuidsByDay.addAll(decodeUuidBlob(summary.getBlob()));
-
-            if (summary.getCategory().equals("ips"))
-                ipsByDay.addAll(decodeIpBlob(summary.getBlob()));
-
-            if (summary.getCategory().equals("version"))
-                uuidsByVersion.putAll(categoryKey, decodeUuidBlob(summary.getBlob()));
-            if (summary.getCategory().equals("plugin"))
-                uuidsByPlugin.putAll(categoryKey, decodeUuidBlob(summary.getBlob()));
-            if (summary.getCategory().equals("country"))
-                uuidsByCountry.putAll(categoryKey, decodeUuidBlob(summary.getBlob()));
-            if (summary.getCategory().equals("language"))
-                uuidsByLanguage.putAll(categoryKey, decodeUuidBlob(summary.getBlob()));
-            if (summary.getCategory().equals("javaVersion"))
-                uuidsByJavaVersion.putAll(categoryKey, decodeUuidBlob(summary.getBlob()));
-            if (summary.getCategory().equals("os"))
-                uuidsByOs.putAll(categoryKey, decodeUuidBlob(summary.getBlob()));
-            if (summary.getCategory().equals("appName"))
-                uuidsByAppName.putAll(categoryKey, decodeUuidBlob(summary.getBlob()));
-            if (summary.getCategory().equals("entryPoint"))
-                uuidsByEntryPoint.putAll(categoryKey, decodeUuidBlob(summary.getBlob()));
-
+    private Map<String, HyperLogLog> pluginVersions(String pluginFqn) {
+        Map<String, HyperLogLog> byPlugin = uuidsByPluginVersion.get(pluginFqn);
+        if (byPlugin == null) {
+            byPlugin = Maps.newHashMap();
+            uuidsByPluginVersion.put(pluginFqn, byPlugin);
         }
-        vquery.closeAll();
+        return byPlugin;
     }
 
-    @SuppressWarnings("ConstantConditions")
-    private Collection<String> decodeIpBlob(byte[] blob) {
-        Collection<String> list = Lists.newArrayList();
-        for (int i = 0; i < blob.length; i += 4) {
-            byte[] addr = new byte[4];
-            System.arraycopy(blob, i, addr, 0, 4);
-            try {
-                String hostAddress = InetAddress.getByAddress(addr).getHostAddress();
-                list.add(hostAddress);
-            } catch (Exception e) {
-                // skip
-                LOGGER.log(Level.WARNING, "Error decoding IP address", e);
-            }
+    /**
+     * Merges summaries of shorter periods into this consolidator, such as the
+     * two-hour summaries of a day, or the daily summaries of a month.
+     */
+    public void processSummaries(Query vquery, List<DbUsageSummary> entries) {
+        int skipped = 0;
+        for (DbUsageSummary summary : entries) {
+            if (!merge(summary))
+                skipped++;
         }
-        return list;
+        vquery.closeAll();
+        if (skipped > 0)
+            LOGGER.warning("Skipped " + skipped + " summaries without usage sketch");
     }
 
-    private List<Long> decodeUuidBlob(byte[] blob) {
-        List<Long> list = Lists.newArrayList();
-        ObjectInputStream stream;
-        try {
-            stream = new ObjectInputStream(new ByteArrayInputStream(blob));
-            long[] longs = (long[]) stream.readObject();
-            for (long l : longs) {
-                list.add(l);
-            }
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error decoding blob", e);
-        }
-        return list;
+    /**
+     * @return false if the summary holds no usage sketch, such as summaries
+     *         written by older versions of the consolidator
+     */
+    public boolean merge(DbUsageSummary summary) {
+        String category = summary.getCategory();
+        if (category.equals("consolidation-data-version"))
+            return true;
+        HyperLogLog sketch = HyperLogLog.fromBytes(summary.getBlob());
+        if (sketch == null)
+            return false;
+        String categoryKey = summary.getCategoryKey();
+        if (category.equals("users"))
+            uuidsByDay.merge(sketch);
+        else if (category.equals("ips"))
+            ipsByDay.merge(sketch);
+        else if (category.equals("version"))
+            sketch(uuidsByVersion, categoryKey).merge(sketch);
+        else if (category.equals("plugin"))
+            sketch(uuidsByPlugin, categoryKey).merge(sketch);
+        else if (category.equals("pluginVersion"))
+            sketch(pluginVersions(categoryKey), summary.getCategorySubkey()).merge(sketch);
+        else if (category.equals("country"))
+            sketch(uuidsByCountry, categoryKey).merge(sketch);
+        else if (category.equals("language"))
+            sketch(uuidsByLanguage, categoryKey).merge(sketch);
+        else if (category.equals("javaVersion"))
+            sketch(uuidsByJavaVersion, categoryKey).merge(sketch);
+        else if (category.equals("os"))
+            sketch(uuidsByOs, categoryKey).merge(sketch);
+        else if (category.equals("appName"))
+            sketch(uuidsByAppName, categoryKey).merge(sketch);
+        else if (category.equals("entryPoint"))
+            sketch(uuidsByEntryPoint, categoryKey).merge(sketch);
+        return true;
     }
 
     public Set<DbUsageSummary> createSummaryEntries(Date date, Date endDate) {
         Set<DbUsageSummary> list = Sets.newHashSet();
 
-        list.add(createSummaryEntryWithIps(date, endDate, "ips", null, null, ipsByDay));
+        list.add(createSummaryEntryWithSketch(date, endDate, "ips", null, null, ipsByDay));
 
-        list.add(createSummaryEntryWithUuids(date, endDate, "users", null, null, uuidsByDay));
+        list.add(createSummaryEntryWithSketch(date, endDate, "users", null, null, uuidsByDay));
 
         createSummaries(date, endDate, list, "version", uuidsByVersion);
         createSummaries(date, endDate, list, "plugin", uuidsByPlugin);
@@ -236,9 +181,9 @@ public class UsageDataConsolidator {
         createSummaries(date, endDate, list, "os", uuidsByOs);
         createSummaries(date, endDate, list, "javaVersion", uuidsByJavaVersion);
 
-        for (Map.Entry<String, Multimap<String, Long>> pentry : uuidsByPluginVersion.entrySet()) {
-            for (Map.Entry<String, Collection<Long>> ventry : pentry.getValue().asMap().entrySet()) {
-                list.add(createSummaryEntryWithUuids(date, endDate, "pluginVersion", pentry.getKey(),
+        for (Map.Entry<String, Map<String, HyperLogLog>> pentry : uuidsByPluginVersion.entrySet()) {
+            for (Map.Entry<String, HyperLogLog> ventry : pentry.getValue().entrySet()) {
+                list.add(createSummaryEntryWithSketch(date, endDate, "pluginVersion", pentry.getKey(),
                         ventry.getKey(), ventry.getValue()));
             }
         }
@@ -249,9 +194,9 @@ public class UsageDataConsolidator {
     }
 
     private void createSummaries(Date date, Date endDate, Set<DbUsageSummary> list, String category,
-                                     Multimap<String, Long> map) {
-        for (Map.Entry<String, Collection<Long>> entry : map.asMap().entrySet()) {
-            list.add(createSummaryEntryWithUuids(date, endDate, category, entry.getKey(), null, entry.getValue()));
+                                     Map<String, HyperLogLog> map) {
+        for (Map.Entry<String, HyperLogLog> entry : map.entrySet()) {
+            list.add(createSummaryEntryWithSketch(date, endDate, category, entry.getKey(), null, entry.getValue()));
         }
     }
 }
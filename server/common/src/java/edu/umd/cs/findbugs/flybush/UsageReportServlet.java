@@ -102,7 +102,9 @@ public class UsageReportServlet extends AbstractFlybushServlet {
         Map<String, Integer> uuidsByLanguage = Maps.newHashMap();
         Map<String, Integer> uuidsByJavaVersion = Maps.newHashMap();
         Map<String, Integer> uuidsByOs = Maps.newHashMap();
+        UsageDataConsolidator pastMonth = new UsageDataConsolidator(persistenceHelper);
         for (DbUsageSummary summary : summaries) {
+            pastMonth.merge(summary);
             long time = summary.getDate().getTime();
             int value = summary.getValue();
             if (summary.getCategory().equals("users"))
@@ -159,6 +161,9 @@ public class UsageReportServlet extends AbstractFlybushServlet {
         resp.getOutputStream().print("<div align=center style='font-size:large; font-weight:bold'>" +
                 "<a href='/stats'>Evaluations</a> - Usage Stats</div>");
         showChartImg(resp, usersByVersionPerDay, true);
+        page.println("<div align=center>Unique users in the past four weeks: " + pastMonth.uuidsByDay.estimate()
+                + " (" + pastMonth.ipsByDay.estimate() + " IP addresses) - all time: " + getAllTimeUsers(pm)
+                + "</div>");
 //        page.println("<br><br>");
 //        showChartImg(resp, ipsByVersionPerDay, true);
 
@@ -204,6 +209,26 @@ public class UsageReportServlet extends AbstractFlybushServlet {
         squery.closeAll();
     }
 
+    /**
+     * Merges the user sketches of all daily summaries. A sketch takes at most
+     * a few kilobytes, no matter how many users were seen on that day.
+     */
+    private int getAllTimeUsers(PersistenceManager pm) {
+        Query query = pm.newQuery("select from " + persistenceHelper.getDbUsageSummaryClassname()
+                + " where category == 'users' && endDate == null");
+        query.addExtension("javax.persistence.query.chunkSize", 200);
+        @SuppressWarnings("unchecked")
+        List<DbUsageSummary> days = (List<DbUsageSummary>) query.execute();
+        HyperLogLog users = new HyperLogLog();
+        for (DbUsageSummary day : days) {
+            HyperLogLog sketch = HyperLogLog.fromBytes(day.getBlob());
+            if (sketch != null)
+                users.merge(sketch);
+        }
+        query.closeAll();
+        return users.estimate();
+    }
+
     private void getTodayUsage(PersistenceManager pm, SortedSet<DbUsageSummary> summaries) {
         LOGGER.info("Getting today's usage");
         //TODO: re-enable!
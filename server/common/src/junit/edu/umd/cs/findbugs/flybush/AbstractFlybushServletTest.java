@@ -50,6 +50,12 @@ public abstract class AbstractFlybushServletTest extends TestCase {
 
     protected FlybushServletTestHelper testHelper;
 
+    /**
+     * given to every servlet created, like the cache of a web application
+     * with the issueCacheSize parameter set; null if caching is disabled
+     */
+    protected IssueCache issueCache;
+
     @Override
     protected void setUp() throws Exception {
         super.setUp();
@@ -78,6 +84,7 @@ public abstract class AbstractFlybushServletTest extends TestCase {
 
         servlet = createServlet();
         servlet.setPersistenceHelper(persistenceHelper);
+        servlet.setIssueCache(issueCache);
         mockRequest = Mockito.mock(HttpServletRequest.class);
         mockResponse = Mockito.mock(HttpServletResponse.class);
         outputCollector = new ByteArrayOutputStream();
@@ -0,0 +1,54 @@
+package edu.umd.cs.findbugs.flybush;
+
+import junit.framework.TestCase;
+
+public class HyperLogLogTest extends TestCase {
+
+    public void testSmallSetsAreCountedAlmostExactly() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long i = 0; i < 100; i++) {
+            sketch.add(i);
+            sketch.add(i);
+        }
+        assertEquals(100, sketch.estimate(), 2);
+    }
+
+    public void testLargeSetEstimate() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long i = 0; i < 100000; i++) {
+            sketch.add(i);
+        }
+        assertEquals(100000, sketch.estimate(), 100000 * 0.07);
+    }
+
+    public void testMergeEstimatesUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 20000; i++) {
+            first.add("10.0." + (i / 256) + "." + (i % 256));
+        }
+        for (int i = 10000; i < 30000; i++) {
+            second.add("10.0." + (i / 256) + "." + (i % 256));
+        }
+        first.merge(second);
+        assertEquals(30000, first.estimate(), 30000 * 0.07);
+    }
+
+    public void testRoundTrip() {
+        HyperLogLog sparse = new HyperLogLog();
+        HyperLogLog dense = new HyperLogLog();
+        for (long i = 0; i < 50000; i++) {
+            if (i < 10)
+                sparse.add(i);
+            dense.add(i);
+        }
+        assertTrue(sparse.toBytes().length < 100);
+        assertEquals(sparse.estimate(), HyperLogLog.fromBytes(sparse.toBytes()).estimate());
+        assertEquals(dense.estimate(), HyperLogLog.fromBytes(dense.toBytes()).estimate());
+    }
+
+    public void testUnknownFormat() {
+        assertNull(HyperLogLog.fromBytes(null));
+        assertNull(HyperLogLog.fromBytes(new byte[] { (byte) 0xac, (byte) 0xed, 0, 5 }));
+    }
+}
@@ -1,12 +1,19 @@
 package edu.umd.cs.findbugs.flybush;
 
 import static edu.umd.cs.findbugs.cloud.appEngine.protobuf.WebCloudProtoUtil.encodeHashes;
+import static edu.umd.cs.findbugs.cloud.appEngine.protobuf.WebCloudProtoUtil.normalizeHash;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+import javax.servlet.ServletContext;
+
+import org.mockito.Mockito;
+
+import com.google.common.collect.Sets;
+
 import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.Evaluation;
 import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.FindIssues;
 import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.FindIssuesResponse;
@@ -196,6 +203,81 @@ public abstract class QueryServletTest extends AbstractFlybushServletTest {
         assertEquals(0, result.getIssuesCount());
     }
 
+    public void testFindIssuesServedFromCache() throws Exception {
+        issueCache = new IssueCache(100, 60 * 1000);
+        initServletAndMocks();
+        DbIssue foundIssue = createDbIssue("fad1");
+        getPersistenceManager().makePersistent(foundIssue);
+
+        FindIssuesResponse result = findIssues("fad1", "fad2");
+        checkTerseIssue(result.getFoundIssues(0));
+        checkIssueEmpty(result.getFoundIssues(1));
+        // issues missing from the database are not cached
+        assertEquals(1, issueCache.size());
+
+        // changed behind the servlets' back, so only seen when not cached
+        foundIssue.setBugLink("http://other.link");
+        getPersistenceManager().makePersistent(foundIssue);
+        getPersistenceManager().makePersistent(createDbIssue("fad2"));
+
+        initServletAndMocks();
+        result = findIssues("fad1", "fad2");
+        assertEquals(2, result.getFoundIssuesCount());
+        assertEquals("http://bug.link", result.getFoundIssues(0).getBugLink());
+        checkTerseIssue(result.getFoundIssues(1));
+        assertEquals(2, issueCache.size());
+    }
+
+    public void testFindIssuesCacheExpires() throws Exception {
+        issueCache = new IssueCache(100, 1);
+        initServletAndMocks();
+        DbIssue foundIssue = createDbIssue("fad1");
+        getPersistenceManager().makePersistent(foundIssue);
+        findIssues("fad1");
+        assertEquals(1, issueCache.size());
+
+        foundIssue.setBugLink("http://other.link");
+        getPersistenceManager().makePersistent(foundIssue);
+        Thread.sleep(10);
+
+        initServletAndMocks();
+        FindIssuesResponse result = findIssues("fad1");
+        assertEquals("http://other.link", result.getFoundIssues(0).getBugLink());
+    }
+
+    public void testIssueCacheEvictsLeastRecentlyUsed() throws Exception {
+        issueCache = new IssueCache(2, 60 * 1000);
+        initServletAndMocks();
+        getPersistenceManager().makePersistentAll(createDbIssue("fad1"), createDbIssue("fad2"), createDbIssue("fad3"));
+        findIssues("fad1", "fad2");
+        initServletAndMocks();
+        findIssues("fad1");
+        initServletAndMocks();
+        findIssues("fad3");
+
+        assertEquals(2, issueCache.size());
+        assertEquals(Sets.newHashSet(normalizeHash("fad1"), normalizeHash("fad3")),
+                issueCache.getAll(Arrays.asList(normalizeHash("fad1"), normalizeHash("fad2"), normalizeHash("fad3")))
+                        .keySet());
+    }
+
+    public void testIssueCacheSizeParameter() throws Exception {
+        ServletContext context = Mockito.mock(ServletContext.class);
+        assertNull(IssueCache.getInstance(context));
+
+        Mockito.when(context.getInitParameter(IssueCache.SIZE_PARAM)).thenReturn("0");
+        assertNull(IssueCache.getInstance(context));
+
+        Mockito.when(context.getInitParameter(IssueCache.SIZE_PARAM)).thenReturn("100");
+        IssueCache cache = IssueCache.getInstance(context);
+        assertNotNull(cache);
+        Mockito.verify(context).setAttribute(IssueCache.class.getName(), cache);
+
+        // the servlets of the application share the cache
+        Mockito.when(context.getAttribute(IssueCache.class.getName())).thenReturn(cache);
+        assertSame(cache, IssueCache.getInstance(context));
+    }
+
     // ========================= end of tests ================================
 
     private FindIssuesResponse findIssues(String... hashes) throws IOException {
@@ -16,6 +16,7 @@ import com.google.common.collect.Sets;
 
 import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.Evaluation;
 import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.FindIssues;
+import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.FindIssuesResponse;
 import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.Issue;
 import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.LogIn;
 import edu.umd.cs.findbugs.cloud.appEngine.protobuf.ProtoClasses.SetBugLink;
@@ -566,6 +567,57 @@ public abstract class UpdateServletTest extends AbstractFlybushServletTest {
         }
     }
 
+    public void testUploadEvaluationInvalidatesCachedIssue() throws Exception {
+        issueCache = new IssueCache(100, 60 * 1000);
+        createCloudSession(555);
+        getPersistenceManager().makePersistent(createDbIssue("fad"));
+        assertEquals(0, findIssuesWithQueryServlet("fad").getFoundIssues(0).getEvaluationsCount());
+        assertEquals(1, issueCache.size());
+
+        initServletAndMocks();
+        executePost("/upload-evaluation", UploadEvaluation.newBuilder().setSessionId(555).setHash(encodeHash("fad"))
+                .setEvaluation(createProtoEvaluation()).build().toByteArray());
+        checkResponse(200);
+        assertEquals(0, issueCache.size());
+
+        Issue found = findIssuesWithQueryServlet("fad").getFoundIssues(0);
+        assertEquals(1, found.getEvaluationsCount());
+        assertEquals("my comment", found.getEvaluations(0).getComment());
+    }
+
+    public void testSetBugLinkInvalidatesCachedIssue() throws Exception {
+        issueCache = new IssueCache(100, 60 * 1000);
+        createCloudSession(555);
+        uploadIssue("fad");
+        assertFalse(findIssuesWithQueryServlet("fad").getFoundIssues(0).hasBugLink());
+        assertEquals(1, issueCache.size());
+
+        setBugLink("fad", "GOOGLE_CODE", "http://my.bug/123");
+        assertEquals(0, issueCache.size());
+        assertEquals("http://my.bug/123", findIssuesWithQueryServlet("fad").getFoundIssues(0).getBugLink());
+    }
+
+    public void testUpdateIssueTimestampsInvalidatesCachedIssues() throws Exception {
+        issueCache = new IssueCache(100, 60 * 1000);
+        createCloudSession(555);
+        getPersistenceManager().makePersistentAll(createDbIssue("fad1"), createDbIssue("fad2"));
+        findIssuesWithQueryServlet("fad1", "fad2");
+        assertEquals(2, issueCache.size());
+
+        initServletAndMocks();
+        UpdateIssueTimestamps tsCmd = UpdateIssueTimestamps.newBuilder().setSessionId(555)
+                .addIssueGroups(IssueGroup.newBuilder().setTimestamp(SAMPLE_TIMESTAMP + 50)
+                        .addIssueHashes(encodeHash("fad1")).build()).build();
+        executePost("/update-issue-timestamps", tsCmd.toByteArray());
+        checkResponse(200);
+        // only the changed issue is dropped
+        assertEquals(1, issueCache.size());
+
+        FindIssuesResponse result = findIssuesWithQueryServlet("fad1", "fad2");
+        assertEquals(SAMPLE_TIMESTAMP + 50, result.getFoundIssues(0).getFirstSeen());
+        assertEquals(SAMPLE_TIMESTAMP + 100, result.getFoundIssues(1).getFirstSeen());
+    }
+
     // ========================= end of tests ================================
 
     @SuppressWarnings({ "unchecked" })
@@ -630,6 +682,19 @@ public abstract class UpdateServletTest extends AbstractFlybushServletTest {
         assertNull(dbIssues.get(0).getBugLink());
     }
 
+    private FindIssuesResponse findIssuesWithQueryServlet(String... hashes) throws IOException, ServletException {
+        QueryServlet queryServlet = new QueryServlet();
+        queryServlet.setPersistenceHelper(persistenceHelper);
+        queryServlet.setIssueCache(issueCache);
+        initServletAndMocks();
+        FindIssues.Builder findIssues = FindIssues.newBuilder();
+        for (String hash : hashes)
+            findIssues.addMyIssueHashes(encodeHash(hash));
+        executePost(queryServlet, "/find-issues", findIssues.build().toByteArray());
+        checkResponse(200);
+        return FindIssuesResponse.parseFrom(outputCollector.toByteArray());
+    }
+
     private Evaluation createProtoEvaluation() {
         return Evaluation.newBuilder().setDesignation("MUST_FIX").setComment("my comment").setWhen(100).build();
     }